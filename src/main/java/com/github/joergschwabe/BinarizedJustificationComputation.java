@@ -22,8 +22,6 @@ package com.github.joergschwabe;
  * #L%
  */
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 
 import org.liveontologies.puli.Inference;
@@ -34,11 +32,13 @@ import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 import org.liveontologies.puli.statistics.NestedStats;
 
+import com.github.joergschwabe.proofs.adapters.HashConsedBinarizedProof;
 import com.github.joergschwabe.proofs.adapters.Proofs;
 
 /**
  * Provided justification computation applied to the binarization of the input
- * proof.
+ * proof, in which the lists of conclusions are represented by hash-consed
+ * integer identifiers, see {@link HashConsedBinarizedProof}.
  * 
  * @author Yevgeny Kazakov
  *
@@ -52,40 +52,42 @@ import com.github.joergschwabe.proofs.adapters.Proofs;
 public class BinarizedJustificationComputation<C, I extends Inference<? extends C>, A>
 		extends MinimalSubsetsFromProofs<C, I, A> {
 
-	private final MinimalSubsetEnumerator.Factory<List<C>, A> enumeratorFactory_;
+	private final HashConsedBinarizedProof<C, I, A> binarized_;
+
+	private final MinimalSubsetEnumerator.Factory<Integer, A> enumeratorFactory_;
 
 	BinarizedJustificationComputation(
-			final MinimalSubsetsFromProofs.Factory<List<C>, Inference<List<C>>, A> mainFactory,
+			final MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, A> mainFactory,
 			final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 			final InterruptMonitor monitor) {
 		super(proof, justifier, monitor);
-		enumeratorFactory_ = mainFactory.create(Proofs.<C, I> binarize(proof),
-				Proofs.<C, I, A> binarize(justifier), monitor);
+		binarized_ = Proofs.binarizeHashConsed(proof, justifier);
+		enumeratorFactory_ = mainFactory.create(binarized_,
+				binarized_.getJustifier(), monitor);
 	}
 
 	@Override
 	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
-		return enumeratorFactory_
-				.newEnumerator(Collections.singletonList(query));
+		return enumeratorFactory_.newEnumerator(binarized_.getId(query));
 	}
 
 	@NestedStats
-	public MinimalSubsetEnumerator.Factory<List<C>, A> getDelegate() {
+	public MinimalSubsetEnumerator.Factory<Integer, A> getDelegate() {
 		return enumeratorFactory_;
 	}
 
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
-			final MinimalSubsetsFromProofs.Factory<List<C>, Inference<List<C>>, A> mainFactory) {
+			final MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, A> mainFactory) {
 		return new Factory<C, I, A>(mainFactory);
 	}
 
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
-		private final MinimalSubsetsFromProofs.Factory<List<C>, Inference<List<C>>, A> mainFactory_;
+		private final MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, A> mainFactory_;
 
-		Factory(MinimalSubsetsFromProofs.Factory<List<C>, Inference<List<C>>, A> mainFactory) {
+		Factory(MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, A> mainFactory) {
 			this.mainFactory_ = mainFactory;
 		}
 
@@ -22,14 +22,23 @@ package com.github.joergschwabe;
  * #L%
  */
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.InferenceJustifier;
@@ -47,16 +56,49 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
-
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Computes justifications by propagating them bottom-up over inferences in
+ * the order of their priorities. In the parallel mode, the justifications
+ * with the same priority are added to their conclusions by one thread, which
+ * also reports them to the listener, and then propagated over inferences by
+ * several threads; the shared collections are only modified between the
+ * rounds of propagation, so they do not need to be synchronized.
+ * <p>
+ * The memory used by the justifications of conclusions can be bounded: when
+ * the budget is exceeded, the justifications of the conclusions that are the
+ * farthest from the goal conclusion are written to a temporary file, which
+ * makes the computation slower but prevents it from running out of memory.
+ * <p>
+ * If a {@link JustificationCache} is used, all justifications of the goal
+ * conclusion are saved in it when they are computed; the cached
+ * justifications of a conclusion are used instead of propagating
+ * justifications over the inferences deriving the conclusion.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
 public class BottomUpJustificationComputation<C, I extends Inference<? extends C>, A>
-		extends MinimalSubsetsFromProofs<C, I, A> {
+		extends MinimalSubsetsFromProofs<C, I, A> implements Closeable {
 
 	private static final Logger LOGGER_ = LoggerFactory
 			.getLogger(BottomUpJustificationComputation.class);
 
-	private static final BottomUpJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+	/**
+	 * the value of the memory budget meaning that the memory is not bounded
+	 */
+	public static final long NO_MEMORY_BUDGET = JustificationStore.NO_BUDGET;
+
+	private static final BottomUpJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>(
+			1, null, NO_MEMORY_BUDGET);
 
 	/**
 	 * conclusions for which computation of justifications has been initialized
@@ -64,39 +106,61 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 	private final Set<C> initialized_ = new HashSet<>();
 
 	/**
-	 * a map from conclusions to their justifications
+	 * a map from premises to inferences for relevant conclusions
 	 */
-	private final ListMultimap<C, Justification<C, A>> justifications_ = ArrayListMultimap
+	private final Multimap<C, I> inferencesByPremises_ = ArrayListMultimap
 			.create();
 
 	/**
-	 * justifications blocked from propagation because they are not needed for
-	 * computing justifications for the goal conclusion
+	 * assigns the identifiers to the axioms in the justifications
 	 */
-	private final ListMultimap<C, Justification<C, A>> blockedJustifications_ = ArrayListMultimap
-			.create();
+	private final IdProvider<A> axiomIds_ = new IdProvider<>(new IdSupplier());
 
 	/**
-	 * a map from premises to inferences for relevant conclusions
+	 * the justifications of conclusions and the justifications blocked from
+	 * propagation because they are not needed for computing justifications
+	 * for the goal conclusion
 	 */
-	private final Multimap<C, I> inferencesByPremises_ = ArrayListMultimap
-			.create();
+	private final JustificationStore<C, A> justifications_;
+
+	/**
+	 * the number of threads propagating justifications
+	 */
+	private final int nThreads_;
+
+	/**
+	 * the cache for the justifications of the goal conclusions or
+	 * {@code null} if they are not cached
+	 */
+	private final JustificationCache cache_;
+
+	/**
+	 * conclusions whose justifications are taken from {@link #cache_}, so
+	 * their inferences are not used
+	 */
+	private final Set<C> cached_ = new HashSet<>();
 
 	// Statistics
 
 	private int countInferences_ = 0, countConclusions_ = 0,
-			countJustificationCandidates_ = 0;
+			countJustificationCandidates_ = 0, countParallelRounds_ = 0,
+			countCacheHits_ = 0, countCacheMisses_ = 0;
 
 	private BottomUpJustificationComputation(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor, final int nThreads,
+			final JustificationCache cache, final long memoryBudget) {
 		super(proof, justifier, monitor);
+		this.nThreads_ = nThreads;
+		this.cache_ = cache;
+		this.justifications_ = new JustificationStore<>(axiomIds_,
+				memoryBudget);
 	}
 
 	private void reset() {
 		initialized_.clear();
+		cached_.clear();
 		justifications_.clear();
-		blockedJustifications_.clear();
 	}
 
 	@Override
@@ -104,6 +168,15 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		return new JustificationEnumerator(query);
 	}
 
+	/**
+	 * Forgets the computed justifications and deletes the temporary file to
+	 * which they were written if the memory budget was exceeded
+	 */
+	@Override
+	public void close() {
+		reset();
+	}
+
 	@Stat
 	public int nProcessedInferences() {
 		return countInferences_;
@@ -119,6 +192,21 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		return countJustificationCandidates_;
 	}
 
+	@Stat
+	public int nParallelRounds() {
+		return countParallelRounds_;
+	}
+
+	@Stat
+	public int nCacheHits() {
+		return countCacheHits_;
+	}
+
+	@Stat
+	public int nCacheMisses() {
+		return countCacheMisses_;
+	}
+
 	@Stat
 	public int nJustificationsOfAllConclusions() {
 		return justifications_.size();
@@ -126,20 +214,37 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 
 	@Stat
 	public int nBlockedJustifications() {
-		return blockedJustifications_.size();
+		return justifications_.nBlocked();
 	}
 
 	@Stat
 	public int maxNJustificationsOfAConclusion() {
-		int max = 0;
-		for (final C conclusion : justifications_.keySet()) {
-			final List<Justification<C, A>> justs = justifications_
-					.get(conclusion);
-			if (justs.size() > max) {
-				max = justs.size();
-			}
-		}
-		return max;
+		return justifications_.maxSize();
+	}
+
+	@Stat
+	public int nSpilledLists() {
+		return justifications_.nSpilledLists();
+	}
+
+	@Stat
+	public int nSpilledJustifications() {
+		return justifications_.nSpilledJustifications();
+	}
+
+	@Stat
+	public long nSpilledBytes() {
+		return justifications_.nSpilledBytes();
+	}
+
+	@Stat
+	public int nReloadedLists() {
+		return justifications_.nReloadedLists();
+	}
+
+	@Stat
+	public int nSpillFileCompactions() {
+		return justifications_.nCompactions();
 	}
 
 	@ResetStats
@@ -147,11 +252,15 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		countInferences_ = 0;
 		countConclusions_ = 0;
 		countJustificationCandidates_ = 0;
+		countParallelRounds_ = 0;
+		countCacheHits_ = 0;
+		countCacheMisses_ = 0;
+		justifications_.resetStats();
 	}
 
 	@NestedStats
 	public static Class<?> getNestedStats() {
-		return BloomSet.class;
+		return IdJustification.class;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -159,10 +268,139 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		return (Factory<C, I, A>) FACTORY_;
 	}
 
-	@SafeVarargs
-	private static <C, A> Justification<C, A> createJustification(C conclusion,
-			Collection<? extends A>... collections) {
-		return new BloomSet<C, A>(conclusion, collections);
+	/**
+	 * @param nThreads
+	 *            the number of threads propagating justifications; if it is
+	 *            {@code 1}, the justifications are propagated by the thread
+	 *            calling the enumerator
+	 * @return the factory for the computations that propagate the
+	 *         justifications with the same priority using the given number
+	 *         of threads
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int nThreads) {
+		return getFactory(nThreads, null);
+	}
+
+	/**
+	 * @param nThreads
+	 *            the number of threads propagating justifications
+	 * @param cache
+	 *            the cache for the justifications of the goal conclusions or
+	 *            {@code null} if they should not be cached; it can be shared
+	 *            by several computations
+	 * @return the factory for the computations that use the given number of
+	 *         threads and the given cache
+	 * @see #getFactory(int)
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int nThreads, final JustificationCache cache) {
+		return getFactory(nThreads, cache, NO_MEMORY_BUDGET);
+	}
+
+	/**
+	 * @param nThreads
+	 *            the number of threads propagating justifications
+	 * @param cache
+	 *            the cache for the justifications of the goal conclusions or
+	 *            {@code null} if they should not be cached
+	 * @param memoryBudget
+	 *            the maximal total number of axioms and justifications of
+	 *            conclusions kept in memory or {@link #NO_MEMORY_BUDGET}; when
+	 *            it is exceeded, the justifications of the conclusions that
+	 *            are the farthest from the goal conclusion are written to a
+	 *            temporary file and read again when needed
+	 * @return the factory for the computations that use the given number of
+	 *         threads, the given cache, and the given memory budget
+	 * @see #getFactory(int, JustificationCache)
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int nThreads, final JustificationCache cache,
+			final long memoryBudget) {
+		Preconditions.checkArgument(nThreads > 0);
+		Preconditions.checkArgument(memoryBudget >= 0);
+		return new Factory<>(nThreads, cache, memoryBudget);
+	}
+
+	private Justification<C, A> createJustification(C conclusion,
+			Collection<? extends A> axioms) {
+		return IdJustification.create(axiomIds_, conclusion, axioms);
+	}
+
+	/**
+	 * Computes the fingerprints of the proofs of the conclusions used for
+	 * deriving the given conclusion for {@link #cache_}; the fingerprint of
+	 * the proof of a conclusion is obtained from the fingerprints of the
+	 * inferences in its strongly connected component and the fingerprints of
+	 * the proofs of the premises from other components, so every inference
+	 * is fingerprinted only once
+	 * 
+	 * @param conclusion
+	 * @param proofs
+	 *            the fingerprints of the proofs are added here by their
+	 *            conclusions
+	 * @param axioms
+	 *            the axioms used by the inferences are added here by their
+	 *            fingerprints
+	 */
+	private void fingerprintProofs(final C conclusion,
+			final Map<C, Long> proofs, final Map<Long, A> axioms) {
+		final StronglyConnectedComponents<C> components = StronglyConnectedComponentsComputation
+				.computeComponents(getProof(), conclusion);
+		final List<List<C>> componentList = components.getComponents();
+		// the components are in the topological order, so the components of
+		// premises are fingerprinted first
+		final long[] componentFingerprints = new long[componentList.size()];
+		final Map<C, Long> fingerprints = new HashMap<>();
+		final Set<Integer> premiseComponents = new HashSet<>();
+		for (int id = 0; id < componentFingerprints.length; id++) {
+			final List<C> component = componentList.get(id);
+			long inferenceFingerprints = 0, premiseFingerprints = 0;
+			premiseComponents.clear();
+			for (final C next : component) {
+				for (final I inf : getInferences(next)) {
+					final List<? extends C> premises = inf.getPremises();
+					final long[] fingerprintsOfPremises = new long[premises
+							.size()];
+					for (int i = 0; i < fingerprintsOfPremises.length; i++) {
+						final C premise = premises.get(i);
+						fingerprintsOfPremises[i] = fingerprint(premise,
+								fingerprints);
+						final int premiseComponent = components
+								.getComponentId(premise);
+						if (premiseComponent != id
+								&& premiseComponents.add(premiseComponent)) {
+							premiseFingerprints += componentFingerprints[premiseComponent];
+						}
+					}
+					long axiomFingerprints = 0;
+					for (final A axiom : getJustification(inf)) {
+						final long fingerprint = JustificationCache
+								.fingerprint(axiom);
+						axioms.put(fingerprint, axiom);
+						axiomFingerprints += fingerprint;
+					}
+					inferenceFingerprints += JustificationCache.fingerprint(
+							fingerprint(next, fingerprints),
+							fingerprintsOfPremises, axiomFingerprints);
+				}
+			}
+			componentFingerprints[id] = JustificationCache
+					.fingerprint(inferenceFingerprints, premiseFingerprints);
+			for (final C next : component) {
+				proofs.put(next, componentFingerprints[id]);
+			}
+		}
+	}
+
+	private static <C> long fingerprint(final C conclusion,
+			final Map<C, Long> fingerprints) {
+		Long result = fingerprints.get(conclusion);
+		if (result == null) {
+			result = JustificationCache.fingerprint(conclusion);
+			fingerprints.put(conclusion, result);
+		}
+		return result;
 	}
 
 	/**
@@ -183,6 +421,14 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		 */
 		private final Set<C> relevant_ = new HashSet<>();
 
+		/**
+		 * the distances of the relevant conclusions from the conclusion for
+		 * which the justifications are computed in the number of inferences;
+		 * the justifications of the farthest conclusions are written to the
+		 * file first if the memory budget is exceeded
+		 */
+		private final Map<C, Integer> distances_ = new HashMap<>();
+
 		/**
 		 * temporary queue to compute {@link #relevant_}
 		 */
@@ -195,17 +441,30 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 
 		/**
 		 * the justifications will be returned here, they come in increasing
-		 * size order
+		 * size order; obtained from {@link #justifications_} for every
+		 * enumeration since it can be cleared by other enumerators
 		 */
-		private final List<? extends Set<A>> result_;
+		private Collection<? extends Set<A>> result_;
 
 		private Listener<A> listener_ = null;
 
 		private JobFactory<C, A, ?> jobFactory_;
 
+		/**
+		 * the fingerprints of the proofs of the relevant conclusions for
+		 * {@link #cache_}, computed when they are needed for the first time
+		 * during the enumeration
+		 */
+		private final Map<C, Long> proofFingerprints_ = new HashMap<>();
+
+		/**
+		 * the axioms used in the proofs fingerprinted in
+		 * {@link #proofFingerprints_} by their fingerprints
+		 */
+		private final Map<Long, A> axiomsByFingerprints_ = new HashMap<>();
+
 		JustificationEnumerator(C conclusion) {
 			this.conclusion_ = conclusion;
-			this.result_ = justifications_.get(conclusion);
 		}
 
 		@Override
@@ -235,9 +494,24 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 
 			this.toDoJustifications_ = new PriorityQueue<JobFactory<C, A, ?>.Job>();
 
-			toDo(conclusion_);
-			initialize();
-			process();
+			justifications_.setDistances(distances_);
+			justifications_.pin(conclusion_);
+			// the justifications are loaded in the index
+			this.result_ = justifications_.getIndex(conclusion_);
+			try {
+				toDo(conclusion_, 0);
+				initialize();
+				process();
+
+				if (cache_ != null && !cached_.contains(conclusion_)
+						&& !isInterrupted()) {
+					saveToCache();
+				}
+			} finally {
+				justifications_.unpin(conclusion_);
+				proofFingerprints_.clear();
+				axiomsByFingerprints_.clear();
+			}
 
 			this.listener_ = null;
 		}
@@ -252,17 +526,27 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 			C conclusion;
 			while ((conclusion = toDo_.poll()) != null) {
 
+				if (!initialized_.contains(conclusion)
+						&& loadFromCache(conclusion)) {
+					continue;
+				}
+				if (cached_.contains(conclusion)) {
+					unblock(conclusion);
+					continue;
+				}
+
 				final Collection<? extends I> infs = getInferences(conclusion);
 				if (infs.isEmpty()) {
 					LOGGER_.warn("{}: lemma not derived!", conclusion);
 				}
 
+				final int premiseDistance = distances_.get(conclusion) + 1;
 				for (final I inf : infs) {
 					LOGGER_.trace("{}: new inference", inf);
 					countInferences_++;
 					for (final C premise : inf.getPremises()) {
 						inferencesByPremises_.put(premise, inf);
-						toDo(premise);
+						toDo(premise, premiseDistance);
 					}
 				}
 
@@ -286,23 +570,113 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 					}
 				} else {
 					// conclusion has already been initialized.
-					final List<Justification<C, A>> blocked = blockedJustifications_
-							.get(conclusion);
-					for (final Justification<C, A> just : blocked) {
-						LOGGER_.trace("unblocked {}", just);
-						// Don't produce, blocked justs were already produced.
-						toDoJustifications_.add(jobFactory_.newJob(just));
+					unblock(conclusion);
+				}
+
+			}
+
+		}
+
+		private void unblock(final C conclusion) {
+			for (final Justification<C, A> just : justifications_
+					.unblock(conclusion)) {
+				LOGGER_.trace("unblocked {}", just);
+				// Don't produce, blocked justs were already produced.
+				toDoJustifications_.add(jobFactory_.newJob(just));
+			}
+		}
+
+		/**
+		 * Produces the justifications of the given conclusion saved in
+		 * {@link #cache_} for the same proof, if there are any
+		 * 
+		 * @param conclusion
+		 * @return {@code true} if the justifications were found in the cache
+		 */
+		private boolean loadFromCache(final C conclusion) {
+			if (cache_ == null) {
+				return false;
+			}
+			// else
+			final long fingerprint = JustificationCache.fingerprint(conclusion);
+			if (!cache_.mayContain(fingerprint)) {
+				countCacheMisses_++;
+				return false;
+			}
+			// else
+			final long[][] cached = cache_.get(fingerprint,
+					getProofFingerprint(conclusion));
+			if (cached == null) {
+				countCacheMisses_++;
+				return false;
+			}
+			// else
+			final List<Justification<C, A>> justs = new ArrayList<>(
+					cached.length);
+			for (final long[] axiomFingerprints : cached) {
+				final List<A> just = new ArrayList<>(axiomFingerprints.length);
+				for (final long axiomFingerprint : axiomFingerprints) {
+					final A axiom = axiomsByFingerprints_
+							.get(axiomFingerprint);
+					if (axiom == null) {
+						countCacheMisses_++;
+						return false;
 					}
-					blocked.clear();
+					just.add(axiom);
 				}
+				justs.add(createJustification(conclusion, just));
+			}
+			countCacheHits_++;
+			LOGGER_.trace("{}: justifications loaded from cache", conclusion);
+			initialized_.add(conclusion);
+			cached_.add(conclusion);
+			for (final Justification<C, A> just : justs) {
+				produce(just);
+			}
+			return true;
+		}
 
+		/**
+		 * Saves all justifications of the goal conclusion in
+		 * {@link #cache_}; should be called when they are computed
+		 */
+		private void saveToCache() {
+			final List<Justification<C, A>> justs = justifications_
+					.get(conclusion_);
+			final long[][] cached = new long[justs.size()][];
+			for (int i = 0; i < cached.length; i++) {
+				final Justification<C, A> just = justs.get(i);
+				final long[] axiomFingerprints = new long[just.size()];
+				int pos = 0;
+				for (final A axiom : just) {
+					axiomFingerprints[pos++] = JustificationCache
+							.fingerprint(axiom);
+				}
+				cached[i] = axiomFingerprints;
 			}
+			cache_.put(JustificationCache.fingerprint(conclusion_),
+					getProofFingerprint(conclusion_), cached);
+		}
 
+		/**
+		 * @param conclusion
+		 *            a relevant conclusion
+		 * @return the fingerprint of the proof of the given conclusion; the
+		 *         proofs of all relevant conclusions are fingerprinted on the
+		 *         first call
+		 */
+		private long getProofFingerprint(final C conclusion) {
+			if (proofFingerprints_.isEmpty()) {
+				fingerprintProofs(conclusion_, proofFingerprints_,
+						axiomsByFingerprints_);
+			}
+			return proofFingerprints_.get(conclusion);
 		}
 
-		private void toDo(C conclusion) {
+		private void toDo(C conclusion, int distance) {
 			if (relevant_.add(conclusion)) {
 				countConclusions_++;
+				distances_.put(conclusion, distance);
 				toDo_.add(conclusion);
 			}
 		}
@@ -311,71 +685,249 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 		 * process new justifications until the fixpoint
 		 */
 		private void process() {
+			if (nThreads_ > 1) {
+				processInParallel();
+				return;
+			}
+			// else
+			final List<Justification<C, A>> produced = new ArrayList<>();
 			JobFactory<C, A, ?>.Job job;
 			while ((job = toDoJustifications_.poll()) != null) {
-				final Justification<C, A> just = job.justification;
 				if (isInterrupted()) {
 					return;
 				}
-
-				C conclusion = just.getConclusion();
-				if (!relevant_.contains(conclusion)) {
-					blockedJustifications_.put(conclusion, just);
-					LOGGER_.trace("blocked {}", just);
-					continue;
-				}
-				List<Justification<C, A>> justs = justifications_
-						.get(conclusion);
-				if (!Utils.isMinimal(just, justs)) {
-					continue;
-				}
-				if (!Utils.isMinimal(just, result_)) {
-					blockedJustifications_.put(conclusion, just);
-					LOGGER_.trace("blocked {}", just);
+				justifications_.checkBudget();
+				final Justification<C, A> just = job.justification;
+				if (!accept(just)) {
 					continue;
 				}
 				// else
-				justs.add(just);
-				LOGGER_.trace("new {}", just);
-				if (conclusion_.equals(conclusion) && listener_ != null) {
-					listener_.newMinimalSubset(just);
+				propagate(just, getSteps(just.getConclusion()), produced);
+				for (final Justification<C, A> conclJust : produced) {
+					produce(conclJust);
 				}
+				produced.clear();
+			}
+		}
 
-				if (just.isEmpty()) {
-					// all justifications are computed,
-					// the inferences are not needed anymore
-					for (final I inf : getInferences(conclusion)) {
-						for (C premise : inf.getPremises()) {
-							inferencesByPremises_.remove(premise, inf);
+		/**
+		 * process new justifications until the fixpoint in rounds: the
+		 * justifications with the same priority are accepted and then
+		 * propagated in parallel; this does not change the order of
+		 * priorities since the propagated justifications cannot have smaller
+		 * priorities
+		 */
+		private void processInParallel() {
+			final ExecutorService executor = Executors
+					.newFixedThreadPool(nThreads_);
+			try {
+				final List<Justification<C, A>> accepted = new ArrayList<>();
+				JobFactory<C, A, ?>.Job job;
+				while ((job = toDoJustifications_.poll()) != null) {
+					if (isInterrupted()) {
+						return;
+					}
+					justifications_.checkBudget();
+					for (;;) {
+						final Justification<C, A> just = job.justification;
+						if (accept(just)) {
+							accepted.add(just);
+						}
+						final JobFactory<C, A, ?>.Job next = toDoJustifications_
+								.peek();
+						if (next == null || !next.hasSamePriority(job)) {
+							break;
+						}
+						// else
+						job = toDoJustifications_.poll();
+					}
+					for (final List<Justification<C, A>> produced : propagate(
+							accepted, executor)) {
+						for (final Justification<C, A> conclJust : produced) {
+							produce(conclJust);
 						}
 					}
+					accepted.clear();
 				}
+			} finally {
+				executor.shutdown();
+			}
+		}
 
-				/*
-				 * propagating justification over inferences
-				 */
-				for (final I inf : inferencesByPremises_.get(conclusion)) {
+		/**
+		 * Adds the given justification to the justifications of its
+		 * conclusion unless it is not minimal or it is blocked
+		 * 
+		 * @param just
+		 * @return {@code true} if the justification was added and should be
+		 *         propagated
+		 */
+		private boolean accept(final Justification<C, A> just) {
+			C conclusion = just.getConclusion();
+			if (!relevant_.contains(conclusion)) {
+				justifications_.block(conclusion, just);
+				LOGGER_.trace("blocked {}", just);
+				return false;
+			}
+			SubsetIndex<Justification<C, A>> justsIndex = justifications_
+					.getIndex(conclusion);
+			if (!justsIndex.isMinimal(just)) {
+				return false;
+			}
+			if (!Utils.isMinimal(just, result_)) {
+				justifications_.block(conclusion, just);
+				LOGGER_.trace("blocked {}", just);
+				return false;
+			}
+			// else
+			justifications_.add(conclusion, just);
+			LOGGER_.trace("new {}", just);
+			if (conclusion_.equals(conclusion) && listener_ != null) {
+				listener_.newMinimalSubset(just);
+			}
 
-					Collection<Justification<C, A>> conclusionJusts = new ArrayList<>();
-					Justification<C, A> conclusionJust = just
-							.copyTo(inf.getConclusion())
-							.addElements(getJustification(inf));
-					conclusionJusts.add(conclusionJust);
-					for (final C premise : inf.getPremises()) {
-						if (!premise.equals(conclusion)) {
-							conclusionJusts = Utils.join(conclusionJusts,
-									justifications_.get(premise));
-						}
+			if (just.isEmpty()) {
+				// all justifications are computed,
+				// the inferences are not needed anymore
+				for (final I inf : getInferences(conclusion)) {
+					for (C premise : inf.getPremises()) {
+						inferencesByPremises_.remove(premise, inf);
 					}
+				}
+			}
+			return true;
+		}
 
-					for (Justification<C, A> conclJust : conclusionJusts) {
-						produce(conclJust);
-					}
+		/**
+		 * @param premise
+		 * @return the steps for the inferences having the given premise
+		 */
+		private List<Step<C, A>> getSteps(final C premise) {
+			final Collection<I> infs = inferencesByPremises_.get(premise);
+			final List<Step<C, A>> steps = new ArrayList<>(infs.size());
+			for (final I inf : infs) {
+				steps.add(new Step<C, A>(inf.getConclusion(),
+						new ArrayList<C>(inf.getPremises()),
+						getJustification(inf)));
+			}
+			return steps;
+		}
 
+		/**
+		 * Propagates the given justification over the given steps without
+		 * modifying the shared collections
+		 * 
+		 * @param just
+		 * @param steps
+		 *            the steps for the inferences having the conclusion of the
+		 *            justification as a premise
+		 * @param produced
+		 *            the justifications for the conclusions of the steps are
+		 *            added here
+		 */
+		private void propagate(final Justification<C, A> just,
+				final List<Step<C, A>> steps,
+				final List<Justification<C, A>> produced) {
+			final C conclusion = just.getConclusion();
+			for (final Step<C, A> step : steps) {
+
+				Collection<Justification<C, A>> conclusionJusts = new ArrayList<>();
+				Justification<C, A> conclusionJust = just
+						.copyTo(step.conclusion)
+						.addElements(step.justification);
+				conclusionJusts.add(conclusionJust);
+				for (final C premise : step.premises) {
+					if (!premise.equals(conclusion)) {
+						conclusionJusts = Utils.join(conclusionJusts,
+								justifications_.get(premise));
+					}
 				}
+				produced.addAll(conclusionJusts);
 
 			}
+		}
 
+		/**
+		 * Propagates the given justifications over inferences in parallel
+		 * 
+		 * @param justs
+		 * @param executor
+		 * @return the lists of justifications produced from each of the given
+		 *         justifications, in the same order
+		 */
+		private List<List<Justification<C, A>>> propagate(
+				final List<Justification<C, A>> justs,
+				final ExecutorService executor) {
+			final List<List<Justification<C, A>>> result = new ArrayList<>(
+					justs.size());
+			// the steps are collected, the identifiers are assigned and the
+			// justifications of premises are loaded before the propagation
+			// since the workers cannot access the proof and the justifier and
+			// can only read the justifications
+			final List<List<Step<C, A>>> steps = new ArrayList<>(justs.size());
+			for (final Justification<C, A> just : justs) {
+				result.add(new ArrayList<Justification<C, A>>());
+				final List<Step<C, A>> justSteps = getSteps(
+						just.getConclusion());
+				for (final Step<C, A> step : justSteps) {
+					for (final A axiom : step.justification) {
+						axiomIds_.getId(axiom);
+					}
+					for (final C premise : step.premises) {
+						justifications_.get(premise);
+					}
+				}
+				steps.add(justSteps);
+			}
+			final int nWorkers = Math.min(nThreads_, justs.size());
+			if (nWorkers < 2) {
+				for (int i = 0; i < justs.size(); i++) {
+					propagate(justs.get(i), steps.get(i), result.get(i));
+				}
+				return result;
+			}
+			// else
+			countParallelRounds_++;
+			final AtomicInteger next = new AtomicInteger();
+			final List<Future<Void>> futures = new ArrayList<>(nWorkers);
+			for (int w = 0; w < nWorkers; w++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						int i;
+						while ((i = next.getAndIncrement()) < justs.size()) {
+							if (isInterrupted()) {
+								break;
+							}
+							propagate(justs.get(i), steps.get(i),
+									result.get(i));
+						}
+						return null;
+					}
+				}));
+			}
+			Throwable failure = null;
+			for (final Future<Void> future : futures) {
+				// the workers should be finished before the collections are
+				// modified again
+				try {
+					Uninterruptibles.getUninterruptibly(future);
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				}
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if (failure != null) {
+				throw new RuntimeException(failure);
+			}
+			return result;
 		}
 
 		private void produce(final Justification<C, A> justification) {
@@ -385,6 +937,23 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 
 	}
 
+	private static class Step<C, A> {
+
+		final C conclusion;
+
+		final List<? extends C> premises;
+
+		final Set<? extends A> justification;
+
+		Step(final C conclusion, final List<? extends C> premises,
+				final Set<? extends A> justification) {
+			this.conclusion = conclusion;
+			this.premises = premises;
+			this.justification = justification;
+		}
+
+	}
+
 	private static class JobFactory<C, A, P> {
 
 		private final PriorityComparator<? super Set<A>, P> priorityComparator_;
@@ -428,6 +997,13 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 						other.justification.getConclusion().hashCode());
 			}
 
+			public boolean hasSamePriority(final JobFactory<C, A, ?>.Job other) {
+				@SuppressWarnings("unchecked")
+				final P otherPriority = (P) other.priority_;
+				return priorityComparator_.compare(priority_,
+						otherPriority) == 0;
+			}
+
 		}
 
 	}
@@ -445,13 +1021,26 @@ public class BottomUpJustificationComputation<C, I extends Inference<? extends C
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final int nThreads_;
+
+		private final JustificationCache cache_;
+
+		private final long memoryBudget_;
+
+		Factory(final int nThreads, final JustificationCache cache,
+				final long memoryBudget) {
+			this.nThreads_ = nThreads;
+			this.cache_ = cache;
+			this.memoryBudget_ = memoryBudget;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
 			return new BottomUpJustificationComputation<>(proof, justifier,
-					monitor);
+					monitor, nThreads_, cache_, memoryBudget_);
 		}
 
 	}
@@ -0,0 +1,701 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.AbstractMinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Computes justifications by decomposing the proof into its strongly
+ * connected components, which are processed in the topological order given
+ * by {@link StronglyConnectedComponentsComputation}: the justifications of
+ * the conclusions in a component are computed from the justifications of the
+ * conclusions in the components below it. For a component consisting of one
+ * conclusion, the justifications are obtained by joining the justifications
+ * of the premises of its inferences. For a component with a cycle, the
+ * justifications are computed by the delegate computation for a local proof
+ * that consists of the inferences of the component, in which the premises
+ * from the lower components are replaced by atoms added to the
+ * justifications of the inferences; every atom in the resulting sets is then
+ * replaced by the justifications of its conclusion.
+ * <p>
+ * The components are grouped in levels: a component is on the level one
+ * higher than the components of the premises of its inferences. The
+ * components on the same level are independent, so they can be processed in
+ * parallel by several threads. The justifications of conclusions are kept
+ * for the later queries.
+ * <p>
+ * The justifications are reported only after all of them are computed, in
+ * the order of their priorities; if the computation is interrupted, no
+ * justifications are reported since the justifications computed so far may
+ * be not minimal.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class DecompositionJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(DecompositionJustificationComputation.class);
+
+	/**
+	 * computes the justifications for the local proofs of components with
+	 * cycles
+	 */
+	private final MinimalSubsetsFromProofs.Factory<C, Inference<C>, Object> delegate_;
+
+	/**
+	 * the number of threads processing independent components
+	 */
+	private final int nThreads_;
+
+	/**
+	 * assigns the identifiers to the axioms in the justifications; all axioms
+	 * get their identifiers before the components are processed, so the
+	 * threads only read them
+	 */
+	private final IdProvider<A> axiomIds_ = new IdProvider<>(new IdSupplier());
+
+	/**
+	 * all justifications of the conclusions of the processed components
+	 */
+	private final Map<C, List<Justification<C, A>>> justifications_ = new HashMap<>();
+
+	// Statistics
+
+	private int countComponents_ = 0, countCyclicComponents_ = 0,
+			maxComponentSize_ = 0, countLevels_ = 0, countParallelLevels_ = 0;
+
+	private DecompositionJustificationComputation(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor,
+			final MinimalSubsetsFromProofs.Factory<C, Inference<C>, Object> delegate,
+			final int nThreads) {
+		super(proof, justifier, monitor);
+		this.delegate_ = delegate;
+		this.nThreads_ = nThreads;
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		return new JustificationEnumerator(query);
+	}
+
+	@Stat
+	public int nProcessedComponents() {
+		return countComponents_;
+	}
+
+	@Stat
+	public int nCyclicComponents() {
+		return countCyclicComponents_;
+	}
+
+	@Stat
+	public int maxComponentSize() {
+		return maxComponentSize_;
+	}
+
+	@Stat
+	public int nLevels() {
+		return countLevels_;
+	}
+
+	@Stat
+	public int nParallelLevels() {
+		return countParallelLevels_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countComponents_ = 0;
+		countCyclicComponents_ = 0;
+		maxComponentSize_ = 0;
+		countLevels_ = 0;
+		countParallelLevels_ = 0;
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return IdJustification.class;
+	}
+
+	/**
+	 * @param delegate
+	 *            the factory for the computations of justifications in the
+	 *            components with cycles; the axioms of the local proofs are
+	 *            the axioms of the original proof and the atoms representing
+	 *            the conclusions of lower components
+	 * @param nThreads
+	 *            the number of threads processing independent components
+	 * @return the factory for the computations that use the given delegate
+	 *         and number of threads
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final MinimalSubsetsFromProofs.Factory<C, Inference<C>, Object> delegate,
+			final int nThreads) {
+		Preconditions.checkNotNull(delegate);
+		Preconditions.checkArgument(nThreads >= 1);
+		return new Factory<>(delegate, nThreads);
+	}
+
+	/**
+	 * An inference of the original proof with the justification of the
+	 * inference as an identifier-based {@link Justification} of its
+	 * conclusion; the inferences are collected before the components are
+	 * processed, so the threads do not access the proof and the justifier
+	 */
+	private static class Step<C, A> {
+
+		final List<? extends C> premises;
+
+		final Justification<C, A> justification;
+
+		Step(final List<? extends C> premises,
+				final Justification<C, A> justification) {
+			this.premises = premises;
+			this.justification = justification;
+		}
+
+	}
+
+	/**
+	 * The atom representing a conclusion from a lower component in the local
+	 * proof of a component
+	 */
+	private static class ConclusionAtom<C> {
+
+		final C conclusion;
+
+		ConclusionAtom(final C conclusion) {
+			this.conclusion = conclusion;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof ConclusionAtom<?>
+					&& conclusion.equals(((ConclusionAtom<?>) o).conclusion);
+		}
+
+		@Override
+		public int hashCode() {
+			return ConclusionAtom.class.hashCode() + conclusion.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[" + conclusion + "]";
+		}
+
+	}
+
+	/**
+	 * An inference of the local proof of a component; its premises are the
+	 * premises of the original inference in the component
+	 */
+	private static class LocalInference<C> implements Inference<C> {
+
+		private final C conclusion_;
+
+		private final List<C> premises_;
+
+		/**
+		 * the axioms of the original inference and the atoms for its premises
+		 * in lower components
+		 */
+		final Set<Object> justification;
+
+		LocalInference(final C conclusion, final List<C> premises,
+				final Set<Object> justification) {
+			this.conclusion_ = conclusion;
+			this.premises_ = premises;
+			this.justification = justification;
+		}
+
+		@Override
+		public String getName() {
+			return getClass().getSimpleName();
+		}
+
+		@Override
+		public C getConclusion() {
+			return conclusion_;
+		}
+
+		@Override
+		public List<? extends C> getPremises() {
+			return premises_;
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this);
+		}
+
+	}
+
+	private static final InferenceJustifier<Inference<?>, Set<Object>> LOCAL_JUSTIFIER_ = new InferenceJustifier<Inference<?>, Set<Object>>() {
+
+		@Override
+		public Set<Object> getJustification(final Inference<?> inference) {
+			return ((LocalInference<?>) inference).justification;
+		}
+
+	};
+
+	/**
+	 * Computes the justifications of the goal conclusion by processing the
+	 * components from which it is derived
+	 *
+	 * @author Yevgeny Kazakov
+	 */
+	private class JustificationEnumerator
+			extends AbstractMinimalSubsetEnumerator<A> {
+
+		private final C conclusion_;
+
+		/**
+		 * the inferences of the conclusions in the unprocessed components
+		 */
+		private final Map<C, List<Step<C, A>>> steps_ = new HashMap<>();
+
+		/**
+		 * the conclusions in the unprocessed components that are used
+		 * outside of their components, i.e., the goal conclusion and the
+		 * premises of inferences of other components
+		 */
+		private final Set<C> needed_ = new HashSet<>();
+
+		JustificationEnumerator(final C conclusion) {
+			this.conclusion_ = conclusion;
+		}
+
+		@Override
+		public void enumerate(final Listener<A> listener,
+				final PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			if (!justifications_.containsKey(conclusion_)) {
+				compute();
+				steps_.clear();
+				needed_.clear();
+			}
+			final List<Justification<C, A>> result = justifications_
+					.get(conclusion_);
+			if (result == null) {
+				// interrupted
+				return;
+			}
+			// else
+			if (priorityComparator == null) {
+				for (final Justification<C, A> just : result) {
+					listener.newMinimalSubset(just);
+				}
+				return;
+			}
+			// else
+			final PriorityBuffer<A, ?> buffer = PriorityBuffer.create(listener,
+					priorityComparator);
+			for (final Justification<C, A> just : result) {
+				buffer.newMinimalSubset(just);
+			}
+			buffer.flush();
+		}
+
+		private void compute() {
+			final StronglyConnectedComponents<C> components = StronglyConnectedComponentsComputation
+					.computeComponents(getProof(), conclusion_);
+			final List<List<C>> all = components.getComponents();
+			// the conclusions used outside of their components
+			needed_.add(conclusion_);
+			for (int id = 0; id < all.size(); id++) {
+				for (final C conclusion : all.get(id)) {
+					for (final I inf : getInferences(conclusion)) {
+						for (final C premise : inf.getPremises()) {
+							if (components.getComponentId(premise) != id) {
+								needed_.add(premise);
+							}
+						}
+					}
+				}
+			}
+			/*
+			 * collect the inferences of the unprocessed components and group
+			 * the components in levels; the components come in the
+			 * topological order, so the levels of the components of premises
+			 * are known
+			 */
+			final int[] levels = new int[all.size()];
+			final List<List<List<C>>> byLevel = new ArrayList<>();
+			for (int id = 0; id < all.size(); id++) {
+				final List<C> component = all.get(id);
+				if (isProcessed(component)) {
+					// for a previous query
+					levels[id] = -1;
+					continue;
+				}
+				int level = 0;
+				for (final C conclusion : component) {
+					final List<Step<C, A>> steps = new ArrayList<>();
+					for (final I inf : getInferences(conclusion)) {
+						for (final C premise : inf.getPremises()) {
+							final int premiseId = components
+									.getComponentId(premise);
+							if (premiseId != id) {
+								level = Math.max(level, levels[premiseId] + 1);
+							}
+						}
+						steps.add(new Step<C, A>(inf.getPremises(),
+								IdJustification.create(axiomIds_, conclusion,
+										getJustification(inf))));
+					}
+					steps_.put(conclusion, steps);
+				}
+				levels[id] = level;
+				while (byLevel.size() <= level) {
+					byLevel.add(new ArrayList<List<C>>());
+				}
+				byLevel.get(level).add(component);
+			}
+			final ExecutorService executor = nThreads_ > 1
+					? Executors.newFixedThreadPool(nThreads_)
+					: null;
+			try {
+				for (final List<List<C>> level : byLevel) {
+					if (isInterrupted()) {
+						return;
+					}
+					countLevels_++;
+					for (final Map.Entry<C, List<Justification<C, A>>> entry : process(
+							level, executor).entrySet()) {
+						justifications_.put(entry.getKey(), entry.getValue());
+					}
+				}
+			} finally {
+				if (executor != null) {
+					executor.shutdown();
+				}
+			}
+		}
+
+		/**
+		 * @param component
+		 * @return {@code true} if the justifications of all conclusions in
+		 *         the given component that are used outside of it are
+		 *         computed
+		 */
+		private boolean isProcessed(final List<C> component) {
+			for (final C conclusion : component) {
+				if (needed_.contains(conclusion)
+						&& !justifications_.containsKey(conclusion)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Computes the justifications of the conclusions in the given
+		 * components, in parallel if there are several components and
+		 * threads
+		 *
+		 * @param components
+		 *            the components of the same level
+		 * @param executor
+		 * @return the justifications of the conclusions in the components
+		 */
+		private Map<C, List<Justification<C, A>>> process(
+				final List<List<C>> components,
+				final ExecutorService executor) {
+			final Map<C, List<Justification<C, A>>> result = new HashMap<>();
+			final List<Map<C, List<Justification<C, A>>>> results = new ArrayList<>(
+					components.size());
+			for (final List<C> component : components) {
+				countComponents_++;
+				maxComponentSize_ = Math.max(maxComponentSize_,
+						component.size());
+				if (component.size() > 1) {
+					countCyclicComponents_++;
+				}
+				results.add(new HashMap<C, List<Justification<C, A>>>());
+			}
+			final int nWorkers = executor == null ? 1
+					: Math.min(nThreads_, components.size());
+			if (nWorkers < 2) {
+				for (int i = 0; i < components.size(); i++) {
+					process(components.get(i), results.get(i));
+				}
+			} else {
+				countParallelLevels_++;
+				final AtomicInteger next = new AtomicInteger();
+				final List<Future<Void>> futures = new ArrayList<>(nWorkers);
+				for (int w = 0; w < nWorkers; w++) {
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							int i;
+							while ((i = next.getAndIncrement()) < components
+									.size()) {
+								if (isInterrupted()) {
+									break;
+								}
+								process(components.get(i), results.get(i));
+							}
+							return null;
+						}
+					}));
+				}
+				Throwable failure = null;
+				for (final Future<Void> future : futures) {
+					// the workers should be finished before the
+					// justifications are modified
+					try {
+						Uninterruptibles.getUninterruptibly(future);
+					} catch (ExecutionException e) {
+						if (failure == null) {
+							failure = e.getCause();
+						}
+					}
+				}
+				if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				if (failure instanceof Error) {
+					throw (Error) failure;
+				}
+				if (failure != null) {
+					throw new RuntimeException(failure);
+				}
+			}
+			if (isInterrupted()) {
+				// the results can be incomplete
+				return Collections.emptyMap();
+			}
+			// else
+			for (final Map<C, List<Justification<C, A>>> justs : results) {
+				result.putAll(justs);
+			}
+			return result;
+		}
+
+		/**
+		 * Computes the justifications of the conclusions in the given
+		 * component; only reads the justifications of the lower components
+		 *
+		 * @param component
+		 * @param result
+		 *            where the justifications are stored
+		 */
+		private void process(final List<C> component,
+				final Map<C, List<Justification<C, A>>> result) {
+			if (component.size() == 1) {
+				final C conclusion = component.get(0);
+				final SubsetIndex<Justification<C, A>> justs = new SubsetIndex<>();
+				for (final Step<C, A> step : steps_.get(conclusion)) {
+					if (step.premises.contains(conclusion)) {
+						// cannot be used in minimal justifications
+						continue;
+					}
+					join(Collections.singletonList(step.justification),
+							step.premises, justs);
+				}
+				result.put(conclusion, new ArrayList<>(justs));
+				return;
+			}
+			// else build the local proof
+			final Set<C> members = new HashSet<>(component);
+			final Map<C, List<Inference<C>>> localInferences = new HashMap<>();
+			for (final C conclusion : component) {
+				final List<Inference<C>> infs = new ArrayList<>();
+				for (final Step<C, A> step : steps_.get(conclusion)) {
+					final List<C> premises = new ArrayList<>();
+					final Set<Object> justification = new HashSet<Object>(
+							step.justification);
+					for (final C premise : step.premises) {
+						if (members.contains(premise)) {
+							premises.add(premise);
+						} else {
+							justification.add(new ConclusionAtom<C>(premise));
+						}
+					}
+					infs.add(new LocalInference<C>(conclusion, premises,
+							justification));
+				}
+				localInferences.put(conclusion, infs);
+			}
+			final Proof<Inference<C>> localProof = new Proof<Inference<C>>() {
+
+				@Override
+				public Collection<? extends Inference<C>> getInferences(
+						final Object conclusion) {
+					final List<Inference<C>> result = localInferences
+							.get(conclusion);
+					return result == null
+							? Collections.<Inference<C>> emptyList()
+							: result;
+				}
+
+			};
+			final MinimalSubsetEnumerator.Factory<C, Object> local = delegate_
+					.create(localProof, LOCAL_JUSTIFIER_,
+							getInterruptMonitor());
+			for (final C conclusion : component) {
+				if (!needed_.contains(conclusion)) {
+					continue;
+				}
+				// else
+				final SubsetIndex<Justification<C, A>> justs = new SubsetIndex<>();
+				final List<Set<Object>> localJusts = new ArrayList<>();
+				local.newEnumerator(conclusion).enumerate(
+						new MinimalSubsetEnumerator.Listener<Object>() {
+							@Override
+							public void newMinimalSubset(final Set<Object> set) {
+								localJusts.add(set);
+							}
+						});
+				for (final Set<Object> localJust : localJusts) {
+					final List<A> axioms = new ArrayList<>();
+					final List<C> premises = new ArrayList<>();
+					for (final Object atom : localJust) {
+						if (atom instanceof ConclusionAtom<?>) {
+							@SuppressWarnings("unchecked")
+							final C premise = ((ConclusionAtom<C>) atom).conclusion;
+							premises.add(premise);
+						} else {
+							@SuppressWarnings("unchecked")
+							final A axiom = (A) atom;
+							axioms.add(axiom);
+						}
+					}
+					join(Collections.<Justification<C, A>> singletonList(
+							IdJustification.create(axiomIds_, conclusion,
+									axioms)),
+							premises, justs);
+				}
+				LOGGER_.trace("{}: {} justifications from {} local", conclusion,
+						justs.size(), localJusts.size());
+				result.put(conclusion, new ArrayList<>(justs));
+			}
+		}
+
+		/**
+		 * Merges into the given result the unions of the given
+		 * justifications with the justifications of the given premises
+		 *
+		 * @param justs
+		 * @param premises
+		 *            the conclusions from the lower components
+		 * @param result
+		 */
+		private void join(List<Justification<C, A>> justs,
+				final List<? extends C> premises,
+				final SubsetIndex<Justification<C, A>> result) {
+			for (final C premise : premises) {
+				final List<Justification<C, A>> premiseJusts = justifications_
+						.get(premise);
+				justs = Utils.join(justs, premiseJusts == null
+						? Collections.<Justification<C, A>> emptyList()
+						: premiseJusts);
+				if (justs.isEmpty()) {
+					return;
+				}
+			}
+			for (final Justification<C, A> just : justs) {
+				result.merge(just);
+			}
+		}
+
+	}
+
+	/**
+	 * The factory for creating a {@link DecompositionJustificationComputation}
+	 *
+	 * @author Yevgeny Kazakov
+	 *
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 */
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		private final MinimalSubsetsFromProofs.Factory<C, Inference<C>, Object> delegate_;
+
+		private final int nThreads_;
+
+		Factory(final MinimalSubsetsFromProofs.Factory<C, Inference<C>, Object> delegate,
+				final int nThreads) {
+			this.delegate_ = delegate;
+			this.nThreads_ = nThreads;
+		}
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new DecompositionJustificationComputation<>(proof, justifier,
+					monitor, delegate_, nThreads_);
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.github.joergschwabe;
+
+/**
+ * A {@link Minimization.Property} of sets of axioms checked using a
+ * {@link HornDerivabilityChecker}: either that the goal is derivable
+ * when only the axioms in the set are used (the set contains a
+ * justification), or that the goal is not derivable when the axioms in the
+ * set are not used (the set contains a repair)
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+class DerivabilityProperty implements Minimization.Property {
+
+	private final HornDerivabilityChecker checker_;
+
+	private final int goal_;
+
+	/**
+	 * {@code true} if the set should contain a repair; {@code false} if it
+	 * should contain a justification
+	 */
+	private final boolean repair_;
+
+	DerivabilityProperty(HornDerivabilityChecker checker, int goal,
+			boolean repair) {
+		this.checker_ = checker;
+		this.goal_ = goal;
+		this.repair_ = repair;
+	}
+
+	/**
+	 * Makes the set empty: for justifications, all given axioms are not used,
+	 * for repairs they are all used
+	 *
+	 * @param axioms
+	 */
+	void clear(int[] axioms) {
+		for (int axiom : axioms) {
+			if (repair_) {
+				checker_.unblock(axiom);
+			} else {
+				checker_.block(axiom);
+			}
+		}
+	}
+
+	@Override
+	public void add(int axiom) {
+		if (repair_) {
+			checker_.block(axiom);
+		} else {
+			checker_.unblock(axiom);
+		}
+	}
+
+	@Override
+	public void remove(int axiom) {
+		if (repair_) {
+			checker_.unblock(axiom);
+		} else {
+			checker_.block(axiom);
+		}
+	}
+
+	@Override
+	public boolean holds() {
+		return checker_.isDerivable(goal_) != repair_;
+	}
+
+}
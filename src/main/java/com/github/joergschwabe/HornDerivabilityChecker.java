@@ -0,0 +1,311 @@
+package com.github.joergschwabe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceDerivabilityChecker;
+import org.liveontologies.puli.Proof;
+
+/**
+ * Checks derivability of integer conclusions using inferences in which some
+ * conclusions can be blocked, i.e., considered not derivable, like
+ * {@link InferenceDerivabilityChecker}. The inferences used in the proof of
+ * the given goal are compiled into integer arrays, and the set of derivable
+ * conclusions is maintained incrementally using counters of not derived
+ * premises of inferences (as in the LTUR algorithm for Horn clauses):
+ * unblocking a conclusion derives its consequences by forward chaining, and
+ * blocking a conclusion first retracts all its consequences and then derives
+ * again those that have other derivations (as in the DRed algorithm). Both
+ * operations take time proportional to the number of affected inferences and
+ * {@link #isDerivable(int)} takes constant time.
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+public class HornDerivabilityChecker {
+
+	/**
+	 * {@code index_[id] - 1} is the index of the conclusion with the given
+	 * identifier used in the arrays below, or {@code -1} if this conclusion is
+	 * not used in the proof of the goal
+	 */
+	private final int[] index_;
+
+	/**
+	 * the (indexes of) the conclusions of the inferences
+	 */
+	private final int[] conclusions_;
+
+	/**
+	 * the premises of inference {@code i} are stored in {@link #premises_}
+	 * from position {@code premisesStart_[i]} until position
+	 * {@code premisesStart_[i + 1]}
+	 */
+	private final int[] premisesStart_, premises_;
+
+	/**
+	 * the inferences deriving conclusion {@code c} are stored in
+	 * {@link #inferences_} from position {@code inferencesStart_[c]} until
+	 * position {@code inferencesStart_[c + 1]}
+	 */
+	private final int[] inferencesStart_, inferences_;
+
+	/**
+	 * the inferences having conclusion {@code c} as a premise (as many times
+	 * as it occurs in the premises) are stored in {@link #uses_} from position
+	 * {@code usesStart_[c]} until position {@code usesStart_[c + 1]}
+	 */
+	private final int[] usesStart_, uses_;
+
+	/**
+	 * {@code missing_[i]} is the number of premises of inference {@code i}
+	 * that are not derived
+	 */
+	private final int[] missing_;
+
+	private final boolean[] derived_, blocked_;
+
+	/**
+	 * the conclusions to be processed by the propagation
+	 */
+	private int[] toDo_;
+	private int toDoSize_ = 0;
+
+	/**
+	 * the conclusions that were retracted by the last call of
+	 * {@link #block(int)}
+	 */
+	private int[] retracted_;
+	private int retractedSize_ = 0;
+
+	/**
+	 * Creates a new checker for the inferences of the given proof that are
+	 * used to derive the given goal; initially no conclusion is blocked
+	 *
+	 * @param proof
+	 * @param goal
+	 */
+	public HornDerivabilityChecker(
+			Proof<? extends Inference<? extends Integer>> proof, int goal) {
+		// collect the conclusions and inferences used for the goal
+		List<Integer> ids = new ArrayList<>();
+		List<Inference<? extends Integer>> infs = new ArrayList<>();
+		int[] index = new int[goal + 1];
+		index[goal] = 1;
+		ids.add(goal);
+		int premiseCount = 0;
+		Queue<Integer> toDo = new ArrayDeque<>();
+		toDo.add(goal);
+		Integer next;
+		while ((next = toDo.poll()) != null) {
+			for (Inference<? extends Integer> inf : proof
+					.getInferences(next)) {
+				infs.add(inf);
+				for (int premise : inf.getPremises()) {
+					premiseCount++;
+					if (premise >= index.length) {
+						index = Arrays.copyOf(index,
+								Math.max(premise + 1, index.length << 1));
+					}
+					if (index[premise] == 0) {
+						ids.add(premise);
+						index[premise] = ids.size();
+						toDo.add(premise);
+					}
+				}
+			}
+		}
+		this.index_ = index;
+		int conclusionCount = ids.size();
+		int inferenceCount = infs.size();
+		this.conclusions_ = new int[inferenceCount];
+		this.premisesStart_ = new int[inferenceCount + 1];
+		this.premises_ = new int[premiseCount];
+		this.missing_ = new int[inferenceCount];
+		this.inferencesStart_ = new int[conclusionCount + 1];
+		this.usesStart_ = new int[conclusionCount + 1];
+		int pos = 0;
+		for (int i = 0; i < inferenceCount; i++) {
+			Inference<? extends Integer> inf = infs.get(i);
+			int conclusion = index_[inf.getConclusion()] - 1;
+			conclusions_[i] = conclusion;
+			inferencesStart_[conclusion + 1]++;
+			premisesStart_[i] = pos;
+			for (int premise : inf.getPremises()) {
+				premise = index_[premise] - 1;
+				premises_[pos++] = premise;
+				usesStart_[premise + 1]++;
+			}
+			missing_[i] = pos - premisesStart_[i];
+		}
+		premisesStart_[inferenceCount] = pos;
+		// prefix sums for the start positions
+		for (int c = 0; c < conclusionCount; c++) {
+			inferencesStart_[c + 1] += inferencesStart_[c];
+			usesStart_[c + 1] += usesStart_[c];
+		}
+		this.inferences_ = new int[inferenceCount];
+		this.uses_ = new int[premiseCount];
+		int[] inferencesPos = Arrays.copyOf(inferencesStart_,
+				conclusionCount);
+		int[] usesPos = Arrays.copyOf(usesStart_, conclusionCount);
+		for (int i = 0; i < inferenceCount; i++) {
+			inferences_[inferencesPos[conclusions_[i]]++] = i;
+			for (int p = premisesStart_[i]; p < premisesStart_[i + 1]; p++) {
+				uses_[usesPos[premises_[p]]++] = i;
+			}
+		}
+		this.derived_ = new boolean[conclusionCount];
+		this.blocked_ = new boolean[conclusionCount];
+		this.toDo_ = new int[16];
+		this.retracted_ = new int[16];
+		// derive everything from the inferences without premises
+		for (int i = 0; i < inferenceCount; i++) {
+			if (missing_[i] == 0 && !derived_[conclusions_[i]]) {
+				derive(conclusions_[i]);
+			}
+		}
+		propagate();
+	}
+
+	private int getIndex(int id) {
+		return id >= 0 && id < index_.length ? index_[id] - 1 : -1;
+	}
+
+	/**
+	 * @param conclusion
+	 *            the identifier of a conclusion
+	 * @return {@code true} if the conclusion is derivable using inferences in
+	 *         the proof of the goal without using blocked conclusions;
+	 *         conclusions not used in the proof of the goal are not derivable
+	 */
+	public boolean isDerivable(int conclusion) {
+		int c = getIndex(conclusion);
+		return c >= 0 && derived_[c];
+	}
+
+	/**
+	 * Makes the given conclusion not derivable
+	 *
+	 * @param conclusion
+	 *            the identifier of a conclusion
+	 * @return {@code true} if the conclusion was not blocked before and is
+	 *         used in the proof of the goal
+	 */
+	public boolean block(int conclusion) {
+		int c = getIndex(conclusion);
+		if (c < 0 || blocked_[c]) {
+			return false;
+		}
+		blocked_[c] = true;
+		if (derived_[c]) {
+			retract(c);
+		}
+		return true;
+	}
+
+	/**
+	 * Undoes the effect of {@link #block(int)}
+	 *
+	 * @param conclusion
+	 *            the identifier of a conclusion
+	 * @return {@code true} if the conclusion was blocked before
+	 */
+	public boolean unblock(int conclusion) {
+		int c = getIndex(conclusion);
+		if (c < 0 || !blocked_[c]) {
+			return false;
+		}
+		blocked_[c] = false;
+		if (hasFiringInference(c)) {
+			derive(c);
+			propagate();
+		}
+		return true;
+	}
+
+	/**
+	 * @param c
+	 * @return {@code true} if some inference of the conclusion with the given
+	 *         index has all premises derived
+	 */
+	private boolean hasFiringInference(int c) {
+		for (int i = inferencesStart_[c]; i < inferencesStart_[c + 1]; i++) {
+			if (missing_[inferences_[i]] == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void derive(int c) {
+		derived_[c] = true;
+		if (toDoSize_ == toDo_.length) {
+			toDo_ = Arrays.copyOf(toDo_, toDoSize_ << 1);
+		}
+		toDo_[toDoSize_++] = c;
+	}
+
+	/**
+	 * Derives all consequences of the conclusions in {@link #toDo_}
+	 */
+	private void propagate() {
+		while (toDoSize_ > 0) {
+			int c = toDo_[--toDoSize_];
+			for (int u = usesStart_[c]; u < usesStart_[c + 1]; u++) {
+				int inf = uses_[u];
+				if (--missing_[inf] == 0) {
+					int conclusion = conclusions_[inf];
+					if (!derived_[conclusion] && !blocked_[conclusion]) {
+						derive(conclusion);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retracts the given derived conclusion and all conclusions derived using
+	 * it, then derives again those of them that are still derivable
+	 *
+	 * @param c
+	 */
+	private void retract(int c) {
+		retractedSize_ = 0;
+		derived_[c] = false;
+		toDo_[toDoSize_++] = c;
+		while (toDoSize_ > 0) {
+			int next = toDo_[--toDoSize_];
+			if (retractedSize_ == retracted_.length) {
+				retracted_ = Arrays.copyOf(retracted_, retractedSize_ << 1);
+			}
+			retracted_[retractedSize_++] = next;
+			for (int u = usesStart_[next]; u < usesStart_[next + 1]; u++) {
+				int inf = uses_[u];
+				if (missing_[inf]++ == 0) {
+					int conclusion = conclusions_[inf];
+					if (derived_[conclusion]) {
+						derived_[conclusion] = false;
+						if (toDoSize_ == toDo_.length) {
+							toDo_ = Arrays.copyOf(toDo_, toDoSize_ << 1);
+						}
+						toDo_[toDoSize_++] = conclusion;
+					}
+				}
+			}
+		}
+		// derive again the retracted conclusions having other derivations
+		for (int i = 0; i < retractedSize_; i++) {
+			int r = retracted_[i];
+			if (!derived_[r] && !blocked_[r] && hasFiringInference(r)) {
+				derive(r);
+			}
+		}
+		propagate();
+	}
+
+}
@@ -0,0 +1,499 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+/**
+ * A justification represented by the sorted array of integer identifiers of
+ * its axioms assigned by an {@link IdProvider}. For justifications using the
+ * same {@link IdProvider}, the subset tests and unions are computed by
+ * merging the arrays; the subset tests are first filtered using a 64-bit
+ * word in which each identifier sets one bit, like in {@link BloomSet}. The
+ * statistics of the subset tests are the same as for {@link BloomSet}.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of the conclusion for which the justification is computed
+ * @param <A>
+ *            the type of axioms in the justification
+ */
+public class IdJustification<C, A> extends AbstractSet<A>
+		implements Justification<C, A> {
+
+	private static final boolean COLLECT_STATS_ = true;
+
+	/**
+	 * the statistics of the subset tests of the current thread; the
+	 * justifications are tested concurrently by the workers of parallel
+	 * computations, so every thread increments only its own counters
+	 */
+	private static final ThreadLocal<Counters> STATS_ = new ThreadLocal<Counters>() {
+		@Override
+		protected Counters initialValue() {
+			return Counters.register();
+		}
+	};
+
+	@Stat
+	public static long containsAllCount() {
+		return Counters.sum().containsAllCount;
+	}
+
+	@Stat
+	public static long containsAllPositive() {
+		return Counters.sum().containsAllPositive;
+	}
+
+	@Stat
+	public static long containsAllFiltered() {
+		return Counters.sum().containsAllFiltered;
+	}
+
+	private static final int[] NO_IDS_ = new int[0];
+
+	private final IdProvider<A> axiomIds_;
+
+	private final C conclusion_;
+
+	/**
+	 * the identifiers of the axioms in increasing order
+	 */
+	private final int[] ids_;
+
+	/**
+	 * filter for subset tests, each identifier sets the bit given by its
+	 * lowest 6 bits
+	 */
+	private final long filter_;
+
+	/**
+	 * the cached hash code or {@code 0} if it is not computed yet
+	 */
+	private int hash_ = 0;
+
+	private IdJustification(IdProvider<A> axiomIds, C conclusion, int[] ids,
+			long filter) {
+		this.axiomIds_ = axiomIds;
+		this.conclusion_ = conclusion;
+		this.ids_ = ids;
+		this.filter_ = filter;
+	}
+
+	private IdJustification(IdProvider<A> axiomIds, C conclusion, int[] ids) {
+		this(axiomIds, conclusion, ids, buildFilter(ids));
+	}
+
+	/**
+	 * Creates a justification containing the elements of the given
+	 * collections
+	 *
+	 * @param axiomIds
+	 *            assigns the identifiers to the axioms; the subset tests and
+	 *            unions are efficient for justifications using the same
+	 *            {@link IdProvider}
+	 * @param conclusion
+	 * @param collections
+	 * @return the new justification
+	 */
+	@SafeVarargs
+	public static <C, A> IdJustification<C, A> create(IdProvider<A> axiomIds,
+			C conclusion, Collection<? extends A>... collections) {
+		int size = 0;
+		for (Collection<? extends A> collection : collections) {
+			size += collection.size();
+		}
+		int[] ids = new int[size];
+		int pos = 0;
+		for (Collection<? extends A> collection : collections) {
+			for (A axiom : collection) {
+				ids[pos++] = axiomIds.getId(axiom);
+			}
+		}
+		return new IdJustification<C, A>(axiomIds, conclusion,
+				sortDistinct(ids, pos));
+	}
+
+	/**
+	 * Creates a justification with the given identifiers of axioms
+	 *
+	 * @param axiomIds
+	 *            the {@link IdProvider} that assigned the identifiers
+	 * @param conclusion
+	 * @param sortedIds
+	 *            the identifiers in increasing order without duplicates; the
+	 *            array should not be modified
+	 * @return the new justification
+	 */
+	static <C, A> IdJustification<C, A> fromSortedIds(IdProvider<A> axiomIds,
+			C conclusion, int[] sortedIds) {
+		return new IdJustification<C, A>(axiomIds, conclusion,
+				sortedIds.length == 0 ? NO_IDS_ : sortedIds);
+	}
+
+	private static int[] sortDistinct(int[] ids, int len) {
+		if (len == 0) {
+			return NO_IDS_;
+		}
+		Arrays.sort(ids, 0, len);
+		int size = 1;
+		for (int i = 1; i < len; i++) {
+			if (ids[i] != ids[size - 1]) {
+				ids[size++] = ids[i];
+			}
+		}
+		return size == ids.length ? ids : Arrays.copyOf(ids, size);
+	}
+
+	private static long buildFilter(int[] ids) {
+		long result = 0;
+		for (int id : ids) {
+			result |= 1L << id;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the {@link IdProvider} assigning the identifiers to the
+	 *         elements of this justification
+	 */
+	IdProvider<A> getIdProvider() {
+		return axiomIds_;
+	}
+
+	/**
+	 * @return the identifiers of the elements of this justification in
+	 *         increasing order; the array should not be modified
+	 */
+	int[] getSortedIds() {
+		return ids_;
+	}
+
+	/**
+	 * @param set
+	 * @return the sorted identifiers of the elements of the given set that
+	 *         have identifiers
+	 */
+	private int[] getIds(Set<?> set) {
+		if (set instanceof IdJustification<?, ?>) {
+			IdJustification<?, ?> other = (IdJustification<?, ?>) set;
+			if (other.axiomIds_ == axiomIds_) {
+				return other.ids_;
+			}
+		}
+		// else
+		int[] ids = new int[set.size()];
+		int pos = 0;
+		for (Object element : set) {
+			int id = axiomIds_.findId(element);
+			if (id != 0) {
+				ids[pos++] = id;
+			}
+		}
+		return sortDistinct(ids, pos);
+	}
+
+	@Override
+	public C getConclusion() {
+		return conclusion_;
+	}
+
+	@Override
+	public int size() {
+		return ids_.length;
+	}
+
+	@Override
+	public Justification<C, A> copyTo(C conclusion) {
+		return new IdJustification<C, A>(axiomIds_, conclusion, ids_,
+				filter_);
+	}
+
+	@Override
+	public Justification<C, A> addElements(Set<? extends A> added) {
+		int[] other;
+		if (added instanceof IdJustification<?, ?>
+				&& ((IdJustification<?, ?>) added).axiomIds_ == axiomIds_) {
+			other = ((IdJustification<?, ?>) added).ids_;
+		} else {
+			other = new int[added.size()];
+			int pos = 0;
+			for (A axiom : added) {
+				other[pos++] = axiomIds_.getId(axiom);
+			}
+			other = sortDistinct(other, pos);
+		}
+		// merge
+		int[] union = new int[ids_.length + other.length];
+		int i = 0, j = 0, size = 0;
+		while (i < ids_.length && j < other.length) {
+			int a = ids_[i], b = other[j];
+			if (a <= b) {
+				union[size++] = a;
+				i++;
+				if (a == b) {
+					j++;
+				}
+			} else {
+				union[size++] = b;
+				j++;
+			}
+		}
+		while (i < ids_.length) {
+			union[size++] = ids_[i++];
+		}
+		while (j < other.length) {
+			union[size++] = other[j++];
+		}
+		if (size == ids_.length) {
+			return this;
+		}
+		// else
+		return new IdJustification<C, A>(axiomIds_, conclusion_,
+				Arrays.copyOf(union, size));
+	}
+
+	@Override
+	public Justification<C, A> removeElements(Set<? extends A> removed) {
+		int[] other = getIds(removed);
+		int[] difference = new int[ids_.length];
+		int i = 0, j = 0, size = 0;
+		while (i < ids_.length) {
+			int a = ids_[i];
+			while (j < other.length && other[j] < a) {
+				j++;
+			}
+			if (j == other.length || other[j] != a) {
+				difference[size++] = a;
+			}
+			i++;
+		}
+		if (size == ids_.length) {
+			return this;
+		}
+		// else
+		return new IdJustification<C, A>(axiomIds_, conclusion_,
+				Arrays.copyOf(difference, size));
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		int id = axiomIds_.findId(object);
+		if (id == 0 || (filter_ & (1L << id)) == 0) {
+			return false;
+		}
+		// else
+		return Arrays.binarySearch(ids_, id) >= 0;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		final Counters stats = COLLECT_STATS_ ? STATS_.get() : null;
+		if (COLLECT_STATS_) {
+			stats.containsAllCount++;
+		}
+		boolean result;
+		if (c instanceof IdJustification<?, ?>
+				&& ((IdJustification<?, ?>) c).axiomIds_ == axiomIds_) {
+			IdJustification<?, ?> other = (IdJustification<?, ?>) c;
+			if ((filter_ & other.filter_) != other.filter_) {
+				if (COLLECT_STATS_) {
+					stats.containsAllFiltered++;
+				}
+				return false;
+			}
+			result = containsAll(ids_, other.ids_);
+		} else {
+			result = super.containsAll(c);
+		}
+		if (result && COLLECT_STATS_) {
+			stats.containsAllPositive++;
+		}
+		return result;
+	}
+
+	/**
+	 * @param ids
+	 * @param other
+	 * @return {@code true} if every element of the second sorted array occurs
+	 *         in the first sorted array
+	 */
+	private static boolean containsAll(int[] ids, int[] other) {
+		if (other.length > ids.length) {
+			return false;
+		}
+		int i = 0;
+		for (int id : other) {
+			while (i < ids.length && ids[i] < id) {
+				i++;
+			}
+			if (i == ids.length || ids[i] != id) {
+				return false;
+			}
+			i++;
+		}
+		return true;
+	}
+
+	@Override
+	public Iterator<A> iterator() {
+		return new Iterator<A>() {
+
+			private int pos_ = 0;
+
+			@Override
+			public boolean hasNext() {
+				return pos_ < ids_.length;
+			}
+
+			@Override
+			public A next() {
+				if (pos_ >= ids_.length) {
+					throw new NoSuchElementException();
+				}
+				return axiomIds_.getValue(ids_[pos_++]);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof IdJustification<?, ?>
+				&& ((IdJustification<?, ?>) o).axiomIds_ == axiomIds_) {
+			return Arrays.equals(ids_, ((IdJustification<?, ?>) o).ids_);
+		}
+		// else
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		if (hash_ == 0) {
+			hash_ = super.hashCode();
+		}
+		return hash_;
+	}
+
+	@Override
+	public String toString() {
+		Object[] elements = toArray();
+		Arrays.sort(elements, new Comparator<Object>() {
+			@Override
+			public int compare(Object o1, Object o2) {
+				return String.valueOf(o1).compareTo(String.valueOf(o2));
+			}
+		});
+		return getConclusion() + ": " + Arrays.toString(elements);
+	}
+
+	@ResetStats
+	public static void resetStatistics() {
+		Counters.reset();
+	}
+
+	/**
+	 * The statistics counters of one thread; the counters of all threads are
+	 * summed up when the statistics are read, which should happen when the
+	 * computations are finished
+	 */
+	private static class Counters {
+
+		/**
+		 * the counters of the live threads
+		 */
+		private static final Map<Thread, Counters> THREAD_COUNTERS_ = new HashMap<>();
+
+		/**
+		 * the sum of the counters of the threads that are terminated
+		 */
+		private static final Counters TERMINATED_ = new Counters();
+
+		long containsAllCount = 0, containsAllPositive = 0,
+				containsAllFiltered = 0;
+
+		void add(final Counters other) {
+			containsAllCount += other.containsAllCount;
+			containsAllPositive += other.containsAllPositive;
+			containsAllFiltered += other.containsAllFiltered;
+		}
+
+		/**
+		 * @return new counters for the current thread
+		 */
+		static synchronized Counters register() {
+			// the counters of the terminated threads are not kept separately
+			final Iterator<Map.Entry<Thread, Counters>> iter = THREAD_COUNTERS_
+					.entrySet().iterator();
+			while (iter.hasNext()) {
+				final Map.Entry<Thread, Counters> entry = iter.next();
+				if (!entry.getKey().isAlive()) {
+					TERMINATED_.add(entry.getValue());
+					iter.remove();
+				}
+			}
+			final Counters result = new Counters();
+			THREAD_COUNTERS_.put(Thread.currentThread(), result);
+			return result;
+		}
+
+		static synchronized Counters sum() {
+			final Counters result = new Counters();
+			result.add(TERMINATED_);
+			for (final Counters counters : THREAD_COUNTERS_.values()) {
+				result.add(counters);
+			}
+			return result;
+		}
+
+		static synchronized void reset() {
+			TERMINATED_.containsAllCount = 0;
+			TERMINATED_.containsAllPositive = 0;
+			TERMINATED_.containsAllFiltered = 0;
+			for (final Counters counters : THREAD_COUNTERS_.values()) {
+				counters.containsAllCount = 0;
+				counters.containsAllPositive = 0;
+				counters.containsAllFiltered = 0;
+			}
+		}
+
+	}
+
+}
@@ -1,13 +1,13 @@
 package com.github.joergschwabe;
 
-import java.util.Set;
-
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
+import java.util.Arrays;
 
 /**
- * Assigns integer identifiers to object
- * 
+ * Assigns integer identifiers to object. The identifiers are kept in flat
+ * arrays: an open-addressing hash table for finding the identifier of an
+ * object and an array indexed by identifiers for finding the object, so no
+ * boxed integers are created.
+ *
  * @author Yevgeny Kazakov
  *
  * @param <O>
@@ -21,14 +21,44 @@ public class IdProvider<O> {
 	private final IdSupplier idSup_;
 
 	/**
-	 * a correspondence between objects and integer identifiers
+	 * the objects in the order in which the identifiers were assigned to them
+	 */
+	private Object[] values_ = new Object[16];
+
+	/**
+	 * {@code ids_[i]} is the identifier assigned to {@code values_[i]}
 	 */
-	private final BiMap<O, Integer> idMap_ = HashBiMap.<O, Integer> create();
+	private int[] ids_ = new int[16];
+
+	/**
+	 * the number of objects with assigned identifiers
+	 */
+	private int size_ = 0;
+
+	/**
+	 * the hash table of objects with assigned identifiers using linear
+	 * probing; a non-zero entry {@code k} refers to the object
+	 * {@code values_[k - 1]}; its length is always a power of two
+	 */
+	private int[] table_ = new int[32];
+
+	/**
+	 * {@code positions_[id] - 1} is the index of the object with the given
+	 * identifier in {@link #values_} or {@code -1} if no object has this
+	 * identifier
+	 */
+	private int[] positions_ = new int[16];
+
+	/**
+	 * the copy of the first {@link #size_} elements of {@link #ids_} returned
+	 * by {@link #getIds()} or {@code null} if it should be recomputed
+	 */
+	private int[] idsCopy_ = null;
 
 	/**
 	 * Creates a new {@link IdProvider} that assigns the integer identifiers
 	 * generated by the given {@link IdSupplier} to new objects
-	 * 
+	 *
 	 * @param idSup
 	 *            an {@link IdSupplier} used to generate new integer identifiers
 	 */
@@ -36,41 +66,127 @@ public class IdProvider<O> {
 		this.idSup_ = idSup;
 	}
 
+	private static int hash(Object object) {
+		int h = object.hashCode();
+		// spread the higher bits, since only the lower bits are used
+		return h ^ (h >>> 16);
+	}
+
 	/**
 	 * Obtains an integer identifier assigned to a given object; the same
 	 * identifier should be returned for equal objects
-	 * 
+	 *
 	 * @param object
 	 *            the object for which to return an identifier
 	 * @return the integer identifier corresponding to the given object
 	 */
 	public int getId(O object) {
-		Integer result = idMap_.get(object);
-		if (result == null) {
-			result = idSup_.getNextId();
-			idMap_.put(object, result);
+		int mask = table_.length - 1;
+		int slot = hash(object) & mask;
+		for (;;) {
+			int entry = table_[slot];
+			if (entry == 0) {
+				break;
+			}
+			if (values_[entry - 1].equals(object)) {
+				return ids_[entry - 1];
+			}
+			slot = (slot + 1) & mask;
+		}
+		// else assign a new identifier
+		int id = idSup_.getNextId();
+		if (size_ == values_.length) {
+			values_ = Arrays.copyOf(values_, size_ << 1);
+			ids_ = Arrays.copyOf(ids_, size_ << 1);
+		}
+		values_[size_] = object;
+		ids_[size_] = id;
+		size_++;
+		table_[slot] = size_;
+		if (id >= positions_.length) {
+			positions_ = Arrays.copyOf(positions_,
+					Math.max(id + 1, positions_.length << 1));
+		}
+		positions_[id] = size_;
+		idsCopy_ = null;
+		if (size_ << 1 > table_.length) {
+			rehash(table_.length << 1);
+		}
+		return id;
+	}
+
+	/**
+	 * Finds the integer identifier assigned to a given object without
+	 * assigning new identifiers
+	 *
+	 * @param object
+	 *            the object for which to return an identifier
+	 * @return the integer identifier assigned to the given object by
+	 *         {@link #getId(Object)} or {@code 0} if no identifier was
+	 *         assigned to this object
+	 */
+	public int findId(Object object) {
+		int mask = table_.length - 1;
+		int slot = hash(object) & mask;
+		for (;;) {
+			int entry = table_[slot];
+			if (entry == 0) {
+				return 0;
+			}
+			if (values_[entry - 1].equals(object)) {
+				return ids_[entry - 1];
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private void rehash(int capacity) {
+		table_ = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < size_; i++) {
+			int slot = hash(values_[i]) & mask;
+			while (table_[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table_[slot] = i + 1;
 		}
-		return result;
 	}
 
 	/**
 	 * Obtains an object to which the given identifier is assigned.
-	 * 
+	 *
 	 * @param id
 	 *            the integer identifier
 	 * @return the object that has the given identifier or {@code null} if the
 	 *         given identifier has not been yet assigned to any object
 	 */
+	@SuppressWarnings("unchecked")
 	public O getValue(int id) {
-		return idMap_.inverse().get(id);
+		if (id <= 0 || id >= positions_.length) {
+			return null;
+		}
+		int position = positions_[id];
+		return position == 0 ? null : (O) values_[position - 1];
 	}
 
 	/**
-	 * @return the set of all known identifiers. These are all identifiers
-	 *         returned by the method {@link #getId(Object)}
+	 * @return the number of objects to which identifiers are assigned
 	 */
-	public Set<Integer> getIds() {
-		return idMap_.values();
+	public int size() {
+		return size_;
+	}
+
+	/**
+	 * @return all known identifiers in the order in which they were assigned.
+	 *         These are all identifiers returned by the method
+	 *         {@link #getId(Object)}. The array is reused by subsequent calls
+	 *         until a new identifier is assigned, so it should not be modified.
+	 */
+	public int[] getIds() {
+		if (idsCopy_ == null) {
+			idsCopy_ = Arrays.copyOf(ids_, size_);
+		}
+		return idsCopy_;
 	}
 
 }
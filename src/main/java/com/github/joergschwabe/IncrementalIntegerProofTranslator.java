@@ -0,0 +1,146 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2019 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import org.liveontologies.puli.AssertedConclusionInference;
+import org.liveontologies.puli.BaseProof;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.ModifiableProof;
+import org.liveontologies.puli.Proof;
+
+/**
+ * Translates a proof to integer inferences like
+ * {@link IntegerProofTranslator}, but lazily: every call of
+ * {@link #translate(Object)} translates only the inferences for conclusions
+ * that were not translated by the previous calls, so the translation of the
+ * proofs for several goals is shared.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class IncrementalIntegerProofTranslator<C, I extends Inference<? extends C>, A> {
+
+	private final Proof<? extends I> proof_;
+	private final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier_;
+	private final IdProvider<C> conclusionIds_;
+	private final IdProvider<A> axiomIds_;
+	private final ModifiableProof<Inference<? extends Integer>> result_ = new BaseProof<>();
+
+	/**
+	 * the conclusions of {@link #proof_} whose inferences are translated
+	 */
+	private final Set<Object> translated_ = new HashSet<>();
+
+	public IncrementalIntegerProofTranslator(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			IdProvider<C> conclusionIds, IdProvider<A> axiomIds) {
+		this.proof_ = proof;
+		this.justifier_ = justifier;
+		this.conclusionIds_ = conclusionIds;
+		this.axiomIds_ = axiomIds;
+	}
+
+	/**
+	 * @return the integer inferences translated so far; they include an
+	 *         asserted inference for every axiom identifier
+	 */
+	public Proof<Inference<? extends Integer>> getTranslatedProof() {
+		return result_;
+	}
+
+	/**
+	 * Translates the inferences of the proof that derive the given goal and
+	 * were not translated before
+	 *
+	 * @param goal
+	 * @return the integer identifiers of the conclusions and axioms whose
+	 *         inferences are translated by this call; all inferences for such
+	 *         conclusions are now present in {@link #getTranslatedProof()}
+	 */
+	public List<Integer> translate(Object goal) {
+		List<Integer> newConclusions = new ArrayList<>();
+		Queue<Object> toDo = new ArrayDeque<>();
+		if (translated_.add(goal)) {
+			toDo.add(goal);
+		}
+		for (;;) {
+			Object next = toDo.poll();
+			if (next == null) {
+				break;
+			}
+			for (I inference : proof_.getInferences(next)) {
+				produce(inference, newConclusions);
+				for (Object premise : inference.getPremises()) {
+					if (translated_.add(premise)) {
+						toDo.add(premise);
+					}
+				}
+			}
+			@SuppressWarnings("unchecked")
+			C conclusion = (C) next;
+			newConclusions.add(conclusionIds_.getId(conclusion));
+		}
+		return newConclusions;
+	}
+
+	private void produce(I inference, List<Integer> newConclusions) {
+		List<? extends C> premises = inference.getPremises();
+		Set<? extends A> justification = justifier_
+				.getJustification(inference);
+		List<Integer> translatedPremises = new ArrayList<Integer>(
+				premises.size() + justification.size());
+		for (C premise : premises) {
+			translatedPremises.add(conclusionIds_.getId(premise));
+		}
+		for (A axiom : justification) {
+			int axiomCount = axiomIds_.size();
+			int axiomId = axiomIds_.getId(axiom);
+			translatedPremises.add(axiomId);
+			if (axiomIds_.size() > axiomCount) {
+				// a new axiom
+				result_.produce(
+						new AssertedConclusionInference<Integer>(axiomId));
+				newConclusions.add(axiomId);
+			}
+		}
+		result_.produce(Inferences.create("Integer Translation",
+				conclusionIds_.getId(inference.getConclusion()),
+				translatedPremises));
+	}
+
+}
@@ -0,0 +1,333 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A cache of all minimal justifications of conclusions that can be saved to a
+ * file and loaded in later runs. Conclusions and axioms are identified by
+ * fingerprints, i.e., 64-bit hashes of their string representations, so the
+ * cache can only be used with conclusions and axioms whose
+ * {@link Object#toString()} is stable across runs. The justifications of a
+ * conclusion are stored together with the fingerprint of the proof from
+ * which they are computed, i.e., of all inferences used for deriving the
+ * conclusion, and are used only for proofs with the same fingerprint. The
+ * total number of axioms in the cached justifications is bounded; when it is
+ * exceeded, the least recently used entries are evicted.
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+public class JustificationCache {
+
+	private static final int MAGIC_ = 0x4a555354, VERSION_ = 1;
+
+	private static final HashFunction HASH_ = Hashing.murmur3_128();
+
+	/**
+	 * the file where the cache is saved or {@code null} if it is not saved
+	 */
+	private final File file_;
+
+	/**
+	 * the maximal total number of axioms in the cached justifications
+	 */
+	private final long capacity_;
+
+	/**
+	 * the entries by the fingerprints of conclusions in the order of their
+	 * use
+	 */
+	private final LinkedHashMap<Long, Entry> entries_ = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	/**
+	 * the total number of axioms in the justifications of
+	 * {@link #entries_}
+	 */
+	private long size_ = 0;
+
+	// Statistics
+
+	private int countEvictions_ = 0;
+
+	/**
+	 * Creates a cache that is not saved
+	 *
+	 * @param capacity
+	 *            the maximal total number of axioms in the cached
+	 *            justifications
+	 */
+	public JustificationCache(final long capacity) {
+		Preconditions.checkArgument(capacity >= 0);
+		this.file_ = null;
+		this.capacity_ = capacity;
+	}
+
+	/**
+	 * Creates a cache saved in the given file; if the file exists, the
+	 * justifications saved in it are loaded
+	 *
+	 * @param file
+	 *            the file where the cache is saved
+	 * @param capacity
+	 *            the maximal total number of axioms in the cached
+	 *            justifications
+	 * @throws IOException
+	 *             if the file exists but cannot be read
+	 */
+	public JustificationCache(final File file, final long capacity)
+			throws IOException {
+		Preconditions.checkArgument(capacity >= 0);
+		this.file_ = Preconditions.checkNotNull(file);
+		this.capacity_ = capacity;
+		if (file.exists()) {
+			load();
+		}
+	}
+
+	/**
+	 * @param object
+	 * @return the fingerprint of the string representation of the given
+	 *         object
+	 */
+	public static long fingerprint(final Object object) {
+		return HASH_.hashString(String.valueOf(object), Charsets.UTF_8)
+				.asLong();
+	}
+
+	/**
+	 * @param conclusion
+	 *            the fingerprint of the conclusion of an inference
+	 * @param premises
+	 *            the fingerprints of the premises of the inference in the
+	 *            order of the premises
+	 * @param axioms
+	 *            the sum of the fingerprints of the axioms used by the
+	 *            inference
+	 * @return the fingerprint of the inference
+	 */
+	static long fingerprint(final long conclusion, final long[] premises,
+			final long axioms) {
+		final Hasher hasher = HASH_.newHasher().putLong(conclusion)
+				.putLong(axioms);
+		for (final long premise : premises) {
+			hasher.putLong(premise);
+		}
+		return hasher.hash().asLong();
+	}
+
+	/**
+	 * @param inferences
+	 *            the sum of the fingerprints of the inferences of a strongly
+	 *            connected component of a proof
+	 * @param premises
+	 *            the sum of the fingerprints of the proofs of the other
+	 *            components that contain premises of these inferences
+	 * @return the fingerprint of the proof of the conclusions in the
+	 *         component
+	 */
+	static long fingerprint(final long inferences, final long premises) {
+		return HASH_.newHasher().putLong(inferences).putLong(premises).hash()
+				.asLong();
+	}
+
+	/**
+	 * @param conclusion
+	 *            the fingerprint of a conclusion
+	 * @return {@code true} if the cache has justifications for the conclusion
+	 *         with this fingerprint, maybe for a different proof
+	 */
+	public synchronized boolean mayContain(final long conclusion) {
+		return entries_.containsKey(conclusion);
+	}
+
+	/**
+	 * @param conclusion
+	 *            the fingerprint of a conclusion
+	 * @param proof
+	 *            the fingerprint of the proof of the conclusion
+	 * @return the fingerprints of the axioms of all minimal justifications of
+	 *         the conclusion in the proof or {@code null} if they are not
+	 *         cached; the arrays should not be modified
+	 */
+	public synchronized long[][] get(final long conclusion, final long proof) {
+		final Entry entry = entries_.get(conclusion);
+		if (entry == null || entry.proof_ != proof) {
+			return null;
+		}
+		// else
+		return entry.justifications_;
+	}
+
+	/**
+	 * Caches the justifications of a conclusion replacing the previously
+	 * cached justifications of the conclusion
+	 *
+	 * @param conclusion
+	 *            the fingerprint of the conclusion
+	 * @param proof
+	 *            the fingerprint of the proof of the conclusion
+	 * @param justifications
+	 *            the fingerprints of the axioms of all minimal justifications
+	 *            of the conclusion in the proof
+	 */
+	public synchronized void put(final long conclusion, final long proof,
+			final long[][] justifications) {
+		final Entry entry = new Entry(proof, justifications);
+		final Entry previous = entries_.put(conclusion, entry);
+		if (previous != null) {
+			size_ -= previous.size_;
+		}
+		size_ += entry.size_;
+		final Iterator<Entry> iterator = entries_.values().iterator();
+		while (size_ > capacity_ && iterator.hasNext()) {
+			// the least recently used entry
+			size_ -= iterator.next().size_;
+			iterator.remove();
+			countEvictions_++;
+		}
+	}
+
+	private void load() throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file_)))) {
+			if (in.readInt() != MAGIC_ || in.readInt() != VERSION_) {
+				throw new IOException(file_ + ": not a justification cache");
+			}
+			final int nEntries = in.readInt();
+			for (int i = 0; i < nEntries; i++) {
+				final long conclusion = in.readLong();
+				final long proof = in.readLong();
+				final long[][] justifications = new long[in.readInt()][];
+				for (int j = 0; j < justifications.length; j++) {
+					final long[] axioms = new long[in.readInt()];
+					for (int k = 0; k < axioms.length; k++) {
+						axioms[k] = in.readLong();
+					}
+					justifications[j] = axioms;
+				}
+				put(conclusion, proof, justifications);
+			}
+		}
+	}
+
+	/**
+	 * Saves the cached justifications to the file of this cache, if there is
+	 * one; the least recently used entries are saved first, so their order is
+	 * preserved when the file is loaded
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void save() throws IOException {
+		if (file_ == null) {
+			return;
+		}
+		// else
+		final File tmp = new File(file_.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC_);
+			out.writeInt(VERSION_);
+			out.writeInt(entries_.size());
+			for (final Map.Entry<Long, Entry> e : entries_.entrySet()) {
+				final Entry entry = e.getValue();
+				out.writeLong(e.getKey());
+				out.writeLong(entry.proof_);
+				out.writeInt(entry.justifications_.length);
+				for (final long[] axioms : entry.justifications_) {
+					out.writeInt(axioms.length);
+					for (final long axiom : axioms) {
+						out.writeLong(axiom);
+					}
+				}
+			}
+		}
+		if (file_.exists() && !file_.delete() || !tmp.renameTo(file_)) {
+			throw new IOException(file_ + ": cannot be replaced");
+		}
+	}
+
+	@Stat
+	public synchronized int nEvictions() {
+		return countEvictions_;
+	}
+
+	@Stat
+	public synchronized int nCachedConclusions() {
+		return entries_.size();
+	}
+
+	@ResetStats
+	public synchronized void resetStats() {
+		countEvictions_ = 0;
+	}
+
+	private static class Entry {
+
+		/**
+		 * the fingerprint of the proof from which the justifications are
+		 * computed
+		 */
+		final long proof_;
+
+		final long[][] justifications_;
+
+		/**
+		 * the total number of axioms in {@link #justifications_}
+		 */
+		final long size_;
+
+		Entry(final long proof, final long[][] justifications) {
+			this.proof_ = proof;
+			this.justifications_ = justifications;
+			long size = 0;
+			for (final long[] axioms : justifications) {
+				size += axioms.length;
+			}
+			this.size_ = size;
+		}
+
+	}
+
+}
@@ -0,0 +1,692 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the justifications of conclusions computed by the bottom-up
+ * computations together with their {@link SubsetIndex}es and the blocked
+ * justifications of the conclusions. The memory used by the justifications
+ * can be bounded by a budget: when it is exceeded, the justifications of the
+ * conclusions that are the farthest from the query are written to a
+ * temporary file as sorted identifiers of their axioms and are read again
+ * when they are needed. The budget is the total number of axioms in the
+ * justifications kept in memory plus the number of these justifications,
+ * including the justifications kept by the callers that are registered using
+ * {@link #track(Justification)}; it is checked only when
+ * {@link #checkBudget()} is called, so the lists and indexes returned by this
+ * store stay valid until then. The lists that are read from the file keep
+ * their copies in the file until they are modified, so they are not written
+ * again if they are spilled unchanged; the file is compacted when most of it
+ * is taken by the copies that are no longer used.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions
+ * @param <A>
+ *            the type of axioms in the justifications
+ */
+class JustificationStore<C, A> {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(JustificationStore.class);
+
+	/**
+	 * the value of the budget meaning that the memory is not bounded
+	 */
+	static final long NO_BUDGET = 0;
+
+	/**
+	 * assigns the identifiers to the axioms in the justifications
+	 */
+	private final IdProvider<A> axiomIds_;
+
+	private final long budget_;
+
+	private final Map<C, Entry> entries_ = new HashMap<>();
+
+	/**
+	 * the indexes of the justifications of conclusions; they are kept when
+	 * the justifications are written to the file since they can be used by
+	 * the enumerators, but are cleared
+	 */
+	private final Map<C, SubsetIndex<Justification<C, A>>> indexes_ = new HashMap<>();
+
+	/**
+	 * the conclusions whose justifications are not written to the file
+	 */
+	private final Set<C> pinned_ = new HashSet<>();
+
+	/**
+	 * the distances of conclusions from the query; the justifications of
+	 * conclusions with larger distances are written to the file first
+	 */
+	private Map<C, Integer> distances_ = Collections.emptyMap();
+
+	/**
+	 * the memory used by the justifications in the entries in the units of
+	 * the budget
+	 */
+	private long used_ = 0;
+
+	/**
+	 * the part of {@link #used_} taken by the justifications registered using
+	 * {@link #track(Justification)}
+	 */
+	private long tracked_ = 0;
+
+	/**
+	 * the file to which the justifications are written or {@code null} if it
+	 * is not created yet
+	 */
+	private File tmpFile_ = null;
+
+	private RandomAccessFile file_ = null;
+
+	/**
+	 * the number of bytes in the file taken by the lists that are not used
+	 * anymore
+	 */
+	private long garbage_ = 0;
+
+	private int size_ = 0, nBlocked_ = 0;
+
+	// Statistics
+
+	private int countSpilledLists_ = 0, countSpilledJustifications_ = 0,
+			countReloadedLists_ = 0, countCompactions_ = 0;
+
+	private long countSpilledBytes_ = 0;
+
+	/**
+	 * @param axiomIds
+	 *            assigns the identifiers to the axioms in the justifications
+	 * @param budget
+	 *            the maximal total number of axioms and justifications kept in
+	 *            memory or {@link #NO_BUDGET}
+	 */
+	JustificationStore(IdProvider<A> axiomIds, long budget) {
+		this.axiomIds_ = axiomIds;
+		this.budget_ = budget;
+	}
+
+	private Entry getEntry(C conclusion) {
+		Entry entry = entries_.get(conclusion);
+		if (entry == null) {
+			entry = new Entry();
+			entries_.put(conclusion, entry);
+		}
+		entry.load(conclusion);
+		return entry;
+	}
+
+	/**
+	 * @param conclusion
+	 * @return the justifications of the given conclusion in the order in
+	 *         which they were added; the list should not be modified
+	 */
+	List<Justification<C, A>> get(C conclusion) {
+		Entry entry = entries_.get(conclusion);
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+		// else
+		entry.load(conclusion);
+		return entry.justs_;
+	}
+
+	/**
+	 * @param conclusion
+	 * @return the index of the justifications of the given conclusion; the
+	 *         same object is returned for the same conclusion until
+	 *         {@link #clear()} is called
+	 */
+	SubsetIndex<Justification<C, A>> getIndex(C conclusion) {
+		SubsetIndex<Justification<C, A>> result = indexes_.get(conclusion);
+		if (result == null) {
+			result = new SubsetIndex<>();
+			indexes_.put(conclusion, result);
+		}
+		Entry entry = entries_.get(conclusion);
+		if (entry != null) {
+			entry.load(conclusion);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a justification to the justifications of the given conclusion
+	 * and their index
+	 *
+	 * @param conclusion
+	 * @param just
+	 */
+	void add(C conclusion, Justification<C, A> just) {
+		Entry entry = getEntry(conclusion);
+		entry.justs_.add(just);
+		entry.justsRegion_ = discard(entry.justsRegion_);
+		entry.size_++;
+		getIndex(conclusion).add(just);
+		long weight = weight(just);
+		entry.used_ += weight;
+		used_ += weight;
+		size_++;
+	}
+
+	/**
+	 * Adds a justification to the blocked justifications of the given
+	 * conclusion
+	 *
+	 * @param conclusion
+	 * @param just
+	 */
+	void block(C conclusion, Justification<C, A> just) {
+		Entry entry = getEntry(conclusion);
+		entry.blocked_.add(just);
+		entry.blockedRegion_ = discard(entry.blockedRegion_);
+		long weight = weight(just);
+		entry.used_ += weight;
+		used_ += weight;
+		nBlocked_++;
+	}
+
+	/**
+	 * Removes the blocked justifications of the given conclusion
+	 *
+	 * @param conclusion
+	 * @return the removed justifications
+	 */
+	List<Justification<C, A>> unblock(C conclusion) {
+		Entry entry = entries_.get(conclusion);
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+		// else
+		entry.load(conclusion);
+		List<Justification<C, A>> result = entry.blocked_;
+		if (result.isEmpty()) {
+			return result;
+		}
+		// else
+		entry.blocked_ = new ArrayList<>();
+		entry.blockedRegion_ = discard(entry.blockedRegion_);
+		for (Justification<C, A> just : result) {
+			long weight = weight(just);
+			entry.used_ -= weight;
+			used_ -= weight;
+		}
+		nBlocked_ -= result.size();
+		return result;
+	}
+
+	/**
+	 * Counts the given justification kept in memory by the caller in the
+	 * budget; such justifications are not written to the file
+	 *
+	 * @param just
+	 * @see #untrack(Justification)
+	 */
+	void track(Justification<?, ?> just) {
+		long weight = weight(just);
+		tracked_ += weight;
+		used_ += weight;
+	}
+
+	/**
+	 * Stops counting the given justification registered using
+	 * {@link #track(Justification)} in the budget
+	 *
+	 * @param just
+	 */
+	void untrack(Justification<?, ?> just) {
+		long weight = weight(just);
+		tracked_ -= weight;
+		used_ -= weight;
+	}
+
+	/**
+	 * @return the number of the justifications of all conclusions
+	 */
+	int size() {
+		return size_;
+	}
+
+	/**
+	 * @return the number of the blocked justifications of all conclusions
+	 */
+	int nBlocked() {
+		return nBlocked_;
+	}
+
+	/**
+	 * @return the maximal number of justifications of a conclusion
+	 */
+	int maxSize() {
+		int max = 0;
+		for (Entry entry : entries_.values()) {
+			max = Math.max(max, entry.size_);
+		}
+		return max;
+	}
+
+	/**
+	 * Prevents the justifications of the given conclusion from being written
+	 * to the file
+	 *
+	 * @param conclusion
+	 */
+	void pin(C conclusion) {
+		pinned_.add(conclusion);
+	}
+
+	void unpin(C conclusion) {
+		pinned_.remove(conclusion);
+	}
+
+	/**
+	 * @param distances
+	 *            the distances of the conclusions from the query; the
+	 *            conclusions without distances are regarded as the farthest
+	 */
+	void setDistances(Map<C, Integer> distances) {
+		this.distances_ = distances;
+	}
+
+	/**
+	 * Removes the justifications of all conclusions and the tracked
+	 * justifications; the file is closed and deleted
+	 */
+	void clear() {
+		entries_.clear();
+		indexes_.clear();
+		used_ = 0;
+		tracked_ = 0;
+		size_ = 0;
+		nBlocked_ = 0;
+		deleteFile();
+	}
+
+	/**
+	 * If the budget is exceeded, writes the justifications of the
+	 * conclusions that are the farthest from the query to the file until at
+	 * most half of the budget is used; after that, the lists and indexes
+	 * returned before should not be used
+	 */
+	void checkBudget() {
+		if (budget_ == NO_BUDGET || used_ <= budget_) {
+			return;
+		}
+		// else
+		List<C> candidates = new ArrayList<>();
+		for (Map.Entry<C, Entry> e : entries_.entrySet()) {
+			if (e.getValue().isLoaded() && e.getValue().used_ > 0
+					&& !pinned_.contains(e.getKey())) {
+				candidates.add(e.getKey());
+			}
+		}
+		Collections.sort(candidates, new Comparator<C>() {
+			@Override
+			public int compare(C first, C second) {
+				// the farthest first
+				int result = Integer.compare(getDistance(second),
+						getDistance(first));
+				if (result != 0) {
+					return result;
+				}
+				// else the largest first
+				return Long.compare(entries_.get(second).used_,
+						entries_.get(first).used_);
+			}
+		});
+		long target = budget_ / 2;
+		for (C conclusion : candidates) {
+			if (used_ <= target) {
+				break;
+			}
+			entries_.get(conclusion).spill(conclusion);
+		}
+		LOGGER_.trace("{} of {} used after spilling", used_, budget_);
+		try {
+			if (file_ != null && 2 * garbage_ > file_.length()) {
+				compact();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private int getDistance(C conclusion) {
+		Integer result = distances_.get(conclusion);
+		return result == null ? Integer.MAX_VALUE : result;
+	}
+
+	private static long weight(Justification<?, ?> just) {
+		return just.size() + 1;
+	}
+
+	private int[] getSortedIds(Justification<C, A> just) {
+		if (just instanceof IdJustification<?, ?>) {
+			IdJustification<C, A> idJust = (IdJustification<C, A>) just;
+			if (idJust.getIdProvider() == axiomIds_) {
+				return idJust.getSortedIds();
+			}
+		}
+		// else
+		return IdJustification.create(axiomIds_, just.getConclusion(), just)
+				.getSortedIds();
+	}
+
+	private FileChannel getChannel() throws IOException {
+		if (file_ == null) {
+			tmpFile_ = File.createTempFile("justifications", ".spill");
+			tmpFile_.deleteOnExit();
+			file_ = new RandomAccessFile(tmpFile_, "rw");
+		}
+		return file_.getChannel();
+	}
+
+	private void deleteFile() {
+		if (file_ == null) {
+			return;
+		}
+		// else
+		try {
+			file_.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (!tmpFile_.delete()) {
+			LOGGER_.warn("{}: cannot be deleted", tmpFile_);
+		}
+		file_ = null;
+		tmpFile_ = null;
+		garbage_ = 0;
+	}
+
+	/**
+	 * Marks the given region of the file as not used anymore
+	 *
+	 * @param region
+	 * @return {@code null}
+	 */
+	private Region discard(Region region) {
+		if (region != null) {
+			garbage_ += region.length;
+		}
+		return null;
+	}
+
+	/**
+	 * Copies the regions of the file that are still used to a new file,
+	 * which replaces the old one
+	 */
+	private void compact() throws IOException {
+		File oldFile = tmpFile_;
+		RandomAccessFile old = file_;
+		FileChannel from = old.getChannel();
+		tmpFile_ = null;
+		file_ = null;
+		FileChannel to = getChannel();
+		for (Entry entry : entries_.values()) {
+			entry.justsRegion_ = copy(entry.justsRegion_, from, to);
+			entry.blockedRegion_ = copy(entry.blockedRegion_, from, to);
+		}
+		LOGGER_.trace("spill file compacted from {} to {} bytes",
+				from.size(), to.size());
+		old.close();
+		if (!oldFile.delete()) {
+			LOGGER_.warn("{}: cannot be deleted", oldFile);
+		}
+		garbage_ = 0;
+		countCompactions_++;
+	}
+
+	private static Region copy(Region region, FileChannel from,
+			FileChannel to) throws IOException {
+		if (region == null) {
+			return null;
+		}
+		// else
+		long position = to.size();
+		long copied = 0;
+		while (copied < region.length) {
+			copied += from.transferTo(region.position + copied,
+					region.length - copied, to.position(position + copied));
+		}
+		return new Region(position, region.length);
+	}
+
+	/**
+	 * Writes the given justifications to the end of the file
+	 *
+	 * @param justs
+	 * @return the region of the written justifications in the file
+	 */
+	private Region write(List<Justification<C, A>> justs) throws IOException {
+		int nBytes = 4;
+		List<int[]> ids = new ArrayList<>(justs.size());
+		for (Justification<C, A> just : justs) {
+			int[] sortedIds = getSortedIds(just);
+			ids.add(sortedIds);
+			nBytes += 4 * (sortedIds.length + 1);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(nBytes + 4);
+		buffer.putInt(nBytes);
+		buffer.putInt(ids.size());
+		for (int[] sortedIds : ids) {
+			buffer.putInt(sortedIds.length);
+			for (int id : sortedIds) {
+				buffer.putInt(id);
+			}
+		}
+		buffer.flip();
+		FileChannel channel = getChannel();
+		long result = channel.size();
+		long position = result;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		countSpilledBytes_ += nBytes + 4;
+		countSpilledJustifications_ += justs.size();
+		return new Region(result, nBytes + 4);
+	}
+
+	/**
+	 * Reads the justifications from the given region of the file
+	 *
+	 * @param conclusion
+	 *            the conclusion of the justifications
+	 * @param region
+	 * @return the read justifications
+	 */
+	private List<Justification<C, A>> read(C conclusion, Region region)
+			throws IOException {
+		FileChannel channel = getChannel();
+		ByteBuffer buffer = ByteBuffer.allocate(region.length - 4);
+		readFully(channel, buffer, region.position + 4);
+		int nJusts = buffer.getInt(0);
+		buffer.position(4);
+		List<Justification<C, A>> result = new ArrayList<>(nJusts);
+		for (int i = 0; i < nJusts; i++) {
+			int[] sortedIds = new int[buffer.getInt()];
+			for (int j = 0; j < sortedIds.length; j++) {
+				sortedIds[j] = buffer.getInt();
+			}
+			result.add(IdJustification.fromSortedIds(axiomIds_, conclusion,
+					sortedIds));
+		}
+		return result;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("unexpected end of file");
+			}
+			position += read;
+		}
+	}
+
+	int nSpilledLists() {
+		return countSpilledLists_;
+	}
+
+	int nSpilledJustifications() {
+		return countSpilledJustifications_;
+	}
+
+	long nSpilledBytes() {
+		return countSpilledBytes_;
+	}
+
+	int nReloadedLists() {
+		return countReloadedLists_;
+	}
+
+	int nCompactions() {
+		return countCompactions_;
+	}
+
+	void resetStats() {
+		countSpilledLists_ = 0;
+		countSpilledJustifications_ = 0;
+		countSpilledBytes_ = 0;
+		countReloadedLists_ = 0;
+		countCompactions_ = 0;
+	}
+
+	/**
+	 * A part of the file with a written list of justifications
+	 */
+	private static class Region {
+
+		final long position;
+
+		/**
+		 * the number of bytes including the header with the number of the
+		 * following bytes
+		 */
+		final int length;
+
+		Region(long position, int length) {
+			this.position = position;
+			this.length = length;
+		}
+
+	}
+
+	/**
+	 * The justifications and blocked justifications of a conclusion, which
+	 * are either in memory or in the file
+	 */
+	private class Entry {
+
+		/**
+		 * {@code null} if written to the file
+		 */
+		List<Justification<C, A>> justs_ = new ArrayList<>(),
+				blocked_ = new ArrayList<>();
+
+		/**
+		 * the copies of the justifications in the file or {@code null} if
+		 * the justifications were modified since they were written
+		 */
+		Region justsRegion_ = null, blockedRegion_ = null;
+
+		/**
+		 * the number of justifications, also when they are in the file
+		 */
+		int size_ = 0;
+
+		/**
+		 * the memory used by the justifications in the units of the budget,
+		 * also when they are in the file
+		 */
+		long used_ = 0;
+
+		boolean isLoaded() {
+			return justs_ != null;
+		}
+
+		void spill(C conclusion) {
+			try {
+				if (justsRegion_ == null) {
+					justsRegion_ = write(justs_);
+				}
+				if (blockedRegion_ == null) {
+					blockedRegion_ = write(blocked_);
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			justs_ = null;
+			blocked_ = null;
+			SubsetIndex<Justification<C, A>> index = indexes_.get(conclusion);
+			if (index != null) {
+				index.clear();
+			}
+			JustificationStore.this.used_ -= used_;
+			countSpilledLists_++;
+		}
+
+		void load(C conclusion) {
+			if (isLoaded()) {
+				return;
+			}
+			// else
+			try {
+				justs_ = read(conclusion, justsRegion_);
+				blocked_ = read(conclusion, blockedRegion_);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			SubsetIndex<Justification<C, A>> index = indexes_.get(conclusion);
+			if (index != null) {
+				index.addAll(justs_);
+			}
+			JustificationStore.this.used_ += used_;
+			countReloadedLists_++;
+		}
+
+	}
+
+}
@@ -0,0 +1,345 @@
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Enumerates minimal subsets using computations created by a
+ * {@link MinimalSubsetsFromProofs.Factory} within limits on the number of
+ * subsets, on the time to wait for the next subset, and on the total time;
+ * when a limit is reached, the computation is interrupted and the subsets
+ * found so far are returned. The time limits are checked by a timer thread
+ * that sets a flag read by the {@link InterruptMonitor} of the computation,
+ * so the computations do not read the clock when they check whether they
+ * are interrupted.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class LimitedEnumeration<C, I extends Inference<? extends C>, A> {
+
+	/**
+	 * the value of a limit meaning that there is no limit
+	 */
+	public static final long NO_LIMIT = 0;
+
+	/**
+	 * The limits that can stop the enumeration
+	 */
+	public enum Limit {
+		/**
+		 * the maximal number of subsets was found
+		 */
+		RESULTS,
+		/**
+		 * the next subset was not found in time
+		 */
+		LATENCY,
+		/**
+		 * the total time is over
+		 */
+		DEADLINE;
+	}
+
+	/**
+	 * checks the time limits of all enumerations
+	 */
+	private static final ScheduledThreadPoolExecutor TIMER_;
+
+	static {
+		TIMER_ = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "limited-enumeration-timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		TIMER_.setRemoveOnCancelPolicy(true);
+	}
+
+	private final MinimalSubsetsFromProofs.Factory<C, I, A> factory_;
+
+	private final long maxResults_;
+
+	private final long latencyMillis_;
+
+	private final long deadlineMillis_;
+
+	/**
+	 * @param factory
+	 *            the factory for the computations of the subsets
+	 * @param maxResults
+	 *            the maximal number of subsets to be found or
+	 *            {@link #NO_LIMIT}
+	 * @param latencyMillis
+	 *            the maximal time in milliseconds to wait for the next subset
+	 *            from the start or from the previous subset or
+	 *            {@link #NO_LIMIT}
+	 * @param deadlineMillis
+	 *            the maximal time in milliseconds for the enumeration or
+	 *            {@link #NO_LIMIT}
+	 */
+	public LimitedEnumeration(MinimalSubsetsFromProofs.Factory<C, I, A> factory,
+			long maxResults, long latencyMillis, long deadlineMillis) {
+		Preconditions.checkArgument(maxResults >= 0);
+		Preconditions.checkArgument(latencyMillis >= 0);
+		Preconditions.checkArgument(deadlineMillis >= 0);
+		this.factory_ = Preconditions.checkNotNull(factory);
+		this.maxResults_ = maxResults;
+		this.latencyMillis_ = latencyMillis;
+		this.deadlineMillis_ = deadlineMillis;
+	}
+
+	/**
+	 * Enumerates the subsets for the given query in the order in which they
+	 * are found
+	 *
+	 * @param proof
+	 * @param justifier
+	 * @param monitor
+	 *            can interrupt the enumeration in addition to the limits
+	 * @param query
+	 * @return the found subsets
+	 */
+	public Result<A> enumerate(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, C query) {
+		return enumerate(proof, justifier, monitor, query, null);
+	}
+
+	/**
+	 * Enumerates the subsets for the given query in the order of the given
+	 * priorities; e.g., with
+	 * {@link org.liveontologies.puli.pinpointing.PriorityComparators#cardinality()}
+	 * and the limit on the number of results, the smallest subsets are found
+	 *
+	 * @param proof
+	 * @param justifier
+	 * @param monitor
+	 *            can interrupt the enumeration in addition to the limits
+	 * @param query
+	 * @param priorityComparator
+	 *            determines the order of the subsets or {@code null} if the
+	 *            order is not important
+	 * @return the found subsets sorted according to their priorities
+	 */
+	public Result<A> enumerate(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, C query,
+			PriorityComparator<? super Set<A>, ?> priorityComparator) {
+		Limiter limiter = new Limiter(monitor);
+		MinimalSubsetEnumerator<A> enumerator = factory_
+				.create(proof, justifier, limiter).newEnumerator(query);
+		limiter.start();
+		try {
+			if (priorityComparator == null) {
+				enumerator.enumerate(limiter);
+			} else {
+				enumerator.enumerate(limiter, priorityComparator);
+			}
+		} finally {
+			limiter.stop();
+		}
+		List<Set<A>> subsets = limiter.subsets_;
+		if (priorityComparator != null) {
+			// the subsets found before the limit may be reported not in the
+			// order of priorities
+			final List<Set<A>> sorted = new ArrayList<>(subsets.size());
+			PriorityBuffer<A, ?> buffer = PriorityBuffer.create(
+					new MinimalSubsetEnumerator.Listener<A>() {
+						@Override
+						public void newMinimalSubset(Set<A> set) {
+							sorted.add(set);
+						}
+					}, priorityComparator);
+			for (Set<A> subset : subsets) {
+				buffer.newMinimalSubset(subset);
+			}
+			buffer.flush();
+			subsets = sorted;
+		}
+		Limit reached = limiter.reached_.get();
+		return new Result<>(subsets, reached,
+				reached == null && !monitor.isInterrupted());
+	}
+
+	/**
+	 * The subsets found within the limits
+	 *
+	 * @author Yevgeny Kazakov
+	 *
+	 * @param <A>
+	 *            the type of axioms in the subsets
+	 */
+	public static class Result<A> {
+
+		private final List<Set<A>> subsets_;
+
+		private final Limit reached_;
+
+		private final boolean complete_;
+
+		Result(List<Set<A>> subsets, Limit reached, boolean complete) {
+			this.subsets_ = Collections.unmodifiableList(subsets);
+			this.reached_ = reached;
+			this.complete_ = complete;
+		}
+
+		public List<Set<A>> getSubsets() {
+			return subsets_;
+		}
+
+		/**
+		 * @return the limit that has stopped the enumeration or {@code null}
+		 *         if it was not stopped by a limit
+		 */
+		public Limit getReachedLimit() {
+			return reached_;
+		}
+
+		/**
+		 * @return {@code true} if all subsets were found, i.e., the
+		 *         enumeration was not stopped by a limit or by the monitor
+		 */
+		public boolean isComplete() {
+			return complete_;
+		}
+
+	}
+
+	/**
+	 * Collects the subsets and interrupts the computation when a limit is
+	 * reached
+	 */
+	private class Limiter
+			implements InterruptMonitor, MinimalSubsetEnumerator.Listener<A> {
+
+		private final InterruptMonitor monitor_;
+
+		private final List<Set<A>> subsets_ = new ArrayList<>();
+
+		/**
+		 * the limit that was reached first or {@code null} if the
+		 * computation should continue; set by the enumerating thread and by
+		 * the timer thread
+		 */
+		private final AtomicReference<Limit> reached_ = new AtomicReference<>();
+
+		/**
+		 * the time when the last subset was found or the enumeration was
+		 * started
+		 */
+		private volatile long lastResultNanos_;
+
+		/**
+		 * set when the enumeration is over, so the timer tasks should not be
+		 * scheduled anymore; guarded by {@code this}
+		 */
+		private boolean stopped_ = false;
+
+		/**
+		 * the timer tasks that check the limits; guarded by {@code this}
+		 */
+		private Future<?> deadlineCheck_ = null, latencyCheck_ = null;
+
+		Limiter(InterruptMonitor monitor) {
+			this.monitor_ = Preconditions.checkNotNull(monitor);
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			return reached_.get() != null || monitor_.isInterrupted();
+		}
+
+		@Override
+		public void newMinimalSubset(Set<A> set) {
+			if (maxResults_ != NO_LIMIT && subsets_.size() >= maxResults_) {
+				// found before the computation has noticed the interruption
+				return;
+			}
+			subsets_.add(set);
+			lastResultNanos_ = System.nanoTime();
+			if (maxResults_ != NO_LIMIT && subsets_.size() >= maxResults_) {
+				reach(Limit.RESULTS);
+			}
+		}
+
+		private void reach(Limit limit) {
+			// the first reached limit is kept
+			reached_.compareAndSet(null, limit);
+		}
+
+		synchronized void start() {
+			lastResultNanos_ = System.nanoTime();
+			if (deadlineMillis_ != NO_LIMIT) {
+				deadlineCheck_ = TIMER_.schedule(new Runnable() {
+					@Override
+					public void run() {
+						reach(Limit.DEADLINE);
+					}
+				}, deadlineMillis_, TimeUnit.MILLISECONDS);
+			}
+			if (latencyMillis_ != NO_LIMIT) {
+				scheduleLatencyCheck(
+						TimeUnit.MILLISECONDS.toNanos(latencyMillis_));
+			}
+		}
+
+		private synchronized void scheduleLatencyCheck(long delayNanos) {
+			if (stopped_) {
+				return;
+			}
+			latencyCheck_ = TIMER_.schedule(new Runnable() {
+				@Override
+				public void run() {
+					long delay = lastResultNanos_
+							+ TimeUnit.MILLISECONDS.toNanos(latencyMillis_)
+							- System.nanoTime();
+					if (delay <= 0) {
+						reach(Limit.LATENCY);
+					} else {
+						// a subset was found in the meantime
+						scheduleLatencyCheck(delay);
+					}
+				}
+			}, delayNanos, TimeUnit.NANOSECONDS);
+		}
+
+		synchronized void stop() {
+			stopped_ = true;
+			if (deadlineCheck_ != null) {
+				deadlineCheck_.cancel(false);
+			}
+			if (latencyCheck_ != null) {
+				latencyCheck_.cancel(false);
+			}
+		}
+
+	}
+
+}
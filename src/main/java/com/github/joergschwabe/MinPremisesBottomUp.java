@@ -22,12 +22,15 @@ package com.github.joergschwabe;
  * #L%
  */
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
@@ -49,7 +52,6 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 
 /**
@@ -62,18 +64,23 @@ import com.google.common.collect.Multimap;
  * @param <A>
  */
 public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
-		extends MinimalSubsetsFromProofs<C, I, A> {
+		extends MinimalSubsetsFromProofs<C, I, A> implements Closeable {
 
 	private static final Logger LOGGER_ = LoggerFactory
 			.getLogger(MinPremisesBottomUp.class);
 
-	private static final MinPremisesBottomUp.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+	/**
+	 * the value of the memory budget meaning that the memory is not bounded
+	 */
+	public static final long NO_MEMORY_BUDGET = JustificationStore.NO_BUDGET;
+
+	private static final MinPremisesBottomUp.Factory<?, ?, ?> FACTORY_ = new Factory<>(
+			NO_MEMORY_BUDGET);
 
 	/**
 	 * a map from conclusions to their justifications
 	 */
-	private final ListMultimap<C, Justification<C, A>> justifications_ = ArrayListMultimap
-			.create();
+	private final JustificationStore<C, A> justifications_;
 
 	/**
 	 * a map from premises to inferences for relevant conclusions
@@ -83,11 +90,17 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 	/**
 	 * a map from premises and inferences for which they are used to their
-	 * justifications
+	 * justifications; they are counted in the memory budget of
+	 * {@link #justifications_}
 	 */
 	private final Multimap<Pair<I, C>, Justification<C, A>> premiseJustifications_ = ArrayListMultimap
 			.create();
 
+	/**
+	 * assigns the identifiers to the axioms in the justifications
+	 */
+	private final IdProvider<A> axiomIds_ = new IdProvider<>(new IdSupplier());
+
 	// Statistics
 
 	private int countInferences_ = 0, countConclusions_ = 0,
@@ -95,8 +108,10 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 	private MinPremisesBottomUp(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor, final long memoryBudget) {
 		super(proof, justifier, monitor);
+		this.justifications_ = new JustificationStore<>(axiomIds_,
+				memoryBudget);
 	}
 
 	private void reset() {
@@ -110,6 +125,15 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		return new JustificationEnumerator(query);
 	}
 
+	/**
+	 * Forgets the computed justifications and deletes the temporary file to
+	 * which they were written if the memory budget was exceeded
+	 */
+	@Override
+	public void close() {
+		reset();
+	}
+
 	@Stat
 	public int nProcessedInferences() {
 		return countInferences_;
@@ -137,15 +161,32 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 	@Stat
 	public int maxNJustificationsOfAConclusion() {
-		int max = 0;
-		for (final C conclusion : justifications_.keySet()) {
-			final List<Justification<C, A>> justs = justifications_
-					.get(conclusion);
-			if (justs.size() > max) {
-				max = justs.size();
-			}
-		}
-		return max;
+		return justifications_.maxSize();
+	}
+
+	@Stat
+	public int nSpilledLists() {
+		return justifications_.nSpilledLists();
+	}
+
+	@Stat
+	public int nSpilledJustifications() {
+		return justifications_.nSpilledJustifications();
+	}
+
+	@Stat
+	public long nSpilledBytes() {
+		return justifications_.nSpilledBytes();
+	}
+
+	@Stat
+	public int nReloadedLists() {
+		return justifications_.nReloadedLists();
+	}
+
+	@Stat
+	public int nSpillFileCompactions() {
+		return justifications_.nCompactions();
 	}
 
 	@ResetStats
@@ -154,11 +195,12 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		countConclusions_ = 0;
 		countJustificationCandidates_ = 0;
 		countBlocked_ = 0;
+		justifications_.resetStats();
 	}
 
 	@NestedStats
 	public static Class<?> getNestedStats() {
-		return BloomSet.class;
+		return IdJustification.class;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -166,10 +208,27 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		return (Factory<C, I, A>) FACTORY_;
 	}
 
-	@SafeVarargs
-	private static <C, A> Justification<C, A> createJustification(C conclusion,
-			Collection<? extends A>... collections) {
-		return new BloomSet<C, A>(conclusion, collections);
+	/**
+	 * @param memoryBudget
+	 *            the maximal total number of axioms and justifications of
+	 *            conclusions kept in memory or {@link #NO_MEMORY_BUDGET}; when
+	 *            it is exceeded, the justifications of the conclusions that
+	 *            are the farthest from the goal conclusion are written to a
+	 *            temporary file and read again when needed; the
+	 *            justifications of the premises of inferences are counted in
+	 *            the budget but always kept in memory
+	 * @return the factory for the computations that use the given memory
+	 *         budget
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final long memoryBudget) {
+		Preconditions.checkArgument(memoryBudget >= 0);
+		return new Factory<>(memoryBudget);
+	}
+
+	private Justification<C, A> createJustification(C conclusion,
+			Collection<? extends A> axioms) {
+		return IdJustification.create(axiomIds_, conclusion, axioms);
 	}
 
 	/**
@@ -190,6 +249,12 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 		 */
 		private final Set<C> relevant_ = new HashSet<C>();
 
+		/**
+		 * the distances of the relevant conclusions from the conclusion for
+		 * which the justifications are computed in the number of inferences
+		 */
+		private final Map<C, Integer> distances_ = new HashMap<C, Integer>();
+
 		/**
 		 * temporary queue to compute {@link #relevant_}
 		 */
@@ -206,13 +271,13 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 		/**
 		 * the justifications will be returned here, they come in increasing
-		 * size order
+		 * size order; obtained from {@link #justifications_} for every
+		 * enumeration since it can be cleared by other enumerators
 		 */
-		private final List<? extends Set<A>> result_;
+		private Collection<? extends Set<A>> result_;
 
 		JustificationEnumerator(C conclusion) {
 			this.conclusion_ = conclusion;
-			this.result_ = justifications_.get(conclusion);
 		}
 
 		@Override
@@ -242,9 +307,17 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 			this.toDoJustifications_ = new PriorityQueue<JobFactory<C, A, ?>.Job>();
 
-			toInitialize(conclusion_);
-			initialize();
-			process();
+			justifications_.setDistances(distances_);
+			justifications_.pin(conclusion_);
+			// the justifications are loaded in the index
+			this.result_ = justifications_.getIndex(conclusion_);
+			try {
+				toInitialize(conclusion_, 0);
+				initialize();
+				process();
+			} finally {
+				justifications_.unpin(conclusion_);
+			}
 
 			this.listener_ = null;
 		}
@@ -262,13 +335,14 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 				LOGGER_.trace("{}: computation of justifiations initialized",
 						conclusion);
 				boolean derived = false;
+				final int premiseDistance = distances_.get(conclusion) + 1;
 				for (final I inf : getInferences(conclusion)) {
 					LOGGER_.trace("{}: new inference", inf);
 					derived = true;
 					countInferences_++;
 					for (C premise : inf.getPremises()) {
 						inferencesByPremises_.put(premise, inf);
-						toInitialize(premise);
+						toInitialize(premise, premiseDistance);
 					}
 					if (inf.getPremises().isEmpty()) {
 						toDoJustifications_.add(jobFactory_.newJob(
@@ -284,10 +358,11 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 		}
 
-		private void toInitialize(C conclusion) {
+		private void toInitialize(C conclusion, int distance) {
 			if (!relevant_.contains(conclusion)) {
 				countConclusions_++;
 				relevant_.add(conclusion);
+				distances_.put(conclusion, distance);
 				toInitialize_.add(conclusion);
 			}
 		}
@@ -302,6 +377,7 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 				if (isInterrupted()) {
 					return;
 				}
+				justifications_.checkBudget();
 
 				C conclusion = just.getConclusion();
 				if (!relevant_.contains(conclusion)) {
@@ -309,9 +385,9 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					LOGGER_.trace("blocked {}", just);
 					continue;
 				}
-				List<Justification<C, A>> justs = justifications_
-						.get(conclusion);
-				if (!Utils.isMinimal(just, justs)) {
+				SubsetIndex<Justification<C, A>> justsIndex = justifications_
+						.getIndex(conclusion);
+				if (!justsIndex.isMinimal(just)) {
 					continue;
 				}
 				if (!Utils.isMinimal(just, result_)) {
@@ -320,7 +396,7 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 					continue;
 				}
 				// else
-				justs.add(just);
+				justifications_.add(conclusion, just);
 				LOGGER_.trace("new {}", just);
 				if (conclusion_.equals(conclusion) && listener_ != null) {
 					listener_.newMinimalSubset(just);
@@ -334,9 +410,14 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 						for (C premise : inf.getPremises()) {
 							inferencesByPremises_.remove(premise, inf);
 							final Pair<I, C> key = Pair.create(inf, premise);
-							premiseJustifications_.removeAll(key);
-							premiseJustifications_.put(key,
-									just.copyTo(premise));
+							for (final Justification<C, A> removed : premiseJustifications_
+									.removeAll(key)) {
+								justifications_.untrack(removed);
+							}
+							final Justification<C, A> premiseJust = just
+									.copyTo(premise);
+							premiseJustifications_.put(key, premiseJust);
+							justifications_.track(premiseJust);
 						}
 					}
 
@@ -361,6 +442,7 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 										.next();
 								if (premiseJust.containsAll(justLessInf)) {
 									premiseJustIt.remove();
+									justifications_.untrack(premiseJust);
 								}
 							}
 						}
@@ -386,9 +468,10 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 
 					final Justification<C, A> justWithInf = just
 							.addElements(getJustification(inf));
-					if (Utils.isMinimal(justWithInf,
-							justifications_.get(inf.getConclusion()))) {
+					if (justifications_.getIndex(inf.getConclusion())
+							.isMinimal(justWithInf)) {
 						premiseJusts.add(just);
+						justifications_.track(just);
 						infsToPropagate.add(inf);
 					}
 
@@ -488,12 +571,19 @@ public class MinPremisesBottomUp<C, I extends Inference<? extends C>, A>
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final long memoryBudget_;
+
+		Factory(final long memoryBudget) {
+			this.memoryBudget_ = memoryBudget;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
-			return new MinPremisesBottomUp<>(proof, justifier, monitor);
+			return new MinPremisesBottomUp<>(proof, justifier, monitor,
+					memoryBudget_);
 		}
 
 	}
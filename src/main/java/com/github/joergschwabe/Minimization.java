@@ -0,0 +1,314 @@
+package com.github.joergschwabe;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+/**
+ * Strategies for computing a minimal subset of a given set of (integer)
+ * elements that satisfies a monotone {@link Property}, i.e., a property that
+ * holds for all supersets of sets for which it holds. Such minimization is
+ * used, e.g., to extract justifications and repairs from models of SAT
+ * encodings.
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+public enum Minimization {
+
+	/**
+	 * Tries to remove the elements one by one; requires one check of the
+	 * property per element
+	 */
+	LINEAR {
+		@Override
+		int[] doMinimize(int[] candidate, Property property) {
+			for (int element : candidate) {
+				property.add(element);
+			}
+			int[] result = new int[candidate.length];
+			int resultSize = 0;
+			for (int element : candidate) {
+				property.remove(element);
+				if (!property.holds()) {
+					// the element is necessary
+					property.add(element);
+					result[resultSize++] = element;
+				}
+			}
+			return Arrays.copyOf(result, resultSize);
+		}
+	},
+
+	/**
+	 * Recursively splits the elements into halves, as in the QuickXplain
+	 * algorithm of Ulrich Junker; requires a number of checks that is
+	 * logarithmic in the number of elements for every element of the result
+	 */
+	QUICK_XPLAIN {
+		@Override
+		int[] doMinimize(int[] candidate, Property property) {
+			if (candidate.length == 0) {
+				return candidate;
+			}
+			QuickXplain qx = new QuickXplain(candidate, property);
+			qx.minimize(0, candidate.length, true);
+			return Arrays.copyOf(qx.result_, qx.resultSize_);
+		}
+	},
+
+	/**
+	 * Finds the shortest prefix of the elements for which the property holds
+	 * (together with the elements found so far) using an exponential and
+	 * then a binary search; the last element of this prefix belongs to the
+	 * result and the remaining elements after it are dropped; requires a
+	 * number of checks that is logarithmic in the number of elements for
+	 * every element of the result
+	 */
+	PROGRESSION {
+		@Override
+		int[] doMinimize(int[] candidate, Property property) {
+			return new Progression(candidate, property).minimize();
+		}
+	};
+
+	/**
+	 * the numbers of checks of the properties per strategy; updated
+	 * concurrently by the workers of parallel computations
+	 */
+	private static final AtomicLongArray STATS_CHECK_COUNTS_ = new AtomicLongArray(
+			values().length);
+
+	@Stat
+	public static long nLinearChecks() {
+		return STATS_CHECK_COUNTS_.get(LINEAR.ordinal());
+	}
+
+	@Stat
+	public static long nQuickXplainChecks() {
+		return STATS_CHECK_COUNTS_.get(QUICK_XPLAIN.ordinal());
+	}
+
+	@Stat
+	public static long nProgressionChecks() {
+		return STATS_CHECK_COUNTS_.get(PROGRESSION.ordinal());
+	}
+
+	@ResetStats
+	public static void resetStatistics() {
+		for (int i = 0; i < STATS_CHECK_COUNTS_.length(); i++) {
+			STATS_CHECK_COUNTS_.set(i, 0);
+		}
+	}
+
+	/**
+	 * Computes a minimal subset of the given elements for which the given
+	 * property holds
+	 *
+	 * @param candidate
+	 *            the elements to be minimized; the property must hold for
+	 *            them; the array is not modified
+	 * @param property
+	 *            a monotone property with no elements added to it; after the
+	 *            call it may contain arbitrary elements of the candidate
+	 * @return the minimal subset of the candidate for which the property
+	 *         holds
+	 */
+	public int[] minimize(int[] candidate, final Property property) {
+		// the checks are counted locally and added to the statistics once
+		final long[] checks = new long[1];
+		final int[] result = doMinimize(candidate, new Property() {
+
+			@Override
+			public void add(int element) {
+				property.add(element);
+			}
+
+			@Override
+			public void remove(int element) {
+				property.remove(element);
+			}
+
+			@Override
+			public boolean holds() {
+				checks[0]++;
+				return property.holds();
+			}
+
+		});
+		STATS_CHECK_COUNTS_.addAndGet(ordinal(), checks[0]);
+		return result;
+	}
+
+	abstract int[] doMinimize(int[] candidate, Property property);
+
+	/**
+	 * A property of sets of integer elements; the set is modified by adding
+	 * and removing its elements
+	 *
+	 * @author Yevgeny Kazakov
+	 *
+	 */
+	public interface Property {
+
+		/**
+		 * Adds an element, which is not yet present, to the set
+		 *
+		 * @param element
+		 */
+		void add(int element);
+
+		/**
+		 * Removes an element, which is present, from the set
+		 *
+		 * @param element
+		 */
+		void remove(int element);
+
+		/**
+		 * @return {@code true} if the property holds for the current set
+		 */
+		boolean holds();
+
+	}
+
+	/**
+	 * The state of the QuickXplain algorithm. The elements of the property
+	 * are always the "background" elements, for which the property does not
+	 * hold yet.
+	 */
+	private static class QuickXplain {
+
+		private final int[] candidate_;
+		private final Property property_;
+		private final int[] result_;
+		private int resultSize_ = 0;
+
+		QuickXplain(int[] candidate, Property property) {
+			this.candidate_ = candidate;
+			this.property_ = property;
+			this.result_ = new int[candidate.length];
+		}
+
+		/**
+		 * Appends to {@link #result_} a minimal subset of the candidate
+		 * elements in the given range which, together with the background
+		 * elements, satisfies the property
+		 *
+		 * @param from
+		 * @param to
+		 * @param backgroundChanged
+		 *            {@code true} if some elements were added to the
+		 *            background since the last check
+		 */
+		void minimize(int from, int to, boolean backgroundChanged) {
+			if (backgroundChanged && property_.holds()) {
+				return;
+			}
+			if (to - from == 1) {
+				result_[resultSize_++] = candidate_[from];
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			for (int i = from; i < mid; i++) {
+				property_.add(candidate_[i]);
+			}
+			int start = resultSize_;
+			minimize(mid, to, true);
+			int end = resultSize_;
+			for (int i = from; i < mid; i++) {
+				property_.remove(candidate_[i]);
+			}
+			for (int i = start; i < end; i++) {
+				property_.add(result_[i]);
+			}
+			minimize(from, mid, end > start);
+			for (int i = start; i < end; i++) {
+				property_.remove(result_[i]);
+			}
+		}
+
+	}
+
+	/**
+	 * The state of the progression algorithm. The elements of the property
+	 * are always the elements found so far together with a prefix of the
+	 * remaining candidate elements.
+	 */
+	private static class Progression {
+
+		private final Property property_;
+
+		/**
+		 * the candidate elements that are not yet decided
+		 */
+		private final int[] remaining_;
+		private int remainingSize_;
+
+		/**
+		 * the length of the prefix of {@link #remaining_} added to
+		 * {@link #property_}
+		 */
+		private int prefix_ = 0;
+
+		private final int[] result_;
+		private int resultSize_ = 0;
+
+		Progression(int[] candidate, Property property) {
+			this.property_ = property;
+			this.remaining_ = Arrays.copyOf(candidate, candidate.length);
+			this.remainingSize_ = candidate.length;
+			this.result_ = new int[candidate.length];
+		}
+
+		void setPrefix(int length) {
+			for (; prefix_ < length; prefix_++) {
+				property_.add(remaining_[prefix_]);
+			}
+			for (; prefix_ > length; prefix_--) {
+				property_.remove(remaining_[prefix_ - 1]);
+			}
+		}
+
+		int[] minimize() {
+			while (remainingSize_ > 0) {
+				setPrefix(0);
+				if (property_.holds()) {
+					break;
+				}
+				// the property does not hold for the prefix of length low
+				// but holds for the prefix of length high
+				int low = 0, high = remainingSize_;
+				for (int length = 1; length < remainingSize_; length <<= 1) {
+					setPrefix(length);
+					if (property_.holds()) {
+						high = length;
+						break;
+					}
+					// else
+					low = length;
+				}
+				while (high - low > 1) {
+					int mid = (low + high) >>> 1;
+					setPrefix(mid);
+					if (property_.holds()) {
+						high = mid;
+					} else {
+						low = mid;
+					}
+				}
+				// the last element of the prefix is necessary
+				int element = remaining_[high - 1];
+				setPrefix(high - 1);
+				property_.add(element);
+				result_[resultSize_++] = element;
+				remainingSize_ = high - 1;
+			}
+			return Arrays.copyOf(result_, resultSize_);
+		}
+
+	}
+
+}
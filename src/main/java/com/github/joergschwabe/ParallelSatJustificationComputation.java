@@ -0,0 +1,782 @@
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.liveontologies.puli.AssertedConclusionInference;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceDerivabilityChecker;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Producer;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.Proofs;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Computes justifications using the same SAT encoding as
+ * {@link SatJustificationComputation}, but in parallel: the search space is
+ * split into cubes by fixing the values of the axioms that are used in most
+ * inferences, and the cubes are processed by several workers, each with its
+ * own {@link SatAdapter}. The blocking clauses found by one worker are added
+ * to the solvers of all other workers, so every justification is normally
+ * found only once; the justifications found concurrently by several workers
+ * are reported only once.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <I>
+ *            the type of inferences used in the proof
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class ParallelSatJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	/**
+	 * the maximal number of axioms used for splitting
+	 */
+	private static final int MAX_SPLIT_AXIOMS_ = 20;
+
+	/**
+	 * Creates a factory for computing justifications using as many workers
+	 * as there are available processors
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of the {@link SatAdapter}s used by
+	 *            the workers
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory) {
+		return getFactory(satFactory,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of the {@link SatAdapter}s used by
+	 *            the workers
+	 * @param nWorkers
+	 *            the number of workers processing the cubes in parallel; the
+	 *            search space is split into about four cubes per worker
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory, int nWorkers) {
+		Preconditions.checkArgument(nWorkers > 0);
+		return getFactory(satFactory, Minimization.LINEAR, nWorkers,
+				32 - Integer.numberOfLeadingZeros(4 * nWorkers - 1));
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of the {@link SatAdapter}s used by
+	 *            the workers
+	 * @param minimization
+	 *            the strategy used to minimize the models
+	 * @param nWorkers
+	 *            the number of workers processing the cubes in parallel
+	 * @param nSplitAxioms
+	 *            the number of axioms whose values are fixed in the cubes;
+	 *            the search space is split into {@code 2^nSplitAxioms} cubes
+	 *            (or less if the proof of the goal has fewer axioms)
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory, Minimization minimization,
+			int nWorkers, int nSplitAxioms) {
+		return new ParallelSatJustificationComputation.Factory<>(satFactory,
+				minimization, nWorkers, nSplitAxioms);
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return Minimization.class;
+	}
+
+	@NestedStats(name = "sat")
+	public SatAdapter.Factory getSatFactory() {
+		return satFactory_;
+	}
+
+	private final SatAdapter.Factory satFactory_;
+
+	private final Minimization minimization_;
+
+	private final int nWorkers_;
+
+	private final int nSplitAxioms_;
+
+	public ParallelSatJustificationComputation(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, SatAdapter.Factory satFactory,
+			Minimization minimization, int nWorkers, int nSplitAxioms) {
+		super(proof, justifier, monitor);
+		Preconditions.checkArgument(nWorkers > 0);
+		Preconditions.checkArgument(
+				nSplitAxioms >= 0 && nSplitAxioms <= MAX_SPLIT_AXIOMS_);
+		this.satFactory_ = Preconditions.checkNotNull(satFactory);
+		this.minimization_ = Preconditions.checkNotNull(minimization);
+		this.nWorkers_ = nWorkers;
+		this.nSplitAxioms_ = nSplitAxioms;
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final Object query) {
+		return new Enumerator(query);
+	}
+
+	class Enumerator implements MinimalSubsetEnumerator<A>,
+			Producer<Inference<? extends Integer>> {
+
+		private final IdSupplier idSup_ = new IdSupplier();
+
+		private final IdProvider<Inference<? extends Integer>> inferenceIds_;
+		private final IdProvider<A> axiomIds_;
+
+		private final Proof<? extends Inference<? extends Integer>> integerProof_;
+		private final int goal_;
+
+		/**
+		 * the clauses encoding the proof of the goal, which are added to the
+		 * solvers of all workers
+		 */
+		private final List<int[]> clauses_ = new ArrayList<>();
+
+		/**
+		 * the conclusions for which the clauses are already produced
+		 */
+		private final Set<Integer> encoded_ = new HashSet<>();
+
+		/**
+		 * the identifiers of the axioms used in the proof of the goal
+		 */
+		private final int[] axioms_;
+
+		/**
+		 * the axioms whose values are fixed in the cubes; bit {@code i} of
+		 * the cube number is the value of {@code splitAxioms_[i]}
+		 */
+		private final int[] splitAxioms_;
+
+		/**
+		 * the blocking clauses found by the workers during the current
+		 * enumeration; guarded by itself
+		 */
+		private final List<int[]> sharedClauses_ = new ArrayList<>();
+
+		/**
+		 * the number of the next cube to be processed
+		 */
+		private final AtomicInteger nextCube_ = new AtomicInteger();
+
+		/**
+		 * {@code true} if the workers should stop, e.g., if one of them has
+		 * failed
+		 */
+		private volatile boolean stopped_ = false;
+
+		/**
+		 * {@code true} if some worker has found a model without the bound on
+		 * the number of axioms during the current round of the enumeration by
+		 * priorities
+		 */
+		private volatile boolean unboundedModelFound_ = false;
+
+		/**
+		 * the justifications reported during the current enumeration; guarded
+		 * by {@code this}
+		 */
+		private final Set<Set<A>> reported_ = new HashSet<>();
+
+		private Listener<A> listener_ = null;
+
+		Enumerator(Object query) {
+			Preconditions.checkNotNull(query);
+			this.axiomIds_ = new IdProvider<>(idSup_);
+			IdProvider<Object> conclusionIds = new IdProvider<>(idSup_);
+			this.integerProof_ = IntegerProofTranslator.translate(getProof(),
+					getInferenceJustifier(), query, conclusionIds, axiomIds_);
+			this.goal_ = conclusionIds.getId(query);
+			this.inferenceIds_ = new IdProvider<>(idSup_);
+			// the goal should be derived
+			clauses_.add(new int[] { goal_ });
+			encode(goal_);
+			Proofs.unfoldRecursively(integerProof_, goal_, this);
+			// count in how many inferences the axioms are used
+			final int[] occurrences = new int[idSup_.getNextId()];
+			final List<Integer> axioms = new ArrayList<>();
+			Proofs.unfoldRecursively(integerProof_, goal_,
+					new Producer<Inference<? extends Integer>>() {
+						@Override
+						public void produce(Inference<? extends Integer> inf) {
+							if (inf instanceof AssertedConclusionInference) {
+								axioms.add(inf.getConclusion());
+							}
+							for (int premise : inf.getPremises()) {
+								occurrences[premise]++;
+							}
+						}
+					});
+			Collections.sort(axioms, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return Integer.compare(occurrences[o2], occurrences[o1]);
+				}
+			});
+			this.axioms_ = new int[axioms.size()];
+			for (int i = 0; i < axioms_.length; i++) {
+				axioms_[i] = axioms.get(i);
+			}
+			this.splitAxioms_ = Arrays.copyOf(axioms_,
+					Math.min(nSplitAxioms_, axioms_.length));
+		}
+
+		@Override
+		public void produce(Inference<? extends Integer> inf) {
+			// the inference uses all premises
+			int id = inferenceIds_.getId(inf);
+			for (int premise : inf.getPremises()) {
+				clauses_.add(new int[] { -id, premise });
+				encode(premise);
+			}
+		}
+
+		/**
+		 * Produces the clause saying that the given conclusion is derived by
+		 * one of its inferences, unless it was produced before
+		 *
+		 * @param conclusion
+		 */
+		private void encode(int conclusion) {
+			if (!encoded_.add(conclusion)) {
+				return;
+			}
+			Collection<? extends Inference<? extends Integer>> infs = integerProof_
+					.getInferences(conclusion);
+			int[] clause = new int[infs.size() + 1];
+			int len = 0;
+			clause[len++] = -conclusion;
+			for (Inference<? extends Integer> inf : infs) {
+				clause[len++] = inferenceIds_.getId(inf);
+			}
+			clauses_.add(clause);
+		}
+
+		@Override
+		public void enumerate(Listener<A> listener) {
+			Preconditions.checkNotNull(listener);
+			this.listener_ = listener;
+			sharedClauses_.clear();
+			reported_.clear();
+			List<Worker> workers = createWorkers();
+			ExecutorService executor = Executors
+					.newFixedThreadPool(workers.size());
+			try {
+				process(workers, executor, 0);
+			} finally {
+				executor.shutdown();
+				this.listener_ = null;
+			}
+		}
+
+		/**
+		 * Enumerates the justifications in rounds of increasing cardinality
+		 * like {@link SatJustificationComputation}: in round {@code k} all
+		 * cubes are processed under the assumption that at most {@code k}
+		 * axioms are true, which is encoded by a {@link Totalizer} whose
+		 * clauses are shared with all workers. The workers and their solvers
+		 * are kept for all rounds, so only the new clauses of the
+		 * {@link Totalizer} and the new blocking clauses are added to the
+		 * solvers between the rounds. The justifications of every round are
+		 * reported in the order of their priorities.
+		 */
+		@Override
+		public void enumerate(Listener<A> listener,
+				PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			PriorityBuffer<A, ?> buffer = PriorityBuffer.create(listener,
+					priorityComparator);
+			this.listener_ = buffer;
+			sharedClauses_.clear();
+			reported_.clear();
+			Totalizer totalizer = new Totalizer(axioms_, idSup_,
+					new ClauseSharer());
+			List<Worker> workers = createWorkers();
+			ExecutorService executor = Executors
+					.newFixedThreadPool(workers.size());
+			try {
+				for (int k = 0;; k++) {
+					int bound = totalizer.getAtMostLiteral(k);
+					unboundedModelFound_ = false;
+					process(workers, executor, bound);
+					buffer.flush();
+					if (bound == 0 || isStopped() || !unboundedModelFound_) {
+						// no other justifications
+						break;
+					}
+				}
+			} finally {
+				executor.shutdown();
+				this.listener_ = null;
+			}
+		}
+
+		/**
+		 * @return the workers for processing the cubes, which are used for
+		 *         the whole enumeration
+		 */
+		private List<Worker> createWorkers() {
+			int nCubes = 1 << splitAxioms_.length;
+			int nWorkers = Math.min(nWorkers_, nCubes);
+			List<Worker> workers = new ArrayList<>(nWorkers);
+			for (int i = 0; i < nWorkers; i++) {
+				workers.add(new Worker(nCubes));
+			}
+			return workers;
+		}
+
+		/**
+		 * Processes all cubes by the workers and waits until they finish
+		 * 
+		 * @param workers
+		 * @param executor
+		 *            runs the workers
+		 * @param bound
+		 *            the literal that is additionally assumed in all cubes or
+		 *            {@code 0} if there is no such literal
+		 */
+		private void process(List<Worker> workers, ExecutorService executor,
+				int bound) {
+			nextCube_.set(0);
+			stopped_ = false;
+			List<Future<Void>> futures = new ArrayList<>(workers.size());
+			for (Worker worker : workers) {
+				worker.bound_ = bound;
+				futures.add(executor.submit(worker));
+			}
+			boolean interrupted = false;
+			Throwable failure = null;
+			for (Future<Void> future : futures) {
+				for (;;) {
+					try {
+						future.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+						stopped_ = true;
+					} catch (ExecutionException e) {
+						stopped_ = true;
+						if (failure == null) {
+							failure = e.getCause();
+						}
+						break;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if (failure != null) {
+				throw new RuntimeException(failure);
+			}
+		}
+
+		/**
+		 * Adds a blocking clause for the other workers
+		 *
+		 * @param clause
+		 */
+		void share(int[] clause) {
+			synchronized (sharedClauses_) {
+				sharedClauses_.add(clause);
+			}
+		}
+
+		/**
+		 * Reports the given justification to the listener unless it was
+		 * reported before
+		 *
+		 * @param justification
+		 */
+		synchronized void report(Set<A> justification) {
+			if (reported_.add(justification)) {
+				listener_.newMinimalSubset(justification);
+			}
+		}
+
+		boolean isStopped() {
+			return stopped_ || isInterrupted();
+		}
+
+		/**
+		 * Shares the clauses added to it with all workers; used for the
+		 * clauses of the {@link Totalizer}
+		 */
+		class ClauseSharer implements SatAdapter {
+
+			private final List<Integer> clause_ = new ArrayList<>();
+
+			@Override
+			public void newClause() {
+				clause_.clear();
+			}
+
+			@Override
+			public void addLiteral(int l) {
+				clause_.add(l);
+			}
+
+			@Override
+			public void addClause() {
+				int[] clause = new int[clause_.size()];
+				for (int i = 0; i < clause.length; i++) {
+					clause[i] = clause_.get(i);
+				}
+				share(clause);
+			}
+
+			@Override
+			public void addClause(int[] lits, int from, int len) {
+				share(Arrays.copyOfRange(lits, from, from + len));
+			}
+
+			@Override
+			public boolean findModel() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public boolean findModel(int... assumptions) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public int[] getUnsatCore() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public boolean isTrue(int atom) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void setInterruptMonitor(InterruptMonitor monitor) {
+				// nothing to interrupt
+			}
+
+			@Override
+			public void reset() {
+				clause_.clear();
+			}
+
+		}
+
+		/**
+		 * Processes the cubes not taken by other workers using its own
+		 * {@link SatAdapter} and {@link HornDerivabilityChecker}, which are
+		 * created when the worker is called for the first time and kept for
+		 * the next rounds of the enumeration
+		 */
+		class Worker implements Callable<Void> {
+
+			private final int nCubes_;
+
+			/**
+			 * the literal assumed in all cubes of the current round or
+			 * {@code 0} if there is no such literal; set before the worker is
+			 * called
+			 */
+			int bound_ = 0;
+
+			private SatAdapter solver_;
+
+			private HornDerivabilityChecker checker_;
+
+			private DerivabilityProperty property_;
+
+			/**
+			 * the number of the shared clauses added to {@link #solver_}
+			 */
+			private int imported_ = 0;
+
+			Worker(int nCubes) {
+				this.nCubes_ = nCubes;
+			}
+
+			@Override
+			public Void call() {
+				if (solver_ == null) {
+					initialize();
+				}
+				int[] assumptions = new int[splitAxioms_.length
+						+ (bound_ == 0 ? 0 : 1)];
+				if (bound_ != 0) {
+					assumptions[splitAxioms_.length] = bound_;
+				}
+				for (;;) {
+					int cube = nextCube_.getAndIncrement();
+					if (cube >= nCubes_ || isStopped()) {
+						return null;
+					}
+					for (int i = 0; i < splitAxioms_.length; i++) {
+						assumptions[i] = (cube >>> i & 1) == 0
+								? -splitAxioms_[i]
+								: splitAxioms_[i];
+					}
+					enumerate(assumptions);
+				}
+			}
+
+			private void initialize() {
+				solver_ = satFactory_.create();
+				solver_.reset();
+				solver_.setInterruptMonitor(new InterruptMonitor() {
+					@Override
+					public boolean isInterrupted() {
+						return isStopped();
+					}
+				});
+				for (int[] clause : clauses_) {
+					solver_.addClause(clause, 0, clause.length);
+				}
+				checker_ = new HornDerivabilityChecker(integerProof_, goal_);
+				property_ = new DerivabilityProperty(checker_, goal_, false);
+			}
+
+			/**
+			 * Adds to {@link #solver_} the clauses shared by the other
+			 * workers since the last call
+			 */
+			private void importSharedClauses() {
+				int[][] clauses;
+				synchronized (sharedClauses_) {
+					int size = sharedClauses_.size();
+					clauses = sharedClauses_.subList(imported_, size)
+							.toArray(new int[size - imported_][]);
+					imported_ = size;
+				}
+				for (int[] clause : clauses) {
+					solver_.addClause(clause, 0, clause.length);
+				}
+			}
+
+			Proof<Inference<? extends Integer>> getModelProof() {
+				return new Proof<Inference<? extends Integer>>() {
+					@Override
+					public Collection<? extends Inference<? extends Integer>> getInferences(
+							Object conclusion) {
+						for (Inference<? extends Integer> inf : integerProof_
+								.getInferences(conclusion)) {
+							if (solver_.isTrue(inferenceIds_.getId(inf))) {
+								return Collections.singleton(inf);
+							}
+						}
+						// else
+						return Collections.emptySet();
+					}
+				};
+			}
+
+			/**
+			 * Finds the justifications in the cube given by the assumptions
+			 *
+			 * @param assumptions
+			 */
+			private void enumerate(int[] assumptions) {
+				for (;;) {
+					importSharedClauses();
+					if (!solver_.findModel(assumptions)) {
+						if (bound_ != 0 && !unboundedModelFound_
+								&& !isStopped()
+								&& solver_.findModel(Arrays.copyOf(
+										assumptions, splitAxioms_.length))) {
+							unboundedModelFound_ = true;
+						}
+						return;
+					}
+					if (isStopped()) {
+						return;
+					}
+					Proof<Inference<? extends Integer>> modelProof = getModelProof();
+					InferenceDerivabilityChecker<Integer, Inference<? extends Integer>> inducedChecker = new InferenceDerivabilityChecker<>(
+							modelProof);
+					if (inducedChecker.isDerivable(goal_)) {
+						report(minimize());
+					} else {
+						share(getCycleClause(modelProof,
+								inducedChecker.getNonDerivableConclusions()));
+					}
+				}
+			}
+
+			/**
+			 * Minimizes the axioms that are true in the current model of
+			 * {@link #solver_} and shares the blocking clause for the result
+			 *
+			 * @return the justification for the goal
+			 */
+			private Set<A> minimize() {
+				int[] candidate = new int[axioms_.length];
+				int candidateSize = 0;
+				for (int id : axioms_) {
+					if (solver_.isTrue(id)) {
+						candidate[candidateSize++] = id;
+					}
+				}
+				candidate = Arrays.copyOf(candidate, candidateSize);
+				property_.clear(axioms_);
+				int[] minimal = minimization_.minimize(candidate, property_);
+				Set<A> justification = new HashSet<>(minimal.length);
+				int[] clause = new int[minimal.length];
+				for (int i = 0; i < minimal.length; i++) {
+					justification.add(axiomIds_.getValue(minimal[i]));
+					clause[i] = -minimal[i];
+				}
+				share(clause);
+				return justification;
+			}
+
+			/**
+			 * @param modelProof
+			 * @param nonDerivable
+			 * @return the clause blocking a cycle of the model proof through
+			 *         non-derivable conclusions
+			 */
+			private int[] getCycleClause(
+					Proof<Inference<? extends Integer>> modelProof,
+					Set<? extends Integer> nonDerivable) {
+				// search for cycle
+				Set<Integer> visited = new HashSet<>();
+				int next = goal_;
+				while (visited.add(next)) {
+					next = getNextOnCycle(modelProof, nonDerivable, next);
+				}
+				// record the cycle
+				List<Integer> cycle = new ArrayList<>();
+				int cycleStart = next;
+				do {
+					cycle.add(-inferenceIds_.getId(modelProof
+							.getInferences(next).iterator().next()));
+					next = getNextOnCycle(modelProof, nonDerivable, next);
+				} while (next != cycleStart);
+				int[] clause = new int[cycle.size()];
+				for (int i = 0; i < clause.length; i++) {
+					clause[i] = cycle.get(i);
+				}
+				return clause;
+			}
+
+			private int getNextOnCycle(
+					Proof<Inference<? extends Integer>> modelProof,
+					Set<? extends Integer> nonDerivable, int conclusion) {
+				// take the first inference, it should exist since the
+				// encoding is satisfiable
+				Inference<? extends Integer> inf = modelProof
+						.getInferences(conclusion).iterator().next();
+				for (Integer premise : inf.getPremises()) {
+					if (nonDerivable.contains(premise)) {
+						return premise;
+					}
+				}
+				return conclusion;
+			}
+
+		}
+
+	}
+
+	/**
+	 * @author Yevgeny Kazakov
+	 *
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 */
+	static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		private final SatAdapter.Factory satFactory_;
+
+		private final Minimization minimization_;
+
+		private final int nWorkers_;
+
+		private final int nSplitAxioms_;
+
+		Factory(SatAdapter.Factory satFactory, Minimization minimization,
+				int nWorkers, int nSplitAxioms) {
+			this.satFactory_ = satFactory;
+			this.minimization_ = minimization;
+			this.nWorkers_ = nWorkers;
+			this.nSplitAxioms_ = nSplitAxioms;
+		}
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				Proof<? extends I> proof,
+				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				InterruptMonitor monitor) {
+			return new ParallelSatJustificationComputation<>(proof, justifier,
+					monitor, satFactory_, minimization_, nWorkers_,
+					nSplitAxioms_);
+		}
+
+	}
+
+}
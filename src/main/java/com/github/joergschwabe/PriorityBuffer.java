@@ -0,0 +1,77 @@
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+
+/**
+ * Collects minimal subsets and reports them to a
+ * {@link MinimalSubsetEnumerator.Listener} in the order of their priorities.
+ * Used by the SAT-based enumerators that find the subsets in rounds of
+ * non-decreasing cardinality: the subsets of each round are reported when
+ * the round is finished.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <A>
+ *            the type of elements of the subsets
+ * @param <P>
+ *            the type of priorities
+ */
+class PriorityBuffer<A, P> implements MinimalSubsetEnumerator.Listener<A> {
+
+	private final MinimalSubsetEnumerator.Listener<A> listener_;
+
+	private final PriorityComparator<? super Set<A>, P> priorityComparator_;
+
+	private final List<Set<A>> subsets_ = new ArrayList<>();
+
+	private final List<P> priorities_ = new ArrayList<>();
+
+	PriorityBuffer(MinimalSubsetEnumerator.Listener<A> listener,
+			PriorityComparator<? super Set<A>, P> priorityComparator) {
+		this.listener_ = listener;
+		this.priorityComparator_ = priorityComparator;
+	}
+
+	static <A, P> PriorityBuffer<A, P> create(
+			MinimalSubsetEnumerator.Listener<A> listener,
+			PriorityComparator<? super Set<A>, P> priorityComparator) {
+		return new PriorityBuffer<>(listener, priorityComparator);
+	}
+
+	@Override
+	public void newMinimalSubset(Set<A> set) {
+		subsets_.add(set);
+		priorities_.add(priorityComparator_.getPriority(set));
+	}
+
+	/**
+	 * Reports the collected subsets in the order of their priorities and
+	 * forgets them
+	 */
+	void flush() {
+		List<Integer> order = new ArrayList<>(subsets_.size());
+		for (int i = 0; i < subsets_.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return priorityComparator_.compare(priorities_.get(i1),
+						priorities_.get(i2));
+			}
+		});
+		for (int i : order) {
+			listener_.newMinimalSubset(subsets_.get(i));
+		}
+		subsets_.clear();
+		priorities_.clear();
+	}
+
+}
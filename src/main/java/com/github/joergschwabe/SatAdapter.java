@@ -31,6 +31,22 @@ public interface SatAdapter {
 	 */
 	void addClause();
 
+	/**
+	 * Adds a clause consisting of the given literals to this sat solver
+	 * without using {@link #newClause()} and {@link #addLiteral(int)}. The
+	 * array is not retained by the solver and can be reused for the next
+	 * clauses.
+	 * 
+	 * @param lits
+	 *            the array containing the literals of the clause, which are of
+	 *            the same form as for {@link #addLiteral(int)}
+	 * @param from
+	 *            the position of the first literal of the clause in the array
+	 * @param len
+	 *            the number of literals of the clause
+	 */
+	void addClause(int[] lits, int from, int len);
+
 	/**
 	 * Searches for a propositional model satisfying all clauses added to this
 	 * sat solver
@@ -43,6 +59,32 @@ public interface SatAdapter {
 	 */
 	public boolean findModel();
 
+	/**
+	 * Searches for a propositional model satisfying all clauses added to this
+	 * sat solver in which, in addition, all given literals are true. The
+	 * assumptions are used only for this search and are not retained for the
+	 * subsequent searches.
+	 * 
+	 * @param assumptions
+	 *            literals that should be true in the model, which are of the
+	 *            same form as for {@link #addLiteral(int)}
+	 * @return {@code true} if the model is found and {@code false} otherwise
+	 * 
+	 * @see #findModel()
+	 * @see #getUnsatCore()
+	 */
+	public boolean findModel(int... assumptions);
+
+	/**
+	 * @return a subset of the assumptions of the last call of
+	 *         {@link #findModel(int...)} that cannot be satisfied together with
+	 *         the clauses of this sat solver; the literals are listed in the
+	 *         same order as in the assumptions. The subset is not necessarily
+	 *         minimal. If the last search has found a model or was
+	 *         interrupted, {@code null} is returned.
+	 */
+	public int[] getUnsatCore();
+
 	/**
 	 * Checks if a given atom is true in the last model found by
 	 * {@link #findModel()}
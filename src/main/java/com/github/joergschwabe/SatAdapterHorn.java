@@ -0,0 +1,974 @@
+package com.github.joergschwabe;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A conflict-driven clause learning SAT solver tuned for the clauses produced
+ * by the encodings of proofs, which are almost all Horn clauses. The solver
+ * uses two watched literals with blockers stored in primitive arrays, VSIDS
+ * decisions with saved phases, first-UIP learning with clause minimization,
+ * Luby restarts and a learned-clause database that is kept (and periodically
+ * reduced) between calls of {@link #findModel()}, so clauses can be added
+ * incrementally.
+ * <p>
+ * Decisions are made negative until the phase of a variable is saved, so a
+ * set of Horn clauses is satisfied by unit propagation alone: the positive
+ * literals of the clauses are then only true when they are forced.
+ * <p>
+ * Propositional atoms are used directly as variables; literals are encoded
+ * as {@code 2 * atom} (positive) and {@code 2 * atom + 1} (negative).
+ *
+ * @author Yevgeny Kazakov
+ */
+public class SatAdapterHorn implements SatAdapter {
+
+	public enum FACTORY implements SatAdapter.Factory {
+		DEFAULT {
+			@Override
+			public SatAdapter create() {
+				return new SatAdapterHorn();
+			}
+		};
+
+		@Stat
+		public long nConflicts() {
+			return STATS_CONFLICTS_.get();
+		}
+
+		@Stat
+		public long nDecisions() {
+			return STATS_DECISIONS_.get();
+		}
+
+		@Stat
+		public long nPropagations() {
+			return STATS_PROPAGATIONS_.get();
+		}
+
+		@ResetStats
+		public void resetStats() {
+			STATS_CONFLICTS_.set(0);
+			STATS_DECISIONS_.set(0);
+			STATS_PROPAGATIONS_.set(0);
+		}
+
+	}
+
+	private static final AtomicLong STATS_CONFLICTS_ = new AtomicLong(),
+			STATS_DECISIONS_ = new AtomicLong(),
+			STATS_PROPAGATIONS_ = new AtomicLong();
+
+	/**
+	 * values of variables
+	 */
+	private static final byte TRUE_ = 1, FALSE_ = -1, UNDEF_ = 0;
+
+	/**
+	 * the index of a clause that does not exist, e.g., the reason of a
+	 * decision
+	 */
+	private static final int NONE_ = -1;
+
+	private static final int RESTART_BASE_ = 100;
+
+	/**
+	 * the minimal number of learned clauses kept
+	 */
+	private static final int MIN_LEARNTS_ = 1000;
+
+	private static final double VAR_DECAY_ = 0.95, CLAUSE_DECAY_ = 0.999;
+
+	/**
+	 * how often (in the number of decisions) the interrupt monitor is checked
+	 * between conflicts
+	 */
+	private static final int INTERRUPT_CHECK_DECISIONS_ = 1024;
+
+	private InterruptMonitor monitor_ = InterruptMonitor.DUMMY;
+
+	/**
+	 * the number of variables; the valid variables are from {@code 1} to
+	 * {@code nVars_ - 1}
+	 */
+	private int nVars_;
+
+	/**
+	 * the values of the variables
+	 */
+	private byte[] assigns_;
+
+	/**
+	 * {@code true} if the saved phase of the variable is negative
+	 */
+	private boolean[] negativePhase_;
+
+	/**
+	 * the decision levels at which the variables are assigned
+	 */
+	private int[] level_;
+
+	/**
+	 * the clauses that implied the values of the variables or {@link #NONE_}
+	 * for decisions
+	 */
+	private int[] reason_;
+
+	private double[] varActivity_;
+	private double varIncrement_;
+
+	/**
+	 * a binary heap of variables ordered by {@link #varActivity_};
+	 * {@code heapIndex_[v]} is the position of variable {@code v} in
+	 * {@link #heap_} or {@code -1} if it is not there
+	 */
+	private int[] heap_, heapIndex_;
+	private int heapSize_;
+
+	/**
+	 * used in conflict analysis
+	 */
+	private boolean[] seen_;
+
+	/**
+	 * the literals of the clauses; the first two literals are watched;
+	 * {@code null} for removed clauses
+	 */
+	private int[][] clauses_;
+	private int nClauses_;
+
+	/**
+	 * the indexes of the removed clauses that can be reused
+	 */
+	private int[] freeClauses_;
+	private int nFreeClauses_;
+
+	private boolean[] learnt_;
+	private double[] clauseActivity_;
+	private double clauseIncrement_;
+
+	/**
+	 * the indexes of learned clauses
+	 */
+	private int[] learnts_;
+	private int nLearnts_;
+	private double maxLearnts_;
+
+	/**
+	 * {@code watches_[p]} contains pairs of a clause in which the negation of
+	 * literal {@code p} is watched and a literal of this clause (blocker);
+	 * the clause needs not be visited if the blocker is true
+	 */
+	private int[][] watches_;
+	private int[] watchesSize_;
+
+	/**
+	 * the assigned literals in the order of assignment
+	 */
+	private int[] trail_;
+	private int trailSize_;
+
+	/**
+	 * the positions in {@link #trail_} where the decision levels start
+	 */
+	private int[] trailLimits_;
+	private int decisionLevel_;
+
+	/**
+	 * the position in {@link #trail_} of the next literal to propagate
+	 */
+	private int propagationHead_;
+
+	/**
+	 * {@code false} if the clauses are unsatisfiable
+	 */
+	private boolean ok_;
+
+	/**
+	 * the clause created by {@link #newClause()}
+	 */
+	private int[] newClause_ = new int[16];
+	private int newClauseSize_;
+
+	/**
+	 * a buffer for learned clauses and clauses to be added
+	 */
+	private int[] buffer_ = new int[16];
+
+	/**
+	 * the number of restarts so far; determines the next restart limit
+	 */
+	private int restarts_;
+
+	/**
+	 * {@code model_[v]} is {@code true} if variable {@code v} is true in the
+	 * last model; {@code null} if the last search did not find a model
+	 */
+	private boolean[] model_;
+
+	private int[] unsatCore_;
+
+	private long conflicts_, decisions_, propagations_;
+
+	public SatAdapterHorn() {
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		nVars_ = 1;
+		assigns_ = new byte[16];
+		negativePhase_ = new boolean[16];
+		level_ = new int[16];
+		reason_ = new int[16];
+		varActivity_ = new double[16];
+		varIncrement_ = 1;
+		heap_ = new int[16];
+		heapIndex_ = new int[16];
+		heapSize_ = 0;
+		seen_ = new boolean[16];
+		clauses_ = new int[16][];
+		nClauses_ = 0;
+		freeClauses_ = new int[16];
+		nFreeClauses_ = 0;
+		learnt_ = new boolean[16];
+		clauseActivity_ = new double[16];
+		clauseIncrement_ = 1;
+		learnts_ = new int[16];
+		nLearnts_ = 0;
+		maxLearnts_ = 0;
+		watches_ = new int[32][];
+		watchesSize_ = new int[32];
+		trail_ = new int[16];
+		trailSize_ = 0;
+		trailLimits_ = new int[16];
+		decisionLevel_ = 0;
+		propagationHead_ = 0;
+		ok_ = true;
+		newClauseSize_ = 0;
+		model_ = null;
+		unsatCore_ = null;
+	}
+
+	@Override
+	public void setInterruptMonitor(InterruptMonitor monitor) {
+		this.monitor_ = Preconditions.checkNotNull(monitor);
+	}
+
+	// literals and variables
+
+	private static int literal(int l) {
+		return l > 0 ? l << 1 : (-l << 1) | 1;
+	}
+
+	private static int external(int p) {
+		return (p & 1) == 0 ? p >>> 1 : -(p >>> 1);
+	}
+
+	private byte value(int p) {
+		byte value = assigns_[p >>> 1];
+		return (p & 1) == 0 ? value : (byte) -value;
+	}
+
+	/**
+	 * Makes sure that the given variable exists
+	 *
+	 * @param v
+	 */
+	private void ensureVar(int v) {
+		if (v < nVars_) {
+			return;
+		}
+		if (v >= assigns_.length) {
+			int capacity = Math.max(v + 1, assigns_.length << 1);
+			assigns_ = Arrays.copyOf(assigns_, capacity);
+			negativePhase_ = Arrays.copyOf(negativePhase_, capacity);
+			level_ = Arrays.copyOf(level_, capacity);
+			reason_ = Arrays.copyOf(reason_, capacity);
+			varActivity_ = Arrays.copyOf(varActivity_, capacity);
+			heap_ = Arrays.copyOf(heap_, capacity);
+			heapIndex_ = Arrays.copyOf(heapIndex_, capacity);
+			seen_ = Arrays.copyOf(seen_, capacity);
+			trail_ = Arrays.copyOf(trail_, capacity);
+			watches_ = Arrays.copyOf(watches_, capacity << 1);
+			watchesSize_ = Arrays.copyOf(watchesSize_, capacity << 1);
+		}
+		for (; nVars_ <= v; nVars_++) {
+			negativePhase_[nVars_] = true;
+			reason_[nVars_] = NONE_;
+			heapIndex_[nVars_] = -1;
+			heapInsert(nVars_);
+		}
+	}
+
+	// the order heap
+
+	private boolean heapLess(int v, int w) {
+		return varActivity_[v] > varActivity_[w];
+	}
+
+	private void heapInsert(int v) {
+		heapIndex_[v] = heapSize_;
+		heap_[heapSize_++] = v;
+		heapUp(heapIndex_[v]);
+	}
+
+	private void heapUp(int i) {
+		int v = heap_[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!heapLess(v, heap_[parent])) {
+				break;
+			}
+			heap_[i] = heap_[parent];
+			heapIndex_[heap_[i]] = i;
+			i = parent;
+		}
+		heap_[i] = v;
+		heapIndex_[v] = i;
+	}
+
+	private void heapDown(int i) {
+		int v = heap_[i];
+		for (;;) {
+			int child = 2 * i + 1;
+			if (child >= heapSize_) {
+				break;
+			}
+			if (child + 1 < heapSize_
+					&& heapLess(heap_[child + 1], heap_[child])) {
+				child++;
+			}
+			if (!heapLess(heap_[child], v)) {
+				break;
+			}
+			heap_[i] = heap_[child];
+			heapIndex_[heap_[i]] = i;
+			i = child;
+		}
+		heap_[i] = v;
+		heapIndex_[v] = i;
+	}
+
+	private int heapRemoveMax() {
+		int v = heap_[0];
+		heapIndex_[v] = -1;
+		heapSize_--;
+		if (heapSize_ > 0) {
+			heap_[0] = heap_[heapSize_];
+			heapIndex_[heap_[0]] = 0;
+			heapDown(0);
+		}
+		return v;
+	}
+
+	private void bumpVar(int v) {
+		if ((varActivity_[v] += varIncrement_) > 1e100) {
+			// rescale
+			for (int w = 1; w < nVars_; w++) {
+				varActivity_[w] *= 1e-100;
+			}
+			varIncrement_ *= 1e-100;
+		}
+		if (heapIndex_[v] >= 0) {
+			heapUp(heapIndex_[v]);
+		}
+	}
+
+	private void bumpClause(int c) {
+		if ((clauseActivity_[c] += clauseIncrement_) > 1e20) {
+			// rescale
+			for (int i = 0; i < nLearnts_; i++) {
+				clauseActivity_[learnts_[i]] *= 1e-20;
+			}
+			clauseIncrement_ *= 1e-20;
+		}
+	}
+
+	// clauses
+
+	@Override
+	public void newClause() {
+		newClauseSize_ = 0;
+	}
+
+	@Override
+	public void addLiteral(int l) {
+		if (newClauseSize_ == newClause_.length) {
+			newClause_ = Arrays.copyOf(newClause_, newClauseSize_ << 1);
+		}
+		newClause_[newClauseSize_++] = l;
+	}
+
+	@Override
+	public void addClause() {
+		addClause(newClause_, 0, newClauseSize_);
+	}
+
+	@Override
+	public void addClause(int[] lits, int from, int len) {
+		if (!ok_) {
+			return;
+		}
+		cancelUntil(0);
+		if (buffer_.length < len) {
+			buffer_ = new int[Math.max(len, buffer_.length << 1)];
+		}
+		for (int i = 0; i < len; i++) {
+			int l = lits[from + i];
+			Preconditions.checkArgument(l != 0, "0 is not a literal");
+			ensureVar(Math.abs(l));
+			buffer_[i] = literal(l);
+		}
+		// remove duplicates and false literals; skip satisfied clauses
+		Arrays.sort(buffer_, 0, len);
+		int size = 0;
+		int previous = -1;
+		for (int i = 0; i < len; i++) {
+			int p = buffer_[i];
+			byte value = value(p);
+			if (value == TRUE_ || p == (previous ^ 1)) {
+				// satisfied or tautology
+				return;
+			}
+			if (value == FALSE_ || p == previous) {
+				continue;
+			}
+			buffer_[size++] = previous = p;
+		}
+		if (size == 0) {
+			ok_ = false;
+			return;
+		}
+		if (size == 1) {
+			assign(buffer_[0], NONE_);
+			ok_ = propagate() == NONE_;
+			return;
+		}
+		attach(Arrays.copyOf(buffer_, size), false);
+	}
+
+	/**
+	 * Stores and watches the given clause
+	 *
+	 * @param lits
+	 *            the literals of the clause, the first two are watched
+	 * @param learnt
+	 * @return the index of the clause
+	 */
+	private int attach(int[] lits, boolean learnt) {
+		int c;
+		if (nFreeClauses_ > 0) {
+			c = freeClauses_[--nFreeClauses_];
+		} else {
+			if (nClauses_ == clauses_.length) {
+				int capacity = nClauses_ << 1;
+				clauses_ = Arrays.copyOf(clauses_, capacity);
+				learnt_ = Arrays.copyOf(learnt_, capacity);
+				clauseActivity_ = Arrays.copyOf(clauseActivity_, capacity);
+			}
+			c = nClauses_++;
+		}
+		clauses_[c] = lits;
+		learnt_[c] = learnt;
+		clauseActivity_[c] = 0;
+		watch(lits[0] ^ 1, c, lits[1]);
+		watch(lits[1] ^ 1, c, lits[0]);
+		if (learnt) {
+			if (nLearnts_ == learnts_.length) {
+				learnts_ = Arrays.copyOf(learnts_, nLearnts_ << 1);
+			}
+			learnts_[nLearnts_++] = c;
+			bumpClause(c);
+		}
+		return c;
+	}
+
+	private void watch(int p, int c, int blocker) {
+		int[] watches = watches_[p];
+		int size = watchesSize_[p];
+		if (watches == null) {
+			watches = watches_[p] = new int[4];
+		} else if (size == watches.length) {
+			watches = watches_[p] = Arrays.copyOf(watches, size << 1);
+		}
+		watches[size] = c;
+		watches[size + 1] = blocker;
+		watchesSize_[p] = size + 2;
+	}
+
+	private void unwatch(int p, int c) {
+		int[] watches = watches_[p];
+		int size = watchesSize_[p];
+		for (int i = 0; i < size; i += 2) {
+			if (watches[i] == c) {
+				watches[i] = watches[size - 2];
+				watches[i + 1] = watches[size - 1];
+				watchesSize_[p] = size - 2;
+				return;
+			}
+		}
+	}
+
+	private void detach(int c) {
+		int[] lits = clauses_[c];
+		unwatch(lits[0] ^ 1, c);
+		unwatch(lits[1] ^ 1, c);
+		clauses_[c] = null;
+		if (nFreeClauses_ == freeClauses_.length) {
+			freeClauses_ = Arrays.copyOf(freeClauses_, nFreeClauses_ << 1);
+		}
+		freeClauses_[nFreeClauses_++] = c;
+	}
+
+	/**
+	 * @param c
+	 * @return {@code true} if the clause is the reason for the assignment of
+	 *         its first literal
+	 */
+	private boolean isLocked(int c) {
+		int p = clauses_[c][0];
+		return value(p) == TRUE_ && reason_[p >>> 1] == c;
+	}
+
+	/**
+	 * Removes about half of the learned clauses with the smallest activity
+	 * that are not reasons of assignments
+	 */
+	private void reduceLearnts() {
+		Integer[] sorted = new Integer[nLearnts_];
+		for (int i = 0; i < nLearnts_; i++) {
+			sorted[i] = learnts_[i];
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer c1, Integer c2) {
+				return Double.compare(clauseActivity_[c1],
+						clauseActivity_[c2]);
+			}
+		});
+		double limit = clauseIncrement_ / nLearnts_;
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			int c = sorted[i];
+			if (clauses_[c].length > 2 && !isLocked(c)
+					&& (i < sorted.length / 2 || clauseActivity_[c] < limit)) {
+				detach(c);
+			} else {
+				learnts_[size++] = c;
+			}
+		}
+		nLearnts_ = size;
+	}
+
+	// search
+
+	private void assign(int p, int reason) {
+		int v = p >>> 1;
+		assigns_[v] = (p & 1) == 0 ? TRUE_ : FALSE_;
+		level_[v] = decisionLevel_;
+		reason_[v] = reason;
+		trail_[trailSize_++] = p;
+	}
+
+	private void newDecisionLevel() {
+		if (decisionLevel_ == trailLimits_.length) {
+			trailLimits_ = Arrays.copyOf(trailLimits_, decisionLevel_ << 1);
+		}
+		trailLimits_[decisionLevel_++] = trailSize_;
+	}
+
+	private void cancelUntil(int level) {
+		if (decisionLevel_ <= level) {
+			return;
+		}
+		int limit = trailLimits_[level];
+		for (int i = trailSize_ - 1; i >= limit; i--) {
+			int p = trail_[i];
+			int v = p >>> 1;
+			assigns_[v] = UNDEF_;
+			reason_[v] = NONE_;
+			negativePhase_[v] = (p & 1) != 0;
+			if (heapIndex_[v] < 0) {
+				heapInsert(v);
+			}
+		}
+		trailSize_ = limit;
+		propagationHead_ = limit;
+		decisionLevel_ = level;
+	}
+
+	/**
+	 * Propagates all assigned literals
+	 *
+	 * @return the conflicting clause or {@link #NONE_} if there is no
+	 *         conflict
+	 */
+	private int propagate() {
+		int conflict = NONE_;
+		while (propagationHead_ < trailSize_) {
+			int p = trail_[propagationHead_++];
+			int falseLit = p ^ 1;
+			int[] watches = watches_[p];
+			int size = watchesSize_[p];
+			int i = 0, j = 0;
+			propagations_++;
+			while (i < size) {
+				int c = watches[i];
+				int blocker = watches[i + 1];
+				i += 2;
+				if (value(blocker) == TRUE_) {
+					watches[j++] = c;
+					watches[j++] = blocker;
+					continue;
+				}
+				int[] lits = clauses_[c];
+				// make sure the false literal is the second one
+				if (lits[0] == falseLit) {
+					lits[0] = lits[1];
+					lits[1] = falseLit;
+				}
+				int first = lits[0];
+				if (first != blocker && value(first) == TRUE_) {
+					watches[j++] = c;
+					watches[j++] = first;
+					continue;
+				}
+				// look for a new literal to watch
+				boolean found = false;
+				for (int k = 2; k < lits.length; k++) {
+					if (value(lits[k]) != FALSE_) {
+						lits[1] = lits[k];
+						lits[k] = falseLit;
+						watch(lits[1] ^ 1, c, first);
+						found = true;
+						break;
+					}
+				}
+				if (found) {
+					continue;
+				}
+				// the clause is unit or conflicting
+				watches[j++] = c;
+				watches[j++] = first;
+				if (value(first) == FALSE_) {
+					conflict = c;
+					propagationHead_ = trailSize_;
+					while (i < size) {
+						watches[j++] = watches[i++];
+					}
+				} else {
+					assign(first, c);
+				}
+			}
+			watchesSize_[p] = j;
+			if (conflict != NONE_) {
+				break;
+			}
+		}
+		return conflict;
+	}
+
+	/**
+	 * Computes the first-UIP clause for the given conflict and stores it in
+	 * {@link #buffer_} with the asserting literal first and a literal of the
+	 * highest remaining decision level second
+	 *
+	 * @param conflict
+	 * @return the size of the learned clause
+	 */
+	private int analyze(int conflict) {
+		int size = 1; // the asserting literal is added at the end
+		int pathCount = 0;
+		int p = -1;
+		int index = trailSize_ - 1;
+		do {
+			if (learnt_[conflict]) {
+				bumpClause(conflict);
+			}
+			int[] lits = clauses_[conflict];
+			for (int k = p == -1 ? 0 : 1; k < lits.length; k++) {
+				int q = lits[k];
+				int v = q >>> 1;
+				if (!seen_[v] && level_[v] > 0) {
+					bumpVar(v);
+					seen_[v] = true;
+					if (level_[v] >= decisionLevel_) {
+						pathCount++;
+					} else {
+						if (size == buffer_.length) {
+							buffer_ = Arrays.copyOf(buffer_, size << 1);
+						}
+						buffer_[size++] = q;
+					}
+				}
+			}
+			// select the next literal to look at
+			while (!seen_[trail_[index--] >>> 1]) {
+				// skip
+			}
+			p = trail_[index + 1];
+			conflict = reason_[p >>> 1];
+			seen_[p >>> 1] = false;
+			pathCount--;
+		} while (pathCount > 0);
+		buffer_[0] = p ^ 1;
+		// remove literals implied by other literals of the clause
+		int minimized = 1;
+		for (int i = 1; i < size; i++) {
+			int q = buffer_[i];
+			int reason = reason_[q >>> 1];
+			if (reason == NONE_ || !isImplied(reason)) {
+				// keep the removed literals after the result to clear them
+				buffer_[i] = buffer_[minimized];
+				buffer_[minimized++] = q;
+			}
+		}
+		for (int i = 1; i < size; i++) {
+			seen_[buffer_[i] >>> 1] = false;
+		}
+		size = minimized;
+		// find a literal of the highest level for the second watch
+		if (size > 1) {
+			int max = 1;
+			for (int i = 2; i < size; i++) {
+				if (level_[buffer_[i] >>> 1] > level_[buffer_[max] >>> 1]) {
+					max = i;
+				}
+			}
+			int q = buffer_[max];
+			buffer_[max] = buffer_[1];
+			buffer_[1] = q;
+		}
+		return size;
+	}
+
+	/**
+	 * @param reason
+	 * @return {@code true} if all literals of the given reason clause except
+	 *         the first one are in the learned clause or are assigned at
+	 *         level 0
+	 */
+	private boolean isImplied(int reason) {
+		int[] lits = clauses_[reason];
+		for (int k = 1; k < lits.length; k++) {
+			int v = lits[k] >>> 1;
+			if (!seen_[v] && level_[v] > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the assumptions responsible for the given assumption to be
+	 * false
+	 *
+	 * @param p
+	 *            an assumption that is false
+	 * @param assumptions
+	 *            the (internal) assumptions
+	 */
+	private void analyzeFinal(int p, int[] assumptions) {
+		// the assumptions decided so far that are needed for the conflict
+		boolean[] needed = new boolean[2 * nVars_];
+		needed[p] = true;
+		if (decisionLevel_ > 0) {
+			seen_[p >>> 1] = true;
+			for (int i = trailSize_ - 1; i >= trailLimits_[0]; i--) {
+				int v = trail_[i] >>> 1;
+				if (!seen_[v]) {
+					continue;
+				}
+				int reason = reason_[v];
+				if (reason == NONE_) {
+					needed[trail_[i]] = true;
+				} else {
+					int[] lits = clauses_[reason];
+					for (int k = 1; k < lits.length; k++) {
+						if (level_[lits[k] >>> 1] > 0) {
+							seen_[lits[k] >>> 1] = true;
+						}
+					}
+				}
+				seen_[v] = false;
+			}
+			seen_[p >>> 1] = false;
+		}
+		int size = 0;
+		int[] core = new int[assumptions.length];
+		for (int i = 0; i < assumptions.length; i++) {
+			if (needed[assumptions[i]]) {
+				core[size++] = external(assumptions[i]);
+			}
+		}
+		unsatCore_ = Arrays.copyOf(core, size);
+	}
+
+	private static int luby(int i) {
+		// find the finite subsequence containing index i and its size
+		int size = 1, seq = 0;
+		while (size < i + 1) {
+			seq++;
+			size = 2 * size + 1;
+		}
+		while (size - 1 != i) {
+			size = (size - 1) >> 1;
+			seq--;
+			i = i % size;
+		}
+		return 1 << seq;
+	}
+
+	/**
+	 * Searches for a model until the given number of conflicts
+	 *
+	 * @param maxConflicts
+	 * @param assumptions
+	 * @return {@link #TRUE_} if a model is found, {@link #FALSE_} if there is
+	 *         no model, {@link #UNDEF_} if the search should be restarted or
+	 *         was interrupted
+	 */
+	private byte search(int maxConflicts, int[] assumptions) {
+		int conflicts = 0;
+		int decisions = 0;
+		for (;;) {
+			int conflict = propagate();
+			if (conflict != NONE_) {
+				conflicts++;
+				conflicts_++;
+				if (decisionLevel_ == 0) {
+					ok_ = false;
+					unsatCore_ = new int[0];
+					return FALSE_;
+				}
+				int size = analyze(conflict);
+				int backtrackLevel = size == 1 ? 0
+						: level_[buffer_[1] >>> 1];
+				cancelUntil(backtrackLevel);
+				if (size == 1) {
+					assign(buffer_[0], NONE_);
+				} else {
+					int c = attach(Arrays.copyOf(buffer_, size), true);
+					assign(buffer_[0], c);
+				}
+				varIncrement_ /= VAR_DECAY_;
+				clauseIncrement_ /= CLAUSE_DECAY_;
+				if (monitor_.isInterrupted()) {
+					return UNDEF_;
+				}
+				continue;
+			}
+			// else no conflict
+			if (conflicts >= maxConflicts) {
+				cancelUntil(0);
+				return UNDEF_;
+			}
+			if (nLearnts_ - trailSize_ >= maxLearnts_) {
+				reduceLearnts();
+			}
+			int next = -1;
+			while (decisionLevel_ < assumptions.length) {
+				int p = assumptions[decisionLevel_];
+				byte value = value(p);
+				if (value == TRUE_) {
+					// dummy decision level
+					newDecisionLevel();
+				} else if (value == FALSE_) {
+					analyzeFinal(p, assumptions);
+					return FALSE_;
+				} else {
+					next = p;
+					break;
+				}
+			}
+			if (next == -1) {
+				// pick a branching literal
+				while (heapSize_ > 0) {
+					int v = heapRemoveMax();
+					if (assigns_[v] == UNDEF_) {
+						next = v << 1 | (negativePhase_[v] ? 1 : 0);
+						break;
+					}
+				}
+				if (next == -1) {
+					// all variables are assigned
+					return TRUE_;
+				}
+				decisions_++;
+				if (++decisions % INTERRUPT_CHECK_DECISIONS_ == 0
+						&& monitor_.isInterrupted()) {
+					return UNDEF_;
+				}
+			}
+			newDecisionLevel();
+			assign(next, NONE_);
+		}
+	}
+
+	@Override
+	public boolean findModel() {
+		return findModel(new int[0]);
+	}
+
+	@Override
+	public boolean findModel(int... assumptions) {
+		model_ = null;
+		unsatCore_ = null;
+		int[] internal = new int[assumptions.length];
+		for (int i = 0; i < assumptions.length; i++) {
+			Preconditions.checkArgument(assumptions[i] != 0,
+					"0 is not a literal");
+			ensureVar(Math.abs(assumptions[i]));
+			internal[i] = literal(assumptions[i]);
+		}
+		if (!ok_) {
+			unsatCore_ = new int[0];
+			return false;
+		}
+		maxLearnts_ = Math.max(maxLearnts_,
+				Math.max(nClauses_ / 3.0, MIN_LEARNTS_));
+		byte status = UNDEF_;
+		try {
+			while (status == UNDEF_) {
+				if (monitor_.isInterrupted()) {
+					break;
+				}
+				status = search(RESTART_BASE_ * luby(restarts_++),
+						internal);
+				maxLearnts_ *= 1.1;
+			}
+			if (status == TRUE_) {
+				model_ = new boolean[nVars_];
+				for (int v = 1; v < nVars_; v++) {
+					model_[v] = assigns_[v] == TRUE_;
+				}
+			}
+		} finally {
+			cancelUntil(0);
+			STATS_CONFLICTS_.addAndGet(conflicts_);
+			STATS_DECISIONS_.addAndGet(decisions_);
+			STATS_PROPAGATIONS_.addAndGet(propagations_);
+			conflicts_ = decisions_ = propagations_ = 0;
+		}
+		return status == TRUE_;
+	}
+
+	@Override
+	public int[] getUnsatCore() {
+		return unsatCore_;
+	}
+
+	@Override
+	public boolean isTrue(int atom) {
+		return model_ != null && atom < model_.length && model_[atom];
+	}
+
+}
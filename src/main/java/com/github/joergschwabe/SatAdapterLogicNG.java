@@ -1,13 +1,17 @@
 package com.github.joergschwabe;
 
+import java.util.Arrays;
+
 import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.logicng.collections.LNGBooleanVector;
+import org.logicng.collections.LNGIntVector;
 import org.logicng.datastructures.Assignment;
 import org.logicng.datastructures.Tristate;
-import org.logicng.formulas.Formula;
 import org.logicng.formulas.FormulaFactory;
+import org.logicng.formulas.Literal;
 import org.logicng.handlers.SATHandler;
 import org.logicng.solvers.MiniSat;
-import org.logicng.solvers.SATSolver;
+import org.logicng.solvers.sat.MiniSatStyleSolver;
 
 /**
  * A {@link SatAdapter} backed up by an instance of a LogicNG solver
@@ -22,48 +26,178 @@ public class SatAdapterLogicNG implements SatAdapter {
 	/**
 	 * An instance of LogicNG solver used for searching for models
 	 */
-	private final SATSolver solver_;
+	private final MiniSat solver_;
+
+	/**
+	 * the solver that actually performs the search; clauses, assumptions and
+	 * models are exchanged with it directly in terms of its integer literals
+	 * to avoid creating {@link Literal} and {@link Assignment} objects
+	 */
+	private final MiniSatStyleSolver underlying_;
+
+	/**
+	 * the initial polarity of the new variables, as configured for
+	 * {@link #solver_}
+	 */
+	private final boolean initialSign_;
+
+	/**
+	 * {@code vars_[atom] - 1} is the variable of {@link #underlying_}
+	 * corresponding to the given atom or {@code -1} if this atom is not used
+	 */
+	private int[] vars_ = new int[64];
+
+	/**
+	 * {@code atoms_[var]} is the atom corresponding to the given variable of
+	 * {@link #underlying_}
+	 */
+	private int[] atoms_ = new int[64];
+
+	/**
+	 * holds the literals of the last clause constructed by this sat solver;
+	 * reused for all clauses and assumptions
+	 */
+	private final LNGIntVector literals_ = new LNGIntVector();
+
+	/**
+	 * {@code model_[atom]} is the value of the given atom in the last model
+	 * found
+	 */
+	private boolean[] model_ = new boolean[0];
 
-	private final FormulaFactory ff_;
-	private Formula clause_;
-	private Assignment model_;
 	private SATHandler interruptHandler_;
 
-	public SatAdapterLogicNG(SATSolver solver) {
+	/**
+	 * the unsatisfiable subset of assumptions of the last search or
+	 * {@code null} if it was not unsatisfiable
+	 */
+	private int[] unsatCore_ = null;
+
+	public SatAdapterLogicNG(MiniSat solver) {
 		this.solver_ = solver;
-		this.ff_ = solver.factory();
+		this.underlying_ = solver.underlyingSolver();
+		this.initialSign_ = !solver.getConfig().initialPhase();
+	}
+
+	/**
+	 * @param atom
+	 * @return the variable of {@link #underlying_} corresponding to the given
+	 *         atom; it is created if did not exist
+	 */
+	private int var(int atom) {
+		if (atom >= vars_.length) {
+			vars_ = Arrays.copyOf(vars_,
+					Math.max(atom + 1, vars_.length << 1));
+		}
+		int var = vars_[atom] - 1;
+		if (var < 0) {
+			var = underlying_.newVar(initialSign_, true);
+			vars_[atom] = var + 1;
+			if (var >= atoms_.length) {
+				atoms_ = Arrays.copyOf(atoms_,
+						Math.max(var + 1, atoms_.length << 1));
+			}
+			atoms_[var] = atom;
+		}
+		return var;
+	}
+
+	private int literal(int l) {
+		return l > 0 ? MiniSatStyleSolver.mkLit(var(l), false)
+				: MiniSatStyleSolver.mkLit(var(-l), true);
 	}
 
 	@Override
 	public void newClause() {
-		clause_ = ff_.falsum();
+		literals_.clear();
 	}
 
 	@Override
 	public void addLiteral(int l) {
-		String name = "" + (l > 0 ? l : -l);
-		Formula lit = ff_.literal(name, l > 0);
-		clause_ = ff_.or(clause_, lit);
+		literals_.push(literal(l));
 	}
 
 	@Override
 	public void addClause() {
-		solver_.add(clause_);
+		// the solver copies the literals
+		underlying_.addClause(literals_, null);
+	}
+
+	@Override
+	public void addClause(int[] lits, int from, int len) {
+		literals_.clear();
+		for (int i = from; i < from + len; i++) {
+			literals_.push(literal(lits[i]));
+		}
+		addClause();
 	}
 
 	@Override
 	public boolean findModel() {
-		if (solver_.sat(interruptHandler_) == Tristate.TRUE) {
-			model_ = solver_.model();
+		unsatCore_ = null;
+		if (underlying_.solve(interruptHandler_) == Tristate.TRUE) {
+			readModel();
 			return true;
 		}
 		// else
 		return false;
 	}
 
+	@Override
+	public boolean findModel(int... assumptions) {
+		unsatCore_ = null;
+		literals_.clear();
+		for (int l : assumptions) {
+			literals_.push(literal(l));
+		}
+		Tristate result = underlying_.solve(interruptHandler_, literals_);
+		if (result == Tristate.TRUE) {
+			readModel();
+			return true;
+		}
+		if (result == Tristate.FALSE) {
+			// the final conflict is expressed in terms of the assumptions
+			LNGIntVector conflict = underlying_.conflict();
+			boolean[] inConflict = new boolean[underlying_.nVars()];
+			if (conflict != null) {
+				for (int i = 0; i < conflict.size(); i++) {
+					inConflict[MiniSatStyleSolver
+							.var(conflict.get(i))] = true;
+				}
+			}
+			int[] core = new int[assumptions.length];
+			int coreSize = 0;
+			for (int l : assumptions) {
+				if (inConflict[var(l > 0 ? l : -l)]) {
+					core[coreSize++] = l;
+				}
+			}
+			unsatCore_ = Arrays.copyOf(core, coreSize);
+		}
+		return false;
+	}
+
+	/**
+	 * copies the model found by {@link #underlying_} to {@link #model_}
+	 */
+	private void readModel() {
+		LNGBooleanVector model = underlying_.model();
+		if (model_.length < vars_.length) {
+			model_ = new boolean[vars_.length];
+		}
+		for (int var = 0; var < model.size(); var++) {
+			model_[atoms_[var]] = model.get(var);
+		}
+	}
+
+	@Override
+	public int[] getUnsatCore() {
+		return unsatCore_;
+	}
+
 	@Override
 	public boolean isTrue(int atom) {
-		return model_.evaluateLit(ff_.literal("" + atom, true));
+		return atom < model_.length && model_[atom];
 	}
 
 	@Override
@@ -93,9 +227,11 @@ public class SatAdapterLogicNG implements SatAdapter {
 	@Override
 	public void reset() {
 		solver_.reset();
-		clause_ = null;
-		model_ = null;
+		Arrays.fill(vars_, 0);
+		literals_.clear();
+		model_ = new boolean[0];
 		interruptHandler_ = null;
+		unsatCore_ = null;
 	}
 
 	/* predefined factories for sat solvers */
@@ -0,0 +1,310 @@
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A {@link SatAdapter} that runs several {@link SatAdapter}s in parallel:
+ * every clause is added to all of them, and every search is started in all
+ * of them on separate threads; the result of the first search that finishes
+ * is used and the remaining searches are interrupted.
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+public class SatAdapterPortfolio implements SatAdapter {
+
+	/**
+	 * Creates a factory for {@link SatAdapter}s racing the given ones
+	 *
+	 * @param backends
+	 *            the factories for creation of the {@link SatAdapter}s that
+	 *            search for models in parallel
+	 * @return the factory for {@link SatAdapterPortfolio}s
+	 */
+	public static Factory getFactory(SatAdapter.Factory... backends) {
+		return new Factory(backends);
+	}
+
+	/**
+	 * the threads on which the searches are run; shared by all portfolios
+	 */
+	private static final ExecutorService EXECUTOR_ = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+
+				private final AtomicInteger count_ = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r,
+							"sat-portfolio-" + count_.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final SatAdapter[] backends_;
+
+	/**
+	 * where the number of searches won by every backend is counted
+	 */
+	private final AtomicLongArray wins_;
+
+	private volatile InterruptMonitor monitor_ = InterruptMonitor.DUMMY;
+
+	/**
+	 * {@code true} if the current search has a result, so the remaining
+	 * backends should abort their searches
+	 */
+	private volatile boolean raceFinished_ = false;
+
+	/**
+	 * the index of the backend that has found the result of the last search
+	 * or {@code -1} if there was no such search
+	 */
+	private int winner_ = -1;
+
+	SatAdapterPortfolio(SatAdapter[] backends, AtomicLongArray wins) {
+		this.backends_ = backends;
+		this.wins_ = wins;
+		initInterruptMonitors();
+	}
+
+	private void initInterruptMonitors() {
+		InterruptMonitor monitor = new InterruptMonitor() {
+
+			@Override
+			public boolean isInterrupted() {
+				return raceFinished_ || monitor_.isInterrupted();
+			}
+
+		};
+		for (SatAdapter backend : backends_) {
+			backend.setInterruptMonitor(monitor);
+		}
+	}
+
+	@Override
+	public void newClause() {
+		for (SatAdapter backend : backends_) {
+			backend.newClause();
+		}
+	}
+
+	@Override
+	public void addLiteral(int l) {
+		for (SatAdapter backend : backends_) {
+			backend.addLiteral(l);
+		}
+	}
+
+	@Override
+	public void addClause() {
+		for (SatAdapter backend : backends_) {
+			backend.addClause();
+		}
+	}
+
+	@Override
+	public void addClause(int[] lits, int from, int len) {
+		for (SatAdapter backend : backends_) {
+			backend.addClause(lits, from, len);
+		}
+	}
+
+	@Override
+	public boolean findModel() {
+		return race(null);
+	}
+
+	@Override
+	public boolean findModel(int... assumptions) {
+		return race(assumptions);
+	}
+
+	/**
+	 * Runs the search in all backends and waits until all of them stop
+	 *
+	 * @param assumptions
+	 *            the assumptions for the search or {@code null} if the search
+	 *            is without assumptions
+	 * @return the result of the backend that finished first
+	 */
+	private boolean race(final int[] assumptions) {
+		winner_ = -1;
+		final boolean[] results = new boolean[backends_.length];
+		if (backends_.length == 1) {
+			results[0] = search(backends_[0], assumptions);
+			winner_ = 0;
+			wins_.incrementAndGet(0);
+			return results[0];
+		}
+		// else
+		CompletionService<Integer> completion = new ExecutorCompletionService<>(
+				EXECUTOR_);
+		List<Future<Integer>> futures = new ArrayList<>(backends_.length);
+		raceFinished_ = false;
+		for (int i = 0; i < backends_.length; i++) {
+			final int index = i;
+			futures.add(completion.submit(new Callable<Integer>() {
+
+				@Override
+				public Integer call() throws Exception {
+					results[index] = search(backends_[index], assumptions);
+					return index;
+				}
+
+			}));
+		}
+		boolean interrupted = false;
+		RuntimeException failure = null;
+		try {
+			winner_ = completion.take().get();
+			wins_.incrementAndGet(winner_);
+		} catch (InterruptedException e) {
+			interrupted = true;
+		} catch (ExecutionException e) {
+			failure = new RuntimeException(e.getCause());
+		}
+		// stop the remaining searches and wait for them
+		raceFinished_ = true;
+		for (Future<Integer> future : futures) {
+			for (;;) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new RuntimeException(e.getCause());
+					}
+					break;
+				}
+			}
+		}
+		raceFinished_ = false;
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			winner_ = -1;
+			throw failure;
+		}
+		return winner_ >= 0 && results[winner_];
+	}
+
+	private static boolean search(SatAdapter backend, int[] assumptions) {
+		return assumptions == null ? backend.findModel()
+				: backend.findModel(assumptions);
+	}
+
+	@Override
+	public int[] getUnsatCore() {
+		return winner_ < 0 ? null : backends_[winner_].getUnsatCore();
+	}
+
+	@Override
+	public boolean isTrue(int atom) {
+		return winner_ >= 0 && backends_[winner_].isTrue(atom);
+	}
+
+	@Override
+	public void setInterruptMonitor(InterruptMonitor monitor) {
+		monitor_ = Preconditions.checkNotNull(monitor);
+	}
+
+	@Override
+	public void reset() {
+		for (SatAdapter backend : backends_) {
+			backend.reset();
+		}
+		// the backends may forget their monitors
+		initInterruptMonitors();
+		monitor_ = InterruptMonitor.DUMMY;
+		winner_ = -1;
+	}
+
+	/**
+	 * Creates {@link SatAdapterPortfolio}s and counts how many searches were
+	 * won by every backend
+	 *
+	 * @author Yevgeny Kazakov
+	 *
+	 */
+	public static class Factory implements SatAdapter.Factory {
+
+		private final SatAdapter.Factory[] backends_;
+
+		private final AtomicLongArray wins_;
+
+		Factory(SatAdapter.Factory... backends) {
+			Preconditions.checkArgument(backends.length > 0,
+					"No backends for the portfolio");
+			this.backends_ = backends.clone();
+			this.wins_ = new AtomicLongArray(backends.length);
+		}
+
+		@Override
+		public SatAdapter create() {
+			SatAdapter[] backends = new SatAdapter[backends_.length];
+			for (int i = 0; i < backends.length; i++) {
+				backends[i] = backends_[i].create();
+			}
+			return new SatAdapterPortfolio(backends, wins_);
+		}
+
+		/**
+		 * @return the number of searches won by every backend, listed in the
+		 *         order of the backends
+		 */
+		@Stat
+		public String nWins() {
+			StringBuilder result = new StringBuilder();
+			for (int i = 0; i < backends_.length; i++) {
+				if (i > 0) {
+					result.append(", ");
+				}
+				result.append(backends_[i]).append('=').append(wins_.get(i));
+			}
+			return result.toString();
+		}
+
+		@ResetStats
+		public void resetStats() {
+			for (int i = 0; i < backends_.length; i++) {
+				wins_.set(i, 0);
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder("Portfolio[");
+			for (int i = 0; i < backends_.length; i++) {
+				if (i > 0) {
+					result.append(", ");
+				}
+				result.append(backends_[i]);
+			}
+			return result.append(']').toString();
+		}
+
+	}
+
+}
@@ -1,9 +1,12 @@
 package com.github.joergschwabe;
 
+import java.util.Arrays;
+
 import org.liveontologies.puli.pinpointing.InterruptMonitor;
 import org.sat4j.core.VecInt;
 import org.sat4j.minisat.SolverFactory;
 import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IConstr;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.ISolverService;
 import org.sat4j.specs.IVecInt;
@@ -28,16 +31,38 @@ public class SatAdapterSat4j implements SatAdapter {
 	private final ISolver solver_;
 
 	/**
-	 * holds the last clause constructed by this sat solver
+	 * holds the literals of the last clause constructed by this sat solver
+	 */
+	private int[] literals_ = new int[16];
+
+	/**
+	 * the number of literals in {@link #literals_}
 	 */
-	private IVecInt clause_;
+	private int literalCount_ = 0;
+
+	/**
+	 * reused for passing clauses and assumptions to the solver; Sat4j copies
+	 * the literals on addition
+	 */
+	private final VecInt clause_ = new VecInt();
 
 	/**
 	 * {@code true} if a trivial contradiction has been detected during addition
-	 * of clauses
+	 * of clauses or the clauses were found unsatisfiable without assumptions
 	 */
 	private boolean trivialContradictionDetected_ = false;
 
+	/**
+	 * the unsatisfiable subset of assumptions of the last search or
+	 * {@code null} if it was not unsatisfiable
+	 */
+	private int[] unsatCore_ = null;
+
+	/**
+	 * receives the events of the searches of {@link #solver_}
+	 */
+	private final Listener listener_ = new Listener();
+
 	/**
 	 * Creates a {@link SatAdapter} backed by a given Sat4j solver
 	 * 
@@ -46,20 +71,30 @@ public class SatAdapterSat4j implements SatAdapter {
 	 */
 	public SatAdapterSat4j(ISolver solver) {
 		this.solver_ = Preconditions.checkNotNull(solver);
+		solver.setSearchListener(listener_);
 	}
 
 	@Override
 	public void newClause() {
-		clause_ = new VecInt();
+		literalCount_ = 0;
 	}
 
 	@Override
 	public void addLiteral(int l) {
-		clause_.push(l);
+		if (literalCount_ == literals_.length) {
+			literals_ = Arrays.copyOf(literals_, literalCount_ << 1);
+		}
+		literals_[literalCount_++] = l;
 	}
 
 	@Override
 	public void addClause() {
+		addClause(literals_, 0, literalCount_);
+	}
+
+	@Override
+	public void addClause(int[] lits, int from, int len) {
+		load(lits, from, len);
 		try {
 			solver_.addClause(clause_);
 		} catch (ContradictionException e) {
@@ -67,16 +102,93 @@ public class SatAdapterSat4j implements SatAdapter {
 		}
 	}
 
+	/**
+	 * Replaces the content of {@link #clause_} with the given literals
+	 */
+	private void load(int[] lits, int from, int len) {
+		clause_.clear();
+		clause_.ensure(len);
+		for (int i = from; i < from + len; i++) {
+			clause_.unsafePush(lits[i]);
+		}
+	}
+
 	@Override
 	public boolean findModel() {
+		unsatCore_ = null;
 		if (trivialContradictionDetected_) {
 			return false;
 		}
 		try {
-			return solver_.isSatisfiable();
+			if (solver_.isSatisfiable()) {
+				return true;
+			}
 		} catch (TimeoutException e) {
 			return false;
 		}
+		// else clauses will remain unsatisfiable until reset
+		trivialContradictionDetected_ = true;
+		return false;
+	}
+
+	@Override
+	public boolean findModel(int... assumptions) {
+		if (assumptions.length == 0) {
+			final boolean result = findModel();
+			if (trivialContradictionDetected_) {
+				unsatCore_ = new int[0];
+			}
+			return result;
+		}
+		// else
+		unsatCore_ = null;
+		if (trivialContradictionDetected_) {
+			unsatCore_ = new int[0];
+			return false;
+		}
+		// assumptions may use variables that do not occur in clauses
+		int maxVar = 0;
+		for (int l : assumptions) {
+			maxVar = Math.max(maxVar, Math.abs(l));
+		}
+		if (maxVar > solver_.nVars()) {
+			solver_.newVar(maxVar);
+		}
+		try {
+			load(assumptions, 0, assumptions.length);
+			listener_.rootConflict = false;
+			if (solver_.isSatisfiable(clause_)) {
+				return true;
+			}
+		} catch (TimeoutException e) {
+			return false;
+		}
+		// else unsatisfiable
+		if (listener_.rootConflict) {
+			// the conflict does not depend on the assumptions, in which case
+			// Sat4j may have no explanation
+			trivialContradictionDetected_ = true;
+			unsatCore_ = new int[0];
+			return false;
+		}
+		// else
+		IVecInt explanation = solver_.unsatExplanation();
+		// the explanation may use the negated assumptions, so we check only
+		// the variables
+		int[] core = new int[assumptions.length];
+		int coreSize = 0;
+		for (int l : assumptions) {
+			if (explanation.contains(l) || explanation.contains(-l)) {
+				core[coreSize++] = l;
+			}
+		}
+		unsatCore_ = Arrays.copyOf(core, coreSize);
+		return false;
+	}
+
+	@Override
+	public int[] getUnsatCore() {
+		return unsatCore_;
 	}
 
 	@Override
@@ -86,25 +198,48 @@ public class SatAdapterSat4j implements SatAdapter {
 
 	@Override
 	public void setInterruptMonitor(final InterruptMonitor monitor) {
-		solver_.setSearchListener(new SearchListenerAdapter<ISolverService>() {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public void beginLoop() {
-				if (monitor.isInterrupted()) {
-					solver_.expireTimeout();
-				}
+		listener_.monitor = Preconditions.checkNotNull(monitor);
+	}
+
+	/**
+	 * Aborts the searches when the interrupt monitor is interrupted and
+	 * detects the conflicts that do not depend on the assumptions
+	 */
+	private class Listener extends SearchListenerAdapter<ISolverService> {
+
+		private static final long serialVersionUID = 1L;
+
+		volatile InterruptMonitor monitor = InterruptMonitor.DUMMY;
+
+		/**
+		 * {@code true} if a conflict at decision level 0 was found since the
+		 * value was reset; then the clauses are unsatisfiable
+		 */
+		boolean rootConflict = false;
+
+		@Override
+		public void beginLoop() {
+			if (monitor.isInterrupted()) {
+				solver_.expireTimeout();
 			}
+		}
 
-		});
+		@Override
+		public void conflictFound(final IConstr confl, final int dlevel,
+				final int trailLevel) {
+			if (dlevel == 0) {
+				rootConflict = true;
+			}
+		}
 
 	}
 
 	@Override
 	public void reset() {
 		solver_.reset();
-		clause_ = null;
+		literalCount_ = 0;
 		trivialContradictionDetected_ = false;
+		unsatCore_ = null;
 	}
 
 	/* predefined factories for sat solvers */
@@ -1,20 +1,39 @@
 package com.github.joergschwabe;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import org.liveontologies.puli.AssertedConclusionInference;
 import org.liveontologies.puli.Inference;
-import org.liveontologies.puli.InferenceDerivabilityChecker;
 import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Proof;
 import org.liveontologies.puli.pinpointing.InterruptMonitor;
 import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
 
 import com.google.common.base.Preconditions;
 
 /**
+ * Computes justifications and repairs together using one SAT solver over the
+ * axioms: every model is a seed that either derives the goal, in which case
+ * it is minimized to a justification, or not, in which case its complement is
+ * minimized to a repair; the seeds containing found justifications or
+ * disjoint from found repairs are blocked. With a {@link Bias}, the seeds are
+ * also grown or shrunk within the unexplored sets before they are checked,
+ * the justifications are minimized starting from the axioms relevant for the
+ * derivation of the goal, and new seeds are obtained from minimal hitting
+ * sets of the found justifications, as in the MARCO algorithm.
+ * 
  * @author Yevgeny Kazakov
  *
  * @param <C>
@@ -27,6 +46,27 @@ import com.google.common.base.Preconditions;
 public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 		extends MinimalSubsetsFromProofs<C, I, A> {
 
+	/**
+	 * The preferred kind of seeds in the enumeration of justifications and
+	 * repairs
+	 */
+	public enum Bias {
+		/**
+		 * the seeds are the models found by the solver
+		 */
+		NONE,
+		/**
+		 * the seeds are extended to maximal unexplored sets, which are more
+		 * likely to derive the goal, so justifications are found first
+		 */
+		JUSTIFICATIONS,
+		/**
+		 * the seeds are reduced to minimal unexplored sets, which are less
+		 * likely to derive the goal, so repairs are found first
+		 */
+		REPAIRS;
+	}
+
 	/**
 	 * Creates a factory for computing justifications
 	 * 
@@ -44,7 +84,58 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 	 */
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getJustificationFactory(
 			SatAdapter.Factory satFactory) {
-		return new SatJRComputation.JustificationFactory<>(satFactory);
+		return getJustificationFactory(satFactory, Minimization.LINEAR);
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getJustificationFactory(
+			SatAdapter.Factory satFactory, Minimization minimization) {
+		return getJustificationFactory(satFactory, minimization, Bias.NONE);
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal
+	 * @param bias
+	 *            the preferred kind of seeds; the repairs are computed as
+	 *            well and used to prune the search
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getJustificationFactory(
+			SatAdapter.Factory satFactory, Minimization minimization,
+			Bias bias) {
+		return new SatJRComputation.JustificationFactory<>(satFactory,
+				minimization, bias);
 	}
 
 	/**
@@ -64,16 +155,112 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 	 */
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getRepairFactory(
 			SatAdapter.Factory satFactory) {
-		return new SatJRComputation.RepairFactory<>(satFactory);
+		return getRepairFactory(satFactory, Minimization.LINEAR);
+	}
+
+	/**
+	 * Creates a factory for computing repairs
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getRepairFactory(
+			SatAdapter.Factory satFactory, Minimization minimization) {
+		return getRepairFactory(satFactory, minimization, Bias.NONE);
+	}
+
+	/**
+	 * Creates a factory for computing repairs
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal
+	 * @param bias
+	 *            the preferred kind of seeds; the justifications are computed
+	 *            as well and used to prune the search
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getRepairFactory(
+			SatAdapter.Factory satFactory, Minimization minimization,
+			Bias bias) {
+		return new SatJRComputation.RepairFactory<>(satFactory, minimization,
+				bias);
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return Minimization.class;
+	}
+
+	@NestedStats(name = "sat")
+	public SatAdapter.Factory getSatFactory() {
+		return satFactory_;
 	}
 
 	private final SatAdapter.Factory satFactory_;
 
+	private final Minimization minimization_;
+
+	private final Bias bias_;
+
+	/**
+	 * the number of seeds obtained from hitting sets of justifications
+	 */
+	private int hittingSetSeedsCount_ = 0;
+
 	public SatJRComputation(Proof<? extends I> proof,
 			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 			InterruptMonitor monitor, SatAdapter.Factory satFactory) {
+		this(proof, justifier, monitor, satFactory, Minimization.LINEAR);
+	}
+
+	public SatJRComputation(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, SatAdapter.Factory satFactory,
+			Minimization minimization) {
+		this(proof, justifier, monitor, satFactory, minimization, Bias.NONE);
+	}
+
+	public SatJRComputation(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, SatAdapter.Factory satFactory,
+			Minimization minimization, Bias bias) {
 		super(proof, justifier, monitor);
 		this.satFactory_ = Preconditions.checkNotNull(satFactory);
+		this.minimization_ = Preconditions.checkNotNull(minimization);
+		this.bias_ = Preconditions.checkNotNull(bias);
+	}
+
+	@Stat
+	public int nHittingSetSeeds() {
+		return hittingSetSeedsCount_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		hittingSetSeedsCount_ = 0;
 	}
 
 	public MinimalSubsetEnumerator<A> newJustificationEnumerator(
@@ -85,6 +272,23 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 		return new RepairEnumerator(query, satFactory_.create());
 	}
 
+	/**
+	 * Enumerates both justifications and repairs for the given query in one
+	 * run
+	 * 
+	 * @param query
+	 * @param justificationListener
+	 *            the listener notified about the justifications
+	 * @param repairListener
+	 *            the listener notified about the repairs
+	 */
+	public void enumerateJustificationsAndRepairs(final Object query,
+			MinimalSubsetEnumerator.Listener<A> justificationListener,
+			MinimalSubsetEnumerator.Listener<A> repairListener) {
+		new Enumerator(query, satFactory_.create())
+				.enumerate(justificationListener, repairListener);
+	}
+
 	class JustificationEnumerator extends Enumerator
 			implements MinimalSubsetEnumerator<A> {
 
@@ -99,6 +303,12 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 					(MinimalSubsetEnumerator.Listener<A>) MinimalSubsetEnumerator.Listener.DUMMY);
 		}
 
+		@Override
+		public void enumerate(MinimalSubsetEnumerator.Listener<A> listener,
+				PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			enumerate(listener, priorityComparator, true);
+		}
+
 	}
 
 	class RepairEnumerator extends Enumerator
@@ -116,30 +326,80 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 					listener);
 		}
 
+		@Override
+		public void enumerate(MinimalSubsetEnumerator.Listener<A> listener,
+				PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			enumerate(listener, priorityComparator, false);
+		}
+
 	}
 
 	class Enumerator {
 
+		private final IdSupplier idSup_;
+
 		private final IdProvider<A> axiomIds_;
 
 		private final Proof<? extends Inference<? extends Integer>> integerProof_;
 		private final int goal_;
-		private final InferenceDerivabilityChecker<Integer, Inference<? extends Integer>> checker_;
+		private final HornDerivabilityChecker checker_;
+
+		/**
+		 * the properties of the sets of axioms to derive {@link #goal_} and
+		 * to block its derivations checked using {@link #checker_}
+		 */
+		private final DerivabilityProperty justificationProperty_,
+				repairProperty_;
 
 		private final SatAdapter solver_;
 
+		/**
+		 * the identifiers of the axioms used in the proof of {@link #goal_}
+		 */
+		private final int[] axioms_;
+
+		/**
+		 * the justifications and repairs found so far; used only with a
+		 * {@link Bias}
+		 */
+		private final SetFamily justifications_, repairs_;
+
+		/**
+		 * {@code seed_[id]} is {@code true} if the axiom with the given
+		 * identifier is in the current seed
+		 */
+		private final boolean[] seed_;
+
+		/**
+		 * {@code hittingSet_[id]} is {@code true} if the axiom with the given
+		 * identifier is in the minimal hitting set of
+		 * {@link #justifications_}, which is updated when new justifications
+		 * are found
+		 */
+		private final boolean[] hittingSet_;
+
 		int cycleCount_ = 0;
 
 		Enumerator(Object query, SatAdapter solver) {
 			Preconditions.checkNotNull(query);
 			this.solver_ = Preconditions.checkNotNull(solver);
-			IdSupplier idSup = new IdSupplier();
-			this.axiomIds_ = new IdProvider<>(idSup);
-			IdProvider<Object> conclusionIds = new IdProvider<>(idSup);
+			this.idSup_ = new IdSupplier();
+			this.axiomIds_ = new IdProvider<>(idSup_);
+			IdProvider<Object> conclusionIds = new IdProvider<>(idSup_);
 			this.integerProof_ = IntegerProofTranslator.translate(getProof(),
 					getInferenceJustifier(), query, conclusionIds, axiomIds_);
 			this.goal_ = conclusionIds.getId(query);
-			this.checker_ = new InferenceDerivabilityChecker<>(integerProof_);
+			this.checker_ = new HornDerivabilityChecker(integerProof_, goal_);
+			this.justificationProperty_ = new DerivabilityProperty(checker_,
+					goal_, false);
+			this.repairProperty_ = new DerivabilityProperty(checker_, goal_,
+					true);
+			this.axioms_ = axiomIds_.getIds();
+			int maxId = idSup_.getNextId();
+			this.justifications_ = new SetFamily(maxId);
+			this.repairs_ = new SetFamily(maxId);
+			this.seed_ = new boolean[maxId];
+			this.hittingSet_ = new boolean[maxId];
 			solver.reset();
 			solver.setInterruptMonitor(getInterruptMonitor());
 		}
@@ -150,63 +410,392 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 			Preconditions.checkNotNull(justificationListener);
 			Preconditions.checkNotNull(repairListener);
 			while (solver_.findModel()) {
-				// unblock exactly the satisfying axioms
-				for (int id : axiomIds_.getIds()) {
-					if (solver_.isTrue(id)) {
-						checker_.unblock(id);
-					} else {
-						checker_.block(id);
+				if (!processModel(justificationListener, repairListener,
+						bias_) || bias_ == Bias.NONE) {
+					continue;
+				}
+				// a new justification is found, try the new hitting set
+				while (!isInterrupted() && seedFromHittingSet()) {
+					hittingSetSeedsCount_++;
+					if (!processSeed(justificationListener, repairListener,
+							bias_)) {
+						break;
 					}
 				}
-				if (checker_.isDerivable(goal_)) {
-					// a new justification can be extracted
-					Set<A> justification = new HashSet<>();
-					// create and add a blocking clause for the justificaiton
-					solver_.newClause();
-					// try to remove true axioms unless it breaks the entailment
-					for (int id : axiomIds_.getIds()) {
-						if (!solver_.isTrue(id)) {
-							continue;
-						}
-						checker_.block(id);
-						if (!checker_.isDerivable(goal_)) {
-							// axiom cannot be removed => belongs to
-							// a justification
-							justification.add(axiomIds_.getValue(id));
-							solver_.addLiteral(-id);
-							checker_.unblock(id);
-						}
+			}
+		}
+
+		/**
+		 * Enumerates the justifications or the repairs in rounds of
+		 * increasing cardinality: in round {@code k} the models are
+		 * restricted using a {@link Totalizer} to have at most {@code k} true
+		 * axioms for justifications or at most {@code k} false axioms for
+		 * repairs; since all smaller ones are blocked, the models of this
+		 * round give only justifications or repairs of size {@code k}, which
+		 * are reported in the order of their priorities. The seeds are not
+		 * obtained from hitting sets and are adjusted by the {@link Bias}
+		 * only if they remain within the bound.
+		 * 
+		 * @param listener
+		 * @param priorityComparator
+		 * @param justifications
+		 *            {@code true} if justifications should be reported and
+		 *            {@code false} if repairs should be reported
+		 */
+		@SuppressWarnings("unchecked")
+		void enumerate(MinimalSubsetEnumerator.Listener<A> listener,
+				PriorityComparator<? super Set<A>, ?> priorityComparator,
+				boolean justifications) {
+			Preconditions.checkNotNull(listener);
+			PriorityBuffer<A, ?> buffer = PriorityBuffer.create(listener,
+					priorityComparator);
+			MinimalSubsetEnumerator.Listener<A> dummy = (MinimalSubsetEnumerator.Listener<A>) MinimalSubsetEnumerator.Listener.DUMMY;
+			MinimalSubsetEnumerator.Listener<A> justificationListener, repairListener;
+			Bias bias;
+			// the literals whose number is bounded
+			int[] counted;
+			if (justifications) {
+				justificationListener = buffer;
+				repairListener = dummy;
+				// only removing axioms keeps the bound
+				bias = bias_ == Bias.REPAIRS ? Bias.REPAIRS : Bias.NONE;
+				counted = axioms_;
+			} else {
+				justificationListener = dummy;
+				repairListener = buffer;
+				// only adding axioms keeps the bound
+				bias = bias_ == Bias.JUSTIFICATIONS ? Bias.JUSTIFICATIONS
+						: Bias.NONE;
+				counted = new int[axioms_.length];
+				for (int i = 0; i < counted.length; i++) {
+					counted[i] = -axioms_[i];
+				}
+			}
+			Totalizer totalizer = new Totalizer(counted, idSup_, solver_);
+			int[] unbounded = new int[0];
+			for (int k = 0;; k++) {
+				int bound = totalizer.getAtMostLiteral(k);
+				int[] assumptions = bound == 0 ? unbounded
+						: new int[] { bound };
+				while (solver_.findModel(assumptions)) {
+					processModel(justificationListener, repairListener, bias);
+				}
+				buffer.flush();
+				if (bound == 0 || isInterrupted()
+						|| !solver_.findModel(unbounded)) {
+					// nothing else to report
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Sets {@link #seed_} to the current model of {@link #solver_},
+		 * adjusts it according to the given {@link Bias}, and processes it
+		 * 
+		 * @param justificationListener
+		 * @param repairListener
+		 * @param bias
+		 * @return {@code true} if a justification was found and {@code false}
+		 *         if a repair was found
+		 */
+		private boolean processModel(
+				MinimalSubsetEnumerator.Listener<A> justificationListener,
+				MinimalSubsetEnumerator.Listener<A> repairListener,
+				Bias bias) {
+			for (int id : axioms_) {
+				seed_[id] = solver_.isTrue(id);
+			}
+			switch (bias) {
+			case JUSTIFICATIONS:
+				// add axioms while no found justification is included
+				adjustSeed(justifications_, true);
+				break;
+			case REPAIRS:
+				// remove axioms while all found repairs are hit
+				adjustSeed(repairs_, false);
+				break;
+			default:
+				// use the model
+			}
+			return processSeed(justificationListener, repairListener, bias);
+		}
+
+		/**
+		 * Changes the values of the axioms in {@link #seed_} to the given
+		 * value as long as each of the given sets contains an axiom with the
+		 * opposite value, so the seed remains unexplored
+		 * 
+		 * @param family
+		 * @param value
+		 */
+		private void adjustSeed(SetFamily family, boolean value) {
+			// the numbers of axioms in the sets with the opposite value
+			int[] counts = new int[family.size()];
+			for (int i = 0; i < counts.length; i++) {
+				for (int id : family.get(i)) {
+					if (seed_[id] != value) {
+						counts[i]++;
+					}
+				}
+			}
+			next: for (int id : axioms_) {
+				if (seed_[id] == value) {
+					continue;
+				}
+				List<Integer> sets = family.getSetsContaining(id);
+				for (int i : sets) {
+					if (counts[i] == 1) {
+						continue next;
 					}
-					solver_.addClause();
-					justificationListener.newMinimalSubset(justification);
+				}
+				seed_[id] = value;
+				for (int i : sets) {
+					counts[i]--;
+				}
+			}
+		}
+
+		/**
+		 * Extracts a justification or a repair from {@link #seed_}, blocks it,
+		 * and reports it to the corresponding listener
+		 * 
+		 * @param justificationListener
+		 * @param repairListener
+		 * @param bias
+		 *            the {@link Bias} used for the seed
+		 * @return {@code true} if a justification was found and {@code false}
+		 *         if a repair was found
+		 */
+		private boolean processSeed(
+				MinimalSubsetEnumerator.Listener<A> justificationListener,
+				MinimalSubsetEnumerator.Listener<A> repairListener,
+				Bias bias) {
+			// unblock exactly the axioms of the seed
+			for (int id : axioms_) {
+				if (seed_[id]) {
+					checker_.unblock(id);
 				} else {
-					// a new repair can be extracted
-					Set<A> repair = new HashSet<>();
-					// create and add a blocking clause for the repair
-					solver_.newClause();
-					// try to add false axioms unless it causes the entailment
-					for (int id : axiomIds_.getIds()) {
-						if (solver_.isTrue(id)) {
-							continue;
+					checker_.block(id);
+				}
+			}
+			boolean derivable = checker_.isDerivable(goal_);
+			if (derivable && bias != Bias.NONE) {
+				// only the axioms relevant for the derivation are needed
+				restrictSeedToRelevant();
+			}
+			// the axioms of the seed for justifications or the remaining
+			// axioms for repairs
+			int[] candidate = new int[axioms_.length];
+			int candidateSize = 0;
+			for (int id : axioms_) {
+				if (seed_[id] == derivable) {
+					candidate[candidateSize++] = id;
+				}
+			}
+			candidate = Arrays.copyOf(candidate, candidateSize);
+			if (derivable) {
+				// a new justification can be extracted
+				justificationProperty_.clear(axioms_);
+				int[] minimal = minimization_.minimize(candidate,
+						justificationProperty_);
+				Set<A> justification = new HashSet<>(minimal.length);
+				// create and add a blocking clause for the justificaiton
+				solver_.newClause();
+				for (int id : minimal) {
+					justification.add(axiomIds_.getValue(id));
+					solver_.addLiteral(-id);
+				}
+				solver_.addClause();
+				if (bias != Bias.NONE) {
+					justifications_.add(minimal);
+				}
+				justificationListener.newMinimalSubset(justification);
+			} else {
+				// a new repair can be extracted
+				repairProperty_.clear(axioms_);
+				int[] minimal = minimization_.minimize(candidate,
+						repairProperty_);
+				Set<A> repair = new HashSet<>(minimal.length);
+				// create and add a blocking clause for the repair
+				solver_.newClause();
+				for (int id : minimal) {
+					repair.add(axiomIds_.getValue(id));
+					solver_.addLiteral(id);
+				}
+				solver_.addClause();
+				if (bias != Bias.NONE) {
+					repairs_.add(minimal);
+				}
+				repairListener.newMinimalSubset(repair);
+			}
+			return derivable;
+		}
+
+		/**
+		 * Removes from {@link #seed_} the axioms that are not used in
+		 * inferences with derivable premises that are reachable backwards
+		 * from {@link #goal_}; every derivation of {@link #goal_} from the
+		 * seed uses only such axioms, so the goal remains derivable
+		 */
+		private void restrictSeedToRelevant() {
+			boolean[] relevant = new boolean[seed_.length];
+			Set<Integer> visited = new HashSet<>();
+			Deque<Integer> toDo = new ArrayDeque<>();
+			visited.add(goal_);
+			toDo.add(goal_);
+			Integer next;
+			while ((next = toDo.poll()) != null) {
+				infs: for (Inference<? extends Integer> inf : integerProof_
+						.getInferences(next)) {
+					if (inf instanceof AssertedConclusionInference) {
+						relevant[next] = true;
+						continue;
+					}
+					for (int premise : inf.getPremises()) {
+						if (!checker_.isDerivable(premise)) {
+							continue infs;
 						}
-						checker_.unblock(id);
-						if (checker_.isDerivable(goal_)) {
-							// axiom causes entailment => belongs to
-							// a repair
-							repair.add(axiomIds_.getValue(id));
-							solver_.addLiteral(id);
-							checker_.block(id);
+					}
+					for (int premise : inf.getPremises()) {
+						if (visited.add(premise)) {
+							toDo.add(premise);
 						}
 					}
-					solver_.addClause();
-					repairListener.newMinimalSubset(repair);
+				}
+			}
+			for (int id : axioms_) {
+				if (seed_[id] && !relevant[id]) {
+					seed_[id] = false;
+					checker_.block(id);
 				}
 			}
 		}
 
-		public void enumerate(MinimalSubsetEnumerator.Listener<A> listener,
-				PriorityComparator<? super Set<A>, ?> priorityComparator) {
-			throw new UnsupportedOperationException("Priority not supported");
+		/**
+		 * Updates {@link #hittingSet_} to a minimal hitting set of
+		 * {@link #justifications_} and sets {@link #seed_} to its complement
+		 * if it is unexplored; every repair is a hitting set of all
+		 * justifications, so either the seed does not derive the goal and the
+		 * hitting set is a new repair, or the seed contains a new
+		 * justification
+		 * 
+		 * @return {@code true} if {@link #seed_} was set and {@code false} if
+		 *         the hitting set is a repair found before
+		 */
+		private boolean seedFromHittingSet() {
+			// the numbers of axioms in the hitting set for each justification
+			int[] hits = new int[justifications_.size()];
+			for (int i = 0; i < hits.length; i++) {
+				for (int id : justifications_.get(i)) {
+					if (hittingSet_[id]) {
+						hits[i]++;
+					}
+				}
+			}
+			for (int i = 0; i < hits.length; i++) {
+				if (hits[i] > 0) {
+					continue;
+				}
+				if (justifications_.get(i).length == 0) {
+					// the goal is derivable without axioms
+					return false;
+				}
+				// add the axiom occurring in most justifications
+				int best = 0, bestCount = 0;
+				for (int id : justifications_.get(i)) {
+					int count = justifications_.getSetsContaining(id).size();
+					if (count > bestCount) {
+						best = id;
+						bestCount = count;
+					}
+				}
+				hittingSet_[best] = true;
+				for (int j : justifications_.getSetsContaining(best)) {
+					hits[j]++;
+				}
+			}
+			// remove the redundant axioms
+			next: for (int id : axioms_) {
+				if (!hittingSet_[id]) {
+					continue;
+				}
+				List<Integer> sets = justifications_.getSetsContaining(id);
+				for (int i : sets) {
+					if (hits[i] == 1) {
+						continue next;
+					}
+				}
+				hittingSet_[id] = false;
+				for (int i : sets) {
+					hits[i]--;
+				}
+			}
+			// the seed is explored if it is disjoint with some repair
+			repairs: for (int i = 0; i < repairs_.size(); i++) {
+				for (int id : repairs_.get(i)) {
+					if (!hittingSet_[id]) {
+						continue repairs;
+					}
+				}
+				return false;
+			}
+			for (int id : axioms_) {
+				seed_[id] = !hittingSet_[id];
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * A list of sets of identifiers with an index of the sets containing
+	 * each identifier
+	 */
+	static class SetFamily {
+
+		private final List<int[]> sets_ = new ArrayList<>();
+
+		/**
+		 * {@code occurrences_.get(id)} are the positions in {@link #sets_} of
+		 * the sets containing the identifier or {@code null} if there are no
+		 * such sets
+		 */
+		private final List<List<Integer>> occurrences_;
+
+		/**
+		 * @param maxId
+		 *            the upper bound on the identifiers in the sets
+		 */
+		SetFamily(int maxId) {
+			this.occurrences_ = new ArrayList<>(
+					Collections.<List<Integer>> nCopies(maxId, null));
+		}
+
+		void add(int[] set) {
+			int pos = sets_.size();
+			sets_.add(set);
+			for (int id : set) {
+				List<Integer> sets = occurrences_.get(id);
+				if (sets == null) {
+					sets = new ArrayList<>();
+					occurrences_.set(id, sets);
+				}
+				sets.add(pos);
+			}
+		}
+
+		int size() {
+			return sets_.size();
+		}
+
+		int[] get(int pos) {
+			return sets_.get(pos);
+		}
+
+		List<Integer> getSetsContaining(int id) {
+			List<Integer> result = occurrences_.get(id);
+			return result == null ? Collections.<Integer> emptyList() : result;
 		}
 
 	}
@@ -226,8 +815,9 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 
 		public SatJRJustificaitonComputation(Proof<? extends I> proof,
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-				InterruptMonitor monitor, SatAdapter.Factory satFactory) {
-			super(proof, justifier, monitor, satFactory);
+				InterruptMonitor monitor, SatAdapter.Factory satFactory,
+				Minimization minimization, Bias bias) {
+			super(proof, justifier, monitor, satFactory, minimization, bias);
 		}
 
 		@Override
@@ -252,8 +842,9 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 
 		public SatJRRepairComputation(Proof<? extends I> proof,
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-				InterruptMonitor monitor, SatAdapter.Factory satFactory) {
-			super(proof, justifier, monitor, satFactory);
+				InterruptMonitor monitor, SatAdapter.Factory satFactory,
+				Minimization minimization, Bias bias) {
+			super(proof, justifier, monitor, satFactory, minimization, bias);
 		}
 
 		@Override
@@ -278,8 +869,15 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 
 		private final SatAdapter.Factory satFactory_;
 
-		JustificationFactory(SatAdapter.Factory satFactory) {
+		private final Minimization minimization_;
+
+		private final Bias bias_;
+
+		JustificationFactory(SatAdapter.Factory satFactory,
+				Minimization minimization, Bias bias) {
 			this.satFactory_ = satFactory;
+			this.minimization_ = minimization;
+			this.bias_ = bias;
 		}
 
 		@Override
@@ -288,7 +886,7 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				InterruptMonitor monitor) {
 			return new SatJRJustificaitonComputation<C, I, A>(proof, justifier,
-					monitor, satFactory_);
+					monitor, satFactory_, minimization_, bias_);
 		}
 
 	}
@@ -308,8 +906,15 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 
 		private final SatAdapter.Factory satFactory_;
 
-		RepairFactory(SatAdapter.Factory satFactory) {
+		private final Minimization minimization_;
+
+		private final Bias bias_;
+
+		RepairFactory(SatAdapter.Factory satFactory, Minimization minimization,
+				Bias bias) {
 			this.satFactory_ = satFactory;
+			this.minimization_ = minimization;
+			this.bias_ = bias;
 		}
 
 		@Override
@@ -318,7 +923,7 @@ public abstract class SatJRComputation<C, I extends Inference<? extends C>, A>
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				InterruptMonitor monitor) {
 			return new SatJRRepairComputation<C, I, A>(proof, justifier,
-					monitor, satFactory_);
+					monitor, satFactory_, minimization_, bias_);
 		}
 
 	}
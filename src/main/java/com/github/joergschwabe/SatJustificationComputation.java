@@ -1,10 +1,17 @@
 package com.github.joergschwabe;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.liveontologies.puli.AssertedConclusionInference;
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.InferenceDerivabilityChecker;
 import org.liveontologies.puli.InferenceJustifier;
@@ -15,6 +22,9 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
 
 import com.google.common.base.Preconditions;
 
@@ -48,81 +58,381 @@ public class SatJustificationComputation<C, I extends Inference<? extends C>, A>
 	 */
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
 			SatAdapter.Factory satFactory) {
-		return new SatJustificationComputation.Factory<>(satFactory);
+		return getFactory(satFactory, Minimization.LINEAR);
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param options
+	 *            the {@link Option}s enabled for the computation
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory, Option... options) {
+		return getFactory(satFactory, Minimization.LINEAR, options);
+	}
+
+	/**
+	 * Creates a factory for computing justifications
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal; not used if
+	 *            {@link Option#MINIMIZE_USING_CORES} is enabled
+	 * @param options
+	 *            the {@link Option}s enabled for the computation
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory, Minimization minimization,
+			Option... options) {
+		final Set<Option> enabled = EnumSet.noneOf(Option.class);
+		Collections.addAll(enabled, options);
+		return new SatJustificationComputation.Factory<>(satFactory,
+				minimization, enabled);
+	}
+
+	/**
+	 * The optional features of the computation, which are disabled by default
+	 */
+	public enum Option {
+		/**
+		 * the models are minimized using unsatisfiable cores computed by a
+		 * second {@link SatAdapter} that encodes derivability of the goal;
+		 * otherwise the models are minimized by checking derivability of the
+		 * goal using the given {@link Minimization}
+		 */
+		MINIMIZE_USING_CORES,
+		/**
+		 * all enumerators created by the same computation share one
+		 * translation of the proof and the same {@link SatAdapter}s; the
+		 * queries are then selected by assumptions, so every inference is
+		 * translated and encoded only once and the learned clauses are
+		 * reused; such enumerators should not be used concurrently
+		 */
+		SHARE_ENCODING,
+		/**
+		 * the strongly connected components of the proof of the goal are
+		 * computed in advance and, when the proof selected by a model is
+		 * cyclic, the clauses blocking all cycles of this proof within the
+		 * components are added at once; otherwise only one cycle is blocked
+		 * per model
+		 */
+		BLOCK_ALL_CYCLES;
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return Minimization.class;
+	}
+
+	@NestedStats(name = "sat")
+	public SatAdapter.Factory getSatFactory() {
+		return satFactory_;
 	}
 
 	private final SatAdapter.Factory satFactory_;
 
+	private final Minimization minimization_;
+
+	private final boolean minimizeUsingCores_;
+
+	private final boolean shareEncoding_;
+
+	private final boolean blockAllCycles_;
+
+	/**
+	 * the number of models whose proofs were cyclic
+	 */
+	private int cycleRoundsCount_ = 0;
+
+	/**
+	 * the number of clauses added to block cycles
+	 */
+	private int blockedCyclesCount_ = 0;
+
+	/**
+	 * the encoding used by all enumerators if {@link #shareEncoding_} is
+	 * {@code true}; created with the first enumerator
+	 */
+	private Encoding sharedEncoding_ = null;
+
 	public SatJustificationComputation(Proof<? extends I> proof,
 			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 			InterruptMonitor monitor, SatAdapter.Factory satFactory) {
+		this(proof, justifier, monitor, satFactory, Minimization.LINEAR,
+				EnumSet.noneOf(Option.class));
+	}
+
+	public SatJustificationComputation(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, SatAdapter.Factory satFactory,
+			Minimization minimization, Set<Option> options) {
 		super(proof, justifier, monitor);
 		this.satFactory_ = Preconditions.checkNotNull(satFactory);
+		this.minimization_ = Preconditions.checkNotNull(minimization);
+		this.minimizeUsingCores_ = options
+				.contains(Option.MINIMIZE_USING_CORES);
+		this.shareEncoding_ = options.contains(Option.SHARE_ENCODING);
+		this.blockAllCycles_ = options.contains(Option.BLOCK_ALL_CYCLES);
+	}
+
+	@Stat
+	public int nCycleRounds() {
+		return cycleRoundsCount_;
+	}
+
+	@Stat
+	public int nBlockedCycles() {
+		return blockedCyclesCount_;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		cycleRoundsCount_ = 0;
+		blockedCyclesCount_ = 0;
 	}
 
 	@Override
 	public MinimalSubsetEnumerator<A> newEnumerator(final Object query) {
-		return new Enumerator(query, satFactory_.create());
+		if (!shareEncoding_) {
+			return new Enumerator(query, new Encoding());
+		}
+		// else
+		if (sharedEncoding_ == null) {
+			sharedEncoding_ = new Encoding();
+		}
+		return new Enumerator(query, sharedEncoding_);
 	}
 
-	class Enumerator implements MinimalSubsetEnumerator<A>,
-			Producer<Inference<? extends Integer>> {
+	/**
+	 * The translation of (a part of) the proof to integer inferences together
+	 * with the clauses encoding the translated inferences. The clauses are
+	 * independent of the queries: the query is selected by adding its goal as
+	 * a unit clause or an assumption.
+	 */
+	class Encoding {
+
+		private final IdSupplier idSup_ = new IdSupplier();
+		private final IdProvider<Inference<? extends Integer>> inferenceIds_ = new IdProvider<>(
+				idSup_);
+		private final IdProvider<A> axiomIds_ = new IdProvider<>(idSup_);
+		private final IdProvider<Object> conclusionIds_ = new IdProvider<>(
+				idSup_);
+		private final IncrementalIntegerProofTranslator<Object, I, A> translator_ = new IncrementalIntegerProofTranslator<>(
+				getProof(), getInferenceJustifier(), conclusionIds_,
+				axiomIds_);
+
+		/**
+		 * the solver whose models select inferences deriving the goal
+		 */
+		private final SatAdapter solver_;
+
+		/**
+		 * if not {@code null}, the solver whose clauses together with the
+		 * negated goal are unsatisfiable iff the goal is derivable from the
+		 * axioms assumed to be true; used for minimization of models
+		 */
+		private final SatAdapter coreSolver_;
+
+		/**
+		 * reused for passing clauses to the solvers
+		 */
+		private int[] clause_ = new int[16];
+
+		Encoding() {
+			this.solver_ = satFactory_.create();
+			solver_.reset();
+			solver_.setInterruptMonitor(getInterruptMonitor());
+			if (minimizeUsingCores_) {
+				this.coreSolver_ = satFactory_.create();
+				coreSolver_.reset();
+				coreSolver_.setInterruptMonitor(getInterruptMonitor());
+			} else {
+				this.coreSolver_ = null;
+			}
+		}
+
+		/**
+		 * @param size
+		 * @return the array for passing clauses to the solvers with at least
+		 *         the given number of elements
+		 */
+		int[] getClauseBuffer(int size) {
+			if (clause_.length < size) {
+				clause_ = new int[Math.max(size, clause_.length << 1)];
+			}
+			return clause_;
+		}
+
+		/**
+		 * Translates and encodes the inferences that derive the given
+		 * conclusion and were not encoded before
+		 * 
+		 * @param conclusion
+		 * @return the integer identifier of the conclusion
+		 */
+		int encode(Object conclusion) {
+			Proof<Inference<? extends Integer>> proof = translator_
+					.getTranslatedProof();
+			for (int translated : translator_.translate(conclusion)) {
+				Collection<? extends Inference<? extends Integer>> infs = proof
+						.getInferences(translated);
+				// the conclusion is derived by one of its inferences
+				int[] clause = getClauseBuffer(infs.size() + 1);
+				int len = 0;
+				clause[len++] = -translated;
+				for (Inference<? extends Integer> inf : infs) {
+					clause[len++] = inferenceIds_.getId(inf);
+				}
+				solver_.addClause(clause, 0, len);
+				for (Inference<? extends Integer> inf : infs) {
+					encode(inf);
+				}
+			}
+			return conclusionIds_.getId(conclusion);
+		}
+
+		private void encode(Inference<? extends Integer> inf) {
+			List<? extends Integer> premises = inf.getPremises();
+			// the inference uses all premises
+			int[] clause = getClauseBuffer(premises.size() + 1);
+			clause[0] = -inferenceIds_.getId(inf);
+			for (int premise : premises) {
+				clause[1] = premise;
+				solver_.addClause(clause, 0, 2);
+			}
+			if (coreSolver_ == null
+					|| inf instanceof AssertedConclusionInference) {
+				return;
+			}
+			// else add a Horn clause for the inference; axioms are not
+			// derived by inferences, so they can be assumed to be true
+			int len = 0;
+			clause[len++] = inf.getConclusion();
+			for (int premise : premises) {
+				clause[len++] = -premise;
+			}
+			coreSolver_.addClause(clause, 0, len);
+		}
+
+	}
+
+	class Enumerator implements MinimalSubsetEnumerator<A> {
+
+		private final Encoding encoding_;
 
 		private final IdProvider<Inference<? extends Integer>> inferenceIds_;
 		private final IdProvider<A> axiomIds_;
 
 		private final Proof<? extends Inference<? extends Integer>> integerProof_;
 		private final int goal_;
-		private final InferenceDerivabilityChecker<Integer, Inference<? extends Integer>> checker_;
+		private final HornDerivabilityChecker checker_;
+
+		/**
+		 * the property of the sets of axioms to derive {@link #goal_} checked
+		 * using {@link #checker_}
+		 */
+		private final DerivabilityProperty property_;
+
+		/**
+		 * the identifiers of the axioms used in the proof of the goal
+		 */
+		private final int[] axioms_;
 
 		private final SatAdapter solver_;
 
-		int cycleCount_ = 0;
+		/**
+		 * if not {@code null}, the solver whose clauses together with the
+		 * negated goal are unsatisfiable iff the goal is derivable from the
+		 * axioms assumed to be true; used for minimization of models
+		 */
+		private final SatAdapter coreSolver_;
 
-		Enumerator(Object query, SatAdapter solver) {
-			Preconditions.checkNotNull(query);
-			this.solver_ = Preconditions.checkNotNull(solver);
-			IdSupplier idSup = new IdSupplier();
-			this.inferenceIds_ = new IdProvider<>(idSup);
-			this.axiomIds_ = new IdProvider<>(idSup);
-			IdProvider<Object> conclusionIds = new IdProvider<>(idSup);
-			this.integerProof_ = IntegerProofTranslator.translate(getProof(),
-					getInferenceJustifier(), query, conclusionIds, axiomIds_);
-			this.goal_ = conclusionIds.getId(query);
-			this.checker_ = new InferenceDerivabilityChecker<>(integerProof_);
-			initEncoding();
-			solver.setInterruptMonitor(getInterruptMonitor());
-		}
+		/**
+		 * the literal that activates the clauses specific to this enumerator
+		 * when the encoding is shared; {@code 0} otherwise
+		 */
+		private final int activation_;
 
-		void initEncoding() {
-			solver_.reset();
-			// add positive clause for the goal
-			solver_.newClause();
-			solver_.addLiteral(goal_);
-			solver_.addClause();
-			// add clauses for each inference and their premises
-			Set<Integer> unfolded = Proofs.unfoldRecursively(integerProof_,
-					goal_, this);
-			// add clauses for each used conclusion and its inferences
-			for (int conclusion : unfolded) {
-				solver_.newClause();
-				solver_.addLiteral(-conclusion);
-				for (Inference<? extends Integer> inf : integerProof_
-						.getInferences(conclusion)) {
-					solver_.addLiteral(inferenceIds_.getId(inf));
-				}
-				solver_.addClause();
-			}
-		}
+		/**
+		 * the assumptions under which {@link #solver_} searches for models
+		 */
+		private final int[] assumptions_;
 
-		@Override
-		public void produce(Inference<? extends Integer> inf) {
-			int infId = inferenceIds_.getId(inf);
-			for (int premise : inf.getPremises()) {
-				solver_.newClause();
-				solver_.addLiteral(-infId);
-				solver_.addLiteral(premise);
-				solver_.addClause();
+		/**
+		 * the strongly connected components of the proof of the goal if
+		 * {@link #blockAllCycles_} is {@code true}; cycles can only be within
+		 * such components
+		 */
+		private final StronglyConnectedComponents<Integer> components_;
+
+		Enumerator(Object query, Encoding encoding) {
+			Preconditions.checkNotNull(query);
+			this.encoding_ = encoding;
+			this.inferenceIds_ = encoding.inferenceIds_;
+			this.axiomIds_ = encoding.axiomIds_;
+			this.solver_ = encoding.solver_;
+			this.coreSolver_ = encoding.coreSolver_;
+			this.goal_ = encoding.encode(query);
+			this.integerProof_ = encoding.translator_.getTranslatedProof();
+			this.checker_ = new HornDerivabilityChecker(integerProof_, goal_);
+			this.property_ = new DerivabilityProperty(checker_, goal_, false);
+			// collect the axioms of the goal
+			final List<Integer> axioms = new ArrayList<>();
+			Proofs.unfoldRecursively(integerProof_, goal_,
+					new Producer<Inference<? extends Integer>>() {
+						@Override
+						public void produce(Inference<? extends Integer> inf) {
+							if (inf instanceof AssertedConclusionInference) {
+								axioms.add(inf.getConclusion());
+							}
+						}
+					});
+			this.axioms_ = new int[axioms.size()];
+			for (int i = 0; i < axioms_.length; i++) {
+				axioms_[i] = axioms.get(i);
+			}
+			this.components_ = blockAllCycles_
+					? StronglyConnectedComponentsComputation
+							.computeComponents(integerProof_, goal_)
+					: null;
+			if (shareEncoding_) {
+				this.activation_ = encoding.idSup_.getNextId();
+				this.assumptions_ = new int[] { activation_, goal_ };
+			} else {
+				this.activation_ = 0;
+				this.assumptions_ = new int[0];
+				// add positive clause for the goal
+				int[] clause = encoding.getClauseBuffer(1);
+				clause[0] = goal_;
+				solver_.addClause(clause, 0, 1);
+				if (coreSolver_ != null) {
+					// the goal should not be derivable
+					clause[0] = -goal_;
+					coreSolver_.addClause(clause, 0, 1);
+				}
 			}
 		}
 
@@ -146,83 +456,338 @@ public class SatJustificationComputation<C, I extends Inference<? extends C>, A>
 		@Override
 		public void enumerate(Listener<A> listener) {
 			Preconditions.checkNotNull(listener);
-			while (solver_.findModel()) {
+			Set<A> justification;
+			while ((justification = nextJustification(
+					assumptions_)) != null) {
+				listener.newMinimalSubset(justification);
+			}
+			finish();
+		}
+
+		/**
+		 * Enumerates the justifications in rounds of increasing cardinality:
+		 * in round {@code k} the models are restricted to have at most
+		 * {@code k} true axioms using a {@link Totalizer}; since all smaller
+		 * justifications are blocked, the models of this round contain only
+		 * justifications of size {@code k}. The justifications of every round
+		 * are reported in the order of their priorities, so the order is
+		 * respected for priorities that do not decrease with the cardinality.
+		 */
+		@Override
+		public void enumerate(Listener<A> listener,
+				PriorityComparator<? super Set<A>, ?> priorityComparator) {
+			Preconditions.checkNotNull(listener);
+			PriorityBuffer<A, ?> buffer = PriorityBuffer.create(listener,
+					priorityComparator);
+			Totalizer totalizer = new Totalizer(axioms_, encoding_.idSup_,
+					solver_);
+			int[] bounded = Arrays.copyOf(assumptions_,
+					assumptions_.length + 1);
+			for (int k = 0;; k++) {
+				int bound = totalizer.getAtMostLiteral(k);
+				int[] assumptions = assumptions_;
+				if (bound != 0) {
+					bounded[assumptions_.length] = bound;
+					assumptions = bounded;
+				}
+				Set<A> justification;
+				while ((justification = nextJustification(
+						assumptions)) != null) {
+					buffer.newMinimalSubset(justification);
+				}
+				buffer.flush();
+				if (bound == 0 || isInterrupted()
+						|| !solver_.findModel(assumptions_)) {
+					// no other justifications
+					break;
+				}
+			}
+			finish();
+		}
+
+		/**
+		 * Searches for models under the given assumptions until a model
+		 * containing a new justification is found
+		 * 
+		 * @param assumptions
+		 * @return the new justification or {@code null} if there are no more
+		 *         models or the computation was interrupted
+		 */
+		private Set<A> nextJustification(int[] assumptions) {
+			while (solver_.findModel(assumptions)) {
 				Proof<? extends Inference<? extends Integer>> modelProof = getModelProof();
 				InferenceDerivabilityChecker<Integer, Inference<? extends Integer>> inducedChecker = new InferenceDerivabilityChecker<>(
 						modelProof);
 				if (inducedChecker.isDerivable(goal_)) {
-					// unblock exactly the satisfying axioms
-					for (int id : axiomIds_.getIds()) {
-						if (solver_.isTrue(id)) {
-							checker_.unblock(id);
-						} else {
-							checker_.block(id);
-						}
+					return coreSolver_ == null ? minimizeUsingChecker()
+							: minimizeUsingCores();
+				}
+				// else there must be a cycle in the proof => block it
+				cycleRoundsCount_++;
+				Set<? extends Integer> nonDerivable = inducedChecker
+						.getNonDerivableConclusions();
+				if (!blockAllCycles_
+						|| blockAllCycles(modelProof, nonDerivable) == 0) {
+					blockCycle(modelProof, nonDerivable);
+				}
+			}
+			return null;
+		}
+
+		private void finish() {
+			if (activation_ != 0 && !isInterrupted()) {
+				// all justifications are found; the clauses of this
+				// enumerator are not needed anymore
+				int[] clause = encoding_.getClauseBuffer(1);
+				clause[0] = -activation_;
+				solver_.addClause(clause, 0, 1);
+			}
+		}
+
+		/**
+		 * Finds a cycle of non-derivable conclusions in the given proof
+		 * selected by the current model of {@link #solver_} and adds the
+		 * clause blocking it
+		 * 
+		 * @param modelProof
+		 * @param nonDerivable
+		 *            the conclusions not derivable in the model proof
+		 */
+		private void blockCycle(
+				Proof<? extends Inference<? extends Integer>> modelProof,
+				Set<? extends Integer> nonDerivable) {
+			Set<Integer> visited = new HashSet<>();
+			int next = goal_;
+			// search for cycle
+			while (visited.add(next)) {
+				// take the first inference, it should exist since the
+				// encoding is satisfiable
+				Inference<? extends Integer> inf = modelProof
+						.getInferences(next).iterator().next();
+				for (Integer premise : inf.getPremises()) {
+					if (nonDerivable.contains(premise)) {
+						next = premise;
+						break;
 					}
-					// minimize justification w.r.t. to the original inferences
-					Set<A> justification = new HashSet<>();
-					// create and add a blocking clause for the justificaiton
-					solver_.newClause();
-					// try to remove true axioms unless it breaks the entailment
-					for (int id : axiomIds_.getIds()) {
-						if (!solver_.isTrue(id)) {
-							continue;
-						}
-						checker_.block(id);
-						if (!checker_.isDerivable(goal_)) {
-							// axiom cannot be removed => belongs to
-							// a justification
-							justification.add(axiomIds_.getValue(id));
-							solver_.addLiteral(-id);
-							checker_.unblock(id);
-						}
+				}
+			}
+			// record the cycle
+			solver_.newClause();
+			int cycleStart = next;
+			do {
+				Inference<? extends Integer> inf = modelProof
+						.getInferences(next).iterator().next();
+				solver_.addLiteral(-inferenceIds_.getId(inf));
+				for (Integer premise : inf.getPremises()) {
+					if (nonDerivable.contains(premise)) {
+						next = premise;
+						break;
 					}
-					solver_.addClause();
-					listener.newMinimalSubset(justification);
-				} else {
-					// there must be a cycle in the proof => find it and block
-					// it
-					Set<Integer> visited = new HashSet<>();
-					int next = goal_;
-					Set<? extends Integer> nonDerivable = inducedChecker
-							.getNonDerivableConclusions();
-					// search for cycle
-					while (visited.add(next)) {
-						// take the first inference, it should exist since the
-						// encoding is satisfiable
-						Inference<? extends Integer> inf = modelProof
-								.getInferences(next).iterator().next();
-						for (Integer premise : inf.getPremises()) {
-							if (nonDerivable.contains(premise)) {
-								next = premise;
-								break;
-							}
+				}
+			} while (next != cycleStart);
+			solver_.addClause();
+			blockedCyclesCount_++;
+		}
+
+		/**
+		 * Adds the clauses blocking all cycles of non-derivable conclusions in
+		 * the given proof selected by the current model of {@link #solver_}
+		 * that are found by following, from every such conclusion, the first
+		 * non-derivable premise in the same strongly connected component
+		 * 
+		 * @param modelProof
+		 * @param nonDerivable
+		 *            the conclusions not derivable in the model proof
+		 * @return the number of blocked cycles
+		 */
+		private int blockAllCycles(
+				Proof<? extends Inference<? extends Integer>> modelProof,
+				Set<? extends Integer> nonDerivable) {
+			// the number of the walk that visited the conclusion first
+			Map<Integer, Integer> visited = new HashMap<>();
+			int walk = 0;
+			int blocked = 0;
+			for (Integer start : nonDerivable) {
+				if (visited.containsKey(start)) {
+					continue;
+				}
+				walk++;
+				Integer next = start;
+				while (next != null) {
+					Integer seen = visited.put(next, walk);
+					if (seen != null) {
+						if (seen == walk) {
+							// a new cycle
+							blockCycleInComponent(modelProof, nonDerivable,
+									next);
+							blocked++;
 						}
+						break;
 					}
-					// record the cycle
-					solver_.newClause();
-					int cycleStart = next;
-					do {
-						Inference<? extends Integer> inf = modelProof
-								.getInferences(next).iterator().next();
-						solver_.addLiteral(-inferenceIds_.getId(inf));
-						for (Integer premise : inf.getPremises()) {
-							if (nonDerivable.contains(premise)) {
-								next = premise;
-								break;
-							}
-						}
-					} while (next != cycleStart);
-					solver_.addClause();
-					// System.out.println("Cycle added: " + ++cycleCount_);
+					next = getNextInComponent(modelProof, nonDerivable, next);
 				}
 			}
+			blockedCyclesCount_ += blocked;
+			return blocked;
 		}
 
-		@Override
-		public void enumerate(Listener<A> listener,
-				PriorityComparator<? super Set<A>, ?> priorityComparator) {
-			throw new UnsupportedOperationException("Priority not supported");
+		private void blockCycleInComponent(
+				Proof<? extends Inference<? extends Integer>> modelProof,
+				Set<? extends Integer> nonDerivable, int cycleStart) {
+			solver_.newClause();
+			int next = cycleStart;
+			do {
+				Inference<? extends Integer> inf = modelProof
+						.getInferences(next).iterator().next();
+				solver_.addLiteral(-inferenceIds_.getId(inf));
+				next = getNextInComponent(modelProof, nonDerivable, next);
+			} while (next != cycleStart);
+			solver_.addClause();
+		}
+
+		/**
+		 * @param modelProof
+		 * @param nonDerivable
+		 * @param conclusion
+		 * @return the first premise of the inference for the given conclusion
+		 *         in the model proof that is not derivable and belongs to the
+		 *         same strongly connected component as the conclusion, or
+		 *         {@code null} if there is no such premise
+		 */
+		private Integer getNextInComponent(
+				Proof<? extends Inference<? extends Integer>> modelProof,
+				Set<? extends Integer> nonDerivable, Integer conclusion) {
+			Integer component = components_.getComponentId(conclusion);
+			for (Inference<? extends Integer> inf : modelProof
+					.getInferences(conclusion)) {
+				for (Integer premise : inf.getPremises()) {
+					if (nonDerivable.contains(premise) && component != null
+							&& component.equals(
+									components_.getComponentId(premise))) {
+						return premise;
+					}
+				}
+			}
+			// else
+			return null;
+		}
+
+		/**
+		 * Minimizes the axioms that are true in the current model of
+		 * {@link #solver_} by checking derivability of the goal using the
+		 * strategy {@link #minimization_}; adds the blocking clause for the
+		 * result to {@link #solver_}
+		 * 
+		 * @return the justification for the goal
+		 */
+		private Set<A> minimizeUsingChecker() {
+			int[] candidate = new int[axioms_.length];
+			int candidateSize = 0;
+			for (int id : axioms_) {
+				if (solver_.isTrue(id)) {
+					candidate[candidateSize++] = id;
+				}
+			}
+			candidate = Arrays.copyOf(candidate, candidateSize);
+			// minimize justification w.r.t. to the original inferences
+			property_.clear(axioms_);
+			int[] minimal = minimization_.minimize(candidate, property_);
+			Set<A> justification = new HashSet<>(minimal.length);
+			// create and add a blocking clause for the justificaiton
+			solver_.newClause();
+			if (activation_ != 0) {
+				solver_.addLiteral(-activation_);
+			}
+			for (int id : minimal) {
+				justification.add(axiomIds_.getValue(id));
+				solver_.addLiteral(-id);
+			}
+			solver_.addClause();
+			return justification;
+		}
+
+		/**
+		 * Minimizes the axioms that are true in the current model of
+		 * {@link #solver_} using unsatisfiable cores of {@link #coreSolver_}:
+		 * when removal of an axiom preserves unsatisfiability, all axioms
+		 * outside of the returned core are removed at once; adds the blocking
+		 * clause for the result to {@link #solver_}
+		 * 
+		 * @return the justification for the goal or {@code null} if the
+		 *         computation was interrupted
+		 */
+		private Set<A> minimizeUsingCores() {
+			// with the shared encoding, the negated goal is assumed first
+			int fixed = activation_ == 0 ? 0 : 1;
+			int[] candidate = new int[fixed + axioms_.length];
+			int candidateSize = 0;
+			if (fixed > 0) {
+				candidate[candidateSize++] = -goal_;
+			}
+			for (int id : axioms_) {
+				if (solver_.isTrue(id)) {
+					candidate[candidateSize++] = id;
+				}
+			}
+			candidate = Arrays.copyOf(candidate, candidateSize);
+			if (coreSolver_.findModel(candidate)) {
+				throw new RuntimeException(
+						"The goal is not derivable from the model axioms!");
+			}
+			candidate = getUnsatCore(fixed);
+			// all axioms before this position are necessary
+			int pos = fixed;
+			while (candidate != null && pos < candidate.length) {
+				int[] reduced = new int[candidate.length - 1];
+				System.arraycopy(candidate, 0, reduced, 0, pos);
+				System.arraycopy(candidate, pos + 1, reduced, pos,
+						reduced.length - pos);
+				if (coreSolver_.findModel(reduced)) {
+					// the axiom is necessary
+					pos++;
+				} else {
+					// the core contains the necessary axioms in the same order
+					candidate = getUnsatCore(fixed);
+				}
+			}
+			if (candidate == null) {
+				return null;
+			}
+			// else
+			Set<A> justification = new HashSet<>(candidate.length);
+			// create and add a blocking clause for the justificaiton
+			int[] clause = encoding_.getClauseBuffer(candidate.length);
+			int len = 0;
+			if (activation_ != 0) {
+				clause[len++] = -activation_;
+			}
+			for (int i = fixed; i < candidate.length; i++) {
+				justification.add(axiomIds_.getValue(candidate[i]));
+				clause[len++] = -candidate[i];
+			}
+			solver_.addClause(clause, 0, len);
+			return justification;
+		}
+
+		/**
+		 * @param fixed
+		 *            the number of the first assumptions of the last search
+		 *            that should be retained in the core
+		 * @return the unsatisfiable core of {@link #coreSolver_} that starts
+		 *         with the given number of first assumptions or {@code null}
+		 *         if the last search was interrupted
+		 */
+		private int[] getUnsatCore(int fixed) {
+			int[] core = coreSolver_.getUnsatCore();
+			if (core == null || fixed == 0
+					|| (core.length > 0 && core[0] == -goal_)) {
+				return core;
+			}
+			// else the negated goal was not needed for the contradiction
+			int[] result = new int[core.length + 1];
+			result[0] = -goal_;
+			System.arraycopy(core, 0, result, 1, core.length);
+			return result;
 		}
 
 	}
@@ -242,8 +807,15 @@ public class SatJustificationComputation<C, I extends Inference<? extends C>, A>
 
 		private final SatAdapter.Factory satFactory_;
 
-		Factory(SatAdapter.Factory satFactory) {
+		private final Minimization minimization_;
+
+		private final Set<Option> options_;
+
+		Factory(SatAdapter.Factory satFactory, Minimization minimization,
+				Set<Option> options) {
 			this.satFactory_ = satFactory;
+			this.minimization_ = minimization;
+			this.options_ = options;
 		}
 
 		@Override
@@ -252,7 +824,7 @@ public class SatJustificationComputation<C, I extends Inference<? extends C>, A>
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				InterruptMonitor monitor) {
 			return new SatJustificationComputation<>(proof, justifier, monitor,
-					satFactory_);
+					satFactory_, minimization_, options_);
 		}
 
 	}
@@ -1,10 +1,11 @@
 package com.github.joergschwabe;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.liveontologies.puli.Inference;
-import org.liveontologies.puli.InferenceDerivabilityChecker;
 import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Producer;
 import org.liveontologies.puli.Proof;
@@ -13,6 +14,7 @@ import org.liveontologies.puli.pinpointing.InterruptMonitor;
 import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 import org.liveontologies.puli.pinpointing.PriorityComparator;
+import org.liveontologies.puli.statistics.NestedStats;
 
 import com.google.common.base.Preconditions;
 
@@ -46,16 +48,59 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 	 */
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
 			SatAdapter.Factory satFactory) {
-		return new SatRepairComputation.Factory<>(satFactory);
+		return getFactory(satFactory, Minimization.LINEAR);
+	}
+
+	/**
+	 * Creates a factory for computing repairs
+	 * 
+	 * @param <C>
+	 *            the type of conclusions used in inferences
+	 * @param <I>
+	 *            the type of inferences used in the proof
+	 * @param <A>
+	 *            the type of axioms used by the inferences
+	 * @param satFactory
+	 *            the factory for creation of a {@link SatAdapter} used for
+	 *            computation of justification
+	 * @param minimization
+	 *            the strategy for minimization of models by checking
+	 *            derivability of the goal
+	 * @return a factory for computing of justifications from proofs using a
+	 *         specific type of a sat solver
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			SatAdapter.Factory satFactory, Minimization minimization) {
+		return new SatRepairComputation.Factory<>(satFactory, minimization);
+	}
+
+	@NestedStats
+	public static Class<?> getNestedStats() {
+		return Minimization.class;
+	}
+
+	@NestedStats(name = "sat")
+	public SatAdapter.Factory getSatFactory() {
+		return satFactory_;
 	}
 
 	private final SatAdapter.Factory satFactory_;
 
+	private final Minimization minimization_;
+
 	public SatRepairComputation(Proof<? extends I> proof,
 			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 			InterruptMonitor monitor, SatAdapter.Factory satFactory) {
+		this(proof, justifier, monitor, satFactory, Minimization.LINEAR);
+	}
+
+	public SatRepairComputation(Proof<? extends I> proof,
+			InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			InterruptMonitor monitor, SatAdapter.Factory satFactory,
+			Minimization minimization) {
 		super(proof, justifier, monitor);
 		this.satFactory_ = Preconditions.checkNotNull(satFactory);
+		this.minimization_ = Preconditions.checkNotNull(minimization);
 	}
 
 	@Override
@@ -66,26 +111,39 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 	class Enumerator implements MinimalSubsetEnumerator<A>,
 			Producer<Inference<? extends Integer>> {
 
+		private final IdSupplier idSup_ = new IdSupplier();
+
 		private final IdProvider<A> axiomIds_;
 
 		private final Proof<? extends Inference<? extends Integer>> integerProof_;
 		private final int goal_;
-		private final InferenceDerivabilityChecker<Integer, Inference<? extends Integer>> checker_;
+		private final HornDerivabilityChecker checker_;
+
+		/**
+		 * the property of the sets of axioms to block derivation of
+		 * {@link #goal_} checked using {@link #checker_}
+		 */
+		private final DerivabilityProperty property_;
 
 		private final SatAdapter solver_;
 
+		/**
+		 * reused for passing clauses to {@link #solver_}
+		 */
+		private int[] clause_ = new int[16];
+
 		int cycleCount_ = 0;
 
 		Enumerator(Object query, SatAdapter solver) {
 			Preconditions.checkNotNull(query);
 			this.solver_ = Preconditions.checkNotNull(solver);
-			IdSupplier idSup = new IdSupplier();
-			this.axiomIds_ = new IdProvider<>(idSup);
-			IdProvider<Object> conclusionIds = new IdProvider<>(idSup);
+			this.axiomIds_ = new IdProvider<>(idSup_);
+			IdProvider<Object> conclusionIds = new IdProvider<>(idSup_);
 			this.integerProof_ = IntegerProofTranslator.translate(getProof(),
 					getInferenceJustifier(), query, conclusionIds, axiomIds_);
 			this.goal_ = conclusionIds.getId(query);
-			this.checker_ = new InferenceDerivabilityChecker<>(integerProof_);
+			this.checker_ = new HornDerivabilityChecker(integerProof_, goal_);
+			this.property_ = new DerivabilityProperty(checker_, goal_, true);
 			initEncoding();
 			solver.setInterruptMonitor(getInterruptMonitor());
 		}
@@ -93,9 +151,8 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 		void initEncoding() {
 			solver_.reset();
 			// add positive clause for the goal
-			solver_.newClause();
-			solver_.addLiteral(goal_);
-			solver_.addClause();
+			clause_[0] = goal_;
+			solver_.addClause(clause_, 0, 1);
 			// add clauses for each inference and their premises
 			Proofs.unfoldRecursively(
 					Proofs.removeAssertedInferences(integerProof_), goal_,
@@ -104,53 +161,97 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 
 		@Override
 		public void produce(Inference<? extends Integer> inf) {
-			solver_.newClause();
-			solver_.addLiteral(-inf.getConclusion());
-			for (int premise : inf.getPremises()) {
-				solver_.addLiteral(premise);
+			List<? extends Integer> premises = inf.getPremises();
+			if (clause_.length <= premises.size()) {
+				clause_ = new int[Math.max(premises.size() + 1,
+						clause_.length << 1)];
 			}
-			solver_.addClause();
+			int len = 0;
+			clause_[len++] = -inf.getConclusion();
+			for (int premise : premises) {
+				clause_[len++] = premise;
+			}
+			solver_.addClause(clause_, 0, len);
 		}
 
 		@Override
 		public void enumerate(Listener<A> listener) {
 			Preconditions.checkNotNull(listener);
-			while (solver_.findModel()) {
-				// block exactly the true axioms
-				for (int id : axiomIds_.getIds()) {
-					if (solver_.isTrue(id)) {
-						checker_.block(id);
-					} else {
-						checker_.unblock(id);
-					}
-				}
-				// new repair found
-				Set<A> repair = new HashSet<>();
-				// create a blocking clause
-				solver_.newClause();
-				// try to add true axioms unless it causes the entailment
-				for (int id : axiomIds_.getIds()) {
-					if (!solver_.isTrue(id)) {
-						continue;
-					}
-					checker_.unblock(id);
-					if (checker_.isDerivable(goal_)) {
-						// axiom causes entailment => belongs to
-						// a repair
-						repair.add(axiomIds_.getValue(id));
-						solver_.addLiteral(-id);
-						checker_.block(id);
-					}
-				}
-				solver_.addClause();
+			Set<A> repair;
+			while ((repair = nextRepair(new int[0])) != null) {
 				listener.newMinimalSubset(repair);
 			}
 		}
 
+		/**
+		 * Enumerates the repairs in rounds of increasing cardinality: in round
+		 * {@code k} the models are restricted to have at most {@code k} true
+		 * axioms using a {@link Totalizer}; since all smaller repairs are
+		 * blocked, the models of this round contain only repairs of size
+		 * {@code k}. The repairs of every round are reported in the order of
+		 * their priorities, so the order is respected for priorities that do
+		 * not decrease with the cardinality.
+		 */
 		@Override
 		public void enumerate(Listener<A> listener,
 				PriorityComparator<? super Set<A>, ?> priorityComparator) {
-			throw new UnsupportedOperationException("Priority not supported");
+			Preconditions.checkNotNull(listener);
+			PriorityBuffer<A, ?> buffer = PriorityBuffer.create(listener,
+					priorityComparator);
+			Totalizer totalizer = new Totalizer(axiomIds_.getIds(), idSup_,
+					solver_);
+			int[] unbounded = new int[0];
+			for (int k = 0;; k++) {
+				int bound = totalizer.getAtMostLiteral(k);
+				int[] assumptions = bound == 0 ? unbounded
+						: new int[] { bound };
+				Set<A> repair;
+				while ((repair = nextRepair(assumptions)) != null) {
+					buffer.newMinimalSubset(repair);
+				}
+				buffer.flush();
+				if (bound == 0 || isInterrupted()
+						|| !solver_.findModel(unbounded)) {
+					// no other repairs
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Searches for a model under the given assumptions and extracts a new
+		 * repair from it
+		 * 
+		 * @param assumptions
+		 * @return the new repair or {@code null} if there are no more models
+		 *         or the computation was interrupted
+		 */
+		private Set<A> nextRepair(int[] assumptions) {
+			if (!solver_.findModel(assumptions)) {
+				return null;
+			}
+			// the true axioms are blocked
+			int[] axioms = axiomIds_.getIds();
+			int[] candidate = new int[axioms.length];
+			int candidateSize = 0;
+			for (int id : axioms) {
+				if (solver_.isTrue(id)) {
+					candidate[candidateSize++] = id;
+				}
+			}
+			candidate = Arrays.copyOf(candidate, candidateSize);
+			// new repair found
+			property_.clear(axioms);
+			int[] minimal = minimization_.minimize(candidate, property_);
+			Set<A> repair = new HashSet<>(minimal.length);
+			// create a blocking clause
+			solver_.newClause();
+			for (int id : minimal) {
+				repair.add(axiomIds_.getValue(id));
+				solver_.addLiteral(-id);
+			}
+			solver_.addClause();
+			return repair;
 		}
 
 	}
@@ -170,8 +271,11 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 
 		private final SatAdapter.Factory satFactory_;
 
-		Factory(SatAdapter.Factory satFactory) {
+		private final Minimization minimization_;
+
+		Factory(SatAdapter.Factory satFactory, Minimization minimization) {
 			this.satFactory_ = satFactory;
+			this.minimization_ = minimization;
 		}
 
 		@Override
@@ -180,7 +284,7 @@ public class SatRepairComputation<C, I extends Inference<? extends C>, A>
 				InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				InterruptMonitor monitor) {
 			return new SatRepairComputation<>(proof, justifier, monitor,
-					satFactory_);
+					satFactory_, minimization_);
 		}
 
 	}
@@ -0,0 +1,264 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.statistics.ResetStats;
+import org.liveontologies.puli.statistics.Stat;
+
+import com.github.joergschwabe.proofs.adapters.ProofSimplification;
+import com.github.joergschwabe.proofs.adapters.Proofs;
+import com.google.common.base.Preconditions;
+
+/**
+ * Provided justification computation applied to the proof of the query
+ * simplified by {@link ProofSimplification}. The simplified proof of the last
+ * query and the computation for it are reused when the justifications of this
+ * query are enumerated again; the proofs of other queries are simplified
+ * again. The passes can be
+ * combined with the binarization of the simplified proof by using
+ * {@link BinarizedJustificationComputation} as the provided computation.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusion and premises used by the inferences
+ * @param <I>
+ *            the type of inferences used in proofs
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class SimplifyingJustificationComputation<C, I extends Inference<? extends C>, A>
+		extends MinimalSubsetsFromProofs<C, I, A> {
+
+	private final MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory_;
+
+	private final List<ProofSimplification.Pass> passes_;
+
+	/**
+	 * the computation for the simplified proof of the last query or
+	 * {@code null} if there was no query
+	 */
+	private Simplified<C, A> last_ = null;
+
+	// Statistics
+
+	private int countSimplifiedProofs_ = 0;
+
+	private long countOriginalInferences_ = 0,
+			countSimplifiedInferences_ = 0, simplificationNanos_ = 0;
+
+	/**
+	 * for every pass, the number of inferences before and after the pass and
+	 * the time of the pass in nanoseconds summed over the queries
+	 */
+	private final Map<ProofSimplification.Pass, long[]> passStats_ = new EnumMap<>(
+			ProofSimplification.Pass.class);
+
+	SimplifyingJustificationComputation(
+			final MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory,
+			final List<ProofSimplification.Pass> passes,
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final InterruptMonitor monitor) {
+		super(proof, justifier, monitor);
+		this.mainFactory_ = mainFactory;
+		this.passes_ = passes;
+	}
+
+	@Override
+	public MinimalSubsetEnumerator<A> newEnumerator(final C query) {
+		if (last_ == null || !last_.query.equals(query)) {
+			final ProofSimplification<C, A> proof = Proofs.simplify(getProof(),
+					getInferenceJustifier(), query, passes_,
+					getInterruptMonitor());
+			collectStats(proof);
+			last_ = new Simplified<C, A>(proof.getQuery(),
+					mainFactory_.create(proof, proof.getJustifier(),
+							getInterruptMonitor()));
+		}
+		return last_.computation.newEnumerator(last_.query);
+	}
+
+	private void collectStats(final ProofSimplification<C, A> proof) {
+		countSimplifiedProofs_++;
+		countOriginalInferences_ += proof.getNumberOfOriginalInferences();
+		int before = proof.getNumberOfOriginalInferences();
+		final List<ProofSimplification.Pass> passes = proof.getPasses();
+		for (int i = 0; i < passes.size(); i++) {
+			long[] stats = passStats_.get(passes.get(i));
+			if (stats == null) {
+				stats = new long[3];
+				passStats_.put(passes.get(i), stats);
+			}
+			final int after = proof.getNumberOfInferences(i);
+			stats[0] += before;
+			stats[1] += after;
+			stats[2] += proof.getTimeNanos(i);
+			simplificationNanos_ += proof.getTimeNanos(i);
+			before = after;
+		}
+		countSimplifiedInferences_ += before;
+	}
+
+	@Stat
+	public int nSimplifiedProofs() {
+		return countSimplifiedProofs_;
+	}
+
+	@Stat
+	public long nOriginalInferences() {
+		return countOriginalInferences_;
+	}
+
+	@Stat
+	public long nSimplifiedInferences() {
+		return countSimplifiedInferences_;
+	}
+
+	/**
+	 * @return the ratio of the number of inferences after and before the
+	 *         simplification
+	 */
+	@Stat
+	public double simplificationRatio() {
+		return ratio(countSimplifiedInferences_, countOriginalInferences_);
+	}
+
+	@Stat
+	public double simplificationTime() {
+		return simplificationNanos_ / 1000000d;
+	}
+
+	/**
+	 * @return for every applied pass, the ratio of the number of inferences
+	 *         after and before the pass and the time of the pass in
+	 *         milliseconds
+	 */
+	@Stat
+	public String simplificationPasses() {
+		final List<String> result = new ArrayList<>(passStats_.size());
+		for (final Map.Entry<ProofSimplification.Pass, long[]> entry : passStats_
+				.entrySet()) {
+			final long[] stats = entry.getValue();
+			result.add(String.format(Locale.ROOT, "%s %.3f %.1fms",
+					entry.getKey(), ratio(stats[1], stats[0]),
+					stats[2] / 1000000d));
+		}
+		return result.toString();
+	}
+
+	private static double ratio(final long after, final long before) {
+		return before == 0 ? 1 : (double) after / before;
+	}
+
+	@ResetStats
+	public void resetStats() {
+		countSimplifiedProofs_ = 0;
+		countOriginalInferences_ = 0;
+		countSimplifiedInferences_ = 0;
+		simplificationNanos_ = 0;
+		passStats_.clear();
+	}
+
+	/**
+	 * @param mainFactory
+	 *            the computation applied to the simplified proofs
+	 * @return the factory for the computations applying all passes of
+	 *         {@link ProofSimplification} in the default order
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory) {
+		return getFactory(mainFactory, ProofSimplification.ALL_PASSES);
+	}
+
+	/**
+	 * @param mainFactory
+	 *            the computation applied to the simplified proofs
+	 * @param passes
+	 *            the simplification passes in the order of their application
+	 * @return the factory for the computations applying the given passes
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory,
+			final List<ProofSimplification.Pass> passes) {
+		Preconditions.checkNotNull(mainFactory);
+		return new Factory<C, I, A>(mainFactory,
+				new ArrayList<ProofSimplification.Pass>(passes));
+	}
+
+	/**
+	 * The simplified proof of a query represented by the computation for this
+	 * proof and the query whose justifications are computed
+	 */
+	private static class Simplified<C, A> {
+
+		final C query;
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation;
+
+		Simplified(final C query,
+				final MinimalSubsetEnumerator.Factory<C, A> computation) {
+			this.query = query;
+			this.computation = computation;
+		}
+
+	}
+
+	private static class Factory<C, I extends Inference<? extends C>, A>
+			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
+
+		private final MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory_;
+
+		private final List<ProofSimplification.Pass> passes_;
+
+		Factory(MinimalSubsetsFromProofs.Factory<C, Inference<C>, A> mainFactory,
+				List<ProofSimplification.Pass> passes) {
+			this.mainFactory_ = mainFactory;
+			this.passes_ = passes;
+		}
+
+		@Override
+		public MinimalSubsetEnumerator.Factory<C, A> create(
+				final Proof<? extends I> proof,
+				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+				final InterruptMonitor monitor) {
+			return new SimplifyingJustificationComputation<C, I, A>(
+					mainFactory_, passes_, proof, justifier, monitor);
+		}
+
+	}
+
+}
@@ -0,0 +1,412 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A collection of sets indexed by a set-trie for finding the subsets and
+ * supersets of a given set without comparing it with all sets in the
+ * collection. The elements of the sets are mapped to integers by an
+ * {@link IdProvider}; the paths of the trie are the sorted identifiers of the
+ * sets. For {@link IdJustification}s, their identifiers are used directly.
+ * Equal sets are stored only once.
+ *
+ * @author Yevgeny Kazakov
+ *
+ * @param <J>
+ *            the type of sets in the collection
+ */
+public class SubsetIndex<J extends Set<?>> extends AbstractCollection<J> {
+
+	private static final int[] NO_IDS_ = new int[0];
+
+	/**
+	 * assigns the identifiers to the elements of the sets or {@code null}
+	 * if no set was added yet; it is taken from the first added
+	 * {@link IdJustification}, if there is one
+	 */
+	private IdProvider<Object> ids_ = null;
+
+	private final Node<J> root_ = new Node<J>();
+
+	private int size_ = 0;
+
+	@SuppressWarnings("unchecked")
+	private IdProvider<Object> getIdProvider(Set<?> set) {
+		if (ids_ == null) {
+			if (set instanceof IdJustification<?, ?>) {
+				ids_ = (IdProvider<Object>) ((IdJustification<?, ?>) set)
+						.getIdProvider();
+			} else {
+				ids_ = new IdProvider<>(new IdSupplier());
+			}
+		}
+		return ids_;
+	}
+
+	/**
+	 * @param set
+	 * @param assign
+	 *            whether identifiers should be assigned to new elements
+	 * @return the sorted identifiers of the elements of the given set; if
+	 *         identifiers are not assigned, the elements without identifiers
+	 *         are omitted
+	 */
+	private int[] getIds(Set<?> set, boolean assign) {
+		IdProvider<Object> ids = getIdProvider(set);
+		if (set instanceof IdJustification<?, ?>) {
+			IdJustification<?, ?> just = (IdJustification<?, ?>) set;
+			if (just.getIdProvider() == ids) {
+				return just.getSortedIds();
+			}
+		}
+		// else
+		if (set.isEmpty()) {
+			return NO_IDS_;
+		}
+		int[] result = new int[set.size()];
+		int len = 0;
+		for (Object element : set) {
+			int id = assign ? ids.getId(element) : ids.findId(element);
+			if (id != 0) {
+				result[len++] = id;
+			}
+		}
+		Arrays.sort(result, 0, len);
+		return len == result.length ? result : Arrays.copyOf(result, len);
+	}
+
+	@Override
+	public int size() {
+		return size_;
+	}
+
+	@Override
+	public boolean add(J set) {
+		int[] key = getIds(set, true);
+		Node<J> node = root_;
+		for (int id : key) {
+			node = node.getOrCreateChild(id);
+		}
+		if (node.value_ != null) {
+			return false;
+		}
+		// else
+		node.value_ = set;
+		size_++;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Set<?>) || ids_ == null) {
+			return false;
+		}
+		// else
+		Set<?> set = (Set<?>) o;
+		Node<J> node = find(set);
+		return node != null && node.value_ != null;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Set<?>) || ids_ == null) {
+			return false;
+		}
+		// else
+		Set<?> set = (Set<?>) o;
+		int[] key = getIds(set, false);
+		if (key.length != set.size()) {
+			// some element has no identifier
+			return false;
+		}
+		if (!remove(root_, key, 0)) {
+			return false;
+		}
+		size_--;
+		return true;
+	}
+
+	/**
+	 * Removes the set with the given key from the subtree of the given node
+	 * and the nodes that become empty
+	 *
+	 * @return {@code true} if the set was found
+	 */
+	private boolean remove(Node<J> node, int[] key, int pos) {
+		if (pos == key.length) {
+			if (node.value_ == null) {
+				return false;
+			}
+			node.value_ = null;
+			return true;
+		}
+		// else
+		int index = node.indexOf(key[pos]);
+		if (index < 0) {
+			return false;
+		}
+		Node<J> child = node.children_[index];
+		if (!remove(child, key, pos + 1)) {
+			return false;
+		}
+		if (child.value_ == null && child.nChildren_ == 0) {
+			node.removeChild(index);
+		}
+		return true;
+	}
+
+	private Node<J> find(Set<?> set) {
+		int[] key = getIds(set, false);
+		if (key.length != set.size()) {
+			return null;
+		}
+		Node<J> node = root_;
+		for (int id : key) {
+			int index = node.indexOf(id);
+			if (index < 0) {
+				return null;
+			}
+			node = node.children_[index];
+		}
+		return node;
+	}
+
+	@Override
+	public void clear() {
+		root_.value_ = null;
+		root_.nChildren_ = 0;
+		root_.keys_ = Node.NO_KEYS_;
+		root_.children_ = null;
+		size_ = 0;
+	}
+
+	/**
+	 * @param set
+	 * @return {@code true} if no set in this collection is a subset of the
+	 *         given set
+	 */
+	public boolean isMinimal(Set<?> set) {
+		if (size_ == 0) {
+			return true;
+		}
+		// else
+		return !hasSubset(root_, getIds(set, false), 0);
+	}
+
+	/**
+	 * @return {@code true} if the subtree of the given node has a set whose
+	 *         remaining identifiers occur in the query from the given position
+	 */
+	private static boolean hasSubset(Node<?> node, int[] query, int from) {
+		if (node.value_ != null) {
+			return true;
+		}
+		int i = from;
+		for (int c = 0; c < node.nChildren_ && i < query.length; c++) {
+			int key = node.keys_[c];
+			while (i < query.length && query[i] < key) {
+				i++;
+			}
+			if (i == query.length) {
+				break;
+			}
+			if (query[i] == key) {
+				if (hasSubset(node.children_[c], query, i + 1)) {
+					return true;
+				}
+				i++;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param set
+	 * @return the sets in this collection that contain all elements of the
+	 *         given set
+	 */
+	public List<J> getSupersets(Set<?> set) {
+		List<J> result = new ArrayList<>();
+		if (size_ == 0) {
+			return result;
+		}
+		// else
+		int[] key = getIds(set, false);
+		if (key.length != set.size()) {
+			// some element does not occur in the sets
+			return result;
+		}
+		collectSupersets(root_, key, 0, result);
+		return result;
+	}
+
+	private static <J> void collectSupersets(Node<J> node, int[] query,
+			int from, List<J> result) {
+		if (from == query.length) {
+			collectAll(node, result);
+			return;
+		}
+		// else
+		int next = query[from];
+		for (int c = 0; c < node.nChildren_; c++) {
+			int key = node.keys_[c];
+			if (key > next) {
+				break;
+			}
+			collectSupersets(node.children_[c], query,
+					key == next ? from + 1 : from, result);
+		}
+	}
+
+	private static <J> void collectAll(Node<J> node, List<J> result) {
+		if (node.value_ != null) {
+			result.add(node.value_);
+		}
+		for (int c = 0; c < node.nChildren_; c++) {
+			collectAll(node.children_[c], result);
+		}
+	}
+
+	/**
+	 * Adds the given set unless it has a subset in this collection and
+	 * removes all proper supersets of the set, like
+	 * {@link Utils#merge(Set, java.util.Collection)}
+	 *
+	 * @param set
+	 * @return {@code true} if the collection is modified
+	 */
+	public boolean merge(J set) {
+		if (!isMinimal(set)) {
+			return false;
+		}
+		// else
+		for (J superset : getSupersets(set)) {
+			remove(superset);
+		}
+		return add(set);
+	}
+
+	/**
+	 * @return an iterator over the sets of this collection at the moment of
+	 *         the call; removals through the iterator are supported
+	 */
+	@Override
+	public Iterator<J> iterator() {
+		final List<J> all = new ArrayList<>(size_);
+		collectAll(root_, all);
+		return new Iterator<J>() {
+
+			private final Iterator<J> delegate_ = all.iterator();
+
+			private J last_ = null;
+
+			@Override
+			public boolean hasNext() {
+				return delegate_.hasNext();
+			}
+
+			@Override
+			public J next() {
+				return last_ = delegate_.next();
+			}
+
+			@Override
+			public void remove() {
+				if (last_ == null) {
+					throw new IllegalStateException();
+				}
+				SubsetIndex.this.remove(last_);
+				last_ = null;
+			}
+
+		};
+	}
+
+	private static class Node<J> {
+
+		static final int[] NO_KEYS_ = new int[0];
+
+		/**
+		 * the set whose path ends in this node or {@code null}
+		 */
+		J value_ = null;
+
+		/**
+		 * the identifiers labeling the edges to the children, in increasing
+		 * order; only the first {@link #nChildren_} are used
+		 */
+		int[] keys_ = NO_KEYS_;
+
+		Node<J>[] children_ = null;
+
+		int nChildren_ = 0;
+
+		int indexOf(int key) {
+			return Arrays.binarySearch(keys_, 0, nChildren_, key);
+		}
+
+		@SuppressWarnings("unchecked")
+		Node<J> getOrCreateChild(int key) {
+			int index = indexOf(key);
+			if (index >= 0) {
+				return children_[index];
+			}
+			// else insert
+			index = -index - 1;
+			if (nChildren_ == keys_.length) {
+				int capacity = Math.max(2, nChildren_ << 1);
+				keys_ = Arrays.copyOf(keys_, capacity);
+				children_ = children_ == null
+						? (Node<J>[]) new Node<?>[capacity]
+						: Arrays.copyOf(children_, capacity);
+			}
+			System.arraycopy(keys_, index, keys_, index + 1,
+					nChildren_ - index);
+			System.arraycopy(children_, index, children_, index + 1,
+					nChildren_ - index);
+			Node<J> child = new Node<J>();
+			keys_[index] = key;
+			children_[index] = child;
+			nChildren_++;
+			return child;
+		}
+
+		void removeChild(int index) {
+			nChildren_--;
+			System.arraycopy(keys_, index + 1, keys_, index,
+					nChildren_ - index);
+			System.arraycopy(children_, index + 1, children_, index,
+					nChildren_ - index);
+			children_[nChildren_] = null;
+		}
+
+	}
+
+}
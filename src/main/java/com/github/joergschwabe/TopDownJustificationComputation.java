@@ -23,14 +23,22 @@ package com.github.joergschwabe;
  */
 
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.liveontologies.puli.Delegator;
 import org.liveontologies.puli.Inference;
@@ -50,8 +58,19 @@ import org.liveontologies.puli.statistics.Stat;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
+ * Computes justifications by expanding jobs consisting of premises and axioms
+ * from which the goal conclusion can be derived, in the order of the
+ * priorities of their axioms. In the parallel mode, the jobs with the same
+ * priority are checked for minimality by one thread, which also reports the
+ * justifications to the listener, and then expanded by several threads; the
+ * indexes of minimal jobs and justifications are only modified between the
+ * rounds of expansion, so the expanding threads can read them to discard the
+ * non-minimal new jobs. The proof and the justifier are accessed only by the
+ * thread calling the enumerator, which collects the inferences used to
+ * expand the jobs before each round, so they do not need to be thread-safe.
  * 
  * @author Peter Skocovsky
  *
@@ -65,26 +84,47 @@ import com.google.common.collect.Iterators;
 public class TopDownJustificationComputation<C, I extends Inference<? extends C>, A>
 		extends MinimalSubsetsFromProofs<C, I, A> {
 
-	private static final TopDownJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>();
+	private static final TopDownJustificationComputation.Factory<?, ?, ?> FACTORY_ = new Factory<>(
+			1);
 
 	@SuppressWarnings("unchecked")
 	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory() {
 		return (Factory<C, I, A>) FACTORY_;
 	}
 
+	/**
+	 * @param nThreads
+	 *            the number of threads expanding jobs; if it is {@code 1},
+	 *            the jobs are expanded by the thread calling the enumerator
+	 * @return the factory for the computations that expand the jobs with the
+	 *         same priority using the given number of threads
+	 */
+	public static <C, I extends Inference<? extends C>, A> MinimalSubsetsFromProofs.Factory<C, I, A> getFactory(
+			final int nThreads) {
+		Preconditions.checkArgument(nThreads > 0);
+		return new Factory<>(nThreads);
+	}
+
 	/**
 	 * used to select the conclusion to expand
 	 */
 	private final Comparator<C> rank_;
 
+	/**
+	 * the number of threads expanding jobs
+	 */
+	private final int nThreads_;
+
 	// Statistics
 	private int producedJobsCount_ = 0, nonMinimalJobsCount_ = 0,
-			expansionCount_ = 0, expandedInferencesCount_ = 0;
+			expansionCount_ = 0, expandedInferencesCount_ = 0,
+			parallelRoundsCount_ = 0;
 
 	private TopDownJustificationComputation(final Proof<? extends I> proof,
 			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
-			final InterruptMonitor monitor) {
+			final InterruptMonitor monitor, final int nThreads) {
 		super(proof, justifier, monitor);
+		this.nThreads_ = nThreads;
 		this.rank_ = new Comparator<C>() {
 			@Override
 			public int compare(final C first, final C second) {
@@ -156,29 +196,23 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		}
 
 		private void process() {
+			if (nThreads_ > 1) {
+				processInParallel();
+				return;
+			}
+			// else
 			JobFactory<C, I, A, ?>.Job job;
 			while ((job = toDoJobs_.poll()) != null) {
 
-				if (minimalJustifications_.isMinimal(job.justification_)
-						&& minimalJobs_.isMinimal(job)) {
-					minimalJobs_.add(job);
-					if (job.premises_.isEmpty()) {
-						minimalJustifications_.add(job.justification_);
-						if (listener_ != null) {
-							listener_.newMinimalSubset(job.justification_);
-						}
-					} else {
-						expansionCount_++;
-						for (final I inf : getInferences(
-								chooseConclusion(job.premises_))) {
-							expandedInferencesCount_++;
-							final JobFactory<C, I, A, ?>.Job newJob = job
-									.expand(inf, getInferenceJustifier());
-							produce(newJob);
-						}
+				if (accept(job)) {
+					expansionCount_++;
+					for (final I inf : getInferences(
+							chooseConclusion(job.premises_))) {
+						expandedInferencesCount_++;
+						final JobFactory<C, I, A, ?>.Job newJob = job
+								.expand(inf, getInferenceJustifier());
+						produce(newJob);
 					}
-				} else {
-					nonMinimalJobsCount_++;
 				}
 
 				if (isInterrupted()) {
@@ -188,6 +222,154 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			}
 		}
 
+		/**
+		 * Processes the jobs in rounds: the jobs with the same priority are
+		 * accepted and then expanded in parallel; this does not change the
+		 * order in which the justifications are reported since the expanded
+		 * jobs cannot have smaller priorities
+		 */
+		private void processInParallel() {
+			final ExecutorService executor = Executors
+					.newFixedThreadPool(nThreads_);
+			final List<Worker> workers = new ArrayList<>(nThreads_);
+			for (int i = 0; i < nThreads_; i++) {
+				workers.add(new Worker());
+			}
+			try {
+				final List<JobFactory<C, I, A, ?>.Job> accepted = new ArrayList<>();
+				JobFactory<C, I, A, ?>.Job job;
+				while ((job = toDoJobs_.poll()) != null) {
+					for (;;) {
+						if (accept(job)) {
+							accepted.add(job);
+						}
+						if (isInterrupted()) {
+							return;
+						}
+						final JobFactory<C, I, A, ?>.Job next = toDoJobs_
+								.peek();
+						if (next == null || !next.hasSamePriority(job)) {
+							break;
+						}
+						// else
+						job = toDoJobs_.poll();
+					}
+					for (final List<JobFactory<C, I, A, ?>.Job> newJobs : expand(
+							accepted, workers, executor)) {
+						toDoJobs_.addAll(newJobs);
+					}
+					accepted.clear();
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		/**
+		 * Checks whether the given job is minimal and, if so, adds it to the
+		 * minimal jobs; reports the justification of the job if it does not
+		 * have premises
+		 * 
+		 * @param job
+		 * @return {@code true} if the job is minimal and should be expanded
+		 */
+		private boolean accept(final JobFactory<C, I, A, ?>.Job job) {
+			if (!minimalJustifications_.isMinimal(job.justification_)
+					|| !minimalJobs_.isMinimal(job)) {
+				nonMinimalJobsCount_++;
+				return false;
+			}
+			// else
+			minimalJobs_.add(job);
+			if (!job.premises_.isEmpty()) {
+				return true;
+			}
+			// else
+			minimalJustifications_.add(job.justification_);
+			if (listener_ != null) {
+				listener_.newMinimalSubset(job.justification_);
+			}
+			return false;
+		}
+
+		/**
+		 * Expands the given jobs using the given workers
+		 * 
+		 * @param jobs
+		 * @param workers
+		 * @param executor
+		 * @return the lists of new jobs obtained by expanding each of the
+		 *         given jobs, in the same order
+		 */
+		private List<List<JobFactory<C, I, A, ?>.Job>> expand(
+				final List<JobFactory<C, I, A, ?>.Job> jobs,
+				final List<Worker> workers, final ExecutorService executor) {
+			final List<List<JobFactory<C, I, A, ?>.Job>> result = new ArrayList<>(
+					jobs.size());
+			// the steps are collected before the expansion since the workers
+			// cannot access the proof and the justifier
+			final List<List<Step<C, A>>> steps = new ArrayList<>(jobs.size());
+			for (final JobFactory<C, I, A, ?>.Job job : jobs) {
+				result.add(new ArrayList<JobFactory<C, I, A, ?>.Job>());
+				expansionCount_++;
+				final Collection<? extends I> infs = getInferences(
+						chooseConclusion(job.premises_));
+				final List<Step<C, A>> jobSteps = new ArrayList<>(infs.size());
+				for (final I inf : infs) {
+					expandedInferencesCount_++;
+					jobSteps.add(new Step<C, A>(inf.getConclusion(),
+							new ArrayList<C>(inf.getPremises()),
+							getJustification(inf)));
+				}
+				steps.add(jobSteps);
+			}
+			final AtomicInteger next = new AtomicInteger();
+			final int nWorkers = Math.min(workers.size(), jobs.size());
+			if (nWorkers < 2) {
+				if (nWorkers == 1) {
+					workers.get(0).expand(jobs, steps, next, result);
+				}
+			} else {
+				parallelRoundsCount_++;
+				final List<Future<Void>> futures = new ArrayList<>(nWorkers);
+				for (int w = 0; w < nWorkers; w++) {
+					final Worker worker = workers.get(w);
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							worker.expand(jobs, steps, next, result);
+							return null;
+						}
+					}));
+				}
+				Throwable failure = null;
+				for (final Future<Void> future : futures) {
+					// the workers should be finished before the indexes are
+					// modified again
+					try {
+						Uninterruptibles.getUninterruptibly(future);
+					} catch (ExecutionException e) {
+						if (failure == null) {
+							failure = e.getCause();
+						}
+					}
+				}
+				if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				if (failure instanceof Error) {
+					throw (Error) failure;
+				}
+				if (failure != null) {
+					throw new RuntimeException(failure);
+				}
+			}
+			for (int w = 0; w < nWorkers; w++) {
+				workers.get(w).collectStats();
+			}
+			return result;
+		}
+
 		private C chooseConclusion(final Collection<C> conclusions) {
 			// select the conclusion with the smallest rank
 			C result = null;
@@ -204,6 +386,73 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 			toDoJobs_.add(job);
 		}
 
+		/**
+		 * Expands jobs in parallel with other workers; the statistics are
+		 * counted separately by each worker and added to the statistics of
+		 * the computation when the workers are finished
+		 * 
+		 * @author Yevgeny Kazakov
+		 */
+		private class Worker {
+
+			private int producedJobsCount_ = 0, nonMinimalJobsCount_ = 0;
+
+			/**
+			 * Expands the jobs with the indexes taken from the given counter
+			 * until there are no more jobs; the new jobs that are not minimal
+			 * with respect to the jobs accepted so far are discarded
+			 * 
+			 * @param jobs
+			 * @param steps
+			 *            the job with index {@code i} is expanded using the
+			 *            steps in the {@code i}-th list
+			 * @param next
+			 *            the index of the next job to be expanded
+			 * @param result
+			 *            the new jobs obtained from the job with index
+			 *            {@code i} are added to the {@code i}-th list
+			 */
+			void expand(final List<JobFactory<C, I, A, ?>.Job> jobs,
+					final List<List<Step<C, A>>> steps,
+					final AtomicInteger next,
+					final List<List<JobFactory<C, I, A, ?>.Job>> result) {
+				int i;
+				while ((i = next.getAndIncrement()) < jobs.size()) {
+					if (isInterrupted()) {
+						return;
+					}
+					final JobFactory<C, I, A, ?>.Job job = jobs.get(i);
+					final List<JobFactory<C, I, A, ?>.Job> newJobs = result
+							.get(i);
+					for (final Step<C, A> step : steps.get(i)) {
+						final JobFactory<C, I, A, ?>.Job newJob = job.expand(
+								step.conclusion, step.premises,
+								step.justification);
+						producedJobsCount_++;
+						if (minimalJustifications_
+								.isMinimal(newJob.justification_)
+								&& minimalJobs_.isMinimal(newJob)) {
+							newJobs.add(newJob);
+						} else {
+							nonMinimalJobsCount_++;
+						}
+					}
+				}
+			}
+
+			/**
+			 * Adds the statistics of this worker to the statistics of the
+			 * computation and resets them
+			 */
+			void collectStats() {
+				TopDownJustificationComputation.this.producedJobsCount_ += producedJobsCount_;
+				TopDownJustificationComputation.this.nonMinimalJobsCount_ += nonMinimalJobsCount_;
+				producedJobsCount_ = 0;
+				nonMinimalJobsCount_ = 0;
+			}
+
+		}
+
 	}
 
 	@Stat
@@ -216,6 +465,11 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		return nonMinimalJobsCount_;
 	}
 
+	@Stat
+	public int nParallelRounds() {
+		return parallelRoundsCount_;
+	}
+
 	@Stat
 	public double ratioInferencesPerExpansion() {
 		return ((double) expandedInferencesCount_) / expansionCount_;
@@ -227,6 +481,7 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 		nonMinimalJobsCount_ = 0;
 		expansionCount_ = 0;
 		expandedInferencesCount_ = 0;
+		parallelRoundsCount_ = 0;
 	}
 
 	@NestedStats
@@ -275,12 +530,27 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 			public Job expand(final I inference,
 					final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier) {
+				return expand(inference.getConclusion(),
+						inference.getPremises(),
+						justifier.getJustification(inference));
+			}
+
+			/**
+			 * @param conclusion
+			 * @param premises
+			 * @param toExpand
+			 *            the justification of the inference
+			 * @return the job obtained by replacing the conclusion of the
+			 *         inference with its premises and adding its
+			 *         justification
+			 */
+			public Job expand(final C conclusion,
+					final Collection<? extends C> premises,
+					final Set<? extends A> toExpand) {
 				final Set<C> newPremises = new HashSet<>(premises_);
-				newPremises.remove(inference.getConclusion());
-				newPremises.addAll(inference.getPremises());
+				newPremises.remove(conclusion);
+				newPremises.addAll(premises);
 				Set<A> newJustification = justification_;
-				Set<? extends A> toExpand = justifier
-						.getJustification(inference);
 				if (newJustification.containsAll(toExpand)) {
 					newJustification = justification_;
 				} else {
@@ -355,6 +625,14 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 						other.premises_.size());
 			}
 
+			public boolean hasSamePriority(
+					final JobFactory<C, I, A, ?>.Job other) {
+				@SuppressWarnings("unchecked")
+				final P otherPriority = (P) other.priority_;
+				return priorityComparator_.compare(priority_,
+						otherPriority) == 0;
+			}
+
 		}
 
 		private class Distinguisher extends Delegator<A> {
@@ -367,6 +645,29 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 
 	}
 
+	/**
+	 * An inference used to expand a job in the parallel mode, which is
+	 * collected by the thread calling the enumerator together with the
+	 * justification of the inference, so the expanding threads do not access
+	 * the proof and the justifier
+	 */
+	private static class Step<C, A> {
+
+		final C conclusion;
+
+		final List<? extends C> premises;
+
+		final Set<? extends A> justification;
+
+		Step(final C conclusion, final List<? extends C> premises,
+				final Set<? extends A> justification) {
+			this.conclusion = conclusion;
+			this.premises = premises;
+			this.justification = justification;
+		}
+
+	}
+
 	/**
 	 * The factory for creating a {@link BottomUpJustificationComputation}
 	 * 
@@ -382,13 +683,19 @@ public class TopDownJustificationComputation<C, I extends Inference<? extends C>
 	private static class Factory<C, I extends Inference<? extends C>, A>
 			implements MinimalSubsetsFromProofs.Factory<C, I, A> {
 
+		private final int nThreads_;
+
+		Factory(final int nThreads) {
+			this.nThreads_ = nThreads;
+		}
+
 		@Override
 		public MinimalSubsetEnumerator.Factory<C, A> create(
 				final Proof<? extends I> proof,
 				final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
 				final InterruptMonitor monitor) {
 			return new TopDownJustificationComputation<>(proof, justifier,
-					monitor);
+					monitor, nThreads_);
 		}
 
 	}
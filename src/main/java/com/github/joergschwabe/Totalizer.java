@@ -0,0 +1,143 @@
+package com.github.joergschwabe;
+
+/**
+ * An incremental totalizer encoding of cardinality constraints over given
+ * literals: the literals are counted by a binary tree of unary counters whose
+ * outputs are fresh variables; output {@code j} of a node is true if at least
+ * {@code j} inputs under the node are true. Only the outputs that are needed
+ * for the bounds requested so far are encoded, and the encoding is extended
+ * when larger bounds are requested. The clauses define the outputs without
+ * constraining the inputs, so they can be added to a {@link SatAdapter}
+ * permanently; the bounds are imposed by assumptions.
+ *
+ * @author Yevgeny Kazakov
+ *
+ */
+class Totalizer {
+
+	private final SatAdapter solver_;
+
+	private final IdSupplier idSup_;
+
+	private final Node root_;
+
+	/**
+	 * reused for passing clauses to {@link #solver_}
+	 */
+	private final int[] clause_ = new int[3];
+
+	/**
+	 * Creates a totalizer counting the given literals
+	 *
+	 * @param inputs
+	 *            the literals to count
+	 * @param idSup
+	 *            used to create fresh variables for the outputs
+	 * @param solver
+	 *            the solver to which the clauses of the encoding are added
+	 */
+	Totalizer(int[] inputs, IdSupplier idSup, SatAdapter solver) {
+		this.solver_ = solver;
+		this.idSup_ = idSup;
+		this.root_ = inputs.length == 0 ? null
+				: build(inputs, 0, inputs.length);
+	}
+
+	private static Node build(int[] inputs, int from, int to) {
+		if (to - from == 1) {
+			return new Node(inputs[from]);
+		}
+		// else
+		int mid = (from + to) >>> 1;
+		return new Node(build(inputs, from, mid), build(inputs, mid, to));
+	}
+
+	/**
+	 * @param k
+	 * @return a literal which, when true, implies that at most {@code k}
+	 *         inputs are true, or {@code 0} if there are at most {@code k}
+	 *         inputs
+	 */
+	int getAtMostLiteral(int k) {
+		if (root_ == null || k >= root_.size_) {
+			return 0;
+		}
+		// else
+		extend(root_, k + 1);
+		return -root_.outputs_[k];
+	}
+
+	/**
+	 * Encodes the outputs of the given node up to the given number
+	 *
+	 * @param node
+	 * @param count
+	 */
+	private void extend(Node node, int count) {
+		count = Math.min(count, node.size_);
+		if (count <= node.built_) {
+			return;
+		}
+		Node left = node.left_, right = node.right_;
+		extend(left, count);
+		extend(right, count);
+		for (int j = node.built_ + 1; j <= count; j++) {
+			int output = idSup_.getNextId();
+			node.outputs_[j - 1] = output;
+			// at least a inputs on the left and j - a on the right are true
+			for (int a = Math.max(0, j - right.size_); a <= Math
+					.min(j, left.size_); a++) {
+				int b = j - a;
+				int len = 0;
+				if (a > 0) {
+					clause_[len++] = -left.outputs_[a - 1];
+				}
+				if (b > 0) {
+					clause_[len++] = -right.outputs_[b - 1];
+				}
+				clause_[len++] = output;
+				solver_.addClause(clause_, 0, len);
+			}
+		}
+		node.built_ = count;
+	}
+
+	private static class Node {
+
+		final Node left_, right_;
+
+		/**
+		 * the number of inputs under this node
+		 */
+		final int size_;
+
+		/**
+		 * {@code outputs_[j - 1]} is true if at least {@code j} inputs under
+		 * this node are true; for leaves this is the input
+		 */
+		final int[] outputs_;
+
+		/**
+		 * the number of encoded outputs
+		 */
+		int built_;
+
+		Node(int input) {
+			this.left_ = null;
+			this.right_ = null;
+			this.size_ = 1;
+			this.outputs_ = new int[] { input };
+			this.built_ = 1;
+		}
+
+		Node(Node left, Node right) {
+			this.left_ = left;
+			this.right_ = right;
+			this.size_ = left.size_ + right.size_;
+			this.outputs_ = new int[size_];
+			this.built_ = 0;
+		}
+
+	}
+
+}
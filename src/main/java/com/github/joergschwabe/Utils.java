@@ -31,6 +31,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -193,6 +194,10 @@ public final class Utils {
 	 */
 	public static <J extends Set<?>> boolean isMinimal(J just,
 			Collection<? extends J> justs) {
+		if (justs instanceof SubsetIndex<?>) {
+			return ((SubsetIndex<?>) justs).isMinimal(just);
+		}
+		// else
 		for (J other : justs) {
 			if (just.containsAll(other)) {
 				return false;
@@ -215,6 +220,10 @@ public final class Utils {
 	 */
 	public static <J extends Set<?>> boolean merge(J just,
 			Collection<J> justs) {
+		if (justs instanceof SubsetIndex<?>) {
+			return ((SubsetIndex<J>) justs).merge(just);
+		}
+		// else
 		int justSize = just.size();
 		final Iterator<J> oldJustIter = justs.iterator();
 		boolean isASubsetOfOld = false;
@@ -237,13 +246,15 @@ public final class Utils {
 	}
 
 	/**
-	 * FIXME: The order of arguments matter !!! The conclusion is copied from
-	 * the justifications in the first argument, but not from the second!
+	 * The unions get the conclusions of the justifications in the first
+	 * collection, so the order of arguments matters if the conclusions are
+	 * different.
 	 * 
 	 * @param first
 	 * @param second
 	 * @return the list of all pairwise unions of the justifications in the
 	 *         first and the second collections, minimized under set inclusion
+	 * @see #join(List, List, SubsetIndex)
 	 */
 	public static <C, T> List<Justification<C, T>> join(
 			Collection<? extends Justification<C, T>> first,
@@ -251,20 +262,16 @@ public final class Utils {
 		if (first.isEmpty() || second.isEmpty()) {
 			return Collections.emptyList();
 		}
-		List<Justification<C, T>> result = new ArrayList<>(
-				first.size() * second.size());
-		for (Justification<C, T> firstSet : first) {
-			for (Justification<C, T> secondSet : second) {
-				Justification<C, T> union = firstSet.addElements(secondSet);
-				merge(union, result);
-			}
-		}
-		return result;
+		SubsetIndex<Justification<C, T>> result = new SubsetIndex<>();
+		join(sortBySize(first), sortBySize(second), result);
+		return new ArrayList<>(result);
 	}
 
 	/**
-	 * FIXME: The order of arguments matter !!! The conclusion is copied from
-	 * the justifications in the first argument, but not from the second!
+	 * Like {@link #join(Collection, Collection)}, but first merges into the
+	 * result the justifications from the second collection that are
+	 * supersets of justifications in the first collection, so they are not
+	 * joined.
 	 * 
 	 * @param first
 	 * @param second
@@ -278,36 +285,106 @@ public final class Utils {
 			return Collections.emptyList();
 		}
 
-		List<Justification<C, T>> result = new ArrayList<Justification<C, T>>(
-				first.size() * second.size());
+		SubsetIndex<Justification<C, T>> result = new SubsetIndex<>();
 		/*
 		 * If some set from one argument is a superset of something in the other
 		 * argument, it can be merged into the result without joining it with
 		 * anything from the other argument.
 		 */
 		final C conclusion = first.iterator().next().getConclusion();
+		final SubsetIndex<Justification<C, T>> firstIndex = new SubsetIndex<>();
+		firstIndex.addAll(first);
 		final List<Justification<C, T>> minimalSecond = new ArrayList<Justification<C, T>>(
 				second.size());
 		for (final Justification<C, T> secondSet : second) {
-			if (isMinimal(secondSet, first)) {
+			if (firstIndex.isMinimal(secondSet)) {
 				minimalSecond.add(secondSet);
 			} else {
-				merge(secondSet.copyTo(conclusion), result);
+				result.merge(secondSet.copyTo(conclusion));
 			}
 		}
+		if (!minimalSecond.isEmpty()) {
+			join(sortBySize(first), sortBySize(minimalSecond), result);
+		}
+
+		return new ArrayList<>(result);
+	}
+
+	private static <J extends Set<?>> List<J> sortBySize(
+			Collection<? extends J> justs) {
+		List<J> result = new ArrayList<>(justs);
+		Collections.sort(result, new Comparator<J>() {
+			@Override
+			public int compare(J o1, J o2) {
+				return Integer.compare(o1.size(), o2.size());
+			}
+		});
+		return result;
+	}
 
+	/**
+	 * Merges into the given result the pairwise unions of the justifications
+	 * in the given lists, which are sorted by size, so smaller unions tend
+	 * to be merged first. A union is not computed if it would contain a
+	 * justification in the result: this is the case if one of the joined
+	 * justifications contains such a justification. If one justification
+	 * contains the other, their union is the larger justification, so it is
+	 * merged without computing the union; moreover, if the second
+	 * justification is contained in the first one, the remaining unions with
+	 * the first justification are supersets of it and are skipped.
+	 * 
+	 * @param first
+	 * @param second
+	 * @param result
+	 */
+	static <C, T> void join(List<? extends Justification<C, T>> first,
+			List<? extends Justification<C, T>> second,
+			SubsetIndex<Justification<C, T>> result) {
+		/*
+		 * the number of justifications merged into the result; a
+		 * justification needs to be checked against the result only if new
+		 * justifications were merged since the last check
+		 */
+		int merged = 0;
+		/*
+		 * secondChecked[j] - 1 is the value of merged when the justification
+		 * second.get(j) was checked last or -1 if it is a superset of a
+		 * justification in the result
+		 */
+		int[] secondChecked = new int[second.size()];
 		for (Justification<C, T> firstSet : first) {
-			if (isMinimal(firstSet, minimalSecond)) {
-				for (Justification<C, T> secondSet : minimalSecond) {
-					Justification<C, T> union = firstSet.addElements(secondSet);
-					merge(union, result);
+			if (!result.isMinimal(firstSet)) {
+				// all unions are supersets
+				continue;
+			}
+			for (int j = 0; j < secondChecked.length; j++) {
+				if (secondChecked[j] < 0) {
+					continue;
+				}
+				Justification<C, T> secondSet = second.get(j);
+				if (secondChecked[j] != merged + 1) {
+					if (!result.isMinimal(secondSet)) {
+						secondChecked[j] = -1;
+						continue;
+					}
+					secondChecked[j] = merged + 1;
+				}
+				if (firstSet.containsAll(secondSet)) {
+					if (result.merge(firstSet)) {
+						merged++;
+					}
+					// other unions contain firstSet
+					break;
+				}
+				// else
+				Justification<C, T> union = secondSet.containsAll(firstSet)
+						? secondSet.copyTo(firstSet.getConclusion())
+						: firstSet.addElements(secondSet);
+				if (result.merge(union)) {
+					merged++;
 				}
-			} else {
-				merge(firstSet, result);
 			}
 		}
-
-		return result;
 	}
 
 	public static class Counter implements Function<Object, Integer> {
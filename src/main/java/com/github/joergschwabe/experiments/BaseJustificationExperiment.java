@@ -22,6 +22,7 @@ package com.github.joergschwabe.experiments;
  * #L%
  */
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
@@ -208,6 +209,8 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 	public void run(final InterruptMonitor monitor) throws ExperimentException {
 		runStartTimeNanos_ = System.nanoTime();
 
+		// release the resources of the computation for the previous query
+		releaseComputation();
 		computation_ = newComputation(proof_.getProof(), proof_.getJustifier(),
 				monitor);
 		computation_.newEnumerator(proof_.getQuery())
@@ -269,8 +272,15 @@ public abstract class BaseJustificationExperiment<O extends BaseJustificationExp
 
 	}
 
+	private void releaseComputation() {
+		if (computation_ instanceof Closeable) {
+			Utils.closeQuietly((Closeable) computation_);
+		}
+	}
+
 	@Override
 	public void dispose() {
+		releaseComputation();
 		Utils.closeQuietly(indexWriter_);
 		if (proofProvider_ != null) {
 			proofProvider_.dispose();
@@ -22,8 +22,9 @@ package com.github.joergschwabe.experiments;
  * #L%
  */
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Set;
 
 import org.liveontologies.puli.Inference;
@@ -32,9 +33,13 @@ import org.liveontologies.puli.Proof;
 import org.liveontologies.puli.pinpointing.InterruptMonitor;
 import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator.Factory;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.statistics.NestedStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.joergschwabe.JustificationCache;
+import com.github.joergschwabe.SatAdapter;
+
 import net.sourceforge.argparse4j.annotation.Arg;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 
@@ -45,14 +50,34 @@ public class SatFactoryJustificationExperiment extends
 			.getLogger(SatFactoryJustificationExperiment.class);
 
 	public static final String OPT_FACTORY_CLASS = "class";
+	public static final String OPT_SAT_FACTORY = "sat";
+	public static final String OPT_CACHE = "cache";
+	public static final String OPT_CACHE_CAPACITY = "cache-capacity";
+
+	/**
+	 * the default maximal total number of axioms in the cached justifications
+	 */
+	public static final long DEFAULT_CACHE_CAPACITY = 10000000;
 
 	public static class Options extends SatJustificationExperiment.Options {
 		@Arg(dest = OPT_FACTORY_CLASS)
 		public String computationFactoryClassName;
+		@Arg(dest = OPT_SAT_FACTORY)
+		public String satFactoryName;
+		@Arg(dest = OPT_CACHE)
+		public File cacheFile;
+		@Arg(dest = OPT_CACHE_CAPACITY)
+		public long cacheCapacity;
 	}
 
 	private MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, Integer> factory_;
 
+	/**
+	 * the cache passed to the computation factory or {@code null} if it is
+	 * not used
+	 */
+	private JustificationCache cache_ = null;
+
 	@Override
 	protected Options newOptions() {
 		return new Options();
@@ -65,6 +90,16 @@ public class SatFactoryJustificationExperiment extends
 				"Experiment using provided Justification Computation and proofs from SAT encoding.");
 		parser.addArgument(OPT_FACTORY_CLASS)
 				.help("class of the computation factory");
+		parser.addArgument("--" + OPT_SAT_FACTORY).help(
+				"SAT solver passed to getFactory(SatAdapter.Factory) of the computation class, "
+						+ "e.g., com.github.joergschwabe.SatAdapterHorn$FACTORY.DEFAULT");
+		parser.addArgument("--" + OPT_CACHE).type(File.class).help(
+				"file of the justification cache passed with one thread to getFactory(int, JustificationCache) "
+						+ "of the computation class; the cache is loaded from the file if it exists "
+						+ "and saved to it after the experiments");
+		parser.addArgument("--" + OPT_CACHE_CAPACITY).dest(OPT_CACHE_CAPACITY)
+				.type(Long.class).setDefault(DEFAULT_CACHE_CAPACITY)
+				.help("maximal total number of axioms in the cached justifications");
 	}
 
 	@Override
@@ -72,14 +107,34 @@ public class SatFactoryJustificationExperiment extends
 		super.init(options);
 		LOGGER_.info("computationFactoryClassName: {}",
 				options.computationFactoryClassName);
+		LOGGER_.info("satFactory: {}", options.satFactoryName);
+		LOGGER_.info("cacheFile: {}", options.cacheFile);
+		if (options.satFactoryName != null && options.cacheFile != null) {
+			throw new ExperimentException("--" + OPT_SAT_FACTORY + " and --"
+					+ OPT_CACHE + " cannot be used together");
+		}
 		try {
 			final Class<?> computationClass = Class
 					.forName(options.computationFactoryClassName);
-			final Method getFactory = computationClass.getMethod("getFactory");
+			final Object factory;
+			if (options.cacheFile != null) {
+				LOGGER_.info("cacheCapacity: {}", options.cacheCapacity);
+				cache_ = new JustificationCache(options.cacheFile,
+						options.cacheCapacity);
+				factory = computationClass
+						.getMethod("getFactory", int.class,
+								JustificationCache.class)
+						.invoke(null, 1, cache_);
+			} else if (options.satFactoryName == null) {
+				factory = computationClass.getMethod("getFactory").invoke(null);
+			} else {
+				factory = computationClass
+						.getMethod("getFactory", SatAdapter.Factory.class)
+						.invoke(null, getSatFactory(options.satFactoryName));
+			}
 			@SuppressWarnings("unchecked")
-			final MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, Integer> factory = (MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, Integer>) getFactory
-					.invoke(null);
-			factory_ = factory;
+			final MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, Integer> result = (MinimalSubsetsFromProofs.Factory<Integer, Inference<Integer>, Integer>) factory;
+			factory_ = result;
 		} catch (final ClassNotFoundException e) {
 			throw new ExperimentException(e);
 		} catch (final NoSuchMethodException e) {
@@ -92,6 +147,61 @@ public class SatFactoryJustificationExperiment extends
 			throw new ExperimentException(e);
 		} catch (final InvocationTargetException e) {
 			throw new ExperimentException(e);
+		} catch (final IOException e) {
+			throw new ExperimentException(e);
+		}
+	}
+
+	/**
+	 * @param name
+	 *            the binary name of an enum implementing
+	 *            {@link SatAdapter.Factory} followed by a dot and the name of
+	 *            its constant
+	 * @return the corresponding constant
+	 * @throws ExperimentException
+	 *             if there is no such constant
+	 */
+	private static SatAdapter.Factory getSatFactory(final String name)
+			throws ExperimentException {
+		final int pos = name.lastIndexOf('.');
+		if (pos < 0) {
+			throw new ExperimentException("Unknown SAT factory: " + name);
+		}
+		final Class<?> factoryClass;
+		try {
+			factoryClass = Class.forName(name.substring(0, pos));
+		} catch (final ClassNotFoundException e) {
+			throw new ExperimentException(e);
+		}
+		if (factoryClass.isEnum()
+				&& SatAdapter.Factory.class.isAssignableFrom(factoryClass)) {
+			for (final Object constant : factoryClass.getEnumConstants()) {
+				if (((Enum<?>) constant).name()
+						.equals(name.substring(pos + 1))) {
+					return (SatAdapter.Factory) constant;
+				}
+			}
+		}
+		// else
+		throw new ExperimentException("Unknown SAT factory: " + name);
+	}
+
+	@NestedStats(name = "cache")
+	public JustificationCache getCache() {
+		return cache_;
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		if (cache_ == null) {
+			return;
+		}
+		// else
+		try {
+			cache_.save();
+		} catch (final IOException e) {
+			LOGGER_.error(e.getMessage(), e);
 		}
 	}
 
@@ -24,10 +24,8 @@ package com.github.joergschwabe.proofs;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.Proof;
@@ -92,17 +90,12 @@ public class SatProofProvider
 		LOGGER_.info("... took {}s",
 				(System.currentTimeMillis() - start) / 1000.0);
 
-		InputStream cnf = null;
-		InputStream assumptions = null;
 		try {
 
-			cnf = new FileInputStream(cnfFile);
-			assumptions = new FileInputStream(assumptionsFile);
-
 			LOGGER_.info("Loading proof ...");
 			start = System.currentTimeMillis();
 			final Proof<Inference<Integer>> proof = DirectSatEncodingProofAdapter
-					.load(assumptions, cnf);
+					.load(assumptionsFile, cnfFile);
 			LOGGER_.info("... took {}s",
 					(System.currentTimeMillis() - start) / 1000.0);
 
@@ -111,9 +104,6 @@ public class SatProofProvider
 
 		} catch (final IOException e) {
 			throw new ExperimentException(e);
-		} finally {
-			Utils.closeQuietly(cnf);
-			Utils.closeQuietly(assumptions);
 		}
 
 	}
@@ -22,15 +22,21 @@ package com.github.joergschwabe.proofs.adapters;
  * #L%
  */
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.liveontologies.puli.Inference;
@@ -38,169 +44,266 @@ import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Inferences;
 import org.liveontologies.puli.Proof;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimap;
-
+/**
+ * A proof given by a Horn CNF in the DIMACS format: every clause is an
+ * inference whose conclusion is the positive literal and whose premises are
+ * the negative literals, except for those whose variables are listed in the
+ * assumptions, which form the justification of the inference. Every clause
+ * should be written on one line and terminated by {@code 0}.
+ * <p>
+ * The clauses are parsed byte by byte into arrays of integers: the premises
+ * and the axioms of all clauses are stored one after another in
+ * {@link #premises_} and {@link #axioms_}, and the clauses are indexed by
+ * their conclusions in {@link #conclusionOffsets_}. The inference objects are
+ * created only when they are requested; equal inference objects are returned
+ * for the same clause.
+ */
 public class DirectSatEncodingProofAdapter
 		implements Proof<Inference<Integer>> {
 
+	/**
+	 * the size of the regions of the files mapped to memory
+	 */
+	private static final int MAPPED_REGION_SIZE_ = 1 << 30;
+
+	private static final int STREAM_BUFFER_SIZE_ = 1 << 16;
+
+	/**
+	 * Loads the proof from the given streams
+	 * 
+	 * @param assumptions
+	 *            the variables of the axioms
+	 * @param cnf
+	 *            the clauses of the proof
+	 * @return the loaded proof
+	 * @throws IOException
+	 *             if the streams cannot be read or the CNF is not in the
+	 *             expected format
+	 * @throws NumberFormatException
+	 *             if the streams contain a malformed number
+	 */
 	public static DirectSatEncodingProofAdapter load(
 			final InputStream assumptions, final InputStream cnf)
 			throws IOException, NumberFormatException {
+		return load(new StreamInput(assumptions), new StreamInput(cnf));
+	}
 
-		final Set<Integer> axioms = new HashSet<Integer>();
-
-		final BufferedReader axiomReader = new BufferedReader(
-				new InputStreamReader(assumptions));
-		readAxioms(axiomReader, axioms);
-
-		final ListMultimap<Object, Inference<Integer>> inferences = ArrayListMultimap
-				.create();
-
-		final BufferedReader cnfReader = new BufferedReader(
-				new InputStreamReader(cnf));
-		String line;
-		while ((line = cnfReader.readLine()) != null) {
-
-			if (line.isEmpty() || line.startsWith("c")
-					|| line.startsWith("p")) {
-				continue;
-			}
-
-			final String[] literals = line.split("\\s");
-			final List<Integer> premises = new ArrayList<Integer>(
-					literals.length - 2);
-			final List<Integer> justification = new ArrayList<Integer>(
-					literals.length - 2);
-			Integer conclusion = null;
-			boolean terminated = false;
-			for (int i = 0; i < literals.length; i++) {
-
-				final int l = Integer.valueOf(literals[i]);
-				if (l < 0) {
-					final int premise = -l;
-					if (axioms.contains(premise)) {
-						justification.add(premise);
-					} else {
-						premises.add(premise);
-					}
-				} else if (l > 0) {
-					if (conclusion != null) {
-						throw new IOException(
-								"Non-Horn clause! \"" + line + "\"");
-					} else {
-						conclusion = l;
-					}
-				} else {
-					// l == 0
-					if (i != literals.length - 1) {
-						throw new IOException(
-								"Clause terminated before the end of line! \""
-										+ line + "\"");
-					} else {
-						terminated = true;
-					}
-				}
-
-			}
-			if (conclusion == null) {
-				throw new IOException(
-						"Clause has no positive literal! \"" + line + "\"");
-			}
-			if (!terminated) {
-				throw new IOException(
-						"Clause not terminated at the end of line! \"" + line
-								+ "\"");
-			}
-
-			final Inference<Integer> inference = new DirectSatEncodingInference(
-					conclusion, premises, ImmutableSet.copyOf(justification));
-			inferences.put(conclusion, inference);
+	/**
+	 * Loads the proof from the given files, which are mapped to memory, so
+	 * they are not copied to the heap
+	 * 
+	 * @param assumptions
+	 *            the file with the variables of the axioms
+	 * @param cnf
+	 *            the file with the clauses of the proof
+	 * @return the loaded proof
+	 * @throws IOException
+	 *             if the files cannot be read or the CNF is not in the
+	 *             expected format
+	 * @throws NumberFormatException
+	 *             if the files contain a malformed number
+	 */
+	public static DirectSatEncodingProofAdapter load(final File assumptions,
+			final File cnf) throws IOException, NumberFormatException {
+		try (RandomAccessFile assumptionsFile = new RandomAccessFile(
+				assumptions, "r");
+				RandomAccessFile cnfFile = new RandomAccessFile(cnf, "r")) {
+			return load(new MappedInput(assumptionsFile.getChannel()),
+					new MappedInput(cnfFile.getChannel()));
 		}
+	}
 
-		return new DirectSatEncodingProofAdapter(inferences);
+	private static DirectSatEncodingProofAdapter load(
+			final ByteInput assumptions, final ByteInput cnf)
+			throws IOException, NumberFormatException {
+		final BitSet axioms = readAxioms(assumptions);
+		final CnfParser parser = new CnfParser(axioms);
+		parser.parse(cnf);
+		return parser.build();
 	}
 
-	private static void readAxioms(final BufferedReader axiomReader,
-			final Set<Integer> axioms) throws IOException {
+	private static BitSet readAxioms(final ByteInput input)
+			throws IOException, NumberFormatException {
 
-		final StringBuilder number = new StringBuilder();
+		final BitSet axioms = new BitSet();
 
 		boolean readingNumber = false;
+		int number = 0;
 
 		int ch;
-		while ((ch = axiomReader.read()) >= 0) {
-
-			final int digit = Character.digit(ch, 10);
-			if (digit < 0) {
+		for (;;) {
+			ch = input.read();
+			final int digit = ch - '0';
+			if (digit < 0 || digit > 9) {
 				if (readingNumber) {
 					// The number ended.
-					final Integer n = Integer.valueOf(number.toString());
-					if (n > 0) {
-						axioms.add(n);
+					if (number > 0) {
+						axioms.set(number);
 					}
 					readingNumber = false;
-				} else {
-					// Still not reading any number.
 				}
-			} else {
-				if (readingNumber) {
-					// Have the next digit of a number.
-					number.append(digit);
-				} else {
-					// The number started.
-					number.setLength(0);
-					number.append(digit);
-					readingNumber = true;
+				if (ch < 0) {
+					break;
 				}
+			} else if (readingNumber) {
+				// Have the next digit of a number.
+				number = appendDigit(number, digit);
+			} else {
+				// The number started.
+				number = digit;
+				readingNumber = true;
 			}
-
 		}
 
+		return axioms;
 	}
 
-	private final Multimap<Object, Inference<Integer>> inferences_;
+	private static int appendDigit(final int number, final int digit)
+			throws NumberFormatException {
+		if (number > (Integer.MAX_VALUE - digit) / 10) {
+			throw new NumberFormatException("Number too large: " + number
+					+ digit + "...");
+		}
+		return number * 10 + digit;
+	}
 
-	private DirectSatEncodingProofAdapter(
-			final Multimap<Object, Inference<Integer>> inferences) {
-		this.inferences_ = inferences;
+	/**
+	 * the positions in {@link #clauses_} of the clauses with the given
+	 * conclusion: for the conclusion {@code c}, they are between
+	 * {@code conclusionOffsets_[c]} inclusive and
+	 * {@code conclusionOffsets_[c + 1]} exclusive
+	 */
+	private final int[] conclusionOffsets_;
+
+	/**
+	 * the clauses grouped by conclusions in the order in which they occur in
+	 * the CNF
+	 */
+	private final int[] clauses_;
+
+	/**
+	 * the conclusion of every clause
+	 */
+	private final int[] clauseConclusions_;
+
+	/**
+	 * the premises of the clause {@code k} are between
+	 * {@code premiseOffsets_[k]} inclusive and {@code premiseOffsets_[k + 1]}
+	 * exclusive in {@link #premises_}
+	 */
+	private final int[] premiseOffsets_;
+
+	private final int[] premises_;
+
+	/**
+	 * the axioms of the clause {@code k} are between
+	 * {@code axiomOffsets_[k]} inclusive and {@code axiomOffsets_[k + 1]}
+	 * exclusive in {@link #axioms_}, in increasing order
+	 */
+	private final int[] axiomOffsets_;
+
+	private final int[] axioms_;
+
+	private DirectSatEncodingProofAdapter(final int[] conclusionOffsets,
+			final int[] clauses, final int[] clauseConclusions,
+			final int[] premiseOffsets, final int[] premises,
+			final int[] axiomOffsets, final int[] axioms) {
+		this.conclusionOffsets_ = conclusionOffsets;
+		this.clauses_ = clauses;
+		this.clauseConclusions_ = clauseConclusions;
+		this.premiseOffsets_ = premiseOffsets;
+		this.premises_ = premises;
+		this.axiomOffsets_ = axiomOffsets;
+		this.axioms_ = axioms;
 	}
 
 	@Override
 	public Collection<Inference<Integer>> getInferences(
 			final Object conclusion) {
-		return inferences_.get(conclusion);
+		if (!(conclusion instanceof Integer)) {
+			return Collections.emptyList();
+		}
+		// else
+		final int c = (Integer) conclusion;
+		if (c <= 0 || c >= conclusionOffsets_.length - 1) {
+			return Collections.emptyList();
+		}
+		// else
+		final int from = conclusionOffsets_[c];
+		final int size = conclusionOffsets_[c + 1] - from;
+		if (size == 0) {
+			return Collections.emptyList();
+		}
+		// else
+		return new AbstractList<Inference<Integer>>() {
+
+			@Override
+			public Inference<Integer> get(final int index) {
+				if (index < 0 || index >= size) {
+					throw new IndexOutOfBoundsException();
+				}
+				// else
+				return new DirectSatEncodingInference(clauses_[from + index]);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+		};
 	}
 
-	private static class DirectSatEncodingInference
-			implements Inference<Integer> {
+	/**
+	 * @return the number of clauses of this proof
+	 */
+	public int getNumberOfInferences() {
+		return clauses_.length;
+	}
+
+	/**
+	 * An inference for a clause, which reads the premises and the
+	 * justification from the arrays of the proof
+	 */
+	private class DirectSatEncodingInference implements Inference<Integer> {
 
-		private final Integer conclusion_;
-		private final List<? extends Integer> premises_;
-		private final Set<Integer> justification_;
+		private final int clause_;
 
-		DirectSatEncodingInference(final Integer conclusion,
-				final List<? extends Integer> premises,
-				final Set<Integer> justification) {
-			this.conclusion_ = conclusion;
-			this.premises_ = premises;
-			this.justification_ = justification;
+		DirectSatEncodingInference(final int clause) {
+			this.clause_ = clause;
 		}
 
 		@Override
 		public Integer getConclusion() {
-			return conclusion_;
+			return clauseConclusions_[clause_];
 		}
 
 		@Override
 		public List<? extends Integer> getPremises() {
-			return premises_;
+			final int from = premiseOffsets_[clause_];
+			final int size = premiseOffsets_[clause_ + 1] - from;
+			return new AbstractList<Integer>() {
+
+				@Override
+				public Integer get(final int index) {
+					if (index < 0 || index >= size) {
+						throw new IndexOutOfBoundsException();
+					}
+					// else
+					return premises_[from + index];
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+
+			};
 		}
 
 		public Set<Integer> getJustification() {
-			return justification_;
+			return new AxiomSet(axiomOffsets_[clause_],
+					axiomOffsets_[clause_ + 1]);
 		}
 
 		@Override
@@ -208,15 +311,13 @@ public class DirectSatEncodingProofAdapter
 			return Inferences.toString(this);
 		}
 
+		private DirectSatEncodingProofAdapter getProof() {
+			return DirectSatEncodingProofAdapter.this;
+		}
+
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result
-					+ (conclusion_ == null ? 0 : conclusion_.hashCode());
-			result = prime * result
-					+ (premises_ == null ? 0 : premises_.hashCode());
-			return result;
+			return clause_;
 		}
 
 		@Override
@@ -233,10 +334,7 @@ public class DirectSatEncodingProofAdapter
 			}
 			final DirectSatEncodingInference other = (DirectSatEncodingInference) obj;
 
-			return (conclusion_ == null ? other.conclusion_ == null
-					: conclusion_.equals(other.conclusion_))
-					&& (premises_ == null ? other.premises_ == null
-							: premises_.equals(other.premises_));
+			return clause_ == other.clause_ && getProof() == other.getProof();
 		}
 
 		@Override
@@ -246,6 +344,75 @@ public class DirectSatEncodingProofAdapter
 
 	}
 
+	/**
+	 * The axioms of a clause, which are stored in {@link #axioms_} in
+	 * increasing order possibly with repetitions
+	 */
+	private class AxiomSet extends AbstractSet<Integer> {
+
+		private final int from_, to_;
+
+		private int size_ = -1;
+
+		AxiomSet(final int from, final int to) {
+			this.from_ = from;
+			this.to_ = to;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			return o instanceof Integer && Arrays.binarySearch(axioms_, from_,
+					to_, (Integer) o) >= 0;
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return new Iterator<Integer>() {
+
+				private int pos_ = from_;
+
+				@Override
+				public boolean hasNext() {
+					return pos_ < to_;
+				}
+
+				@Override
+				public Integer next() {
+					if (pos_ >= to_) {
+						throw new NoSuchElementException();
+					}
+					final int axiom = axioms_[pos_++];
+					while (pos_ < to_ && axioms_[pos_] == axiom) {
+						// skip repetitions
+						pos_++;
+					}
+					return axiom;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			if (size_ < 0) {
+				int size = 0;
+				for (int pos = from_; pos < to_; pos++) {
+					if (pos == from_ || axioms_[pos] != axioms_[pos - 1]) {
+						size++;
+					}
+				}
+				size_ = size;
+			}
+			return size_;
+		}
+
+	}
+
 	public static final InferenceJustifier<Inference<? extends Integer>, ? extends Set<Integer>> JUSTIFIER = new InferenceJustifier<Inference<? extends Integer>, Set<Integer>>() {
 
 		@Override
@@ -263,4 +430,265 @@ public class DirectSatEncodingProofAdapter
 
 	};
 
+	/**
+	 * Reads bytes one by one
+	 */
+	private static abstract class ByteInput {
+
+		/**
+		 * @return the next byte or {@code -1} if there are no more bytes
+		 * @throws IOException
+		 */
+		abstract int read() throws IOException;
+
+	}
+
+	private static class StreamInput extends ByteInput {
+
+		private final InputStream stream_;
+
+		private final byte[] buffer_ = new byte[STREAM_BUFFER_SIZE_];
+
+		private int pos_ = 0, limit_ = 0;
+
+		StreamInput(final InputStream stream) {
+			this.stream_ = stream;
+		}
+
+		@Override
+		int read() throws IOException {
+			if (pos_ == limit_) {
+				limit_ = stream_.read(buffer_);
+				pos_ = 0;
+				if (limit_ <= 0) {
+					limit_ = 0;
+					return -1;
+				}
+			}
+			return buffer_[pos_++] & 0xff;
+		}
+
+	}
+
+	/**
+	 * Reads a file mapped to memory region by region
+	 */
+	private static class MappedInput extends ByteInput {
+
+		private final FileChannel channel_;
+
+		private final long size_;
+
+		/**
+		 * the position in the file of the next region to map
+		 */
+		private long next_ = 0;
+
+		private MappedByteBuffer region_ = null;
+
+		MappedInput(final FileChannel channel) throws IOException {
+			this.channel_ = channel;
+			this.size_ = channel.size();
+		}
+
+		@Override
+		int read() throws IOException {
+			if (region_ == null || !region_.hasRemaining()) {
+				if (next_ >= size_) {
+					return -1;
+				}
+				// else
+				final long regionSize = Math.min(MAPPED_REGION_SIZE_,
+						size_ - next_);
+				region_ = channel_.map(FileChannel.MapMode.READ_ONLY, next_,
+						regionSize);
+				next_ += regionSize;
+			}
+			return region_.get() & 0xff;
+		}
+
+	}
+
+	/**
+	 * Collects the clauses of a CNF into growing arrays
+	 */
+	private static class CnfParser {
+
+		/**
+		 * the variables of the axioms
+		 */
+		private final BitSet axiomVariables_;
+
+		private int nClauses_ = 0;
+
+		private int[] clauseConclusions_ = new int[1024];
+
+		/**
+		 * the offsets of the ends of the premises and the axioms of the
+		 * clauses; the offsets of the beginnings are the offsets of the ends
+		 * of the previous clauses
+		 */
+		private int[] premiseEnds_ = new int[1024], axiomEnds_ = new int[1024];
+
+		private int nPremises_ = 0, nAxioms_ = 0;
+
+		private int[] premises_ = new int[4096], axioms_ = new int[1024];
+
+		private int maxConclusion_ = 0;
+
+		CnfParser(final BitSet axiomVariables) {
+			this.axiomVariables_ = axiomVariables;
+		}
+
+		void parse(final ByteInput input)
+				throws IOException, NumberFormatException {
+			int lineNumber = 1;
+			// whether the current line has literals
+			boolean clause = false;
+			// whether the current line is skipped
+			boolean skip = false;
+			boolean terminated = false;
+			int conclusion = 0;
+			int ch = input.read();
+			for (;;) {
+				if (ch < 0 || ch == '\n' || ch == '\r') {
+					// the end of the line
+					if (clause) {
+						if (conclusion == 0) {
+							throw new IOException(
+									"Clause has no positive literal at line "
+											+ lineNumber + "!");
+						}
+						if (!terminated) {
+							throw new IOException(
+									"Clause not terminated at the end of line "
+											+ lineNumber + "!");
+						}
+						addClause(conclusion);
+					}
+					if (ch < 0) {
+						return;
+					}
+					// else
+					if (ch == '\n') {
+						lineNumber++;
+					}
+					clause = false;
+					skip = false;
+					terminated = false;
+					conclusion = 0;
+					ch = input.read();
+					continue;
+				}
+				// else
+				if (skip || ch == ' ' || ch == '\t') {
+					ch = input.read();
+					continue;
+				}
+				// else
+				if (!clause && (ch == 'c' || ch == 'p')) {
+					// comment or problem line
+					skip = true;
+					ch = input.read();
+					continue;
+				}
+				// else read a literal
+				final boolean negative = ch == '-';
+				if (negative) {
+					ch = input.read();
+				}
+				int digit = ch - '0';
+				if (digit < 0 || digit > 9) {
+					throw new NumberFormatException(
+							"Not a literal at line " + lineNumber + "!");
+				}
+				int literal = 0;
+				while (digit >= 0 && digit <= 9) {
+					try {
+						literal = appendDigit(literal, digit);
+					} catch (final NumberFormatException e) {
+						throw new NumberFormatException(e.getMessage()
+								+ " at line " + lineNumber + "!");
+					}
+					ch = input.read();
+					digit = ch - '0';
+				}
+				if (terminated) {
+					throw new IOException(
+							"Clause terminated before the end of line "
+									+ lineNumber + "!");
+				}
+				clause = true;
+				if (literal == 0) {
+					terminated = true;
+				} else if (negative) {
+					if (axiomVariables_.get(literal)) {
+						axioms_ = append(axioms_, nAxioms_++, literal);
+					} else {
+						premises_ = append(premises_, nPremises_++, literal);
+					}
+				} else if (conclusion != 0) {
+					throw new IOException(
+							"Non-Horn clause at line " + lineNumber + "!");
+				} else {
+					conclusion = literal;
+				}
+			}
+		}
+
+		private static int[] append(int[] array, final int size,
+				final int value) {
+			if (size == array.length) {
+				array = Arrays.copyOf(array, size << 1);
+			}
+			array[size] = value;
+			return array;
+		}
+
+		private void addClause(final int conclusion) {
+			final int axiomsFrom = nClauses_ == 0 ? 0
+					: axiomEnds_[nClauses_ - 1];
+			Arrays.sort(axioms_, axiomsFrom, nAxioms_);
+			clauseConclusions_ = append(clauseConclusions_, nClauses_,
+					conclusion);
+			premiseEnds_ = append(premiseEnds_, nClauses_, nPremises_);
+			axiomEnds_ = append(axiomEnds_, nClauses_, nAxioms_);
+			nClauses_++;
+			maxConclusion_ = Math.max(maxConclusion_, conclusion);
+		}
+
+		/**
+		 * @return the proof with the parsed clauses
+		 */
+		DirectSatEncodingProofAdapter build() {
+			// index the clauses by conclusions using counting sort
+			final int[] conclusionOffsets = new int[maxConclusion_ + 2];
+			for (int k = 0; k < nClauses_; k++) {
+				conclusionOffsets[clauseConclusions_[k] + 1]++;
+			}
+			for (int c = 1; c < conclusionOffsets.length; c++) {
+				conclusionOffsets[c] += conclusionOffsets[c - 1];
+			}
+			final int[] next = Arrays.copyOf(conclusionOffsets,
+					conclusionOffsets.length - 1);
+			final int[] clauses = new int[nClauses_];
+			for (int k = 0; k < nClauses_; k++) {
+				clauses[next[clauseConclusions_[k]]++] = k;
+			}
+			return new DirectSatEncodingProofAdapter(conclusionOffsets,
+					clauses, Arrays.copyOf(clauseConclusions_, nClauses_),
+					toOffsets(premiseEnds_, nClauses_),
+					Arrays.copyOf(premises_, nPremises_),
+					toOffsets(axiomEnds_, nClauses_),
+					Arrays.copyOf(axioms_, nAxioms_));
+		}
+
+		private static int[] toOffsets(final int[] ends, final int size) {
+			final int[] result = new int[size + 1];
+			System.arraycopy(ends, 0, result, 1, size);
+			return result;
+		}
+
+	}
+
 }
@@ -0,0 +1,301 @@
+package com.github.joergschwabe.proofs.adapters;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+
+/**
+ * The binarization of the original proof like {@link BinarizedProofAdapter},
+ * in which the lists of original conclusions are represented by integer
+ * identifiers. The lists are hash-consed: a singleton list {@code [C]} gets
+ * the identifier of the conclusion {@code C} and a longer list gets the
+ * identifier of the pair of the identifiers of its first element and of the
+ * list of the remaining elements, so equal lists get the same identifier
+ * without hashing or comparing their elements. The inferences of a list are
+ * created when they are requested for the first time and are kept, so the
+ * same inference objects are returned for the same identifier. The
+ * conclusion {@code C} can be derived in the original proof using some
+ * justification if and only if {@link #getId(Object)} of {@code C} can be
+ * derived in this proof using the same justification.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusion and premises used by the original
+ *            inferences
+ * @param <I>
+ *            the type of inferences used in proofs
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class HashConsedBinarizedProof<C, I extends Inference<? extends C>, A>
+		implements Proof<Inference<Integer>> {
+
+	private static final int NO_ID_ = -1;
+
+	private final Proof<? extends I> original_;
+
+	private final InferenceJustifier<? super I, ? extends Set<? extends A>> originalJustifier_;
+
+	/**
+	 * the identifiers of the singleton lists of original conclusions
+	 */
+	private final Map<C, Integer> conclusionIds_ = new HashMap<>();
+
+	/**
+	 * the identifiers of the lists of two or more elements by the pairs of
+	 * identifiers of their first elements and the lists of the remaining
+	 * elements, see {@link #getKey(int, int)}
+	 */
+	private final Map<Long, Integer> listIds_ = new HashMap<>();
+
+	/**
+	 * the original conclusion of every singleton list by its identifier or
+	 * {@code null} for longer lists
+	 */
+	private final List<C> conclusions_ = new ArrayList<>();
+
+	/**
+	 * the identifier of the singleton list of the first element and of the
+	 * remaining elements of every list with two or more elements by its
+	 * identifier; for singleton lists, the values are {@link #NO_ID_}
+	 */
+	private int[] heads_ = new int[16], tails_ = new int[16];
+
+	/**
+	 * the inferences of the lists by their identifiers or {@code null} if
+	 * they were not requested yet
+	 */
+	private final List<List<Inference<Integer>>> inferences_ = new ArrayList<>();
+
+	private final InferenceJustifier<Inference<Integer>, Set<? extends A>> justifier_ = new InferenceJustifier<Inference<Integer>, Set<? extends A>>() {
+
+		@Override
+		public Set<? extends A> getJustification(
+				final Inference<Integer> inference) {
+			if (!(inference instanceof BinaryInference<?>)) {
+				return Collections.emptySet();
+			}
+			// else
+			@SuppressWarnings("unchecked")
+			final I original = ((BinaryInference<I>) inference).original_;
+			if (original == null) {
+				return Collections.emptySet();
+			}
+			// else
+			return originalJustifier_.getJustification(original);
+		}
+
+	};
+
+	HashConsedBinarizedProof(final Proof<? extends I> original,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier) {
+		this.original_ = original;
+		this.originalJustifier_ = justifier;
+	}
+
+	/**
+	 * @return the justifier for the inferences of this proof, which returns
+	 *         the justifications of the original inferences
+	 */
+	public InferenceJustifier<Inference<Integer>, Set<? extends A>> getJustifier() {
+		return justifier_;
+	}
+
+	/**
+	 * @param conclusion
+	 *            an original conclusion
+	 * @return the identifier of the singleton list of the given conclusion
+	 */
+	public synchronized int getId(final C conclusion) {
+		final Integer id = conclusionIds_.get(conclusion);
+		if (id != null) {
+			return id;
+		}
+		// else
+		final int result = newId(conclusion, NO_ID_, NO_ID_);
+		conclusionIds_.put(conclusion, result);
+		return result;
+	}
+
+	/**
+	 * @param head
+	 *            the identifier of the singleton list of the first element
+	 * @param tail
+	 *            the identifier of the list of the remaining elements
+	 * @return the identifier of the list with the given first element and
+	 *         remaining elements
+	 */
+	private int getId(final int head, final int tail) {
+		final Long key = getKey(head, tail);
+		final Integer id = listIds_.get(key);
+		if (id != null) {
+			return id;
+		}
+		// else
+		final int result = newId(null, head, tail);
+		listIds_.put(key, result);
+		return result;
+	}
+
+	private static long getKey(final int head, final int tail) {
+		return ((long) head << 32) | (tail & 0xffffffffL);
+	}
+
+	private int newId(final C conclusion, final int head, final int tail) {
+		final int id = conclusions_.size();
+		if (id == heads_.length) {
+			heads_ = Arrays.copyOf(heads_, id << 1);
+			tails_ = Arrays.copyOf(tails_, id << 1);
+		}
+		conclusions_.add(conclusion);
+		heads_[id] = head;
+		tails_[id] = tail;
+		inferences_.add(null);
+		return id;
+	}
+
+	/**
+	 * @param premises
+	 * @param from
+	 * @return the identifier of the list of the given premises starting from
+	 *         the given position
+	 */
+	private int getId(final List<? extends C> premises, final int from) {
+		int result = getId(premises.get(premises.size() - 1));
+		for (int i = premises.size() - 2; i >= from; i--) {
+			result = getId(getId(premises.get(i)), result);
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized Collection<? extends Inference<Integer>> getInferences(
+			final Object conclusion) {
+		if (!(conclusion instanceof Integer)) {
+			return Collections.emptyList();
+		}
+		// else
+		final int id = (Integer) conclusion;
+		if (id < 0 || id >= inferences_.size()) {
+			return Collections.emptyList();
+		}
+		// else
+		List<Inference<Integer>> result = inferences_.get(id);
+		if (result != null) {
+			return result;
+		}
+		// else
+		final C original = conclusions_.get(id);
+		if (original == null) {
+			// the list of the first element and the remaining elements
+			result = Collections.<Inference<Integer>> singletonList(
+					new BinaryInference<I>(id,
+							Arrays.asList(heads_[id], tails_[id]), null));
+		} else {
+			result = new ArrayList<>();
+			for (final I inf : original_.getInferences(original)) {
+				final List<? extends C> premises = inf.getPremises();
+				final List<Integer> binaryPremises;
+				switch (premises.size()) {
+				case 0:
+					binaryPremises = Collections.emptyList();
+					break;
+				case 1:
+					binaryPremises = Collections
+							.singletonList(getId(premises.get(0)));
+					break;
+				default:
+					binaryPremises = Arrays.asList(getId(premises.get(0)),
+							getId(premises, 1));
+				}
+				result.add(new BinaryInference<I>(id, binaryPremises, inf));
+			}
+		}
+		inferences_.set(id, result);
+		return result;
+	}
+
+	/**
+	 * An inference of the binarized proof
+	 *
+	 * @param <I>
+	 *            the type of the original inferences
+	 */
+	private static class BinaryInference<I extends Inference<?>>
+			implements Inference<Integer> {
+
+		private final Integer conclusion_;
+
+		private final List<Integer> premises_;
+
+		/**
+		 * the original inference from which this inference is obtained or
+		 * {@code null} if this inference derives a list from its first
+		 * element and the remaining elements
+		 */
+		private final I original_;
+
+		BinaryInference(final Integer conclusion, final List<Integer> premises,
+				final I original) {
+			this.conclusion_ = conclusion;
+			this.premises_ = premises;
+			this.original_ = original;
+		}
+
+		@Override
+		public String getName() {
+			return original_ == null ? "BinaryListInference"
+					: original_.getName();
+		}
+
+		@Override
+		public Integer getConclusion() {
+			return conclusion_;
+		}
+
+		@Override
+		public List<? extends Integer> getPremises() {
+			return premises_;
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this);
+		}
+
+	}
+
+}
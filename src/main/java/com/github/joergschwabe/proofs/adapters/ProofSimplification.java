@@ -0,0 +1,621 @@
+package com.github.joergschwabe.proofs.adapters;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Inferences;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A proof for a given query obtained from the inferences of the given proof
+ * that are used for deriving the query by applying simplification passes in
+ * the given order. The passes do not change the justifications of the query;
+ * the inferences of the result use the conclusions of the given proof, so the
+ * justifications can be computed for {@link #getQuery()} in this proof
+ * instead of the original one. The number of inferences and the time are
+ * recorded after every pass. When the given {@link InterruptMonitor} is
+ * interrupted, the remaining passes are not applied and the current pass
+ * stops at a point where the justifications of the query are not changed, so
+ * the result is only less simplified.
+ * 
+ * @author Yevgeny Kazakov
+ *
+ * @param <C>
+ *            the type of conclusions used in inferences
+ * @param <A>
+ *            the type of axioms used by the inferences
+ */
+public class ProofSimplification<C, A> implements Proof<Inference<C>> {
+
+	private static final Logger LOGGER_ = LoggerFactory
+			.getLogger(ProofSimplification.class);
+
+	/**
+	 * The simplification passes
+	 */
+	public enum Pass {
+		/**
+		 * removes inferences deriving conclusions that have the empty
+		 * justification from other conclusions, see
+		 * {@link Proofs#eliminateTautologyInferences(Proof, InferenceJustifier)}
+		 */
+		ELIMINATE_TAUTOLOGIES,
+		/**
+		 * removes cyclic inferences of length 1 and 2, see
+		 * {@link Proofs#eliminateCycles(Proof)}
+		 */
+		ELIMINATE_CYCLES,
+		/**
+		 * removes an inference if there is another inference with the same
+		 * conclusion whose premises and justification are subsets of those
+		 * of the inference
+		 */
+		REMOVE_DOMINATED_INFERENCES,
+		/**
+		 * replaces conclusions derived by the same premises and
+		 * justifications by one of them
+		 */
+		MERGE_EQUIVALENT_CONCLUSIONS,
+		/**
+		 * replaces a conclusion derived by a single inference and used by a
+		 * single inference by the premises and justification of the former
+		 * inference
+		 */
+		COLLAPSE_CHAINS,
+		/**
+		 * removes the inferences that are not used for deriving the query
+		 */
+		PRUNE_UNREACHABLE;
+	}
+
+	/**
+	 * all passes in the order in which they are applied by default
+	 */
+	public static final List<Pass> ALL_PASSES = Collections
+			.unmodifiableList(Arrays.asList(Pass.values()));
+
+	private final InferenceJustifier<Inference<C>, Set<A>> justifier_ = new InferenceJustifier<Inference<C>, Set<A>>() {
+
+		@Override
+		public Set<A> getJustification(final Inference<C> inference) {
+			// all inferences of this proof are steps created by it
+			@SuppressWarnings("unchecked")
+			final Step<C, A> step = (Step<C, A>) inference;
+			return step.justification;
+		}
+
+	};
+
+	private final C query_;
+
+	private final InterruptMonitor monitor_;
+
+	/**
+	 * the inferences of the relevant conclusions; every conclusion used as a
+	 * premise has an entry
+	 */
+	private Map<C, List<Step<C, A>>> inferences_;
+
+	/**
+	 * the passes applied so far
+	 */
+	private final List<Pass> passes_;
+
+	/**
+	 * the number of inferences before the first pass and after every pass
+	 */
+	private final int[] nInferences_;
+
+	/**
+	 * the time in nanoseconds of every pass
+	 */
+	private final long[] passNanos_;
+
+	private <I extends Inference<? extends C>> ProofSimplification(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final C query, final List<Pass> passes,
+			final InterruptMonitor monitor) {
+		this.query_ = Preconditions.checkNotNull(query);
+		this.monitor_ = Preconditions.checkNotNull(monitor);
+		this.passes_ = new ArrayList<>(passes.size());
+		this.nInferences_ = new int[passes.size() + 1];
+		this.passNanos_ = new long[passes.size()];
+		// the original inferences are needed for any result
+		this.inferences_ = collect(proof, new InferenceJustifier<I, Set<A>>() {
+
+			@Override
+			public Set<A> getJustification(final I inference) {
+				return Collections.unmodifiableSet(
+						new HashSet<A>(justifier.getJustification(inference)));
+			}
+
+		}, InterruptMonitor.DUMMY);
+		nInferences_[0] = countInferences();
+		for (int i = 0; i < passes.size(); i++) {
+			if (monitor_.isInterrupted()) {
+				LOGGER_.debug("{}: simplification interrupted", query_);
+				return;
+			}
+			// else
+			final long start = System.nanoTime();
+			apply(passes.get(i));
+			passNanos_[i] = System.nanoTime() - start;
+			passes_.add(passes.get(i));
+			nInferences_[i + 1] = countInferences();
+			LOGGER_.debug("{}: {}: {} -> {} inferences, {} ms", query_,
+					passes.get(i), nInferences_[i], nInferences_[i + 1],
+					passNanos_[i] / 1000000);
+		}
+	}
+
+	/**
+	 * Simplifies the proof of the given query
+	 * 
+	 * @param proof
+	 * @param justifier
+	 * @param query
+	 * @param passes
+	 *            the passes applied in the given order
+	 * @param monitor
+	 *            stops the simplification when interrupted
+	 * @return the simplified proof of the query
+	 */
+	public static <C, I extends Inference<? extends C>, A> ProofSimplification<C, A> create(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final C query, final List<Pass> passes,
+			final InterruptMonitor monitor) {
+		return new ProofSimplification<C, A>(proof, justifier, query, passes,
+				monitor);
+	}
+
+	@Override
+	public Collection<? extends Inference<C>> getInferences(
+			final Object conclusion) {
+		final List<Step<C, A>> result = inferences_.get(conclusion);
+		return result == null ? Collections.<Step<C, A>> emptyList() : result;
+	}
+
+	/**
+	 * @return the justifier for the inferences of this proof
+	 */
+	public InferenceJustifier<Inference<C>, Set<A>> getJustifier() {
+		return justifier_;
+	}
+
+	/**
+	 * @return the conclusion whose justifications are preserved by the
+	 *         simplification
+	 */
+	public C getQuery() {
+		return query_;
+	}
+
+	/**
+	 * @return the applied passes in the order of their application; if the
+	 *         simplification was interrupted, the last pass may be applied
+	 *         only partially and the remaining passes are not included
+	 */
+	public List<Pass> getPasses() {
+		return Collections.unmodifiableList(passes_);
+	}
+
+	/**
+	 * @return the number of inferences used for deriving the query in the
+	 *         original proof
+	 */
+	public int getNumberOfOriginalInferences() {
+		return nInferences_[0];
+	}
+
+	/**
+	 * @param pass
+	 *            the index of the pass in {@link #getPasses()}
+	 * @return the number of inferences after the pass
+	 */
+	public int getNumberOfInferences(final int pass) {
+		return nInferences_[pass + 1];
+	}
+
+	/**
+	 * @param pass
+	 *            the index of the pass in {@link #getPasses()}
+	 * @return the time of the pass in nanoseconds
+	 */
+	public long getTimeNanos(final int pass) {
+		return passNanos_[pass];
+	}
+
+	private int countInferences() {
+		int result = 0;
+		for (final List<Step<C, A>> infs : inferences_.values()) {
+			result += infs.size();
+		}
+		return result;
+	}
+
+	private void apply(final Pass pass) {
+		switch (pass) {
+		case ELIMINATE_TAUTOLOGIES:
+			update(collect(Proofs.eliminateTautologyInferences(getSteps(),
+					justifier_), justifier_, monitor_));
+			break;
+		case ELIMINATE_CYCLES:
+			update(collect(Proofs.eliminateCycles(getSteps()), justifier_,
+					monitor_));
+			break;
+		case REMOVE_DOMINATED_INFERENCES:
+			removeDominatedInferences();
+			break;
+		case MERGE_EQUIVALENT_CONCLUSIONS:
+			mergeEquivalentConclusions();
+			break;
+		case COLLAPSE_CHAINS:
+			collapseChains();
+			break;
+		case PRUNE_UNREACHABLE:
+			update(collect(getSteps(), justifier_, monitor_));
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown pass: " + pass);
+		}
+	}
+
+	/**
+	 * Replaces the current inferences unless the given inferences are
+	 * {@code null}
+	 * 
+	 * @param inferences
+	 */
+	private void update(final Map<C, List<Step<C, A>>> inferences) {
+		if (inferences != null) {
+			inferences_ = inferences;
+		}
+	}
+
+	/**
+	 * @return the current inferences as a proof that is not modified by the
+	 *         passes
+	 */
+	private Proof<Step<C, A>> getSteps() {
+		final Map<C, List<Step<C, A>>> inferences = inferences_;
+		return new Proof<Step<C, A>>() {
+
+			@Override
+			public Collection<? extends Step<C, A>> getInferences(
+					final Object conclusion) {
+				final List<Step<C, A>> result = inferences.get(conclusion);
+				return result == null ? Collections.<Step<C, A>> emptyList()
+						: result;
+			}
+
+		};
+	}
+
+	/**
+	 * @param proof
+	 * @param justifier
+	 * @param monitor
+	 * @return the inferences of the given proof used for deriving the query
+	 *         as new inferences with the justifications given by the
+	 *         justifier or {@code null} if the monitor was interrupted before
+	 *         all of them were collected
+	 */
+	private <I extends Inference<? extends C>> Map<C, List<Step<C, A>>> collect(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, Set<A>> justifier,
+			final InterruptMonitor monitor) {
+		final Map<C, List<Step<C, A>>> result = new HashMap<>();
+		final Queue<C> toDo = new LinkedList<>();
+		result.put(query_, new ArrayList<Step<C, A>>());
+		toDo.add(query_);
+		C conclusion;
+		while ((conclusion = toDo.poll()) != null) {
+			if (monitor.isInterrupted()) {
+				return null;
+			}
+			// else
+			final List<Step<C, A>> steps = result.get(conclusion);
+			for (final I inf : proof.getInferences(conclusion)) {
+				final List<C> premises = new ArrayList<C>(inf.getPremises());
+				steps.add(new Step<C, A>(inf.getName(), conclusion, premises,
+						justifier.getJustification(inf)));
+				for (final C premise : premises) {
+					if (!result.containsKey(premise)) {
+						result.put(premise, new ArrayList<Step<C, A>>());
+						toDo.add(premise);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void removeDominatedInferences() {
+		for (final List<Step<C, A>> steps : inferences_.values()) {
+			if (monitor_.isInterrupted()) {
+				// the inferences of the remaining conclusions are kept
+				return;
+			}
+			// else
+			if (steps.size() <= 1) {
+				continue;
+			}
+			// the dominating inferences come first
+			final List<Step<C, A>> sorted = new ArrayList<>(steps);
+			Collections.sort(sorted, new Comparator<Step<C, A>>() {
+				@Override
+				public int compare(final Step<C, A> o1, final Step<C, A> o2) {
+					return Integer.compare(o1.size(), o2.size());
+				}
+			});
+			final List<Step<C, A>> kept = new ArrayList<>(sorted.size());
+			for (final Step<C, A> step : sorted) {
+				boolean dominated = false;
+				for (final Step<C, A> other : kept) {
+					if (step.getPremiseSet().containsAll(other.getPremiseSet())
+							&& step.justification
+									.containsAll(other.justification)) {
+						dominated = true;
+						break;
+					}
+				}
+				if (!dominated) {
+					kept.add(step);
+				}
+			}
+			steps.retainAll(kept);
+		}
+	}
+
+	private void mergeEquivalentConclusions() {
+		for (;;) {
+			/*
+			 * the query is processed first so that it is not replaced by
+			 * other conclusions
+			 */
+			final List<C> conclusions = new ArrayList<>(inferences_.size());
+			conclusions.add(query_);
+			for (final C conclusion : inferences_.keySet()) {
+				if (!conclusion.equals(query_)) {
+					conclusions.add(conclusion);
+				}
+			}
+			final Map<Set<List<Set<?>>>, C> representatives = new HashMap<>();
+			final Map<C, C> replacements = new HashMap<>();
+			for (final C conclusion : conclusions) {
+				if (monitor_.isInterrupted()) {
+					// the conclusions of this round are not merged
+					return;
+				}
+				// else
+				final List<Step<C, A>> steps = inferences_.get(conclusion);
+				if (steps.isEmpty()) {
+					continue;
+				}
+				// else
+				final Set<List<Set<?>>> signature = new HashSet<>();
+				for (final Step<C, A> step : steps) {
+					signature.add(Arrays.<Set<?>> asList(step.getPremiseSet(),
+							step.justification));
+				}
+				final C representative = representatives.get(signature);
+				if (representative == null) {
+					representatives.put(signature, conclusion);
+				} else {
+					replacements.put(conclusion, representative);
+				}
+			}
+			if (replacements.isEmpty()) {
+				return;
+			}
+			// else
+			LOGGER_.trace("merged conclusions: {}", replacements);
+			final Map<C, List<Step<C, A>>> merged = new HashMap<>();
+			for (final Map.Entry<C, List<Step<C, A>>> entry : inferences_
+					.entrySet()) {
+				if (replacements.containsKey(entry.getKey())) {
+					continue;
+				}
+				// else
+				final List<Step<C, A>> steps = new ArrayList<>(
+						entry.getValue().size());
+				for (final Step<C, A> step : entry.getValue()) {
+					final Set<C> premises = new LinkedHashSet<>();
+					for (final C premise : step.premises) {
+						final C replacement = replacements.get(premise);
+						premises.add(replacement == null ? premise : replacement);
+					}
+					steps.add(new Step<C, A>(step.name, step.conclusion,
+							new ArrayList<>(premises), step.justification));
+				}
+				merged.put(entry.getKey(), steps);
+			}
+			inferences_ = merged;
+		}
+	}
+
+	private void collapseChains() {
+		// the inferences using every conclusion as a premise
+		final Map<C, List<Step<C, A>>> uses = new HashMap<>();
+		for (final List<Step<C, A>> steps : inferences_.values()) {
+			for (final Step<C, A> step : steps) {
+				addUses(step, uses);
+			}
+		}
+		final Queue<C> toDo = new LinkedList<>(inferences_.keySet());
+		C conclusion;
+		while ((conclusion = toDo.poll()) != null) {
+			if (monitor_.isInterrupted()) {
+				// every collapse is complete
+				return;
+			}
+			// else
+			if (conclusion.equals(query_)) {
+				continue;
+			}
+			final List<Step<C, A>> steps = inferences_.get(conclusion);
+			final List<Step<C, A>> users = uses.get(conclusion);
+			if (steps == null || steps.size() != 1 || users == null
+					|| users.size() != 1) {
+				continue;
+			}
+			// else
+			final Step<C, A> step = steps.get(0);
+			if (step.getPremiseSet().contains(conclusion)) {
+				continue;
+			}
+			// else
+			final Step<C, A> user = users.get(0);
+			final Set<C> premises = new LinkedHashSet<>();
+			for (final C premise : user.premises) {
+				if (premise.equals(conclusion)) {
+					premises.addAll(step.premises);
+				} else {
+					premises.add(premise);
+				}
+			}
+			final Set<A> justification = new HashSet<>(user.justification);
+			justification.addAll(step.justification);
+			final Step<C, A> collapsed = new Step<C, A>(user.name,
+					user.conclusion, new ArrayList<>(premises),
+					Collections.unmodifiableSet(justification));
+			LOGGER_.trace("{}: collapsed with {} into {}", user, step,
+					collapsed);
+			final List<Step<C, A>> userSteps = inferences_
+					.get(user.conclusion);
+			userSteps.set(userSteps.indexOf(user), collapsed);
+			removeUses(user, uses);
+			removeUses(step, uses);
+			addUses(collapsed, uses);
+			inferences_.remove(conclusion);
+			uses.remove(conclusion);
+			// the number of uses of the premises could decrease
+			toDo.addAll(collapsed.premises);
+		}
+	}
+
+	private static <C, A> void addUses(final Step<C, A> step,
+			final Map<C, List<Step<C, A>>> uses) {
+		for (final C premise : step.getPremiseSet()) {
+			List<Step<C, A>> users = uses.get(premise);
+			if (users == null) {
+				users = new ArrayList<>();
+				uses.put(premise, users);
+			}
+			users.add(step);
+		}
+	}
+
+	private static <C, A> void removeUses(final Step<C, A> step,
+			final Map<C, List<Step<C, A>>> uses) {
+		for (final C premise : step.getPremiseSet()) {
+			final List<Step<C, A>> users = uses.get(premise);
+			if (users != null) {
+				users.remove(step);
+			}
+		}
+	}
+
+	/**
+	 * An inference of the simplified proof together with its justification;
+	 * the inferences are compared by identity
+	 */
+	private static class Step<C, A> implements Inference<C> {
+
+		final String name;
+
+		final C conclusion;
+
+		final List<C> premises;
+
+		final Set<A> justification;
+
+		/**
+		 * the premises as a set or {@code null} if it is not computed yet
+		 */
+		private Set<C> premiseSet_ = null;
+
+		Step(final String name, final C conclusion, final List<C> premises,
+				final Set<A> justification) {
+			this.name = name;
+			this.conclusion = conclusion;
+			this.premises = premises;
+			this.justification = justification;
+		}
+
+		Set<C> getPremiseSet() {
+			if (premiseSet_ == null) {
+				premiseSet_ = new HashSet<>(premises);
+			}
+			return premiseSet_;
+		}
+
+		int size() {
+			return getPremiseSet().size() + justification.size();
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public C getConclusion() {
+			return conclusion;
+		}
+
+		@Override
+		public List<? extends C> getPremises() {
+			return premises;
+		}
+
+		@Override
+		public String toString() {
+			return Inferences.toString(this);
+		}
+
+	}
+
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.InferenceJustifier;
 import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
 
 /**
  * Static utilities for proofs
@@ -47,6 +48,19 @@ public class Proofs {
 		return new BinarizedProofAdapter.Justifier<C, I, A>(justifier);
 	}
 
+	/**
+	 * @param proof
+	 * @param justifier
+	 * @return the binarization of the given proof in which the lists of
+	 *         conclusions are represented by integer identifiers
+	 * @see HashConsedBinarizedProof
+	 */
+	public static <C, I extends Inference<? extends C>, A> HashConsedBinarizedProof<C, I, A> binarizeHashConsed(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier) {
+		return new HashConsedBinarizedProof<C, I, A>(proof, justifier);
+	}
+
 	public static <I extends Inference<?>> Proof<I> eliminateCycles(
 			final Proof<I> inferences) {
 		return new CycleRemovingProofAdapter<I>(inferences);
@@ -58,6 +72,27 @@ public class Proofs {
 		return new TautologyRemovingProofAdapter<I, A>(proof, justifier);
 	}
 
+	/**
+	 * @param proof
+	 * @param justifier
+	 * @param query
+	 * @param passes
+	 *            the simplification passes applied in the given order
+	 * @param monitor
+	 *            stops the simplification when interrupted
+	 * @return the proof of the given query obtained by simplifying the given
+	 *         proof without changing the justifications of the query
+	 * @see ProofSimplification
+	 */
+	public static <C, I extends Inference<? extends C>, A> ProofSimplification<C, A> simplify(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier,
+			final C query, final List<ProofSimplification.Pass> passes,
+			final InterruptMonitor monitor) {
+		return ProofSimplification.create(proof, justifier, query, passes,
+				monitor);
+	}
+
 	public static <I extends Inference<?>> boolean hasCycle(
 			final Proof<I> inferences, final Object conclusion) {
 		return (new ProofCycleDetector<I>(inferences))
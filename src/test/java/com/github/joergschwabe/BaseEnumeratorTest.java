@@ -26,6 +26,8 @@ import java.io.FilenameFilter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -67,6 +69,38 @@ public abstract class BaseEnumeratorTest<C, I extends Inference<? extends C>, A>
 		Assert.assertEquals(input.getExpectedResult(), actualResult);
 	}
 
+	@Test
+	public void testLimitedEnumeration() {
+
+		// stop after the first result
+		final LimitedEnumeration.Result<A> result = new LimitedEnumeration<C, I, A>(
+				factory, 1, LimitedEnumeration.NO_LIMIT,
+				LimitedEnumeration.NO_LIMIT).enumerate(input.getProof(),
+						input.getJustifier(), InterruptMonitor.DUMMY,
+						input.getQuery());
+
+		final Collection<? extends Set<? extends A>> expectedResult = input
+				.getExpectedResult();
+		Assert.assertEquals(Math.min(1, expectedResult.size()),
+				result.getSubsets().size());
+		Assert.assertTrue(expectedResult.containsAll(result.getSubsets()));
+		if (!expectedResult.isEmpty()) {
+			Assert.assertEquals(LimitedEnumeration.Limit.RESULTS,
+					result.getReachedLimit());
+		}
+	}
+
+	/**
+	 * @return the factories of all {@link SatAdapter}s to be tested
+	 */
+	public static List<SatAdapter.Factory> getSatFactories() {
+		final List<SatAdapter.Factory> factories = new ArrayList<SatAdapter.Factory>();
+		Collections.addAll(factories, SatAdapterSat4j.FACTORY.values());
+		Collections.addAll(factories, SatAdapterLogicNG.FACTORY.values());
+		Collections.addAll(factories, SatAdapterHorn.FACTORY.values());
+		return factories;
+	}
+
 	public static Iterable<Object[]> getParameters(
 			final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories,
 			final String testInputSubpkg) throws Exception {
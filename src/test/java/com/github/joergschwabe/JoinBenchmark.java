@@ -0,0 +1,122 @@
+package com.github.joergschwabe;
+
+/*-
+ * #%L
+ * Axiom Pinpointing Experiments
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2017 - 2018 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time of {@link Utils#join(java.util.Collection, java.util.Collection)}
+ * and
+ * {@link Utils#joinCheckingSubsets(java.util.Collection, java.util.Collection)}
+ * on random justifications, compared with joining all pairs and merging the
+ * unions one by one.
+ * <p>
+ * Arguments: [number of justifications in each argument] [number of axioms]
+ * [maximal size of justifications] [number of iterations] [random seed]
+ * 
+ * @author Yevgeny Kazakov
+ *
+ */
+public class JoinBenchmark {
+
+	public static void main(final String[] args) {
+
+		final int nJusts = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		final int nAxioms = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		final int maxSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		final int nIterations = args.length > 3 ? Integer.parseInt(args[3])
+				: 20;
+		final Random random = new Random(
+				args.length > 4 ? Long.parseLong(args[4]) : 0);
+
+		final IdProvider<Integer> axiomIds = new IdProvider<>(new IdSupplier());
+		final List<Justification<String, Integer>> first = generate("first",
+				nJusts, nAxioms, maxSize, axiomIds, random);
+		final List<Justification<String, Integer>> second = generate("second",
+				nJusts, nAxioms, maxSize, axiomIds, random);
+
+		// warm up
+		for (int i = 0; i < nIterations; i++) {
+			naiveJoin(first, second);
+			Utils.join(first, second);
+			Utils.joinCheckingSubsets(first, second);
+		}
+
+		long time = System.nanoTime();
+		int size = 0;
+		for (int i = 0; i < nIterations; i++) {
+			size = naiveJoin(first, second).size();
+		}
+		report("naive", size, time, nIterations);
+
+		time = System.nanoTime();
+		for (int i = 0; i < nIterations; i++) {
+			size = Utils.join(first, second).size();
+		}
+		report("join", size, time, nIterations);
+
+		time = System.nanoTime();
+		for (int i = 0; i < nIterations; i++) {
+			size = Utils.joinCheckingSubsets(first, second).size();
+		}
+		report("joinCheckingSubsets", size, time, nIterations);
+	}
+
+	private static List<Justification<String, Integer>> generate(
+			String conclusion, int nJusts, int nAxioms, int maxSize,
+			IdProvider<Integer> axiomIds, Random random) {
+		final List<Justification<String, Integer>> result = new ArrayList<>(
+				nJusts);
+		for (int i = 0; i < nJusts; i++) {
+			final List<Integer> axioms = new ArrayList<>();
+			final int size = 1 + random.nextInt(maxSize);
+			for (int j = 0; j < size; j++) {
+				axioms.add(random.nextInt(nAxioms));
+			}
+			result.add(IdJustification.create(axiomIds, conclusion, axioms));
+		}
+		return result;
+	}
+
+	private static List<Justification<String, Integer>> naiveJoin(
+			List<Justification<String, Integer>> first,
+			List<Justification<String, Integer>> second) {
+		final List<Justification<String, Integer>> result = new ArrayList<>();
+		for (final Justification<String, Integer> firstSet : first) {
+			for (final Justification<String, Integer> secondSet : second) {
+				Utils.merge(firstSet.addElements(secondSet), result);
+			}
+		}
+		return result;
+	}
+
+	private static void report(String name, int size, long startNanos,
+			int nIterations) {
+		System.out.println(name + ": " + size + " justifications, "
+				+ (System.nanoTime() - startNanos) / 1000 / nIterations
+				+ " us per join");
+	}
+
+}
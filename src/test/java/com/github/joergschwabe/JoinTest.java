@@ -0,0 +1,168 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares {@link Utils#join(java.util.Collection, java.util.Collection)} and
+ * {@link Utils#joinCheckingSubsets(java.util.Collection, java.util.Collection)}
+ * with merging the unions of all pairs of justifications on random inputs
+ *
+ * @author Yevgeny Kazakov
+ */
+public class JoinTest {
+
+	private static final int N_ROUNDS_ = 3000;
+
+	private final Random random_ = new Random(17);
+
+	private final IdProvider<Integer> axiomIds_ = new IdProvider<>(
+			new IdSupplier());
+
+	@Test
+	public void testIdJustifications() {
+		for (int round = 0; round < N_ROUNDS_; round++) {
+			final int nAxioms = random_.nextInt(12) + 1;
+			final int maxSize = random_.nextInt(6) + 1;
+			check(generate("first", nAxioms, maxSize, false),
+					generate("second", nAxioms, maxSize, false));
+		}
+	}
+
+	@Test
+	public void testBloomSets() {
+		for (int round = 0; round < N_ROUNDS_; round++) {
+			final int nAxioms = random_.nextInt(12) + 1;
+			final int maxSize = random_.nextInt(6) + 1;
+			check(generate("first", nAxioms, maxSize, true),
+					generate("second", nAxioms, maxSize, true));
+		}
+	}
+
+	@Test
+	public void testSameConclusion() {
+		for (int round = 0; round < N_ROUNDS_; round++) {
+			final int nAxioms = random_.nextInt(12) + 1;
+			final int maxSize = random_.nextInt(6) + 1;
+			check(generate("same", nAxioms, maxSize, false),
+					generate("same", nAxioms, maxSize, false));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		final List<Justification<String, Integer>> empty = new ArrayList<>();
+		final List<Justification<String, Integer>> some = generate("some", 5,
+				3, false);
+		check(empty, some);
+		check(empty, empty);
+	}
+
+	/**
+	 * Checks both orders of the arguments
+	 */
+	private static void check(final List<Justification<String, Integer>> first,
+			final List<Justification<String, Integer>> second) {
+		checkOrdered(first, second);
+		checkOrdered(second, first);
+	}
+
+	private static void checkOrdered(
+			final List<Justification<String, Integer>> first,
+			final List<Justification<String, Integer>> second) {
+		final Set<Set<Integer>> expected = toSets(naiveJoin(first, second));
+		final List<Justification<String, Integer>> joined = Utils.join(first,
+				second);
+		Assert.assertEquals(expected, toSets(joined));
+		checkConclusions(first, joined);
+		final List<Justification<String, Integer>> joinedChecking = Utils
+				.joinCheckingSubsets(first, second);
+		Assert.assertEquals(expected, toSets(joinedChecking));
+		checkConclusions(first, joinedChecking);
+	}
+
+	/**
+	 * Checks that the joined justifications have no duplicates and get the
+	 * conclusion of the first argument
+	 */
+	private static void checkConclusions(
+			final List<Justification<String, Integer>> first,
+			final List<Justification<String, Integer>> joined) {
+		Assert.assertEquals(joined.size(), toSets(joined).size());
+		for (final Justification<String, Integer> just : joined) {
+			Assert.assertEquals(first.get(0).getConclusion(),
+					just.getConclusion());
+		}
+	}
+
+	private static List<Justification<String, Integer>> naiveJoin(
+			final List<Justification<String, Integer>> first,
+			final List<Justification<String, Integer>> second) {
+		final List<Justification<String, Integer>> result = new ArrayList<>();
+		for (final Justification<String, Integer> firstSet : first) {
+			for (final Justification<String, Integer> secondSet : second) {
+				Utils.merge(firstSet.addElements(secondSet), result);
+			}
+		}
+		return result;
+	}
+
+	private static Set<Set<Integer>> toSets(
+			final List<Justification<String, Integer>> justs) {
+		final Set<Set<Integer>> result = new HashSet<>();
+		for (final Justification<String, Integer> just : justs) {
+			result.add(new HashSet<>(just));
+		}
+		return result;
+	}
+
+	/**
+	 * @return a random list of justifications, which may contain duplicates
+	 *         and justifications containing other justifications
+	 */
+	private List<Justification<String, Integer>> generate(
+			final String conclusion, final int nAxioms, final int maxSize,
+			final boolean bloomSets) {
+		final int nJusts = random_.nextInt(8) + 1;
+		final List<Justification<String, Integer>> result = new ArrayList<>(
+				nJusts);
+		for (int i = 0; i < nJusts; i++) {
+			final List<Integer> axioms = new ArrayList<>();
+			final int size = random_.nextInt(maxSize + 1);
+			for (int j = 0; j < size; j++) {
+				axioms.add(random_.nextInt(nAxioms));
+			}
+			result.add(bloomSets ? new BloomSet<>(conclusion, axioms)
+					: IdJustification.create(axiomIds_, conclusion, axioms));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,230 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+
+import com.google.common.io.Files;
+
+/**
+ * Tests saving and loading of {@link JustificationCache} and its use by
+ * {@link BottomUpJustificationComputation}
+ *
+ * @author Yevgeny Kazakov
+ */
+public class JustificationCacheTest {
+
+	private static final long PROOF_ = 17, OTHER_PROOF_ = 18;
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	@Test
+	public void testSaveLoad() throws IOException {
+		final File file = new File(folder_.getRoot(), "cache");
+		final JustificationCache saved = new JustificationCache(file, 10);
+		saved.put(1, PROOF_, justs(1, 2, 3));
+		saved.put(2, PROOF_, justs(4));
+		saved.put(3, OTHER_PROOF_, new long[0][]);
+		saved.save();
+		Assert.assertTrue(file.exists());
+
+		final JustificationCache loaded = new JustificationCache(file, 10);
+		Assert.assertEquals(3, loaded.nCachedConclusions());
+		Assert.assertEquals(0, loaded.nEvictions());
+		for (long conclusion = 1; conclusion <= 3; conclusion++) {
+			Assert.assertTrue(loaded.mayContain(conclusion));
+		}
+		Assert.assertFalse(loaded.mayContain(4));
+		assertEquals(justs(1, 2, 3), loaded.get(1, PROOF_));
+		assertEquals(justs(4), loaded.get(2, PROOF_));
+		assertEquals(new long[0][], loaded.get(3, OTHER_PROOF_));
+		// cached for a different proof
+		Assert.assertNull(loaded.get(1, OTHER_PROOF_));
+		Assert.assertNull(loaded.get(3, PROOF_));
+		Assert.assertNull(loaded.get(4, PROOF_));
+	}
+
+	@Test
+	public void testLruOrderPreserved() throws IOException {
+		final File file = new File(folder_.getRoot(), "cache");
+		final JustificationCache saved = new JustificationCache(file, 9);
+		saved.put(1, PROOF_, justs(1, 2, 3));
+		saved.put(2, PROOF_, justs(4, 5, 6));
+		saved.put(3, PROOF_, justs(7, 8, 9));
+		// now 2 is the least recently used and 1 the most recently used
+		saved.get(1, PROOF_);
+		saved.save();
+
+		final JustificationCache loaded = new JustificationCache(file, 9);
+		Assert.assertEquals(0, loaded.nEvictions());
+		loaded.put(4, PROOF_, justs(10, 11, 12));
+		Assert.assertEquals(1, loaded.nEvictions());
+		Assert.assertNull(loaded.get(2, PROOF_));
+		Assert.assertFalse(loaded.mayContain(2));
+		// now 3 is the least recently used
+		loaded.put(5, PROOF_, justs(13));
+		Assert.assertEquals(2, loaded.nEvictions());
+		Assert.assertFalse(loaded.mayContain(3));
+		assertEquals(justs(1, 2, 3), loaded.get(1, PROOF_));
+		assertEquals(justs(10, 11, 12), loaded.get(4, PROOF_));
+		assertEquals(justs(13), loaded.get(5, PROOF_));
+		Assert.assertEquals(3, loaded.nCachedConclusions());
+	}
+
+	@Test
+	public void testLoadWithSmallerCapacity() throws IOException {
+		final File file = new File(folder_.getRoot(), "cache");
+		final JustificationCache saved = new JustificationCache(file, 10);
+		saved.put(1, PROOF_, justs(1, 2));
+		saved.put(2, PROOF_, justs(3, 4));
+		saved.put(3, PROOF_, justs(5, 6));
+		saved.save();
+
+		// only the most recently used entries fit
+		final JustificationCache loaded = new JustificationCache(file, 5);
+		Assert.assertEquals(1, loaded.nEvictions());
+		Assert.assertEquals(2, loaded.nCachedConclusions());
+		Assert.assertFalse(loaded.mayContain(1));
+		assertEquals(justs(3, 4), loaded.get(2, PROOF_));
+		assertEquals(justs(5, 6), loaded.get(3, PROOF_));
+	}
+
+	@Test
+	public void testSaveReplacesFile() throws IOException {
+		final File file = new File(folder_.getRoot(), "cache");
+		final JustificationCache first = new JustificationCache(file, 10);
+		first.put(1, PROOF_, justs(1));
+		first.save();
+		final JustificationCache second = new JustificationCache(file, 10);
+		second.put(2, PROOF_, justs(2));
+		second.put(1, PROOF_, justs(3));
+		second.save();
+
+		final JustificationCache loaded = new JustificationCache(file, 10);
+		Assert.assertEquals(2, loaded.nCachedConclusions());
+		assertEquals(justs(3), loaded.get(1, PROOF_));
+		assertEquals(justs(2), loaded.get(2, PROOF_));
+		Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadNotCache() throws IOException {
+		final File file = folder_.newFile("cache");
+		Files.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, file);
+		new JustificationCache(file, 10);
+	}
+
+	@Test
+	public void testReuseInProofWithCycle() {
+		final JustificationCache cache = new JustificationCache(1000);
+		final MinimalSubsetsFromProofs.Factory<String, JustifiedInference<String, String>, String> factory = BottomUpJustificationComputation
+				.getFactory(1, cache);
+		// B and C are on a cycle and share the proof of D
+		final ProofAndJustifierBuilder<String, String> builder = new ProofAndJustifierBuilder<String, String>();
+		builder.conclusion("A").premise("B").add();
+		builder.conclusion("A").premise("C").axiom("x").add();
+		builder.conclusion("B").premise("D").add();
+		builder.conclusion("B").premise("C").add();
+		builder.conclusion("C").premise("D").add();
+		builder.conclusion("C").premise("B").axiom("y").add();
+		builder.conclusion("D").axiom("d1").add();
+		builder.conclusion("D").axiom("d2").add();
+
+		BottomUpJustificationComputation<?, ?, ?> computation = enumerate(
+				factory, builder, "B", justs("d1", "d2"));
+		Assert.assertEquals(0, computation.nCacheHits());
+		// the justifications of B are reused for A
+		computation = enumerate(factory, builder, "A", justs("d1", "d2"));
+		Assert.assertEquals(1, computation.nCacheHits());
+
+		// the cached justifications are not used for a different proof
+		builder.conclusion("D").axiom("d3").add();
+		computation = enumerate(factory, builder, "A",
+				justs("d1", "d2", "d3"));
+		Assert.assertEquals(0, computation.nCacheHits());
+	}
+
+	private static BottomUpJustificationComputation<String, ?, String> enumerate(
+			final MinimalSubsetsFromProofs.Factory<String, JustifiedInference<String, String>, String> factory,
+			final ProofAndJustifierBuilder<String, String> builder,
+			final String query, final Set<Set<? extends String>> expected) {
+		final BottomUpJustificationComputation<String, ?, String> computation = (BottomUpJustificationComputation<String, ?, String>) factory
+				.create(builder.build(), builder.buildJustifier(),
+						InterruptMonitor.DUMMY);
+		final Set<Set<? extends String>> actual = new HashSet<Set<? extends String>>();
+		computation.newEnumerator(query)
+				.enumerate(new MinimalSubsetCollector<String>(actual));
+		Assert.assertEquals(expected, actual);
+		return computation;
+	}
+
+	/**
+	 * @return the justifications consisting of the given single axioms
+	 */
+	private static Set<Set<? extends String>> justs(final String... axioms) {
+		final Set<Set<? extends String>> result = new HashSet<Set<? extends String>>();
+		for (final String axiom : axioms) {
+			result.add(Collections.singleton(axiom));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the justifications consisting of single axioms except that the
+	 *         first justification contains the first two axioms
+	 */
+	private static long[][] justs(final long... axioms) {
+		if (axioms.length < 2) {
+			return new long[][] { axioms };
+		}
+		// else
+		final long[][] result = new long[axioms.length - 1][];
+		result[0] = new long[] { axioms[0], axioms[1] };
+		for (int i = 2; i < axioms.length; i++) {
+			result[i - 1] = new long[] { axioms[i] };
+		}
+		return result;
+	}
+
+	private static void assertEquals(final long[][] expected,
+			final long[][] actual) {
+		Assert.assertNotNull(actual);
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertArrayEquals(expected[i], actual[i]);
+		}
+	}
+
+}
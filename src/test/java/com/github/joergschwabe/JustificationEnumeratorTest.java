@@ -22,6 +22,7 @@
 package com.github.joergschwabe;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.runner.RunWith;
@@ -31,6 +32,8 @@ import org.liveontologies.puli.Inference;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 import org.liveontologies.puli.pinpointing.ResolutionJustificationComputation;
 
+import com.github.joergschwabe.proofs.adapters.ProofSimplification.Pass;
+
 @RunWith(Parameterized.class)
 public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
 		extends BaseEnumeratorTest<C, I, A> {
@@ -40,6 +43,35 @@ public class JustificationEnumeratorTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getJustificationEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(ResolutionJustificationComputation.getFactory());
+		factories.add(BottomUpJustificationComputation.getFactory());
+		factories.add(BottomUpJustificationComputation.getFactory(4));
+		factories.add(BottomUpJustificationComputation.getFactory(1,
+				new JustificationCache(1000)));
+		// small memory budgets to test spilling
+		factories.add(BottomUpJustificationComputation.getFactory(1, null, 5));
+		factories.add(BottomUpJustificationComputation.getFactory(4, null, 5));
+		factories.add(MinPremisesBottomUp.getFactory());
+		factories.add(MinPremisesBottomUp.getFactory(5));
+		factories.add(DecompositionJustificationComputation.getFactory(
+				BottomUpJustificationComputation
+						.<Object, Inference<Object>, Object> getFactory(),
+				1));
+		factories.add(DecompositionJustificationComputation.getFactory(
+				MinPremisesBottomUp
+						.<Object, Inference<Object>, Object> getFactory(),
+				4));
+		factories.add(SimplifyingJustificationComputation.getFactory(
+				BottomUpJustificationComputation
+						.<Object, Inference<Object>, Object> getFactory()));
+		factories.add(SimplifyingJustificationComputation.getFactory(
+				MinPremisesBottomUp
+						.<Object, Inference<Object>, Object> getFactory(),
+				Arrays.asList(Pass.COLLAPSE_CHAINS,
+						Pass.MERGE_EQUIVALENT_CONCLUSIONS,
+						Pass.REMOVE_DOMINATED_INFERENCES)));
+		factories.add(BinarizedJustificationComputation.getFactory(
+				BottomUpJustificationComputation
+						.<Integer, Inference<Integer>, Object> getFactory()));
 		return factories;
 	}
 
@@ -0,0 +1,253 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
+import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparator;
+
+/**
+ * Tests {@link LimitedEnumeration} using enumerators that report the subsets
+ * {@code {0}, {1}, ...} with the given pauses after each subset
+ *
+ * @author Yevgeny Kazakov
+ */
+public class LimitedEnumerationTest {
+
+	/**
+	 * the pause after which the test fails if the enumeration is still not
+	 * interrupted
+	 */
+	private static final long BLOCK_MILLIS_ = 10000;
+
+	@Test
+	public void testComplete() {
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, 0, 0), LimitedEnumeration.NO_LIMIT,
+				LimitedEnumeration.NO_LIMIT, LimitedEnumeration.NO_LIMIT,
+				InterruptMonitor.DUMMY);
+		Assert.assertEquals(3, result.getSubsets().size());
+		Assert.assertNull(result.getReachedLimit());
+		Assert.assertTrue(result.isComplete());
+	}
+
+	@Test
+	public void testResultsLimit() {
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, 0, 0, 0, 0), 2, LimitedEnumeration.NO_LIMIT,
+				LimitedEnumeration.NO_LIMIT, InterruptMonitor.DUMMY);
+		Assert.assertEquals(2, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.RESULTS,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testLatencyLimit() {
+		// blocks after the second subset
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, BLOCK_MILLIS_, 0),
+				LimitedEnumeration.NO_LIMIT, 50, LimitedEnumeration.NO_LIMIT,
+				InterruptMonitor.DUMMY);
+		Assert.assertEquals(2, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.LATENCY,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testLatencyRestartedByResults() {
+		// every pause is below the latency, but the total time is above it
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20),
+				LimitedEnumeration.NO_LIMIT, 1000, LimitedEnumeration.NO_LIMIT,
+				InterruptMonitor.DUMMY);
+		Assert.assertEquals(10, result.getSubsets().size());
+		Assert.assertNull(result.getReachedLimit());
+		Assert.assertTrue(result.isComplete());
+	}
+
+	@Test
+	public void testDeadlineLimit() {
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, 0, BLOCK_MILLIS_, 0),
+				LimitedEnumeration.NO_LIMIT, LimitedEnumeration.NO_LIMIT, 50,
+				InterruptMonitor.DUMMY);
+		Assert.assertEquals(3, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.DEADLINE,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testDeadlineBeforeLatency() {
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, BLOCK_MILLIS_), LimitedEnumeration.NO_LIMIT,
+				5000, 50, InterruptMonitor.DUMMY);
+		Assert.assertEquals(2, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.DEADLINE,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testResultsLimitNotOverwritten() {
+		// the enumerator does not stop after the interruption, so the
+		// deadline passes after the results limit is reached
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(true, 100, 100, 0), 1, 20, 20, InterruptMonitor.DUMMY);
+		Assert.assertEquals(1, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.RESULTS,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testTimeLimitNotOverwritten() {
+		// more results are reported after the deadline
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(true, 100, 0, 0, 0), 2, LimitedEnumeration.NO_LIMIT,
+				20, InterruptMonitor.DUMMY);
+		Assert.assertEquals(2, result.getSubsets().size());
+		Assert.assertEquals(LimitedEnumeration.Limit.DEADLINE,
+				result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testInterruptedByMonitor() {
+		final InterruptMonitor interrupted = new InterruptMonitor() {
+
+			@Override
+			public boolean isInterrupted() {
+				return true;
+			}
+
+		};
+		final LimitedEnumeration.Result<Integer> result = enumerate(
+				factory(false, 0, 0), LimitedEnumeration.NO_LIMIT,
+				LimitedEnumeration.NO_LIMIT, LimitedEnumeration.NO_LIMIT,
+				interrupted);
+		Assert.assertEquals(1, result.getSubsets().size());
+		Assert.assertNull(result.getReachedLimit());
+		Assert.assertFalse(result.isComplete());
+	}
+
+	private static LimitedEnumeration.Result<Integer> enumerate(
+			final MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Integer> factory,
+			final long maxResults, final long latencyMillis,
+			final long deadlineMillis, final InterruptMonitor monitor) {
+		return new LimitedEnumeration<>(factory, maxResults, latencyMillis,
+				deadlineMillis).enumerate(null, null, monitor, new Object());
+	}
+
+	/**
+	 * @param ignoreInterrupts
+	 *            if {@code true} the enumerators report all subsets;
+	 *            otherwise they stop after a subset if they are interrupted
+	 * @param pauses
+	 *            the pauses in milliseconds after each subset; the pauses are
+	 *            cut short by the interruption unless it is ignored
+	 * @return the factory of the enumerators
+	 */
+	private static MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Integer> factory(
+			final boolean ignoreInterrupts, final long... pauses) {
+		return new MinimalSubsetsFromProofs.Factory<Object, Inference<Object>, Integer>() {
+
+			@Override
+			public MinimalSubsetEnumerator.Factory<Object, Integer> create(
+					final Proof<? extends Inference<Object>> proof,
+					final InferenceJustifier<? super Inference<Object>, ? extends Set<? extends Integer>> justifier,
+					final InterruptMonitor monitor) {
+				return new MinimalSubsetEnumerator.Factory<Object, Integer>() {
+
+					@Override
+					public MinimalSubsetEnumerator<Integer> newEnumerator(
+							final Object query) {
+						return new PausingEnumerator(
+								ignoreInterrupts ? InterruptMonitor.DUMMY
+										: monitor,
+								pauses);
+					}
+
+				};
+			}
+
+		};
+	}
+
+	private static class PausingEnumerator
+			implements MinimalSubsetEnumerator<Integer> {
+
+		private final InterruptMonitor monitor_;
+
+		private final long[] pauses_;
+
+		PausingEnumerator(final InterruptMonitor monitor,
+				final long[] pauses) {
+			this.monitor_ = monitor;
+			this.pauses_ = pauses;
+		}
+
+		@Override
+		public void enumerate(final Listener<Integer> listener,
+				final PriorityComparator<? super Set<Integer>, ?> priorityComparator) {
+			enumerate(listener);
+		}
+
+		@Override
+		public void enumerate(final Listener<Integer> listener) {
+			for (int i = 0; i < pauses_.length; i++) {
+				listener.newMinimalSubset(Collections.singleton(i));
+				final long end = System.currentTimeMillis() + pauses_[i];
+				while (!monitor_.isInterrupted()
+						&& System.currentTimeMillis() < end) {
+					sleep();
+				}
+				if (monitor_.isInterrupted()) {
+					return;
+				}
+				Assert.assertTrue("not interrupted",
+						pauses_[i] < BLOCK_MILLIS_);
+			}
+		}
+
+		private static void sleep() {
+			try {
+				Thread.sleep(1);
+			} catch (final InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,226 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares {@link SatAdapterHorn} with {@link SatAdapterSat4j} on random
+ * small sets of clauses and assumptions
+ *
+ * @author Yevgeny Kazakov
+ */
+public class SatAdapterHornTest {
+
+	private static final int N_ROUNDS_ = 2000;
+
+	private static final int MAX_VARS_ = 10;
+
+	private final Random random_ = new Random(11);
+
+	/**
+	 * the clauses added to the tested solvers since the last reset
+	 */
+	private final List<int[]> clauses_ = new ArrayList<int[]>();
+
+	private SatAdapter tested_, reference_;
+
+	private int nVars_;
+
+	@Test
+	public void testHornClauses() {
+		for (int round = 0; round < N_ROUNDS_; round++) {
+			start();
+			addClauses(random_.nextInt(4 * nVars_) + 1, true);
+			for (int i = 0; i < 5; i++) {
+				check(randomAssumptions());
+			}
+		}
+	}
+
+	@Test
+	public void testNonHornClauses() {
+		for (int round = 0; round < N_ROUNDS_; round++) {
+			start();
+			addClauses(random_.nextInt(5 * nVars_) + 1, false);
+			for (int i = 0; i < 5; i++) {
+				check(randomAssumptions());
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalClauses() {
+		for (int round = 0; round < N_ROUNDS_ / 4; round++) {
+			start();
+			final boolean horn = random_.nextBoolean();
+			for (int step = 0; step < 10; step++) {
+				addClauses(random_.nextInt(3) + 1, horn);
+				check();
+				check(randomAssumptions());
+				check(randomAssumptions());
+			}
+		}
+	}
+
+	@Test
+	public void testReset() {
+		start();
+		for (int round = 0; round < N_ROUNDS_ / 4; round++) {
+			// the clauses before the reset should be disregarded
+			tested_.reset();
+			reference_ = SatAdapterSat4j.FACTORY.DEFAULT.create();
+			clauses_.clear();
+			nVars_ = random_.nextInt(MAX_VARS_) + 1;
+			final boolean horn = random_.nextBoolean();
+			for (int step = 0; step < 3; step++) {
+				addClauses(random_.nextInt(2 * nVars_) + 1, horn);
+				check(randomAssumptions());
+			}
+		}
+	}
+
+	private void start() {
+		tested_ = SatAdapterHorn.FACTORY.DEFAULT.create();
+		reference_ = SatAdapterSat4j.FACTORY.DEFAULT.create();
+		clauses_.clear();
+		nVars_ = random_.nextInt(MAX_VARS_) + 1;
+	}
+
+	/**
+	 * Adds the given number of random clauses to both solvers; the clauses of
+	 * the tested solver are added alternately with
+	 * {@link SatAdapter#addClause(int[], int, int)} and
+	 * {@link SatAdapter#addLiteral(int)}
+	 */
+	private void addClauses(final int count, final boolean horn) {
+		for (int i = 0; i < count; i++) {
+			final int[] clause = randomClause(horn);
+			clauses_.add(clause);
+			reference_.addClause(clause, 0, clause.length);
+			if (random_.nextBoolean()) {
+				// with an offset in the array
+				final int[] lits = new int[clause.length + 2];
+				System.arraycopy(clause, 0, lits, 1, clause.length);
+				tested_.addClause(lits, 1, clause.length);
+			} else {
+				tested_.newClause();
+				for (final int l : clause) {
+					tested_.addLiteral(l);
+				}
+				tested_.addClause();
+			}
+		}
+	}
+
+	/**
+	 * @return a non-empty clause over the first {@link #nVars_} variables
+	 *         which has at most one positive literal if {@code horn} is
+	 *         {@code true}; the literals can be repeated
+	 */
+	private int[] randomClause(final boolean horn) {
+		final int[] clause = new int[random_.nextInt(4) + 1];
+		boolean hasPositive = false;
+		for (int i = 0; i < clause.length; i++) {
+			int l = random_.nextInt(nVars_) + 1;
+			if (random_.nextBoolean() || (horn && hasPositive)) {
+				l = -l;
+			}
+			hasPositive |= l > 0;
+			clause[i] = l;
+		}
+		return clause;
+	}
+
+	private int[] randomAssumptions() {
+		// may use variables that do not occur in clauses
+		final int[] assumptions = new int[random_.nextInt(nVars_ + 1)];
+		for (int i = 0; i < assumptions.length; i++) {
+			final int atom = random_.nextInt(nVars_ + 2) + 1;
+			assumptions[i] = random_.nextBoolean() ? atom : -atom;
+		}
+		return assumptions;
+	}
+
+	private void check() {
+		final boolean expected = reference_.findModel();
+		Assert.assertEquals(expected, tested_.findModel());
+		if (expected) {
+			checkModel(new int[0]);
+		}
+	}
+
+	private void check(final int[] assumptions) {
+		final boolean expected = reference_.findModel(assumptions);
+		Assert.assertEquals(expected, tested_.findModel(assumptions));
+		if (expected) {
+			checkModel(assumptions);
+			Assert.assertNull(tested_.getUnsatCore());
+		} else {
+			checkUnsatCore(assumptions, tested_.getUnsatCore());
+		}
+	}
+
+	/**
+	 * Checks that the last model of the tested solver satisfies all clauses
+	 * and assumptions
+	 */
+	private void checkModel(final int[] assumptions) {
+		for (final int[] clause : clauses_) {
+			boolean satisfied = false;
+			for (final int l : clause) {
+				satisfied |= isTrue(l);
+			}
+			Assert.assertTrue(satisfied);
+		}
+		for (final int l : assumptions) {
+			Assert.assertTrue(isTrue(l));
+		}
+	}
+
+	private boolean isTrue(final int literal) {
+		return literal > 0 ? tested_.isTrue(literal) : !tested_.isTrue(-literal);
+	}
+
+	/**
+	 * Checks that the core is a subsequence of the assumptions that cannot be
+	 * satisfied together with the clauses
+	 */
+	private void checkUnsatCore(final int[] assumptions, final int[] core) {
+		Assert.assertNotNull(core);
+		int pos = 0;
+		for (final int l : core) {
+			while (pos < assumptions.length && assumptions[pos] != l) {
+				pos++;
+			}
+			Assert.assertTrue(pos < assumptions.length);
+			pos++;
+		}
+		Assert.assertFalse(reference_.findModel(core));
+	}
+
+}
@@ -22,13 +22,21 @@ package com.github.joergschwabe;
  */
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.Assert;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparators;
 
 @RunWith(Parameterized.class)
 public class SatJustificationTest<C, I extends Inference<? extends C>, A>
@@ -38,14 +46,39 @@ public class SatJustificationTest<C, I extends Inference<? extends C>, A>
 
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getSatJustificationComputationFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
-		for (SatAdapterSat4j.FACTORY satFactory : SatAdapterSat4j.FACTORY
-				.values()) {
-			factories.add(SatJustificationComputation.getFactory(satFactory));
-		}
-		for (SatAdapterLogicNG.FACTORY satFactory : SatAdapterLogicNG.FACTORY
-				.values()) {
+		for (SatAdapter.Factory satFactory : getSatFactories()) {
 			factories.add(SatJustificationComputation.getFactory(satFactory));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					Minimization.QUICK_XPLAIN));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					Minimization.PROGRESSION));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					SatJustificationComputation.Option.MINIMIZE_USING_CORES));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					SatJustificationComputation.Option.SHARE_ENCODING));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					SatJustificationComputation.Option.MINIMIZE_USING_CORES,
+					SatJustificationComputation.Option.SHARE_ENCODING));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					SatJustificationComputation.Option.BLOCK_ALL_CYCLES));
+			factories.add(SatJustificationComputation.getFactory(satFactory,
+					SatJustificationComputation.Option.MINIMIZE_USING_CORES,
+					SatJustificationComputation.Option.SHARE_ENCODING,
+					SatJustificationComputation.Option.BLOCK_ALL_CYCLES));
 		}
+		SatAdapter.Factory portfolio = SatAdapterPortfolio.getFactory(
+				SatAdapterSat4j.FACTORY.DEFAULT, SatAdapterSat4j.FACTORY.GLUCOSE,
+				SatAdapterLogicNG.FACTORY.MINI_SAT);
+		factories.add(SatJustificationComputation.getFactory(portfolio));
+		factories.add(SatJustificationComputation.getFactory(portfolio,
+				SatJustificationComputation.Option.MINIMIZE_USING_CORES));
+		factories.add(ParallelSatJustificationComputation
+				.getFactory(SatAdapterSat4j.FACTORY.DEFAULT, 4));
+		factories.add(ParallelSatJustificationComputation
+				.getFactory(SatAdapterLogicNG.FACTORY.MINI_SAT, 2));
+		factories.add(ParallelSatJustificationComputation.getFactory(
+				SatAdapterSat4j.FACTORY.GLUCOSE, Minimization.QUICK_XPLAIN, 3,
+				1));
 		return factories;
 	}
 
@@ -55,4 +88,44 @@ public class SatJustificationTest<C, I extends Inference<? extends C>, A>
 				TEST_INPUT_SUBPKG);
 	}
 
+	@Test
+	public void testRepeatedQueries() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+
+		// the results should not depend on the previous enumerations
+		for (int i = 0; i < 2; i++) {
+			final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+			computation.newEnumerator(input.getQuery())
+					.enumerate(new MinimalSubsetCollector<A>(actualResult));
+			Assert.assertEquals(input.getExpectedResult(), actualResult);
+		}
+	}
+
+	@Test
+	public void testPriorityEnumeration() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+
+		// the subsets should be enumerated in the order of cardinality
+		final List<Set<A>> actualResult = new ArrayList<Set<A>>();
+		computation.newEnumerator(input.getQuery()).enumerate(
+				new MinimalSubsetEnumerator.Listener<A>() {
+					@Override
+					public void newMinimalSubset(Set<A> set) {
+						actualResult.add(set);
+					}
+				}, PriorityComparators.<A> cardinality());
+		for (int i = 1; i < actualResult.size(); i++) {
+			Assert.assertTrue(actualResult.get(i - 1).size() <= actualResult
+					.get(i).size());
+		}
+		Assert.assertEquals(input.getExpectedResult(),
+				new HashSet<Set<? extends A>>(actualResult));
+	}
+
 }
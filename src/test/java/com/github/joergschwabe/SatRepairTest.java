@@ -22,13 +22,20 @@
 package com.github.joergschwabe;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.Assert;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetEnumerator;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
+import org.liveontologies.puli.pinpointing.PriorityComparators;
 
 @RunWith(Parameterized.class)
 public class SatRepairTest<C, I extends Inference<? extends C>, A>
@@ -38,14 +45,16 @@ public class SatRepairTest<C, I extends Inference<? extends C>, A>
 
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getRepairEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
-		for (SatAdapterSat4j.FACTORY satFactory : SatAdapterSat4j.FACTORY
-				.values()) {
-			factories.add(SatRepairComputation.getFactory(satFactory));
-		}
-		for (SatAdapterLogicNG.FACTORY satFactory : SatAdapterLogicNG.FACTORY
-				.values()) {
+		for (SatAdapter.Factory satFactory : getSatFactories()) {
 			factories.add(SatRepairComputation.getFactory(satFactory));
+			factories.add(SatRepairComputation.getFactory(satFactory,
+					Minimization.QUICK_XPLAIN));
+			factories.add(SatRepairComputation.getFactory(satFactory,
+					Minimization.PROGRESSION));
 		}
+		factories.add(SatRepairComputation.getFactory(SatAdapterPortfolio
+				.getFactory(SatAdapterSat4j.FACTORY.DEFAULT,
+						SatAdapterLogicNG.FACTORY.MINI_SAT)));
 		return factories;
 	}
 
@@ -54,4 +63,28 @@ public class SatRepairTest<C, I extends Inference<? extends C>, A>
 		return getParameters(getRepairEnumeratorFactories(), TEST_INPUT_SUBPKG);
 	}
 
+	@Test
+	public void testPriorityEnumeration() {
+
+		final MinimalSubsetEnumerator.Factory<C, A> computation = factory
+				.create(input.getProof(), input.getJustifier(),
+						InterruptMonitor.DUMMY);
+
+		// the subsets should be enumerated in the order of cardinality
+		final List<Set<A>> actualResult = new ArrayList<Set<A>>();
+		computation.newEnumerator(input.getQuery()).enumerate(
+				new MinimalSubsetEnumerator.Listener<A>() {
+					@Override
+					public void newMinimalSubset(Set<A> set) {
+						actualResult.add(set);
+					}
+				}, PriorityComparators.<A> cardinality());
+		for (int i = 1; i < actualResult.size(); i++) {
+			Assert.assertTrue(actualResult.get(i - 1).size() <= actualResult
+					.get(i).size());
+		}
+		Assert.assertEquals(input.getExpectedResult(),
+				new HashSet<Set<? extends A>>(actualResult));
+	}
+
 }
@@ -22,12 +22,22 @@
 package com.github.joergschwabe;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.junit.Assert;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
 import org.liveontologies.puli.pinpointing.MinimalSubsetsFromProofs;
 
 @RunWith(Parameterized.class)
@@ -39,6 +49,7 @@ public class TopDownJustificationTest<C, I extends Inference<? extends C>, A>
 	public static List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> getJustificationEnumeratorFactories() {
 		final List<MinimalSubsetsFromProofs.Factory<?, ?, ?>> factories = new ArrayList<MinimalSubsetsFromProofs.Factory<?, ?, ?>>();
 		factories.add(TopDownJustificationComputation.getFactory());
+		factories.add(TopDownJustificationComputation.getFactory(4));
 		return factories;
 	}
 
@@ -47,4 +58,83 @@ public class TopDownJustificationTest<C, I extends Inference<? extends C>, A>
 		return getParameters(getJustificationEnumeratorFactories(), TEST_INPUT_SUBPKG);
 	}
 
+	@Test
+	public void testSingleThreadedProof() {
+
+		// the proof and the justifier fail if used by two threads at once
+		final SingleThreaded guard = new SingleThreaded();
+		final Proof<? extends I> proof = input.getProof();
+		final InferenceJustifier<? super I, ? extends Set<? extends A>> justifier = input
+				.getJustifier();
+		final Proof<I> guardedProof = new Proof<I>() {
+
+			@Override
+			public Collection<? extends I> getInferences(
+					final Object conclusion) {
+				guard.enter();
+				try {
+					return proof.getInferences(conclusion);
+				} finally {
+					guard.exit();
+				}
+			}
+
+		};
+		final InferenceJustifier<I, Set<? extends A>> guardedJustifier = new InferenceJustifier<I, Set<? extends A>>() {
+
+			@Override
+			public Set<? extends A> getJustification(final I inference) {
+				guard.enter();
+				try {
+					return justifier.getJustification(inference);
+				} finally {
+					guard.exit();
+				}
+			}
+
+		};
+
+		final Set<Set<? extends A>> actualResult = new HashSet<Set<? extends A>>();
+		factory.create(guardedProof, guardedJustifier, InterruptMonitor.DUMMY)
+				.newEnumerator(input.getQuery())
+				.enumerate(new MinimalSubsetCollector<A>(actualResult));
+
+		Assert.assertFalse("concurrent access", guard.failed_);
+		Assert.assertEquals(input.getExpectedResult(), actualResult);
+	}
+
+	/**
+	 * Detects when several threads enter at once
+	 */
+	private static class SingleThreaded {
+
+		private final AtomicReference<Thread> owner_ = new AtomicReference<Thread>();
+
+		/**
+		 * the number of nested entries of the owner
+		 */
+		private int depth_ = 0;
+
+		private volatile boolean failed_ = false;
+
+		void enter() {
+			final Thread current = Thread.currentThread();
+			if (owner_.get() != current
+					&& !owner_.compareAndSet(null, current)) {
+				failed_ = true;
+				throw new IllegalStateException("concurrent access");
+			}
+			depth_++;
+			// give other threads a chance to enter
+			Thread.yield();
+		}
+
+		void exit() {
+			if (--depth_ == 0) {
+				owner_.set(null);
+			}
+		}
+
+	}
+
 }
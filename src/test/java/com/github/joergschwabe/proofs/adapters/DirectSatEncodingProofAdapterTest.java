@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe.proofs.adapters;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
+
+import com.github.joergschwabe.BottomUpJustificationComputation;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Tests the parser of {@link DirectSatEncodingProofAdapter}; every input is
+ * loaded both from streams and from files, which should give the same
+ * inferences
+ *
+ * @author Yevgeny Kazakov
+ */
+public class DirectSatEncodingProofAdapterTest {
+
+	/**
+	 * the conclusions whose inferences are compared in the tests with
+	 * specified inputs are at most this number
+	 */
+	private static final int MAX_CONCLUSION_ = 10;
+
+	@Rule
+	public final TemporaryFolder folder_ = new TemporaryFolder();
+
+	private final Random random_ = new Random(25);
+
+	@Test
+	public void testCommentsAndProblemLine() throws IOException {
+		check("3\n",
+				"c a comment 1 0\np cnf 3 2\n1 -2 -3 0\nc 1 -1 0\n2 0\nc\n",
+				"1 <- [2] [3]", "2 <- [] []");
+	}
+
+	@Test
+	public void testRepeatedSpacesAndTabs() throws IOException {
+		check("  3 \t 4\n\n", "\t 1   -2\t\t-3 -4  0 \t\n   2 0\n",
+				"1 <- [2] [3, 4]", "2 <- [] []");
+	}
+
+	@Test
+	public void testCrlf() throws IOException {
+		check("3\r\n", "p cnf 3 2\r\n1 -2 -3 0\r\n\r\n2 0\r\n",
+				"1 <- [2] [3]", "2 <- [] []");
+	}
+
+	@Test
+	public void testNoFinalNewline() throws IOException {
+		check("3", "1 -2 -3 0\n2 0", "1 <- [2] [3]", "2 <- [] []");
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		check("", "");
+		check("", "c only a comment");
+	}
+
+	@Test
+	public void testRepeatedAxiomLiterals() throws IOException {
+		final DirectSatEncodingProofAdapter proof = check("2 3 2\n",
+				"1 -3 -2 -3 -2 -3 0\n1 -2 -2 0\n", "1 <- [] [2, 3]",
+				"1 <- [] [2]");
+		for (final Inference<Integer> inf : proof.getInferences(1)) {
+			final Set<Integer> just = DirectSatEncodingProofAdapter.JUSTIFIER
+					.getJustification(inf);
+			Assert.assertEquals(new HashSet<Integer>(just).size(),
+					just.size());
+			Assert.assertTrue(just.contains(2));
+			Assert.assertFalse(just.contains(4));
+		}
+	}
+
+	@Test
+	public void testRepeatedPremises() throws IOException {
+		check("", "1 -2 -3 -2 0\n", "1 <- [2, 3, 2] []");
+	}
+
+	@Test
+	public void testNonHornClause() throws IOException {
+		checkError(IOException.class, 3, "", "1 0\n2 -1 0\n1 -3 2 0\n");
+	}
+
+	@Test
+	public void testNoPositiveLiteral() throws IOException {
+		checkError(IOException.class, 2, "", "1 0\n-1 -2 0\n");
+	}
+
+	@Test
+	public void testNoPositiveLiteralWithAxioms() throws IOException {
+		checkError(IOException.class, 1, "2", "-2 0\n");
+	}
+
+	@Test
+	public void testUnterminatedClause() throws IOException {
+		checkError(IOException.class, 2, "", "1 0\n1 -2\n2 0\n");
+	}
+
+	@Test
+	public void testUnterminatedLastClause() throws IOException {
+		checkError(IOException.class, 2, "", "1 0\n1 -2");
+	}
+
+	@Test
+	public void testLiteralAfterTerminator() throws IOException {
+		checkError(IOException.class, 1, "", "1 0 -2\n");
+	}
+
+	@Test
+	public void testLiteralAfterTerminatorCrlf() throws IOException {
+		checkError(IOException.class, 3, "", "1 0\r\n2 0\r\n1 -2 0 0\r\n");
+	}
+
+	@Test
+	public void testOverflow() throws IOException {
+		checkError(NumberFormatException.class, 2, "",
+				"1 0\n1 -2147483648 0\n");
+	}
+
+	@Test
+	public void testNotLiteral() throws IOException {
+		checkError(NumberFormatException.class, 2, "", "1 0\n1 -x 0\n");
+	}
+
+	@Test
+	public void testRandomLargeInput() throws IOException {
+		// larger than the buffer of the streams
+		checkRandom(50, 10000, false);
+	}
+
+	@Test
+	public void testRandomJustifications() throws IOException {
+		for (int round = 0; round < 200; round++) {
+			checkRandom(random_.nextInt(8) + 1, random_.nextInt(20) + 1, true);
+		}
+	}
+
+	/**
+	 * Loads the given input from streams and from files and checks that the
+	 * inferences of the conclusions up to {@link #MAX_CONCLUSION_} are as
+	 * expected
+	 * 
+	 * @return the proof loaded from the streams
+	 */
+	private DirectSatEncodingProofAdapter check(final String assumptions,
+			final String cnf, final String... expected) throws IOException {
+		final DirectSatEncodingProofAdapter fromStreams = loadStreams(
+				assumptions, cnf);
+		final DirectSatEncodingProofAdapter fromFiles = loadFiles(assumptions,
+				cnf);
+		final List<String> expectedInferences = new ArrayList<String>(
+				Arrays.asList(expected));
+		Collections.sort(expectedInferences);
+		Assert.assertEquals(expectedInferences,
+				getInferences(fromStreams, MAX_CONCLUSION_));
+		Assert.assertEquals(expectedInferences,
+				getInferences(fromFiles, MAX_CONCLUSION_));
+		Assert.assertEquals(expected.length,
+				fromStreams.getNumberOfInferences());
+		Assert.assertEquals(expected.length,
+				fromFiles.getNumberOfInferences());
+		return fromStreams;
+	}
+
+	/**
+	 * Checks that loading the given input from streams and from files fails
+	 * with the given exception whose message has the given line number
+	 */
+	private void checkError(final Class<? extends Exception> expected,
+			final int lineNumber, final String assumptions, final String cnf)
+			throws IOException {
+		final String line = "line " + lineNumber + "!";
+		try {
+			loadStreams(assumptions, cnf);
+			Assert.fail("loaded from streams");
+		} catch (final IOException | NumberFormatException e) {
+			Assert.assertEquals(expected, e.getClass());
+			Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(line));
+		}
+		try {
+			loadFiles(assumptions, cnf);
+			Assert.fail("loaded from files");
+		} catch (final IOException | NumberFormatException e) {
+			Assert.assertEquals(expected, e.getClass());
+			Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(line));
+		}
+	}
+
+	/**
+	 * Generates a random Horn CNF and checks that the proofs loaded from
+	 * streams and from files have the generated inferences and, if
+	 * {@code justifications} is {@code true}, the same justifications
+	 */
+	private void checkRandom(final int nVars, final int nClauses,
+			final boolean justifications) throws IOException {
+		final Set<Integer> axiomVariables = new TreeSet<Integer>();
+		final StringBuilder assumptions = new StringBuilder();
+		for (int var = 1; var <= nVars; var++) {
+			if (random_.nextInt(3) == 0) {
+				axiomVariables.add(var);
+				assumptions.append(var).append(space());
+			}
+		}
+		final StringBuilder cnf = new StringBuilder();
+		final List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < nClauses; i++) {
+			if (random_.nextInt(10) == 0) {
+				cnf.append("c ").append(random_.nextInt()).append(newLine());
+			}
+			final int conclusion = random_.nextInt(nVars) + 1;
+			final List<Integer> premises = new ArrayList<Integer>();
+			final Set<Integer> axioms = new TreeSet<Integer>();
+			final List<Integer> literals = new ArrayList<Integer>();
+			literals.add(conclusion);
+			final int nNegative = random_.nextInt(4);
+			for (int j = 0; j < nNegative; j++) {
+				final int var = random_.nextInt(nVars) + 1;
+				if (axiomVariables.contains(var)) {
+					axioms.add(var);
+				} else {
+					premises.add(var);
+				}
+				literals.add(-var);
+			}
+			Collections.shuffle(literals, random_);
+			cnf.append(space());
+			for (final int literal : literals) {
+				cnf.append(literal).append(space());
+			}
+			cnf.append(0);
+			if (i < nClauses - 1 || random_.nextBoolean()) {
+				cnf.append(newLine());
+			}
+			// the premises are in the order of the literals
+			final List<Integer> orderedPremises = new ArrayList<Integer>();
+			for (final int literal : literals) {
+				if (literal < 0 && !axiomVariables.contains(-literal)) {
+					orderedPremises.add(-literal);
+				}
+			}
+			expected.add(conclusion + " <- " + orderedPremises + " " + axioms);
+		}
+		Collections.sort(expected);
+		final DirectSatEncodingProofAdapter fromStreams = loadStreams(
+				assumptions.toString(), cnf.toString());
+		final DirectSatEncodingProofAdapter fromFiles = loadFiles(
+				assumptions.toString(), cnf.toString());
+		Assert.assertEquals(expected, getInferences(fromStreams, nVars));
+		Assert.assertEquals(expected, getInferences(fromFiles, nVars));
+		if (!justifications) {
+			return;
+		}
+		// else
+		for (int query = 1; query <= nVars; query++) {
+			Assert.assertEquals(getJustifications(fromStreams, query),
+					getJustifications(fromFiles, query));
+		}
+	}
+
+	private String space() {
+		return random_.nextBoolean() ? " " : random_.nextBoolean() ? "\t" : "  ";
+	}
+
+	private String newLine() {
+		return random_.nextBoolean() ? "\n" : "\r\n";
+	}
+
+	private static DirectSatEncodingProofAdapter loadStreams(
+			final String assumptions, final String cnf) throws IOException {
+		return DirectSatEncodingProofAdapter.load(
+				new ByteArrayInputStream(assumptions.getBytes(Charsets.UTF_8)),
+				new ByteArrayInputStream(cnf.getBytes(Charsets.UTF_8)));
+	}
+
+	private DirectSatEncodingProofAdapter loadFiles(final String assumptions,
+			final String cnf) throws IOException {
+		final File assumptionsFile = folder_.newFile();
+		final File cnfFile = folder_.newFile();
+		Files.write(assumptions, assumptionsFile, Charsets.UTF_8);
+		Files.write(cnf, cnfFile, Charsets.UTF_8);
+		return DirectSatEncodingProofAdapter.load(assumptionsFile, cnfFile);
+	}
+
+	/**
+	 * @return the sorted string representations of the inferences of the
+	 *         conclusions up to the given one with the premises in their
+	 *         order and with the sorted axioms
+	 */
+	private static List<String> getInferences(
+			final DirectSatEncodingProofAdapter proof,
+			final int maxConclusion) {
+		final List<String> result = new ArrayList<String>();
+		for (int conclusion = 0; conclusion <= maxConclusion; conclusion++) {
+			for (final Inference<Integer> inf : proof
+					.getInferences(conclusion)) {
+				Assert.assertEquals(conclusion,
+						inf.getConclusion().intValue());
+				result.add(conclusion + " <- " + inf.getPremises() + " "
+						+ new TreeSet<Integer>(
+								DirectSatEncodingProofAdapter.JUSTIFIER
+										.getJustification(inf)));
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private static Set<Set<Integer>> getJustifications(
+			final DirectSatEncodingProofAdapter proof, final int query) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		BottomUpJustificationComputation
+				.<Integer, Inference<Integer>, Integer> getFactory()
+				.create(proof, DirectSatEncodingProofAdapter.JUSTIFIER,
+						InterruptMonitor.DUMMY)
+				.newEnumerator(query)
+				.enumerate(new MinimalSubsetCollector<Integer>(result));
+		return result;
+	}
+
+}
@@ -0,0 +1,303 @@
+/*-
+ * #%L
+ * Proof Utility Library
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2014 - 2017 Live Ontologies Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.joergschwabe.proofs.adapters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.liveontologies.puli.Inference;
+import org.liveontologies.puli.InferenceJustifier;
+import org.liveontologies.puli.Proof;
+import org.liveontologies.puli.pinpointing.InterruptMonitor;
+import org.liveontologies.puli.pinpointing.MinimalSubsetCollector;
+
+import com.github.joergschwabe.BottomUpJustificationComputation;
+import com.github.joergschwabe.ProofAndJustifierBuilder;
+
+/**
+ * Tests the passes of {@link ProofSimplification} one by one on small proofs
+ * where they apply and checks that the justifications of the query are not
+ * changed by them
+ *
+ * @author Yevgeny Kazakov
+ */
+public class ProofSimplificationTest {
+
+	private static final String QUERY_ = "q";
+
+	private final ProofAndJustifierBuilder<String, Integer> builder_ = new ProofAndJustifierBuilder<String, Integer>();
+
+	@Test
+	public void testCollapseChains() {
+		builder_.conclusion(QUERY_).premise("a").premise("c").add();
+		builder_.conclusion("a").premise("b").axiom(1).add();
+		builder_.conclusion("b").axiom(2).add();
+		builder_.conclusion("c").axiom(3).add();
+		builder_.conclusion("c").axiom(4).add();
+		// a and then b are collapsed into the inference of the query; c has
+		// two inferences
+		check(ProofSimplification.Pass.COLLAPSE_CHAINS, "q <- [c] [1, 2]",
+				"c <- [] [3]", "c <- [] [4]");
+	}
+
+	@Test
+	public void testCollapseChainsSharedConclusion() {
+		builder_.conclusion(QUERY_).premise("a").premise("b").add();
+		builder_.conclusion("a").premise("c").axiom(1).add();
+		builder_.conclusion("b").premise("c").axiom(2).add();
+		builder_.conclusion("c").axiom(3).add();
+		builder_.conclusion("c").premise("d").add();
+		builder_.conclusion("d").axiom(4).add();
+		builder_.conclusion("d").axiom(5).add();
+		// c is used by two inferences until a and b are collapsed; c is not
+		// collapsed since it has two inferences
+		check(ProofSimplification.Pass.COLLAPSE_CHAINS, "q <- [c] [1, 2]",
+				"c <- [] [3]", "c <- [d] []", "d <- [] [4]", "d <- [] [5]");
+	}
+
+	@Test
+	public void testCollapseChainsCycle() {
+		builder_.conclusion(QUERY_).premise("a").add();
+		builder_.conclusion(QUERY_).axiom(1).add();
+		builder_.conclusion("a").premise(QUERY_).axiom(2).add();
+		// the query is not collapsed, so a is collapsed into a cycle
+		check(ProofSimplification.Pass.COLLAPSE_CHAINS, "q <- [q] [2]",
+				"q <- [] [1]");
+	}
+
+	@Test
+	public void testMergeEquivalentConclusions() {
+		builder_.conclusion(QUERY_).premise("a").premise("b").axiom(1).add();
+		builder_.conclusion("a").premise("c").axiom(2).add();
+		builder_.conclusion("b").premise("c").axiom(2).add();
+		builder_.conclusion("c").axiom(3).add();
+		builder_.conclusion("c").axiom(4).add();
+		// either a or b remains
+		final List<String> inferences = simplify(
+				ProofSimplification.Pass.MERGE_EQUIVALENT_CONCLUSIONS);
+		final List<String> mergedToA = sorted("q <- [a] [1]", "a <- [c] [2]",
+				"c <- [] [3]", "c <- [] [4]");
+		final List<String> mergedToB = sorted("q <- [b] [1]", "b <- [c] [2]",
+				"c <- [] [3]", "c <- [] [4]");
+		Assert.assertTrue(inferences.toString(), inferences.equals(mergedToA)
+				|| inferences.equals(mergedToB));
+	}
+
+	@Test
+	public void testMergeEquivalentConclusionsRepeatedly() {
+		builder_.conclusion(QUERY_).premise("a").premise("b").add();
+		builder_.conclusion("a").premise("c").add();
+		builder_.conclusion("b").premise("d").add();
+		builder_.conclusion("c").axiom(1).add();
+		builder_.conclusion("d").axiom(1).add();
+		// a and b become equivalent after c and d are merged
+		final List<String> inferences = simplify(
+				ProofSimplification.Pass.MERGE_EQUIVALENT_CONCLUSIONS);
+		Assert.assertEquals(inferences.toString(), 3, inferences.size());
+		Assert.assertTrue(inferences.toString(),
+				inferences.contains("q <- [a] []")
+						|| inferences.contains("q <- [b] []"));
+	}
+
+	@Test
+	public void testRemoveDominatedInferences() {
+		builder_.conclusion(QUERY_).premise("a").axiom(1).add();
+		// the same inference
+		builder_.conclusion(QUERY_).premise("a").axiom(1).add();
+		builder_.conclusion(QUERY_).premise("a").premise("b").axiom(1).add();
+		builder_.conclusion(QUERY_).premise("a").axiom(1).axiom(2).add();
+		builder_.conclusion(QUERY_).premise("b").axiom(3).add();
+		builder_.conclusion("a").axiom(4).add();
+		builder_.conclusion("b").axiom(5).add();
+		check(ProofSimplification.Pass.REMOVE_DOMINATED_INFERENCES,
+				"q <- [a] [1]", "q <- [b] [3]", "a <- [] [4]", "b <- [] [5]");
+	}
+
+	@Test
+	public void testAllPasses() {
+		buildMixedProof();
+		final ProofSimplification<String, Integer> proof = ProofSimplification
+				.create(builder_.build(), builder_.buildJustifier(), QUERY_,
+						ProofSimplification.ALL_PASSES, InterruptMonitor.DUMMY);
+		Assert.assertEquals(ProofSimplification.ALL_PASSES,
+				proof.getPasses());
+		Assert.assertEquals(getJustifications(builder_.build(),
+				builder_.buildJustifier()),
+				getJustifications(proof, proof.getJustifier()));
+	}
+
+	@Test
+	public void testInterrupted() {
+		buildMixedProof();
+		final Set<Set<Integer>> expected = getJustifications(builder_.build(),
+				builder_.buildJustifier());
+		for (int nChecks = 0; nChecks < 100; nChecks++) {
+			final ProofSimplification<String, Integer> proof = ProofSimplification
+					.create(builder_.build(), builder_.buildJustifier(),
+							QUERY_, ProofSimplification.ALL_PASSES,
+							new CountingMonitor(nChecks));
+			Assert.assertEquals(expected,
+					getJustifications(proof, proof.getJustifier()));
+		}
+	}
+
+	@Test
+	public void testInterruptedBeforePasses() {
+		buildMixedProof();
+		final ProofSimplification<String, Integer> proof = ProofSimplification
+				.create(builder_.build(), builder_.buildJustifier(), QUERY_,
+						ProofSimplification.ALL_PASSES, new CountingMonitor(0));
+		Assert.assertTrue(proof.getPasses().isEmpty());
+		Assert.assertEquals(
+				getInferences(builder_.build(), builder_.buildJustifier()),
+				getInferences(proof, proof.getJustifier()));
+	}
+
+	/**
+	 * a proof where all passes apply
+	 */
+	private void buildMixedProof() {
+		builder_.conclusion(QUERY_).premise("a").premise("b").axiom(1).add();
+		builder_.conclusion(QUERY_).premise("a").premise("b").premise("e")
+				.axiom(1).add();
+		builder_.conclusion(QUERY_).premise("f").add();
+		builder_.conclusion("a").premise("c").axiom(2).add();
+		builder_.conclusion("b").premise("c").axiom(2).add();
+		builder_.conclusion("c").premise("d").axiom(3).add();
+		builder_.conclusion("c").axiom(4).add();
+		builder_.conclusion("d").premise("c").add();
+		builder_.conclusion("d").axiom(5).add();
+		builder_.conclusion("e").add();
+		builder_.conclusion("f").premise("g").axiom(6).add();
+		builder_.conclusion("g").premise("f").add();
+		builder_.conclusion("g").axiom(7).axiom(8).add();
+	}
+
+	/**
+	 * Applies the given pass, checks the resulting inferences, and that the
+	 * justifications are not changed
+	 */
+	private void check(final ProofSimplification.Pass pass,
+			final String... expected) {
+		Assert.assertEquals(sorted(expected), simplify(pass));
+	}
+
+	/**
+	 * Applies the given pass and checks that the justifications are not
+	 * changed
+	 * 
+	 * @return the inferences after the pass
+	 */
+	private List<String> simplify(final ProofSimplification.Pass pass) {
+		final ProofSimplification<String, Integer> proof = ProofSimplification
+				.create(builder_.build(), builder_.buildJustifier(), QUERY_,
+						Collections.singletonList(pass),
+						InterruptMonitor.DUMMY);
+		Assert.assertEquals(Collections.singletonList(pass),
+				proof.getPasses());
+		Assert.assertEquals(getJustifications(builder_.build(),
+				builder_.buildJustifier()),
+				getJustifications(proof, proof.getJustifier()));
+		return getInferences(proof, proof.getJustifier());
+	}
+
+	private static List<String> sorted(final String... inferences) {
+		final List<String> result = new ArrayList<String>(
+				Arrays.asList(inferences));
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * @return the sorted string representations of the inferences used for
+	 *         deriving the query; the premises and the axioms of every
+	 *         inference are sorted
+	 */
+	private static <I extends Inference<String>> List<String> getInferences(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends Integer>> justifier) {
+		final List<String> result = new ArrayList<String>();
+		final Set<String> visited = new HashSet<String>();
+		final Queue<String> toDo = new LinkedList<String>();
+		visited.add(QUERY_);
+		toDo.add(QUERY_);
+		String conclusion;
+		while ((conclusion = toDo.poll()) != null) {
+			for (final I inf : proof.getInferences(conclusion)) {
+				result.add(conclusion + " <- "
+						+ new TreeSet<String>(inf.getPremises()) + " "
+						+ new TreeSet<Integer>(justifier.getJustification(inf)));
+				for (final String premise : inf.getPremises()) {
+					if (visited.add(premise)) {
+						toDo.add(premise);
+					}
+				}
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private static <I extends Inference<String>> Set<Set<Integer>> getJustifications(
+			final Proof<? extends I> proof,
+			final InferenceJustifier<? super I, ? extends Set<? extends Integer>> justifier) {
+		final Set<Set<Integer>> result = new HashSet<Set<Integer>>();
+		BottomUpJustificationComputation.<String, I, Integer> getFactory()
+				.create(proof, justifier, InterruptMonitor.DUMMY)
+				.newEnumerator(QUERY_)
+				.enumerate(new MinimalSubsetCollector<Integer>(result));
+		return result;
+	}
+
+	/**
+	 * Interrupted after the given number of checks
+	 */
+	private static class CountingMonitor implements InterruptMonitor {
+
+		private int remainingChecks_;
+
+		CountingMonitor(final int nChecks) {
+			this.remainingChecks_ = nChecks;
+		}
+
+		@Override
+		public boolean isInterrupted() {
+			if (remainingChecks_ == 0) {
+				return true;
+			}
+			// else
+			remainingChecks_--;
+			return false;
+		}
+
+	}
+
+}